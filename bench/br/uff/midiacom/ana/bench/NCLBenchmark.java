@@ -0,0 +1,88 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.bench;
+
+
+/**
+ * Class that represents a benchmark. The runner calls <i>setUp</i> once for
+ * each document size, then calls <i>run</i> repeatedly measuring the time of
+ * each call and finally calls <i>tearDown</i>.
+ */
+public abstract class NCLBenchmark {
+    
+    
+    /**
+     * Returns the name of the benchmark, used to select and report it.
+     * 
+     * @return 
+     *          name of the benchmark.
+     */
+    public abstract String getName();
+    
+    
+    /**
+     * Prepares the benchmark for a document size.
+     * 
+     * @param size
+     *          number of nodes of the document.
+     * @throws Exception 
+     *          if an error occur while preparing the benchmark.
+     */
+    public void setUp(int size) throws Exception {}
+    
+    
+    /**
+     * Runs one operation of the benchmark. The result is consumed by the
+     * runner, so the operation is not removed by the compiler.
+     * 
+     * @return 
+     *          result of the operation.
+     * @throws Exception 
+     *          if an error occur while running the operation.
+     */
+    public abstract Object run() throws Exception;
+    
+    
+    /**
+     * Releases the resources used for a document size.
+     * 
+     * @throws Exception 
+     *          if an error occur while releasing the resources.
+     */
+    public void tearDown() throws Exception {}
+}
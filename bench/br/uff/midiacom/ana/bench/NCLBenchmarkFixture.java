@@ -0,0 +1,167 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.bench;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Class that creates the documents used by the benchmarks. A document of a
+ * given size is generated by <i>NCLDocumentGenerator</i> with at least that
+ * number of media nodes, grouped in contexts of up to <i>CONTEXT_SIZE</i>
+ * media. Each context has a port to its first media, links between its media
+ * and one media in a hundred reuses a media of another context. The head has
+ * one region, descriptor and connector for each ten media.
+ * 
+ * The documents are written to temporary files, created once for each size.
+ */
+public class NCLBenchmarkFixture {
+    
+    public static final int CONTEXT_SIZE = 100;
+    
+    private static final Map<Integer, File> files = new HashMap<Integer, File>();
+    
+    
+    /**
+     * Creates the generator of the documents with a number of media nodes.
+     * 
+     * @param size
+     *          number of media nodes.
+     * @return 
+     *          generator of the document.
+     */
+    public static NCLDocumentGenerator generator(int size) {
+        int contexts = (size + CONTEXT_SIZE - 1) / CONTEXT_SIZE;
+        int media = (size + contexts - 1) / contexts;
+        
+        NCLDocumentGenerator generator = new NCLDocumentGenerator();
+        generator.setSeed(size);
+        generator.setDepth(1);
+        generator.setFanOut(contexts);
+        generator.setMediaPerContext(media);
+        generator.setLinksPerContext(media - 1);
+        generator.setReuseRatio(0.01);
+        generator.setBaseSize(Math.max(1, size / 10));
+        return generator;
+    }
+    
+    
+    /**
+     * Creates a document with a number of media nodes.
+     * 
+     * @param size
+     *          number of media nodes.
+     * @return 
+     *          document created.
+     * @throws XMLException 
+     *          if an error occur while creating the document.
+     */
+    public static NCLDoc create(int size) throws XMLException {
+        return generator(size).generate();
+    }
+    
+    
+    /**
+     * Returns a file with the XML code of a document with a number of media
+     * nodes. The file is created in the first call for each size.
+     * 
+     * @param size
+     *          number of media nodes.
+     * @return 
+     *          file with the document.
+     * @throws XMLException 
+     *          if an error occur while creating the document.
+     * @throws IOException 
+     *          if an error occur while writing the file.
+     */
+    public static synchronized File getFile(int size) throws XMLException, IOException {
+        File file = files.get(size);
+        if(file != null && file.exists())
+            return file;
+        
+        file = File.createTempFile("bench" + size + "-", ".ncl");
+        file.deleteOnExit();
+        NCLDocumentGenerator.write(create(size), file);
+        files.put(size, file);
+        return file;
+    }
+    
+    
+    /**
+     * Loads a document with a number of media nodes from its file.
+     * 
+     * @param size
+     *          number of media nodes.
+     * @return 
+     *          document loaded.
+     * @throws XMLException 
+     *          if an error occur while loading the document.
+     * @throws IOException 
+     *          if an error occur while writing the file.
+     */
+    public static NCLDoc load(int size) throws XMLException, IOException {
+        NCLDoc doc = new NCLDoc();
+        doc.loadXML(getFile(size));
+        return doc;
+    }
+    
+    
+    public static String mediaId(int i) {
+        return "m" + i;
+    }
+    
+    
+    public static String regionId(int i) {
+        return "rg" + i;
+    }
+    
+    
+    public static String descriptorId(int i) {
+        return "ds" + i;
+    }
+    
+    
+    public static String connectorId(int i) {
+        return "cn" + i;
+    }
+}
@@ -0,0 +1,70 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.bench;
+
+import java.util.Random;
+
+
+/**
+ * Class that creates the sequences of ids searched by the lookup benchmarks.
+ * The sequences are random, but the same for each run.
+ */
+public class NCLBenchmarkLookups {
+    
+    public static final int LOOKUPS = 1024;
+    private static final long SEED = 42L;
+    
+    
+    public static String[] mediaIds(int size) {
+        Random random = new Random(SEED);
+        String[] ids = new String[LOOKUPS];
+        for(int i = 0; i < ids.length; i++)
+            ids[i] = NCLBenchmarkFixture.mediaId(random.nextInt(size));
+        return ids;
+    }
+    
+    
+    public static int[] baseIndexes(int size) {
+        Random random = new Random(SEED);
+        int bases = Math.max(1, size / 10);
+        int[] indexes = new int[LOOKUPS];
+        for(int i = 0; i < indexes.length; i++)
+            indexes[i] = random.nextInt(bases);
+        return indexes;
+    }
+}
@@ -0,0 +1,219 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+
+/**
+ * Class that runs the benchmarks. For each benchmark and document size, the
+ * benchmark operation is run for some warmup iterations, whose results are
+ * discarded, and then for some measurement iterations. Each iteration runs the
+ * operation repeatedly for a fixed time and the result reported is the mean
+ * time per operation of the measurement iterations.
+ * 
+ * Options:
+ * <ul>
+ *  <li><b>-sizes</b> - comma separated list of document sizes (10,100,1000,10000,100000).</li>
+ *  <li><b>-warmup</b> - number of warmup iterations (3).</li>
+ *  <li><b>-iterations</b> - number of measurement iterations (5).</li>
+ *  <li><b>-time</b> - duration of each iteration in milliseconds (1000).</li>
+ *  <li><b>-filter</b> - regular expression selecting the benchmarks by name.</li>
+ * </ul>
+ */
+public class NCLBenchmarkRunner {
+    
+    private static final long MAX_BATCH_NANOS = 10000000L;
+    
+    private int[] sizes = {10, 100, 1000, 10000, 100000};
+    private int warmup = 3;
+    private int iterations = 5;
+    private long time = 1000;
+    private Pattern filter;
+    private volatile int sink;
+    
+    
+    public static void main(String[] args) throws Exception {
+        NCLBenchmarkRunner runner = new NCLBenchmarkRunner();
+        runner.parseOptions(args);
+        runner.run(benchmarks());
+    }
+    
+    
+    /**
+     * Returns all the benchmarks available.
+     * 
+     * @return 
+     *          list of benchmarks.
+     */
+    public static List<NCLBenchmark> benchmarks() {
+        List<NCLBenchmark> list = new ArrayList<NCLBenchmark>();
+        list.add(new NCLLoadBenchmark());
+        list.add(new NCLSnapshotBenchmark());
+        list.add(new NCLParseBenchmark());
+        list.add(new NCLCompareBenchmark());
+        list.add(new NCLTimelineBenchmark());
+        list.add(new NCLSimulatorBenchmark());
+        list.add(new NCLElementListBenchmark());
+        list.add(new NCLBodyLookupBenchmark(false));
+        list.add(new NCLBodyLookupBenchmark(true));
+        list.add(new NCLHeadLookupBenchmark());
+        list.add(new NCLFixReferencesBenchmark());
+        list.add(new NCLNotificationBenchmark());
+        return list;
+    }
+    
+    
+    public void parseOptions(String[] args) {
+        for(int i = 0; i < args.length; i++){
+            String opt = args[i];
+            if(i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for option " + opt);
+            String value = args[++i];
+            
+            if(opt.equals("-sizes")){
+                String[] values = value.split(",");
+                sizes = new int[values.length];
+                for(int j = 0; j < values.length; j++)
+                    sizes[j] = Integer.parseInt(values[j].trim());
+            }
+            else if(opt.equals("-warmup"))
+                warmup = Integer.parseInt(value);
+            else if(opt.equals("-iterations"))
+                iterations = Integer.parseInt(value);
+            else if(opt.equals("-time"))
+                time = Long.parseLong(value);
+            else if(opt.equals("-filter"))
+                filter = Pattern.compile(value);
+            else
+                throw new IllegalArgumentException("Unknown option " + opt);
+        }
+    }
+    
+    
+    /**
+     * Runs a list of benchmarks for all the document sizes and prints the
+     * results.
+     * 
+     * @param benchmarks
+     *          benchmarks to be run.
+     * @throws Exception 
+     *          if an error occur while running a benchmark.
+     */
+    public void run(List<NCLBenchmark> benchmarks) throws Exception {
+        System.out.println(String.format(Locale.US, "%-24s %8s %14s %12s %12s", "Benchmark", "Size", "ns/op", "error", "ops/s"));
+        
+        for(NCLBenchmark benchmark : benchmarks){
+            if(filter != null && !filter.matcher(benchmark.getName()).find())
+                continue;
+            
+            for(int size : sizes){
+                benchmark.setUp(size);
+                try{
+                    for(int i = 0; i < warmup; i++)
+                        iteration(benchmark);
+                    
+                    double[] results = new double[iterations];
+                    for(int i = 0; i < iterations; i++)
+                        results[i] = iteration(benchmark);
+                    
+                    report(benchmark, size, results);
+                }
+                finally{
+                    benchmark.tearDown();
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Runs the benchmark operation for the iteration time. The operation is
+     * run in batches, so the clock is not read for each operation when the
+     * operation is fast.
+     * 
+     * @return 
+     *          mean time per operation in nanoseconds.
+     */
+    private double iteration(NCLBenchmark benchmark) throws Exception {
+        long limit = time * 1000000L;
+        long elapsed = 0;
+        long ops = 0;
+        int batch = 1;
+        
+        while(elapsed < limit){
+            long start = System.nanoTime();
+            for(int i = 0; i < batch; i++)
+                consume(benchmark.run());
+            long spent = System.nanoTime() - start;
+            
+            elapsed += spent;
+            ops += batch;
+            if(spent < MAX_BATCH_NANOS / 2)
+                batch *= 2;
+        }
+        
+        return (double) elapsed / ops;
+    }
+    
+    
+    private void consume(Object result) {
+        if(result != null)
+            sink ^= System.identityHashCode(result);
+    }
+    
+    
+    private void report(NCLBenchmark benchmark, int size, double[] results) {
+        double mean = 0;
+        for(double r : results)
+            mean += r;
+        mean /= results.length;
+        
+        double error = 0;
+        for(double r : results)
+            error += (r - mean) * (r - mean);
+        if(results.length > 1)
+            error = Math.sqrt(error / (results.length - 1));
+        
+        System.out.println(String.format(Locale.US, "%-24s %8d %14.1f %12.1f %12.1f",
+                benchmark.getName(), size, mean, error, 1e9 / mean));
+    }
+}
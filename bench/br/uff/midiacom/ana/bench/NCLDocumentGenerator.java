@@ -0,0 +1,553 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.bench;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.connector.NCLSimpleAction;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.reuse.NCLImportBase;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.enums.NCLNamespace;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Class that generates synthetic NCL documents using the API elements. The
+ * documents generated depend only on the seed and on the shape parameters, so
+ * the same document is generated again with the same values.
+ * 
+ * <br/>
+ * 
+ * The body has <i>fanOut</i> contexts and each context has <i>fanOut</i> child
+ * contexts, until the <i>depth</i> is reached. When the depth is zero, the
+ * media are placed in the body. Each context has <i>mediaPerContext</i> media,
+ * a port to its first media and <i>linksPerContext</i> links, each starting a
+ * random media of the context when another one begins. A fraction of the
+ * media, given by the <i>reuseRatio</i>, reuses (<i>refer</i>) a media of
+ * another context.
+ * 
+ * <br/>
+ * 
+ * The head has <i>baseSize</i> regions, descriptors and connectors. The
+ * connector base also imports <i>imports</i> documents, each one with its own
+ * <i>baseSize</i> connectors, and the links use the connectors of all the
+ * bases.
+ * 
+ * <br/>
+ * 
+ * The element ids are: <i>m</i> for media, <i>ctx</i> for contexts, <i>p</i>
+ * for the context ports, <i>pb</i> for the body ports, <i>l</i> for links,
+ * <i>rg</i> for regions, <i>ds</i> for descriptors and <i>cn</i> for
+ * connectors, followed by the element number, starting from zero.
+ */
+public class NCLDocumentGenerator {
+    
+    private long seed = 0;
+    private int depth = 1;
+    private int fanOut = 4;
+    private int mediaPerContext = 10;
+    private int linksPerContext = 5;
+    private int imports = 0;
+    private double reuseRatio = 0;
+    private int baseSize = 10;
+    
+    private Random random;
+    private int mediaCount, contextCount, linkCount;
+    private List<NCLMedia> medias;
+    private NCLDescriptor[] descriptors;
+    private List<Object> connectors;
+    private List<NCLDoc> importedDocs;
+    private List<String> importedNames;
+    
+    
+    /**
+     * Generates a document from the command line.
+     * 
+     * Usage: <i>NCLDocumentGenerator [options] dir name</i>, where the options
+     * are <i>-seed</i>, <i>-depth</i>, <i>-fanOut</i>, <i>-mediaPerContext</i>,
+     * <i>-linksPerContext</i>, <i>-imports</i>, <i>-reuseRatio</i> and
+     * <i>-baseSize</i>, each followed by its value.
+     */
+    public static void main(String[] args) throws Exception {
+        NCLDocumentGenerator generator = new NCLDocumentGenerator();
+        
+        int i = 0;
+        for(; i + 1 < args.length && args[i].startsWith("-"); i += 2){
+            String opt = args[i];
+            String value = args[i + 1];
+            
+            if(opt.equals("-seed"))
+                generator.setSeed(Long.parseLong(value));
+            else if(opt.equals("-depth"))
+                generator.setDepth(Integer.parseInt(value));
+            else if(opt.equals("-fanOut"))
+                generator.setFanOut(Integer.parseInt(value));
+            else if(opt.equals("-mediaPerContext"))
+                generator.setMediaPerContext(Integer.parseInt(value));
+            else if(opt.equals("-linksPerContext"))
+                generator.setLinksPerContext(Integer.parseInt(value));
+            else if(opt.equals("-imports"))
+                generator.setImports(Integer.parseInt(value));
+            else if(opt.equals("-reuseRatio"))
+                generator.setReuseRatio(Double.parseDouble(value));
+            else if(opt.equals("-baseSize"))
+                generator.setBaseSize(Integer.parseInt(value));
+            else
+                throw new IllegalArgumentException("Unknown option " + opt);
+        }
+        
+        if(args.length - i != 2)
+            throw new IllegalArgumentException("Usage: NCLDocumentGenerator [options] dir name");
+        
+        File file = generator.generate(new File(args[i]), args[i + 1]);
+        System.out.println(file.getPath() + ": " + generator.getMediaCount() + " media, " + file.length() + " bytes");
+    }
+    
+    
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    
+    /**
+     * Sets the number of levels of contexts below the body.
+     * 
+     * @param depth
+     *          number of levels, zero places the media in the body.
+     */
+    public void setDepth(int depth) {
+        if(depth < 0)
+            throw new IllegalArgumentException("Negative depth.");
+        this.depth = depth;
+    }
+    
+    
+    public int getDepth() {
+        return depth;
+    }
+    
+    
+    /**
+     * Sets the number of child contexts of the body and of each context that
+     * is not in the last level.
+     * 
+     * @param fanOut
+     *          number of child contexts.
+     */
+    public void setFanOut(int fanOut) {
+        if(fanOut < 1)
+            throw new IllegalArgumentException("Fan-out must be at least 1.");
+        this.fanOut = fanOut;
+    }
+    
+    
+    public int getFanOut() {
+        return fanOut;
+    }
+    
+    
+    public void setMediaPerContext(int mediaPerContext) {
+        if(mediaPerContext < 1)
+            throw new IllegalArgumentException("A context must have at least one media.");
+        this.mediaPerContext = mediaPerContext;
+    }
+    
+    
+    public int getMediaPerContext() {
+        return mediaPerContext;
+    }
+    
+    
+    public void setLinksPerContext(int linksPerContext) {
+        if(linksPerContext < 0)
+            throw new IllegalArgumentException("Negative number of links.");
+        this.linksPerContext = linksPerContext;
+    }
+    
+    
+    public int getLinksPerContext() {
+        return linksPerContext;
+    }
+    
+    
+    /**
+     * Sets the number of documents imported by the connector base.
+     * 
+     * @param imports
+     *          number of imported documents.
+     */
+    public void setImports(int imports) {
+        if(imports < 0)
+            throw new IllegalArgumentException("Negative number of imports.");
+        this.imports = imports;
+    }
+    
+    
+    public int getImports() {
+        return imports;
+    }
+    
+    
+    /**
+     * Sets the fraction of the media that reuse another media.
+     * 
+     * @param reuseRatio
+     *          value between 0 and 1.
+     */
+    public void setReuseRatio(double reuseRatio) {
+        if(reuseRatio < 0 || reuseRatio > 1)
+            throw new IllegalArgumentException("Reuse ratio must be between 0 and 1.");
+        this.reuseRatio = reuseRatio;
+    }
+    
+    
+    public double getReuseRatio() {
+        return reuseRatio;
+    }
+    
+    
+    /**
+     * Sets the number of regions, descriptors and connectors of the document
+     * and the number of connectors of each imported document.
+     * 
+     * @param baseSize
+     *          number of elements of each base.
+     */
+    public void setBaseSize(int baseSize) {
+        if(baseSize < 1)
+            throw new IllegalArgumentException("A base must have at least one element.");
+        this.baseSize = baseSize;
+    }
+    
+    
+    public int getBaseSize() {
+        return baseSize;
+    }
+    
+    
+    /**
+     * Returns the number of media the generated document will have.
+     * 
+     * @return 
+     *          number of media.
+     */
+    public long getMediaCount() {
+        if(depth == 0)
+            return mediaPerContext;
+        
+        long contexts = 0;
+        long level = 1;
+        for(int i = 0; i < depth; i++){
+            level *= fanOut;
+            contexts += level;
+        }
+        return contexts * mediaPerContext;
+    }
+    
+    
+    /**
+     * Generates a document. The documents imported are only kept in memory,
+     * use <i>generate(File, String)</i> to also write them.
+     * 
+     * @return 
+     *          document generated.
+     * @throws XMLException 
+     *          if an error occur while creating the document.
+     */
+    public NCLDoc generate() throws XMLException {
+        random = new Random(seed);
+        mediaCount = contextCount = linkCount = 0;
+        medias = new ArrayList<NCLMedia>();
+        connectors = new ArrayList<Object>();
+        importedDocs = new ArrayList<NCLDoc>();
+        importedNames = new ArrayList<String>();
+        
+        NCLDoc doc = new NCLDoc();
+        doc.setId("generated" + seed);
+        doc.setXmlns(NCLNamespace.EDTV);
+        
+        NCLHead head = new NCLHead();
+        doc.setHead(head);
+        createHead(head);
+        
+        NCLBody body = new NCLBody();
+        body.setId("body");
+        doc.setBody(body);
+        
+        if(depth == 0)
+            createContent(body, "pb0");
+        else{
+            for(int i = 0; i < fanOut; i++){
+                NCLContext context = createContext(body, 1);
+                
+                NCLPort port = new NCLPort("pb" + i);
+                port.setComponent(context);
+                body.addPort(port);
+            }
+        }
+        
+        medias = null;
+        descriptors = null;
+        connectors = null;
+        return doc;
+    }
+    
+    
+    /**
+     * Generates a document and writes it, and the documents it imports, to a
+     * directory.
+     * 
+     * @param dir
+     *          directory where the documents are written.
+     * @param name
+     *          name of the document file.
+     * @return 
+     *          file with the document.
+     * @throws XMLException 
+     *          if an error occur while creating the document.
+     * @throws IOException 
+     *          if an error occur while writing the files.
+     */
+    public File generate(File dir, String name) throws XMLException, IOException {
+        NCLDoc doc = generate();
+        
+        for(int i = 0; i < importedDocs.size(); i++)
+            write(importedDocs.get(i), new File(dir, importedNames.get(i)));
+        
+        File file = new File(dir, name);
+        write(doc, file);
+        return file;
+    }
+    
+    
+    /**
+     * Writes the XML code of a document to a file.
+     * 
+     * @param doc
+     *          document to be written.
+     * @param file
+     *          file where the document is written.
+     * @throws IOException 
+     *          if an error occur while writing the file.
+     */
+    public static void write(NCLDoc doc, File file) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "ISO-8859-1"));
+        try{
+            doc.write(out, 0);
+        }
+        finally{
+            out.close();
+        }
+    }
+    
+    
+    private void createHead(NCLHead head) throws XMLException {
+        NCLRegionBase regionBase = new NCLRegionBase();
+        NCLDescriptorBase descriptorBase = new NCLDescriptorBase();
+        NCLConnectorBase connectorBase = new NCLConnectorBase();
+        head.addRegionBase(regionBase);
+        head.setDescriptorBase(descriptorBase);
+        head.setConnectorBase(connectorBase);
+        
+        descriptors = new NCLDescriptor[baseSize];
+        for(int i = 0; i < baseSize; i++){
+            NCLRegion region = new NCLRegion("rg" + i);
+            region.setLeft("" + (i % 100) + "%");
+            region.setWidth("10%");
+            regionBase.addRegion(region);
+            
+            descriptors[i] = new NCLDescriptor("ds" + i);
+            descriptors[i].setRegion(region);
+            descriptorBase.addDescriptor(descriptors[i]);
+        }
+        
+        createConnectors(connectorBase, null);
+        
+        for(int i = 0; i < imports; i++){
+            String alias = "imp" + i;
+            String file = "generated" + seed + "-" + alias + ".ncl";
+            
+            NCLDoc imported = new NCLDoc();
+            imported.setId(alias);
+            imported.setXmlns(NCLNamespace.EDTV);
+            NCLHead importedHead = new NCLHead();
+            imported.setHead(importedHead);
+            imported.setBody(new NCLBody());
+            NCLConnectorBase importedBase = new NCLConnectorBase();
+            importedHead.setConnectorBase(importedBase);
+            
+            NCLImportBase imp = new NCLImportBase();
+            imp.setAlias(alias);
+            imp.setDocumentURI(new SrcType(file));
+            imp.setImportedDoc(imported);
+            connectorBase.addImportBase(imp);
+            
+            createConnectors(importedBase, imp);
+            importedDocs.add(imported);
+            importedNames.add(file);
+        }
+    }
+    
+    
+    private void createConnectors(NCLConnectorBase base, NCLImportBase imp) throws XMLException {
+        for(int i = 0; i < baseSize; i++){
+            NCLCausalConnector connector = new NCLCausalConnector("cn" + i);
+            NCLSimpleCondition condition = new NCLSimpleCondition();
+            condition.setRole("onBegin");
+            connector.setCondition(condition);
+            NCLSimpleAction action = new NCLSimpleAction();
+            action.setRole("start");
+            connector.setAction(action);
+            base.addCausalConnector(connector);
+            
+            if(imp == null)
+                connectors.add(connector);
+            else
+                connectors.add(new ExternalReferenceType(imp, connector));
+        }
+    }
+    
+    
+    private NCLContext createContext(NCLCompositeNodeElement parent, int level) throws XMLException {
+        int index = contextCount++;
+        NCLContext context = new NCLContext("ctx" + index);
+        parent.addNode(context);
+        
+        createContent(context, "p" + index);
+        
+        if(level < depth){
+            for(int i = 0; i < fanOut; i++)
+                createContext(context, level + 1);
+        }
+        
+        return context;
+    }
+    
+    
+    private void createContent(NCLCompositeNodeElement composite, String portId) throws XMLException {
+        NCLMedia[] local = new NCLMedia[mediaPerContext];
+        
+        for(int i = 0; i < mediaPerContext; i++){
+            NCLMedia media = new NCLMedia("m" + mediaCount++);
+            
+            NCLMedia target = null;
+            if(reuseRatio > 0 && !medias.isEmpty() && random.nextDouble() < reuseRatio){
+                target = medias.get(random.nextInt(medias.size()));
+                // a node can not be represented twice in the same composition
+                if(target.getParent() == composite)
+                    target = null;
+            }
+            
+            if(target != null)
+                media.setRefer(target);
+            else{
+                media.setSrc(new SrcType("media/" + media.getId() + ".png"));
+                media.setDescriptor(descriptors[random.nextInt(descriptors.length)]);
+            }
+            composite.addNode(media);
+            local[i] = media;
+        }
+        
+        // only the media created in previous composites can be reused
+        for(NCLMedia media : local){
+            if(media.getRefer() == null)
+                medias.add(media);
+        }
+        
+        NCLPort port = new NCLPort(portId);
+        port.setComponent(local[0]);
+        composite.addPort(port);
+        
+        for(int i = 0; i < linksPerContext && mediaPerContext > 1; i++){
+            NCLMedia first = local[random.nextInt(local.length)];
+            NCLMedia second = local[random.nextInt(local.length)];
+            
+            Object connector = connectors.get(random.nextInt(connectors.size()));
+            NCLCausalConnector target;
+            if(connector instanceof ExternalReferenceType)
+                target = (NCLCausalConnector) ((ExternalReferenceType) connector).getTarget();
+            else
+                target = (NCLCausalConnector) connector;
+            
+            NCLLink link = new NCLLink();
+            link.setId("l" + linkCount++);
+            link.setXconnector(connector);
+            
+            NCLBind bind = new NCLBind();
+            bind.setRole(target.findRole("onBegin"));
+            bind.setComponent(first);
+            link.addBind(bind);
+            
+            bind = new NCLBind();
+            bind.setRole(target.findRole("start"));
+            bind.setComponent(second);
+            link.addBind(bind);
+            
+            composite.addLink(link);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.bench;
+
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.ElementList;
+
+
+/**
+ * Benchmark of the search of an element by its id in a list
+ * (<i>ElementList.get</i>). The list has one media for each document node.
+ */
+public class NCLElementListBenchmark extends NCLBenchmark {
+    
+    private ElementList<NCLMedia> list;
+    private String[] ids;
+    private int next;
+    
+    
+    @Override
+    public String getName() {
+        return "ElementList.get";
+    }
+    
+    
+    @Override
+    public void setUp(int size) throws Exception {
+        list = new ElementList<NCLMedia>();
+        for(int i = 0; i < size; i++)
+            list.add(new NCLMedia(NCLBenchmarkFixture.mediaId(i)));
+        
+        ids = NCLBenchmarkLookups.mediaIds(size);
+        next = 0;
+    }
+    
+    
+    @Override
+    public Object run() throws Exception {
+        String id = ids[next];
+        next = (next + 1) % ids.length;
+        return list.get(id);
+    }
+    
+    
+    @Override
+    public void tearDown() throws Exception {
+        list = null;
+    }
+}
@@ -0,0 +1,109 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.bench;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.modification.NCLModificationListener;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+
+
+/**
+ * Benchmark of the modification of elements with a listener registered. Each
+ * operation changes the id of a media and changes it back, so it measures the
+ * notification of the modification together with the update of the indexes
+ * of the document.
+ */
+public class NCLNotificationBenchmark extends NCLBenchmark {
+    
+    private NCLDoc doc;
+    private NCLModificationNotifier notifier;
+    private NCLMedia[] medias;
+    private int next;
+    
+    
+    @Override
+    public String getName() {
+        return "notification";
+    }
+    
+    
+    @Override
+    public void setUp(int size) throws Exception {
+        doc = NCLBenchmarkFixture.load(size);
+        notifier = new NCLModificationNotifier(0, NCLModificationNotifier.NCLOverflowPolicy.BLOCK);
+        notifier.addListener(new NCLModificationListener() {
+            private long received;
+            
+            @Override
+            public void modifiedElement(NCLNotification notification) {
+                received++;
+            }
+        });
+        doc.setModificationNotifier(notifier);
+        
+        NCLBody body = (NCLBody) doc.getBody();
+        String[] ids = NCLBenchmarkLookups.mediaIds(size);
+        medias = new NCLMedia[ids.length];
+        for(int i = 0; i < ids.length; i++)
+            medias[i] = (NCLMedia) body.findNode(ids[i]);
+        next = 0;
+    }
+    
+    
+    @Override
+    public Object run() throws Exception {
+        NCLMedia media = medias[next];
+        next = (next + 1) % medias.length;
+        
+        String id = media.getId();
+        media.setId(id + "x");
+        media.setId(id);
+        return media;
+    }
+    
+    
+    @Override
+    public void tearDown() throws Exception {
+        notifier.finish();
+        notifier = null;
+        doc = null;
+    }
+}
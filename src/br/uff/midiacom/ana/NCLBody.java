@@ -54,9 +54,12 @@ import br.uff.midiacom.ana.reuse.NCLImport;
 import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.xml.XMLStreamLoader;
+import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -145,29 +148,25 @@ public class NCLBody<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";        
+        space = indent(ident);
         
         // <body> element and attributes declaration
-        content = space + "<body";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<body");
+        out.append(parseAttributes());
+        out.append(">\n");
         
         // <body> element content
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
         
         // <body> element end declaration
-        content += space + "</body>\n";
-        
-        return content;
+        out.append(space).append("</body>\n");
     }
 
 
@@ -188,30 +187,128 @@ public class NCLBody<T extends NCLElement,
 
         try{
             // create the child nodes (except ports and links)
+            ArrayList<Element> deferred = new ArrayList<Element>();
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadProperties(el);
-                    loadMetas(el);
-                    loadMetadatas(el);
-                    loadMedia(el);
-                    loadContext(el);
-                    loadSwitch(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case PROPERTY:
+                            loadProperties(el);
+                            break;
+                        case META:
+                            loadMetas(el);
+                            break;
+                        case METADATA:
+                            loadMetadatas(el);
+                            break;
+                        case MEDIA:
+                            loadMedia(el);
+                            break;
+                        case CONTEXT:
+                            loadContext(el);
+                            break;
+                        case SWITCH:
+                            loadSwitch(el);
+                            break;
+                        case PORT:
+                        case LINK:
+                            deferred.add(el);
+                            break;
+                    }
                 }
             }
 
             // create the child nodes (ports and links)
-            nl = element.getChildNodes();
-            for(int i=0; i < nl.getLength(); i++){
-                Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+            for(Element el : deferred){
+                switch(NCLElementAttributes.getEnumType(el.getTagName())){
+                    case PORT:
+                        loadPorts(el);
+                        break;
+                    case LINK:
+                        loadLinks(el);
+                        break;
+                }
+            }
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("Body > " + ex.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Reads the XML code representing the body from a stream loader. The
+     * children of the body are read one at a time and their XML code is
+     * discarded after they are loaded. Ports and links are kept to be loaded
+     * after the nodes, since they refer to them.
+     * 
+     * @param loader
+     *          stream loader positioned at the body element.
+     * @throws XMLException 
+     *          if any error occur.
+     */
+    public void load(XMLStreamLoader loader) throws XMLException {
+        ArrayList<Element> deferred = new ArrayList<Element>();
+
+        try{
+            loadId(loader.readAttributes());
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("Body:\n" + ex.getMessage());
+        }
 
-                    loadPorts(el);
-                    loadLinks(el);
+        try{
+            // create the child nodes (except ports and links)
+            while(loader.nextChild()){
+                NCLElementAttributes tag = NCLElementAttributes.getEnumType(loader.getTagName());
+                if(tag == null){
+                    loader.skipElement();
+                    continue;
+                }
+
+                switch(tag){
+                    case CONTEXT:
+                        loadContext(loader);
+                        break;
+                    case PORT:
+                    case LINK:
+                        deferred.add(loader.readElement());
+                        break;
+                    case PROPERTY:
+                        loadProperties(loader.readElement());
+                        break;
+                    case META:
+                        loadMetas(loader.readElement());
+                        break;
+                    case METADATA:
+                        loadMetadatas(loader.readElement());
+                        break;
+                    case MEDIA:
+                        loadMedia(loader.readElement());
+                        break;
+                    case SWITCH:
+                        loadSwitch(loader.readElement());
+                        break;
+                    default:
+                        loader.skipElement();
+                }
+            }
+
+            // create the child nodes (ports and links)
+            for(Element el : deferred){
+                switch(NCLElementAttributes.getEnumType(el.getTagName())){
+                    case PORT:
+                        loadPorts(el);
+                        break;
+                    case LINK:
+                        loadLinks(el);
+                        break;
                 }
             }
         }
@@ -230,17 +327,13 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseMetas(ident);
-        content += parseMetadatas(ident);
-        content += parsePorts(ident);
-        content += parseProperties(ident);
-        content += parseNodes(ident);
-        content += parseLinks(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeMetas(out, ident);
+        writeMetadatas(out, ident);
+        writePorts(out, ident);
+        writeProperties(out, ident);
+        writeNodes(out, ident);
+        writeLinks(out, ident);
     }
     
     
@@ -263,15 +356,12 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseMetas(int ident) {
+    protected void writeMetas(Appendable out, int ident) throws IOException {
         if(!hasMeta())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : metas)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -285,15 +375,12 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseMetadatas(int ident) {
+    protected void writeMetadatas(Appendable out, int ident) throws IOException {
         if(!hasMetadata())
-            return "";
+            return;
         
-        String content = "";
         for(Emt aux : metadatas)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -307,15 +394,12 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parsePorts(int ident) {
+    protected void writePorts(Appendable out, int ident) throws IOException {
         if(!hasPort())
-            return "";
+            return;
         
-        String content = "";
         for(Ept aux : ports)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -329,15 +413,12 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseProperties(int ident) {
+    protected void writeProperties(Appendable out, int ident) throws IOException {
         if(!hasProperty())
-            return "";
+            return;
         
-        String content = "";
         for(Epp aux : properties)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -351,15 +432,12 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseNodes(int ident) {
+    protected void writeNodes(Appendable out, int ident) throws IOException {
         if(!hasNode())
-            return "";
+            return;
         
-        String content = "";
         for(En aux : nodes)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -383,6 +461,17 @@ public class NCLBody<T extends NCLElement,
     }
     
     
+    protected void loadContext(XMLStreamLoader loader) throws XMLException {
+        // create the context reading its children from the stream
+        En inst = createContext();
+        addNode(inst);
+        if(inst instanceof NCLContext)
+            ((NCLContext) inst).load(loader);
+        else
+            inst.load(loader.readElement());
+    }
+    
+    
     protected void loadSwitch(Element element) throws XMLException {
         // create the switch
         if(element.getTagName().equals(NCLElementAttributes.SWITCH.toString())){
@@ -393,15 +482,12 @@ public class NCLBody<T extends NCLElement,
     }
     
     
-    protected String parseLinks(int ident) {
+    protected void writeLinks(Appendable out, int ident) throws IOException {
         if(!hasLink())
-            return "";
+            return;
         
-        String content = "";
         for(El aux : links)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -433,6 +519,11 @@ public class NCLBody<T extends NCLElement,
         if(result != null)
             return result;
         
+        // search in the document registry
+        NCLElement el = findRegistered(id);
+        if(el instanceof NCLInterface)
+            return (Ei) el;
+        
         // search as a port
         result = (Ei) ports.get(id);
         if(result != null)
@@ -462,6 +553,11 @@ public class NCLBody<T extends NCLElement,
     public En findNode(String id) throws XMLException {
         En result;
         
+        // search in the document registry
+        NCLElement el = findRegistered(id);
+        if(el instanceof NCLNode)
+            return (En) el;
+        
         for(En node : nodes){
             result = (En) node.findNode(id);
             if(result != null)
@@ -40,20 +40,42 @@ package br.uff.midiacom.ana;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.enums.NCLNamespace;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.reuse.NCLDocumentCache;
+import br.uff.midiacom.ana.reuse.NCLImport;
 import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLLoadProfile;
+import br.uff.midiacom.ana.util.ncl.NCLObjectGraph;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.exception.NCLModificationException;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import br.uff.midiacom.ana.util.modification.NCLNotification.NCLNotificationType;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
+import br.uff.midiacom.ana.util.xml.XMLStreamLoader;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -101,6 +123,14 @@ public class NCLDoc<T extends NCLElement,
     protected String fileName;
     protected ElementList<Ev> globalVariables;
     protected ArrayList<PostReferenceElement> references;
+    protected Map<String, Object> identifiers;
+    protected transient NCLDocumentCache documentCache;
+    protected transient Executor importExecutor;
+    protected transient NCLModificationNotifier modificationNotifier;
+    protected boolean lazyImports;
+    protected boolean partialImports;
+    protected NCLLoadProfile loadProfile;
+    protected ArrayList<NCLImport> pendingImports;
 
 
     /**
@@ -113,6 +143,8 @@ public class NCLDoc<T extends NCLElement,
         super();
         globalVariables = new ElementList<Ev>();
         references = new ArrayList<PostReferenceElement>();
+        identifiers = new HashMap<String, Object>();
+        pendingImports = new ArrayList<NCLImport>();
     }
     
     
@@ -137,6 +169,7 @@ public class NCLDoc<T extends NCLElement,
      *          if the string representing the title is empty.
      */
     public void setTitle(String title) throws XMLException {
+        checkModifiable();
         if(title != null && "".equals(title.trim()))
             throw new XMLException("Empty title String");
         
@@ -171,6 +204,7 @@ public class NCLDoc<T extends NCLElement,
      *          if the value representing the namespace is null.
      */
     public void setXmlns(NCLNamespace xmlns) throws XMLException {
+        checkModifiable();
         if(xmlns == null)
             throw new XMLException("Null xmlns.");
 
@@ -204,6 +238,7 @@ public class NCLDoc<T extends NCLElement,
      *          the head already defined.
      */
     public void setHead(Eh head) throws XMLException {
+        checkModifiable();
         // Remove the parent of the actual head, if it exists
         if(this.head != null){
             this.head.setParent(null);
@@ -241,6 +276,7 @@ public class NCLDoc<T extends NCLElement,
      *          the body already defined.
      */
     public void setBody(Eb body) throws XMLException {
+        checkModifiable();
         // Remove the parent of the actual body, if it exists
         if(this.body != null){
             this.body.setParent(null);
@@ -291,6 +327,245 @@ public class NCLDoc<T extends NCLElement,
     public String getFileName() {
         return fileName;
     }
+    
+    
+    /**
+     * Sets the cache used to get the documents imported by this document. The
+     * documents imported use the same cache for their own imports. If no cache
+     * is set, every imported document is loaded from its file.
+     * 
+     * @param documentCache
+     *          cache of imported documents or <i>null</i> to load the imported
+     *          documents from their files.
+     * @throws XMLException 
+     *          if the document is frozen.
+     */
+    public void setDocumentCache(NCLDocumentCache documentCache) throws XMLException {
+        checkModifiable();
+        this.documentCache = documentCache;
+    }
+    
+    
+    /**
+     * Returns the cache used to get the documents imported by this document or
+     * <i>null</i> if the document does not use a cache.
+     * 
+     * @return 
+     *          cache of imported documents or <i>null</i> if the document does
+     *          not use a cache.
+     */
+    public NCLDocumentCache getDocumentCache() {
+        return documentCache;
+    }
+    
+    
+    /**
+     * Sets the executor used to load the documents imported by this document.
+     * When an executor is set, the imported documents are loaded in parallel
+     * and the document waits for them when one of them is used and before
+     * fixing its references. The documents imported use the same executor for
+     * their own imports. If no executor is set, every imported document is
+     * loaded when its import element is read.
+     * 
+     * @param importExecutor
+     *          executor used to load the imported documents or <i>null</i> to
+     *          load them one after the other.
+     * @throws XMLException 
+     *          if the document is frozen.
+     */
+    public void setImportExecutor(Executor importExecutor) throws XMLException {
+        checkModifiable();
+        this.importExecutor = importExecutor;
+    }
+    
+    
+    /**
+     * Returns the executor used to load the documents imported by this
+     * document or <i>null</i> if the imported documents are loaded one after
+     * the other.
+     * 
+     * @return 
+     *          executor used to load the imported documents or <i>null</i>.
+     */
+    public Executor getImportExecutor() {
+        return importExecutor;
+    }
+    
+    
+    /**
+     * Sets if the documents imported by this document are loaded lazily. A
+     * lazy import only loads its document the first time it is used, for
+     * example when a connector, descriptor or region of the imported base is
+     * searched for. Imported documents that are never referred to are not
+     * loaded at all. The global variables of an imported document are added
+     * to this document when it is loaded. The documents imported use the same
+     * option for their own imports.
+     * 
+     * @param lazyImports
+     *          true to load the imported documents when they are used for the
+     *          first time.
+     * @throws XMLException 
+     *          if the document is frozen.
+     */
+    public void setLazyImports(boolean lazyImports) throws XMLException {
+        checkModifiable();
+        this.lazyImports = lazyImports;
+    }
+    
+    
+    /**
+     * Verifies if the documents imported by this document are loaded lazily.
+     * 
+     * @return 
+     *          true if the imported documents are loaded when they are used
+     *          for the first time.
+     */
+    public boolean isLazyImports() {
+        return lazyImports;
+    }
+    
+    
+    /**
+     * Sets if the documents imported by this document with an <i>importBase</i>
+     * element are loaded partially. A partial import only loads the imported
+     * base (and the bases it refers to) and the imported document base of the
+     * imported document, skipping the rest of its head and its body. The
+     * documents imported with an <i>importNCL</i> element are always loaded
+     * completely. The documents imported use the same option for their own
+     * imports.
+     * 
+     * @param partialImports
+     *          true to load only the imported bases of the imported documents.
+     * @throws XMLException 
+     *          if the document is frozen.
+     */
+    public void setPartialImports(boolean partialImports) throws XMLException {
+        checkModifiable();
+        this.partialImports = partialImports;
+    }
+    
+    
+    /**
+     * Verifies if the documents imported by this document with an
+     * <i>importBase</i> element are loaded partially.
+     * 
+     * @return 
+     *          true if only the imported bases of the imported documents are
+     *          loaded.
+     */
+    public boolean isPartialImports() {
+        return partialImports;
+    }
+    
+    
+    /**
+     * Returns the profile used to load the document or <i>null</i> if the
+     * whole document was loaded.
+     * 
+     * @return 
+     *          load profile or <i>null</i>.
+     */
+    public NCLLoadProfile getLoadProfile() {
+        return loadProfile;
+    }
+    
+    
+    /**
+     * Freezes the document, turning it into a read-only document. After being
+     * frozen, the document, its elements and their lists can not be modified
+     * anymore: every method that would modify them throws an exception and no
+     * modification is notified.
+     * 
+     * <br/>
+     * 
+     * A frozen document is not copied, its elements are kept as they are. Since
+     * it does not change, any number of threads can search and write the
+     * document at the same time without locks, as long as the document is
+     * handed to them after this method returns (for example, through an
+     * executor).
+     * 
+     * <br/>
+     * 
+     * The imported documents not loaded yet are loaded and all the imported
+     * documents are also frozen. The elements of a frozen document do not
+     * register the elements of other documents that refer to them, those
+     * references are kept by the import elements of the other documents.
+     * 
+     * @throws XMLException 
+     *          if an error occur while loading an imported document.
+     */
+    public void freeze() throws XMLException {
+        waitImports();
+        
+        NCLObjectGraph.walk(this, new NCLObjectGraph.Visitor() {
+            @Override
+            public void visit(Object object) throws XMLException {
+                // the imported document must be loaded before being frozen
+                if(object instanceof NCLImport)
+                    ((NCLImport) object).getImportedDoc();
+                
+                if(object instanceof NCLElementPrototype)
+                    ((NCLElementPrototype) object).freezeElement();
+                else if(object instanceof ElementList)
+                    ((ElementList) object).freeze();
+            }
+        });
+    }
+    
+    
+    /**
+     * Creates a copy of the document and of all its elements. The elements of
+     * the copy refer to the copied elements, like the binds of the copied
+     * contexts or the descriptors of the copied head, and the copy has its own
+     * identifiers. The imported documents are not copied, they are shared by
+     * the document and its copy.
+     * 
+     * <br/>
+     * 
+     * The document cache, the import executor and the modification notifier
+     * are also shared. The copy of a frozen document is not frozen.
+     * 
+     * @return 
+     *          copy of the document.
+     * @throws XMLException 
+     *          if an error occur while loading an imported document.
+     */
+    @Override
+    public NCLDoc<T, Eh, Eb, Ev> deepCopy() throws XMLException {
+        waitImports();
+        return (NCLDoc<T, Eh, Eb, Ev>) super.deepCopy();
+    }
+    
+    
+    /**
+     * Sets the notifier that delivers the modifications of the elements of
+     * this document. The modifications of the document are then delivered
+     * only to the listeners of this notifier and do not compete with the
+     * modifications of other documents in the global notifier. If no notifier
+     * is set, the modifications are delivered by the global notifier.
+     * 
+     * @param modificationNotifier
+     *          notifier of the document or <i>null</i> to use the global
+     *          notifier.
+     * @throws XMLException 
+     *          if the document is frozen.
+     */
+    public void setModificationNotifier(NCLModificationNotifier modificationNotifier) throws XMLException {
+        checkModifiable();
+        this.modificationNotifier = modificationNotifier;
+    }
+    
+    
+    /**
+     * Returns the notifier that delivers the modifications of the elements of
+     * this document or <i>null</i> if the global notifier is used.
+     * 
+     * @return 
+     *          notifier of the document or <i>null</i>.
+     */
+    public NCLModificationNotifier getModificationNotifier() {
+        return modificationNotifier;
+    }
 
 
     /**
@@ -434,11 +709,154 @@ public class NCLDoc<T extends NCLElement,
      * 
      * @param list 
      *          element list with all variables.
+     * @throws XMLException 
+     *          if the document is frozen.
      */
-    public void addGlobalVariableLists(ElementList<Ev> list) {
+    public void addGlobalVariableLists(ElementList<Ev> list) throws XMLException {
         globalVariables.addAll(list);
     }
     
+    
+    /**
+     * Returns the element of the document with a specific id. The document
+     * keeps a registry of the identifiable elements that belong to it, which
+     * is updated when elements are inserted in or removed from the document
+     * and when their ids change.
+     * 
+     * @param id
+     *          string representing the id of the element.
+     * @return 
+     *          element with the id or <i>null</i> if no element, or more than
+     *          one element, of the document has the id.
+     */
+    public NCLIdentifiableElementPrototype getElementById(String id) {
+        if(id == null)
+            return null;
+        
+        Object aux = identifiers.get(id);
+        if(aux instanceof NCLIdentifiableElementPrototype)
+            return (NCLIdentifiableElementPrototype) aux;
+        else
+            return null;
+    }
+    
+    
+    /**
+     * Returns all the elements of the document with a specific id. A valid
+     * document has at most one element with each id, so the list has more
+     * than one element only if the id is repeated.
+     * 
+     * @param id
+     *          string representing the id of the elements.
+     * @return 
+     *          list of elements with the id, empty if no element has the id.
+     */
+    public List<NCLIdentifiableElementPrototype> getElementsById(String id) {
+        List<NCLIdentifiableElementPrototype> result = new ArrayList<NCLIdentifiableElementPrototype>();
+        
+        Object aux = id == null ? null : identifiers.get(id);
+        if(aux instanceof NCLIdentifiableElementPrototype)
+            result.add((NCLIdentifiableElementPrototype) aux);
+        else if(aux instanceof ArrayList){
+            for(Object el : (ArrayList) aux)
+                result.add((NCLIdentifiableElementPrototype) el);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Searches the registry of the document for an element with a specific id
+     * that is a descendant of the element <i>scope</i>, or the element itself.
+     * Elements reached through a node that reuses another node are not
+     * considered, since the search inside the reused node is done by the node
+     * itself.
+     * 
+     * @param scope
+     *          element where the element must be inside.
+     * @param id
+     *          string representing the id of the element.
+     * @return 
+     *          element with the id or <i>null</i> if it was not found.
+     */
+    @Deprecated
+    public NCLElement findElement(NCLElement scope, String id) {
+        NCLElement result = getElementById(id);
+        
+        NCLElement aux = result;
+        while(aux != null){
+            if(aux == scope)
+                return result;
+            
+            aux = (NCLElement) aux.getParent();
+            if((aux instanceof NCLContext && ((NCLContext) aux).getRefer() != null) ||
+                    (aux instanceof NCLSwitch && ((NCLSwitch) aux).getRefer() != null) ||
+                    (aux instanceof NCLMedia && ((NCLMedia) aux).getRefer() != null))
+                return null;
+        }
+        
+        return null;
+    }
+    
+    
+    /**
+     * Adds an element to the registry of identifiable elements of the
+     * document. This method is called by the element itself.
+     * 
+     * @param element
+     *          element to be registered.
+     */
+    @Deprecated
+    public void addIdentifier(NCLIdentifiableElementPrototype element) {
+        String id = element.getId();
+        if(id == null)
+            return;
+        
+        Object aux = identifiers.get(id);
+        if(aux == null)
+            identifiers.put(id, element);
+        else if(aux instanceof ArrayList)
+            ((ArrayList) aux).add(element);
+        else if(aux != element){
+            ArrayList<Object> list = new ArrayList<Object>(2);
+            list.add(aux);
+            list.add(element);
+            identifiers.put(id, list);
+        }
+    }
+    
+    
+    /**
+     * Removes an element from the registry of identifiable elements of the
+     * document. This method is called by the element itself.
+     * 
+     * @param element
+     *          element to be removed.
+     * @param id
+     *          id the element was registered with.
+     */
+    @Deprecated
+    public void removeIdentifier(NCLIdentifiableElementPrototype element, String id) {
+        if(id == null)
+            return;
+        
+        Object aux = identifiers.get(id);
+        if(aux == element)
+            identifiers.remove(id);
+        else if(aux instanceof ArrayList){
+            ArrayList list = (ArrayList) aux;
+            for(int i = 0; i < list.size(); i++){
+                if(list.get(i) == element){
+                    list.remove(i);
+                    break;
+                }
+            }
+            if(list.size() == 1)
+                identifiers.put(id, list.get(0));
+        }
+    }
+    
 
     @Override
     public boolean compare(T other) {
@@ -466,34 +884,30 @@ public class NCLDoc<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
         // XML document start declaration
-        content = space + "<?xml version='1.0' encoding='ISO-8859-1'?>\n";
+        out.append(space).append("<?xml version='1.0' encoding='ISO-8859-1'?>\n");
 
-        content += space + "<!-- Generated with aNa - API for NCL Authoring -->\n\n";
+        out.append(space).append("<!-- Generated with aNa - API for NCL Authoring -->\n\n");
 
         // <ncl> element and attributes declaration
-        content += space + "<ncl";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<ncl");
+        out.append(parseAttributes());
+        out.append(">\n");
 
         // <ncl> element content
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
 
         // <ncl> element end declaration
-        content += space + "</ncl>\n";
-
-        return content;
+        out.append(space).append("</ncl>\n");
     }
 
 
@@ -515,7 +929,8 @@ public class NCLDoc<T extends NCLElement,
 
             loadBody(element);
 
-            // fix the references needed
+            // wait for the imported documents and fix the references needed
+            waitImports();
             fixReferences();
         }
         catch(XMLException ex){
@@ -535,13 +950,18 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseHead(ident);
-        content += parseBody(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeHead(out, ident);
+        writeBody(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        if(head != null)
+            children.add(head);
+        if(body != null)
+            children.add(body);
     }
     
     
@@ -602,12 +1022,10 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
-    protected String parseHead(int ident) {
+    protected void writeHead(Appendable out, int ident) throws IOException {
         Eh aux = getHead();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -617,7 +1035,7 @@ public class NCLDoc<T extends NCLElement,
         
         // create the head
         ch_name = NCLElementAttributes.HEAD.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
+        el = XMLChildElements.getChild(element, ch_name);
         if(el != null){
             Eh inst = createHead();
             setHead(inst);
@@ -626,12 +1044,10 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
-    protected String parseBody(int ident) {
+    protected void writeBody(Appendable out, int ident) throws IOException {
         Eb aux = getBody();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -641,7 +1057,7 @@ public class NCLDoc<T extends NCLElement,
         
         // create the body
         ch_name = NCLElementAttributes.BODY.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
+        el = XMLChildElements.getChild(element, ch_name);
         if(el != null){
             Eb inst = createBody();
             setBody(inst);
@@ -662,7 +1078,10 @@ public class NCLDoc<T extends NCLElement,
         // Store the file name and location
         location = xmlFile.getParent();
         fileName = xmlFile.getName();
+        loadProfile = null;
         
+        // the elements created while loading are not notified one by one
+        NCLModificationNotifier.beginBulk();
         try{
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             DocumentBuilder parser = factory.newDocumentBuilder();
@@ -675,26 +1094,182 @@ public class NCLDoc<T extends NCLElement,
         }catch(IOException e){
             throw new NCLParsingException(e.fillInStackTrace());
         }
+        finally{
+            NCLModificationNotifier.endBulk();
+        }
+        
+        notifyLoaded();
     }
     
     
+    /**
+     * Loads the objects structure representing an NCL document from an XML file
+     * without building the DOM tree of the whole file. The file is read as a
+     * stream and the DOM tree of each element is discarded as soon as the
+     * element is loaded, so only the largest element needs to be in memory
+     * together with the document objects.
+     *
+     * @param xmlFile
+     *          file with the NCL document content.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXMLStream(File xmlFile) throws XMLException {
+        loadXMLStream(xmlFile, null);
+    }
+    
+    
+    /**
+     * Loads some parts of an NCL document from an XML file. The file is read
+     * as a stream and the parts of the document not included in the profile
+     * are skipped while reading it, without building their DOM tree.
+     * 
+     * <br/>
+     * 
+     * Loading only the head of a document, or some of its bases, is useful for
+     * documents used as libraries, whose body is never used.
+     *
+     * @param xmlFile
+     *          file with the NCL document content.
+     * @param profile
+     *          profile indicating the parts of the document to be loaded or
+     *          <i>null</i> to load the whole document.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXML(File xmlFile, NCLLoadProfile profile) throws XMLException {
+        if(profile == null || profile.covers(NCLLoadProfile.FULL))
+            loadXML(xmlFile);
+        else
+            loadXMLStream(xmlFile, profile);
+    }
+    
+    
+    private void loadXMLStream(File xmlFile, NCLLoadProfile profile) throws XMLException {
+        // Store the file name and location
+        location = xmlFile.getParent();
+        fileName = xmlFile.getName();
+        loadProfile = profile;
+        
+        // the elements created while loading are not notified one by one
+        NCLModificationNotifier.beginBulk();
+        XMLStreamLoader loader = new XMLStreamLoader(xmlFile);
+        loader.setFilter(profile);
+        try{
+            load(loader);
+        }
+        finally{
+            loader.close();
+            NCLModificationNotifier.endBulk();
+        }
+        
+        notifyLoaded();
+    }
+    
+    
+    /**
+     * Notify the listener that the document was loaded. Loading a document
+     * does not notify each element created, this notification is sent
+     * instead when the loading ends.
+     */
+    protected void notifyLoaded() throws NCLModificationException {
+        NCLModificationNotifier notifier = getActiveNotifier();
+        if(notifier != null)
+            notifier.addNotification(new NCLNotification(NCLNotificationType.LOADED_DOC, this));
+    }
+    
+    
+    /**
+     * Reads the XML code representing the document from a stream loader. The
+     * loader must be positioned at the document root element.
+     * 
+     * @param loader
+     *          stream loader positioned at the document root element.
+     * @throws XMLException 
+     *          if any error occur.
+     */
+    public void load(XMLStreamLoader loader) throws XMLException {
+        Element element = loader.readAttributes();
+        
+        try{
+            loadId(element);
+
+            loadTitle(element);
+
+            loadXmlns(element);
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("NCLDocument:\n" + ex.getMessage());
+        }
+
+        try{
+            while(loader.nextChild()){
+                String tag = loader.getTagName();
+                
+                if(tag.equals(NCLElementAttributes.HEAD.toString())){
+                    Eh inst = createHead();
+                    setHead(inst);
+                    inst.load(loader.readElement());
+                }
+                else if(tag.equals(NCLElementAttributes.BODY.toString())){
+                    Eb inst = createBody();
+                    setBody(inst);
+                    inst.load(loader);
+                }
+                else
+                    loader.skipElement();
+            }
+
+            // wait for the imported documents and fix the references needed
+            waitImports();
+            fixReferences();
+        }
+        catch(XMLException ex){
+            throw new NCLParsingException("Error pasring " + ex.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Adds to the document the global variables of an imported document that
+     * the document does not have yet. The variables of the imported document
+     * are not moved, a new variable with the same name is created for each
+     * one, so the imported document is not modified and can be shared by
+     * several documents.
+     * 
+     * @param other
+     *          imported document.
+     * @throws XMLException 
+     *          if an error occur while creating a variable.
+     */
     public void mergeGlobalVariables(NCLDoc other) throws XMLException {
         ElementList<Ev> other_vars = other.getGlobalVariables();
         if(other_vars.isEmpty())
             return;
         
-        for(Ev var : getGlobalVariables()){
-            for(Ev ovar : other_vars){
-                if(var.compare(ovar)){
-                    var.mergeVariables(ovar);
-                    other_vars.remove(ovar);
+        for(Ev ovar : other_vars){
+            String name = variableName(ovar);
+            boolean found = false;
+            for(Ev var : getGlobalVariables()){
+                if(name.equals(variableName(var))){
+                    found = true;
                     break;
                 }
             }
+            
+            if(!found)
+                addGlobalVariable(createVariable(name));
         }
+    }
+    
+    
+    private String variableName(NCLVariable var) {
+        StringBuilder result = new StringBuilder();
+        try{
+            var.write(result, 0);
+        }catch(IOException e){}
         
-        if(!other_vars.isEmpty())
-            addGlobalVariableLists(other_vars);
+        return result.toString();
     }
     
     
@@ -703,12 +1278,152 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
+    /**
+     * Registers an import element whose document is being loaded by the import
+     * executor, so the document waits for it in <i>waitImports</i>. This
+     * method is called by the import element while it is loaded and can be
+     * called from any thread.
+     * 
+     * @param element
+     *          import element whose document is being loaded.
+     */
+    @Deprecated
+    public void waitImport(NCLImport element) {
+        synchronized(pendingImports){
+            pendingImports.add(element);
+        }
+    }
+    
+    
+    /**
+     * Waits until the documents imported by this document, which are being
+     * loaded in parallel by the import executor, are loaded. This method
+     * blocks the calling thread until every registered import finishes. An
+     * import whose loading has not started yet, for instance because the
+     * executor is busy or rejected it, is loaded by the calling thread.
+     * 
+     * <br/>
+     * 
+     * The document calls this method at the end of its loading, so it only
+     * needs to be called by other code before using the imported documents
+     * through the elements of the document without the import elements, like
+     * when walking the document. The imports loaded lazily are not loaded by
+     * this method. If no import is pending, the method returns immediately.
+     * 
+     * @throws XMLException 
+     *          if an imported document could not be loaded or the calling
+     *          thread was interrupted while waiting. All the imports are
+     *          waited before the first error is thrown and the imports that
+     *          failed remain without an imported document. If the thread is
+     *          interrupted, its interrupted status is set again and the
+     *          interrupted import can still be waited for later.
+     */
+    public void waitImports() throws XMLException {
+        ArrayList<NCLImport> aux;
+        synchronized(pendingImports){
+            aux = new ArrayList<NCLImport>(pendingImports);
+            pendingImports.clear();
+        }
+        
+        XMLException error = null;
+        for(NCLImport el : aux){
+            try{
+                el.getImportedDoc();
+            }
+            catch(XMLException e){
+                if(error == null)
+                    error = e;
+            }
+        }
+        
+        if(error != null)
+            throw error;
+    }
+    
+    
     public void fixReferences() throws XMLException {
         for(PostReferenceElement el : references)
             el.fixReference();
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLDoc doc = (NCLDoc) copy;
+        // the copy shares the services of the document
+        doc.setDocumentCache(documentCache);
+        doc.setImportExecutor(importExecutor);
+        doc.setLazyImports(lazyImports);
+        doc.setPartialImports(partialImports);
+        doc.setModificationNotifier(modificationNotifier);
+        doc.location = location;
+        doc.fileName = fileName;
+        doc.loadProfile = loadProfile;
+        
+        if(title != null)
+            doc.setTitle(title);
+        if(xmlns != null)
+            doc.setXmlns(xmlns);
+        for(Ev aux : globalVariables)
+            doc.addGlobalVariable(copier.copyElement(aux));
+        if(head != null){
+            Eh inst = copier.instance(head);
+            doc.setHead(inst);
+            copier.fill(head);
+        }
+        if(body != null){
+            Eb inst = copier.instance(body);
+            doc.setBody(inst);
+            copier.fill(body);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("location", location);
+        out.writeValue("fileName", fileName);
+        out.writeValue("loadProfile", loadProfile);
+        out.writeValue("title", title);
+        out.writeValue("xmlns", xmlns);
+        out.writeElements("globalVariables", globalVariables);
+        out.writeValue("head", head);
+        out.writeValue("body", body);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        location = (String) in.readValue("location");
+        fileName = (String) in.readValue("fileName");
+        loadProfile = (NCLLoadProfile) in.readValue("loadProfile");
+        
+        Object aux;
+        if((aux = in.readValue("title")) != null)
+            setTitle((String) aux);
+        if((aux = in.readValue("xmlns")) != null)
+            setXmlns((NCLNamespace) aux);
+        for(Object child : in.readElements("globalVariables")){
+            addGlobalVariable((Ev) child);
+            in.fill(child);
+        }
+        if((aux = in.readValue("head")) != null){
+            setHead((Eh) aux);
+            in.fill(aux);
+        }
+        if((aux = in.readValue("body")) != null){
+            setBody((Eb) aux);
+            in.fill(aux);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         
@@ -724,9 +1439,11 @@ public class NCLDoc<T extends NCLElement,
         body = null;
         location = null;
         fileName = null;
+        loadProfile = null;
         
         references.clear();
         references = null;
+        identifiers.clear();
         
         for(Ev g : globalVariables)
             g.clean();
@@ -755,4 +1472,18 @@ public class NCLDoc<T extends NCLElement,
     protected Eb createBody() throws XMLException {
         return (Eb) new NCLBody();
     }
+
+
+    /**
+     * Function to create a global variable.
+     * This function must be overwritten in classes that extends this one.
+     *
+     * @param name
+     *          name of the variable, including its parameter.
+     * @return
+     *          element representing a global variable.
+     */
+    protected Ev createVariable(String name) throws XMLException {
+        return (Ev) new NCLVariable(name);
+    }
 }
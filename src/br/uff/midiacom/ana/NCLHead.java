@@ -50,9 +50,16 @@ import br.uff.midiacom.ana.transition.NCLTransitionBase;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -158,6 +165,7 @@ public class NCLHead<T extends NCLElement,
      *          to remove the base already defined.
      */
     public void setImportedDocumentBase(Eib importedDocumentBase) throws XMLException {
+        checkModifiable();
         // Remove the parent of the actual base, if exists
         if(this.importedDocumentBase != null){
             this.importedDocumentBase.setParent(null);
@@ -196,6 +204,7 @@ public class NCLHead<T extends NCLElement,
      *          the base already defined.
      */
     public void setRuleBase(Erl ruleBase) throws XMLException {
+        checkModifiable();
         // Remove the parent of the actual base, if exists
         if(this.ruleBase != null){
             this.ruleBase.setParent(null);
@@ -234,6 +243,7 @@ public class NCLHead<T extends NCLElement,
      *          remove the base already defined.
      */
     public void setTransitionBase(Etb transitionBase) throws XMLException {
+        checkModifiable();
         // Remove the parent of the actual base, if exists
         if(this.transitionBase != null){
             this.transitionBase.setParent(null);
@@ -275,6 +285,7 @@ public class NCLHead<T extends NCLElement,
      *          if the element representing the base is null.
      */
     public boolean addRegionBase(Erb regionBase) throws XMLException {
+        checkModifiable();
         if(regionBases.add(regionBase)){
             notifyInserted((T) regionBase);
             regionBase.setParent(this);
@@ -296,6 +307,7 @@ public class NCLHead<T extends NCLElement,
      *          if the element representing the base is null.
      */
     public boolean removeRegionBase(Erb regionBase) throws XMLException {
+        checkModifiable();
         if(regionBases.remove(regionBase)){
             notifyRemoved((T) regionBase);
             regionBase.setParent(null);
@@ -401,6 +413,7 @@ public class NCLHead<T extends NCLElement,
      *          remove the base already defined.
      */    
     public void setDescriptorBase(Edb descriptorBase) throws XMLException {
+        checkModifiable();
         // Remove the parent of the actual base, if exists
         if(this.descriptorBase != null){
             this.descriptorBase.setParent(null);
@@ -438,6 +451,7 @@ public class NCLHead<T extends NCLElement,
      *          remove the base already defined.
      */
     public void setConnectorBase(Ecb connectorBase) throws XMLException {
+        checkModifiable();
         // Remove the parent of the actual base, if exists
         if(this.connectorBase != null){
             this.connectorBase.setParent(null);
@@ -478,6 +492,7 @@ public class NCLHead<T extends NCLElement,
      *          if the meta element is null.
      */
     public boolean addMeta(Em meta) throws XMLException {
+        checkModifiable();
         if(metas.add(meta)){
             notifyInserted((T) meta);
             meta.setParent(this);
@@ -499,6 +514,7 @@ public class NCLHead<T extends NCLElement,
      *          if the meta element is null.
      */
     public boolean removeMeta(Em meta) throws XMLException {
+        checkModifiable();
         if(metas.remove(meta)){
             notifyRemoved((T) meta);
             meta.setParent(null);
@@ -560,6 +576,7 @@ public class NCLHead<T extends NCLElement,
      *          if the metadata element is null.
      */
     public boolean addMetadata(Emt metadata) throws XMLException {
+        checkModifiable();
         if(metadatas.add(metadata)){
             notifyInserted((T) metadata);
             metadata.setParent(this);
@@ -581,6 +598,7 @@ public class NCLHead<T extends NCLElement,
      *          if the metadata element is null.
      */
     public boolean removeMetadata(Emt metadata) throws XMLException {
+        checkModifiable();
         if(metadatas.remove(metadata)){
             notifyRemoved((T) metadata);
             metadata.setParent(null);
@@ -630,6 +648,21 @@ public class NCLHead<T extends NCLElement,
     }
 
 
+    /**
+     * Creates a copy of the head and of all its bases. The descriptors of
+     * the copy refer to the copied regions and transitions.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLHead<T, Eib, Erl, Etb, Erb, Edb, Ecb, Em, Emt> deepCopy() throws XMLException {
+        return (NCLHead<T, Eib, Erl, Etb, Erb, Edb, Ecb, Em, Emt>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLHead))
@@ -647,14 +680,7 @@ public class NCLHead<T extends NCLElement,
             result &= el.compare(((NCLHead) other).getTransitionBase());
         
         ElementList<Erb> otherrb = ((NCLHead) other).getRegionBases();
-        result &= regionBases.size() == otherrb.size();
-        for (Erb aux : regionBases) {
-            try {
-                result &= otherrb.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= regionBases.compare(otherrb);
         
         if((el = (T) getDescriptorBase()) != null)
             result &= el.compare(((NCLHead) other).getDescriptorBase());
@@ -662,48 +688,30 @@ public class NCLHead<T extends NCLElement,
             result &= el.compare(((NCLHead) other).getConnectorBase());
         
         ElementList<Em> othermet = ((NCLHead) other).getMetas();
-        result &= metas.size() == othermet.size();
-        for (Em aux : metas) {
-            try {
-                result &= othermet.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metas.compare(othermet);
         
         ElementList<Emt> othermtd = ((NCLHead) other).getMetadatas();
-        result &= metadatas.size() == othermtd.size();
-        for (Emt aux : metadatas) {
-            try {
-                result &= othermtd.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metadatas.compare(othermtd);
         
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
                 
-        content = space + "<head>\n";
+        out.append(space).append("<head>\n");
         
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
         
-        content += space + "</head>\n";
-        
-        return content;
+        out.append(space).append("</head>\n");
     }
 
 
@@ -724,10 +732,21 @@ public class NCLHead<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     el = (Element) nl.item(i);
-
-                    loadRegionBases(el);
-                    loadMetas(el);
-                    loadMetadatas(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case REGIONBASE:
+                            loadRegionBases(el);
+                            break;
+                        case META:
+                            loadMetas(el);
+                            break;
+                        case METADATA:
+                            loadMetadatas(el);
+                            break;
+                    }
                 }
             }
 
@@ -741,28 +760,43 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportedDocumentBase(ident);
-        content += parseRuleBase(ident);
-        content += parseTransitionBase(ident);
-        content += parseRegionBases(ident);
-        content += parseDescriptorBase(ident);
-        content += parseConnectorBase(ident);
-        content += parseMetas(ident);
-        content += parseMetadatas(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportedDocumentBase(out, ident);
+        writeRuleBase(out, ident);
+        writeTransitionBase(out, ident);
+        writeRegionBases(out, ident);
+        writeDescriptorBase(out, ident);
+        writeConnectorBase(out, ident);
+        writeMetas(out, ident);
+        writeMetadatas(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        if(importedDocumentBase != null)
+            children.add(importedDocumentBase);
+        if(ruleBase != null)
+            children.add(ruleBase);
+        if(transitionBase != null)
+            children.add(transitionBase);
+        for(Erb aux : regionBases)
+            children.add(aux);
+        if(descriptorBase != null)
+            children.add(descriptorBase);
+        if(connectorBase != null)
+            children.add(connectorBase);
+        for(Em aux : metas)
+            children.add(aux);
+        for(Emt aux : metadatas)
+            children.add(aux);
     }
     
     
-    protected String parseImportedDocumentBase(int ident) {
+    protected void writeImportedDocumentBase(Appendable out, int ident) throws IOException {
         Eib aux = getImportedDocumentBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -772,7 +806,7 @@ public class NCLHead<T extends NCLElement,
         
         // create the importedDocumentBase
         ch_name = NCLElementAttributes.IMPORTEDDOCUMENTBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
+        el = XMLChildElements.getChild(element, ch_name);
         if(el != null){
             Eib inst = createImportedDocumentBase();
             setImportedDocumentBase(inst);
@@ -781,12 +815,10 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseRuleBase(int ident) {
+    protected void writeRuleBase(Appendable out, int ident) throws IOException {
         Erl aux = getRuleBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -796,7 +828,7 @@ public class NCLHead<T extends NCLElement,
         
         // create the ruleBase
         ch_name = NCLElementAttributes.RULEBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
+        el = XMLChildElements.getChild(element, ch_name);
         if(el != null){
             Erl inst = createRuleBase();
             setRuleBase(inst);
@@ -805,12 +837,10 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseTransitionBase(int ident) {
+    protected void writeTransitionBase(Appendable out, int ident) throws IOException {
         Etb aux = getTransitionBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -820,7 +850,7 @@ public class NCLHead<T extends NCLElement,
         
         // create the transitionBase
         ch_name = NCLElementAttributes.TRANSITIONBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
+        el = XMLChildElements.getChild(element, ch_name);
         if(el != null){
             Etb inst = createTransitionBase();
             setTransitionBase(inst);
@@ -829,15 +859,12 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseRegionBases(int ident) {
+    protected void writeRegionBases(Appendable out, int ident) throws IOException {
         if(!hasRegionBase())
-            return "";
+            return;
         
-        String content = "";
         for(Erb aux : regionBases)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -851,12 +878,10 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseDescriptorBase(int ident) {
+    protected void writeDescriptorBase(Appendable out, int ident) throws IOException {
         Edb aux = getDescriptorBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -866,7 +891,7 @@ public class NCLHead<T extends NCLElement,
         
         // create the descriptorBase
         ch_name = NCLElementAttributes.DESCRIPTORBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
+        el = XMLChildElements.getChild(element, ch_name);
         if(el != null){
             Edb inst = createDescriptorBase();
             setDescriptorBase(inst);
@@ -875,12 +900,10 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseConnectorBase(int ident) {
+    protected void writeConnectorBase(Appendable out, int ident) throws IOException {
         Ecb aux = getConnectorBase();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -890,7 +913,7 @@ public class NCLHead<T extends NCLElement,
         
         // create the connectorBase
         ch_name = NCLElementAttributes.CONNECTORBASE.toString();
-        el = (Element) element.getElementsByTagName(ch_name).item(0);
+        el = XMLChildElements.getChild(element, ch_name);
         if(el != null){
             Ecb inst = createConnectorBase();
             setConnectorBase(inst);
@@ -899,15 +922,12 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseMetas(int ident) {
+    protected void writeMetas(Appendable out, int ident) throws IOException {
         if(!hasMeta())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : metas)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -921,15 +941,12 @@ public class NCLHead<T extends NCLElement,
     }
     
     
-    protected String parseMetadatas(int ident) {
+    protected void writeMetadatas(Appendable out, int ident) throws IOException {
         if(!hasMetadata())
-            return "";
+            return;
         
-        String content = "";
         for(Emt aux : metadatas)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -1208,6 +1225,109 @@ public class NCLHead<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLHead head = (NCLHead) copy;
+        if(importedDocumentBase != null){
+            Eib inst = copier.instance(importedDocumentBase);
+            head.setImportedDocumentBase(inst);
+            copier.fill(importedDocumentBase);
+        }
+        if(ruleBase != null){
+            Erl inst = copier.instance(ruleBase);
+            head.setRuleBase(inst);
+            copier.fill(ruleBase);
+        }
+        if(transitionBase != null){
+            Etb inst = copier.instance(transitionBase);
+            head.setTransitionBase(inst);
+            copier.fill(transitionBase);
+        }
+        for(Erb aux : regionBases){
+            Erb inst = copier.instance(aux);
+            head.addRegionBase(inst);
+            copier.fill(aux);
+        }
+        if(descriptorBase != null){
+            Edb inst = copier.instance(descriptorBase);
+            head.setDescriptorBase(inst);
+            copier.fill(descriptorBase);
+        }
+        if(connectorBase != null){
+            Ecb inst = copier.instance(connectorBase);
+            head.setConnectorBase(inst);
+            copier.fill(connectorBase);
+        }
+        for(Em aux : metas){
+            Em inst = copier.instance(aux);
+            head.addMeta(inst);
+            copier.fill(aux);
+        }
+        for(Emt aux : metadatas){
+            Emt inst = copier.instance(aux);
+            head.addMetadata(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("importedDocumentBase", importedDocumentBase);
+        out.writeValue("ruleBase", ruleBase);
+        out.writeValue("transitionBase", transitionBase);
+        out.writeElements("regionBases", regionBases);
+        out.writeValue("descriptorBase", descriptorBase);
+        out.writeValue("connectorBase", connectorBase);
+        out.writeElements("metas", metas);
+        out.writeElements("metadatas", metadatas);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("importedDocumentBase")) != null){
+            setImportedDocumentBase((Eib) aux);
+            in.fill(aux);
+        }
+        if((aux = in.readValue("ruleBase")) != null){
+            setRuleBase((Erl) aux);
+            in.fill(aux);
+        }
+        if((aux = in.readValue("transitionBase")) != null){
+            setTransitionBase((Etb) aux);
+            in.fill(aux);
+        }
+        for(Object child : in.readElements("regionBases")){
+            addRegionBase((Erb) child);
+            in.fill(child);
+        }
+        if((aux = in.readValue("descriptorBase")) != null){
+            setDescriptorBase((Edb) aux);
+            in.fill(aux);
+        }
+        if((aux = in.readValue("connectorBase")) != null){
+            setConnectorBase((Ecb) aux);
+            in.fill(aux);
+        }
+        for(Object child : in.readElements("metas")){
+            addMeta((Em) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("metadatas")){
+            addMetadata((Emt) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
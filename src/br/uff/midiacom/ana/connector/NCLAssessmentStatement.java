@@ -45,10 +45,17 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.Iterator;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -133,6 +140,7 @@ public class NCLAssessmentStatement<T extends NCLElement,
      *          if the element is null.
      */
     public void setComparator(NCLComparator comparator) throws XMLException {
+        checkModifiable();
         if(comparator == null)
             throw new XMLException("Null comparison.");
         
@@ -168,6 +176,7 @@ public class NCLAssessmentStatement<T extends NCLElement,
      *          to erase a value already defined.
      */
     public void setValueAssessment(Object valueAssessment) throws XMLException {
+        checkModifiable();
         Object aux = this.valueAssessment;
         
         if(valueAssessment == null){
@@ -237,6 +246,7 @@ public class NCLAssessmentStatement<T extends NCLElement,
      *          the assessment statement already have two attribute assessments.
      */
     public boolean addAttributeAssessment(Ea attribute) throws XMLException {
+        checkModifiable();
         if(valueAssessment != null && attributeAssessments.size() == 1)
             throw new XMLException("can't have more than one attribute");
         if(attributeAssessments.size() == 2)
@@ -263,6 +273,7 @@ public class NCLAssessmentStatement<T extends NCLElement,
      *          if the element representing the attribute assessment is null.
      */
     public boolean removeAttributeAssessment(Ea attribute) throws XMLException {
+        checkModifiable();
         if(!attribute.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -358,26 +369,22 @@ public class NCLAssessmentStatement<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<assessmentStatement";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<assessmentStatement");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
         
-        content += space + "</assessmentStatement>\n";
-
-        return content;
+        out.append(space).append("</assessmentStatement>\n");
     }
 
 
@@ -399,9 +406,18 @@ public class NCLAssessmentStatement<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
 
-                    loadValueAssessment(el);
-                    loadAttributeAssessments(el);
+                    switch(tag){
+                        case VALUEASSESSMENT:
+                            loadValueAssessment(el);
+                            break;
+                        case ATTRIBUTEASSESSMENT:
+                            loadAttributeAssessments(el);
+                            break;
+                    }
                 }
             }
         }
@@ -420,13 +436,16 @@ public class NCLAssessmentStatement<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseAttributeAssessments(ident);
-        content += parseValueAssessment(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeAttributeAssessments(out, ident);
+        writeValueAssessment(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ea aux : attributeAssessments)
+            children.add(aux);
     }
     
     
@@ -451,15 +470,12 @@ public class NCLAssessmentStatement<T extends NCLElement,
     }
     
     
-    protected String parseAttributeAssessments(int ident) {
+    protected void writeAttributeAssessments(Appendable out, int ident) throws IOException {
         if(!hasAttributeAssessment())
-            return "";
+            return;
         
-        String content = "";
         for(Ea aux : attributeAssessments)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -473,29 +489,38 @@ public class NCLAssessmentStatement<T extends NCLElement,
     }
     
     
-    protected String parseValueAssessment(int ident) {
+    @Override
+    protected String parseLocalContent() {
+        // the value assessment is written as a child element
+        StringBuilder out = new StringBuilder(parseAttributes());
+        try{
+            writeValueAssessment(out, 0);
+        }
+        catch(IOException ex){} // a StringBuilder does not throw IOException
+        
+        return out.toString();
+    }
+    
+    
+    protected void writeValueAssessment(Appendable out, int ident) throws IOException {
         Object aux = getValueAssessment();
         if(aux == null)
-            return "";
+            return;
         
-        String space, content;
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<valueAssessment";
+        out.append(space).append("<valueAssessment");
         if(aux instanceof NCLConnectorParam)
-            content += " value='$" + ((Ep) aux).getName() + "'";
+            out.append(" value='$").append(((Ep) aux).getName()).append("'");
         else
-            content += " value='" + aux.toString() + "'";
-        content += "/>\n";
-
-        return content;
+            out.append(" value='").append(aux.toString()).append("'");
+        out.append("/>\n");
     }
     
     
@@ -533,6 +558,49 @@ public class NCLAssessmentStatement<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLAssessmentStatement statement = (NCLAssessmentStatement) copy;
+        if(comparator != null)
+            statement.setComparator(comparator);
+        for(Ea aux : attributeAssessments){
+            Ea inst = copier.instance(aux);
+            statement.addAttributeAssessment(inst);
+            copier.fill(aux);
+        }
+        if(valueAssessment != null)
+            statement.setValueAssessment(copier.copyValue(valueAssessment));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("comparator", comparator);
+        out.writeElements("attributeAssessments", attributeAssessments);
+        out.writeValue("valueAssessment", valueAssessment);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("comparator")) != null)
+            setComparator((NCLComparator) aux);
+        for(Object child : in.readElements("attributeAssessments")){
+            addAttributeAssessment((Ea) child);
+            in.fill(child);
+        }
+        if((aux = in.readValue("valueAssessment")) != null)
+            setValueAssessment(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -45,8 +45,13 @@ import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.util.enums.NCLKey;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -115,6 +120,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
      *          if the role is null or empty.
      */
     public void setRole(String role) throws XMLException {
+        checkModifiable();
         if(role == null)
             throw new XMLException("Null role.");
         if("".equals(role.trim()))
@@ -156,6 +162,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
      *          if the type is null.
      */
     public void setEventType(NCLEventType eventType) throws XMLException {
+        checkModifiable();
         if(eventType == null)
             throw new XMLException("Null event type.");
         
@@ -203,6 +210,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
      *          if an error occur while creating the key value.
      */
     public void setKey(Object key) throws XMLException {
+        checkModifiable();
         Object aux = this.key;
         
         if(key == null){
@@ -277,6 +285,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
      *          already defined.
      */
     public void setAttributeType(NCLAttributeType attributeType) throws XMLException {
+        checkModifiable();
         NCLAttributeType aux = this.attributeType;
         this.attributeType = attributeType;
         notifyAltered(NCLElementAttributes.ATTRIBUTETYPE, aux, attributeType);
@@ -318,6 +327,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
      *          if an error occur while creating the offset value.
      */
     public void setOffset(Object offset) throws XMLException {
+        checkModifiable();
         Object aux = this.offset;
         
         if(offset == null){
@@ -421,22 +431,18 @@ public class NCLAttributeAssessment<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident< 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<attributeAssessment";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<attributeAssessment");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -584,6 +590,8 @@ public class NCLAttributeAssessment<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -591,6 +599,8 @@ public class NCLAttributeAssessment<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -601,6 +611,54 @@ public class NCLAttributeAssessment<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLAttributeAssessment assessment = (NCLAttributeAssessment) copy;
+        if(role != null)
+            assessment.setRole(role);
+        if(eventType != null)
+            assessment.setEventType(eventType);
+        if(key != null)
+            assessment.setKey(copier.copyValue(key));
+        if(attributeType != null)
+            assessment.setAttributeType(attributeType);
+        if(offset != null)
+            assessment.setOffset(copier.copyValue(offset));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("role", role);
+        out.writeValue("eventType", eventType);
+        out.writeValue("key", key);
+        out.writeValue("attributeType", attributeType);
+        out.writeValue("offset", offset);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("role")) != null)
+            setRole((String) aux);
+        if((aux = in.readValue("eventType")) != null)
+            setEventType((NCLEventType) aux);
+        if((aux = in.readValue("key")) != null)
+            setKey(aux);
+        if((aux = in.readValue("attributeType")) != null)
+            setAttributeType((NCLAttributeType) aux);
+        if((aux = in.readValue("offset")) != null)
+            setOffset(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
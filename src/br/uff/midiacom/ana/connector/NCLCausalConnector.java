@@ -47,10 +47,17 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -159,6 +166,7 @@ public class NCLCausalConnector<T extends NCLElement,
      *          erase a condition already defined.
      */
     public void setCondition(Ec condition) throws XMLException {
+        checkModifiable();
         //Removes the parent of the actual condition
         if(this.condition != null){
             if(this.condition instanceof ReferredElement && !((ReferredElement) this.condition).getReferences().isEmpty())
@@ -209,6 +217,7 @@ public class NCLCausalConnector<T extends NCLElement,
      *          erase an action already defined.
      */
     public void setAction(Ea action) throws XMLException {
+        checkModifiable();
         //Removes the parent of the actual action
         if(this.action != null){
             if(this.action instanceof ReferredElement && !((ReferredElement) this.action).getReferences().isEmpty())
@@ -258,6 +267,7 @@ public class NCLCausalConnector<T extends NCLElement,
      *          if the element representing the connector parameter is null.
      */
     public boolean addConnectorParam(Ep param) throws XMLException {
+        checkModifiable();
         if(conn_params.add(param)){
             notifyInserted((T) param);
             param.setParent(this);
@@ -279,6 +289,7 @@ public class NCLCausalConnector<T extends NCLElement,
      *          if the element representing the connector parameter is null.
      */
     public boolean removeConnectorParam(Ep param) throws XMLException {
+        checkModifiable();
         if(!param.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -400,40 +411,29 @@ public class NCLCausalConnector<T extends NCLElement,
             result &= el.compare(((NCLCausalConnector) other).getAction());
 
         ElementList<Ep> otherpar = ((NCLCausalConnector) other).getConnectorParams();
-        result &= conn_params.size() == otherpar.size();
-        for (Ep par : conn_params) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= conn_params.compare(otherpar);
 
         return result;
     }
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<causalConnector";
-        content += parseAttributes();
-        content += ">\n";
+        space = indent(ident);
 
-        content += parseElements(ident + 1);
+        out.append(space).append("<causalConnector");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</causalConnector>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</causalConnector>\n");
     }
 
 
@@ -463,11 +463,24 @@ public class NCLCausalConnector<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadSimpleConditions(el);
-                    loadCompoundConditions(el);
-                    loadSimpleActions(el);
-                    loadCompoundActions(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case SIMPLECONDITION:
+                            loadSimpleConditions(el);
+                            break;
+                        case COMPOUNDCONDITION:
+                            loadCompoundConditions(el);
+                            break;
+                        case SIMPLEACTION:
+                            loadSimpleActions(el);
+                            break;
+                        case COMPOUNDACTION:
+                            loadCompoundActions(el);
+                            break;
+                    }
                 }
             }
         }
@@ -492,14 +505,21 @@ public class NCLCausalConnector<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseConnectorParams(ident);
-        content += parseCondition(ident);
-        content += parseAction(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeConnectorParams(out, ident);
+        writeCondition(out, ident);
+        writeAction(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ep aux : conn_params)
+            children.add(aux);
+        if(condition != null)
+            children.add(condition);
+        if(action != null)
+            children.add(action);
     }
     
     
@@ -524,27 +544,21 @@ public class NCLCausalConnector<T extends NCLElement,
     }
     
     
-    protected String parseConnectorParams(int ident) {
+    protected void writeConnectorParams(Appendable out, int ident) throws IOException {
         if(!hasConnectorParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : conn_params)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadConnectorParams(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the connectorParam nodes
         ch_name = NCLElementAttributes.CONNECTORPARAM.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Ep inst = createConnectorParam();
             addConnectorParam(inst);
             inst.load(el);
@@ -552,12 +566,10 @@ public class NCLCausalConnector<T extends NCLElement,
     }
     
     
-    protected String parseCondition(int ident) {
+    protected void writeCondition(Appendable out, int ident) throws IOException {
         Ec aux = getCondition();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -581,12 +593,10 @@ public class NCLCausalConnector<T extends NCLElement,
     }
     
     
-    protected String parseAction(int ident) {
+    protected void writeAction(Appendable out, int ident) throws IOException {
         Ea aux = getAction();
         if(aux != null)
-            return aux.parse(ident);
-        else
-            return "";
+            aux.write(out, ident);
     }
     
     
@@ -633,6 +643,59 @@ public class NCLCausalConnector<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLCausalConnector connector = (NCLCausalConnector) copy;
+        for(Ep aux : conn_params){
+            Ep inst = copier.instance(aux);
+            connector.addConnectorParam(inst);
+            copier.fill(aux);
+        }
+        if(condition != null){
+            Ec inst = copier.instance(condition);
+            connector.setCondition(inst);
+            copier.fill(condition);
+        }
+        if(action != null){
+            Ea inst = copier.instance(action);
+            connector.setAction(inst);
+            copier.fill(action);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("connectorParams", conn_params);
+        out.writeValue("condition", condition);
+        out.writeValue("action", action);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        for(Object child : in.readElements("connectorParams")){
+            addConnectorParam((Ep) child);
+            in.fill(child);
+        }
+        if((aux = in.readValue("condition")) != null){
+            setCondition((Ec) aux);
+            in.fill(aux);
+        }
+        if((aux = in.readValue("action")) != null){
+            setAction((Ea) aux);
+            in.fill(aux);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -707,12 +770,16 @@ public class NCLCausalConnector<T extends NCLElement,
     
     @Override
     public boolean addReference(El reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
     
     @Override
     public boolean removeReference(El reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -46,9 +46,15 @@ import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -140,6 +146,7 @@ public class NCLCompoundAction<T extends NCLElement,
      *          if the element representing the operator is null.
      */
     public void setOperator(NCLActionOperator operator) throws XMLException {
+        checkModifiable();
         if(operator == null)
             throw new XMLException("Null operator.");
         
@@ -187,6 +194,7 @@ public class NCLCompoundAction<T extends NCLElement,
      *          if the element representing the action is null.
      */
     public boolean addAction(Ea action) throws XMLException {
+        checkModifiable();
         if(actions.add(action)){
             notifyInserted((T) action);
             action.setParent(this);
@@ -208,6 +216,7 @@ public class NCLCompoundAction<T extends NCLElement,
      *          if the element representing the action is null.
      */
     public boolean removeAction(Ea action) throws XMLException {
+        checkModifiable();
         if(action instanceof ReferredElement && !((ReferredElement) action).getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -262,6 +271,7 @@ public class NCLCompoundAction<T extends NCLElement,
 
     @Override
     public void setDelay(Object delay) throws XMLException {
+        checkModifiable();
         Object aux = this.delay;
         
         if(delay == null){
@@ -328,40 +338,29 @@ public class NCLCompoundAction<T extends NCLElement,
         comp &= this_act.equals(other_act);
 
         ElementList<Ea> otherlist = ((NCLCompoundAction) other).getActions();
-        comp &= actions.size() == otherlist.size();
-        for (Ea aux : actions) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= actions.compare(otherlist);
         
         return comp;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<compoundAction";
-        content += parseAttributes();
-        content += ">\n";
+        space = indent(ident);
 
-        content += parseElements(ident + 1);
+        out.append(space).append("<compoundAction");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</compoundAction>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</compoundAction>\n");
     }
 
 
@@ -385,9 +384,18 @@ public class NCLCompoundAction<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadSimpleActions(el);
-                    loadCompoundActions(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case SIMPLEACTION:
+                            loadSimpleActions(el);
+                            break;
+                        case COMPOUNDACTION:
+                            loadCompoundActions(el);
+                            break;
+                    }
                 }
             }
         }
@@ -407,12 +415,15 @@ public class NCLCompoundAction<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseActions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeActions(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ea aux : actions)
+            children.add(aux);
     }
     
     
@@ -459,15 +470,12 @@ public class NCLCompoundAction<T extends NCLElement,
     }
 
 
-    protected String parseActions(int ident) {
+    protected void writeActions(Appendable out, int ident) throws IOException {
         if(!hasAction())
-            return "";
+            return;
         
-        String content = "";
         for(Ea aux : actions)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -505,6 +513,49 @@ public class NCLCompoundAction<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLCompoundAction action = (NCLCompoundAction) copy;
+        if(operator != null)
+            action.setOperator(operator);
+        if(delay != null)
+            action.setDelay(copier.copyValue(delay));
+        for(Ea aux : actions){
+            Ea inst = copier.instance(aux);
+            action.addAction(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("operator", operator);
+        out.writeValue("delay", delay);
+        out.writeElements("actions", actions);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("operator")) != null)
+            setOperator((NCLActionOperator) aux);
+        if((aux = in.readValue("delay")) != null)
+            setDelay(aux);
+        for(Object child : in.readElements("actions")){
+            addAction((Ea) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -46,9 +46,15 @@ import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -153,6 +159,7 @@ public class NCLCompoundCondition<T extends NCLElement,
      *          if the element representing the operator is null.
      */
     public void setOperator(NCLConditionOperator operator) throws XMLException {
+        checkModifiable();
         if(operator == null)
             throw new XMLException("Null operator.");
         
@@ -200,6 +207,7 @@ public class NCLCompoundCondition<T extends NCLElement,
      *          if the element representing the condition is null.
      */
     public boolean addCondition(Ec condition) throws XMLException {
+        checkModifiable();
         if(conditions.add(condition)){
             notifyInserted((T) condition);
             condition.setParent(this);
@@ -221,6 +229,7 @@ public class NCLCompoundCondition<T extends NCLElement,
      *          if the element representing the condition is null.
      */
     public boolean removeCondition(Ec condition) throws XMLException {
+        checkModifiable();
         if(condition instanceof ReferredElement && !((ReferredElement) condition).getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -286,6 +295,7 @@ public class NCLCompoundCondition<T extends NCLElement,
      *          if the element representing the statement is null.
      */
     public boolean addStatement(Es statement) throws XMLException {
+        checkModifiable();
         if(statements.add(statement)){
             notifyInserted((T) statement);
             statement.setParent(this);
@@ -307,6 +317,7 @@ public class NCLCompoundCondition<T extends NCLElement,
      *          if the element representing the statement is null.
      */
     public boolean removeStatement(Es statement) throws XMLException {
+        checkModifiable();
         if(statements.remove(statement)){
             notifyRemoved((T) statement);
             statement.setParent(null);
@@ -359,6 +370,7 @@ public class NCLCompoundCondition<T extends NCLElement,
 
     @Override
     public void setDelay(Object delay) throws XMLException {
+        checkModifiable();
         Object aux = this.delay;
         
         if(delay == null){
@@ -425,50 +437,32 @@ public class NCLCompoundCondition<T extends NCLElement,
         comp &= this_cond.equals(other_cond);
 
         ElementList otherlist = ((NCLCompoundCondition) other).getConditions();
-        comp &= conditions.size() == otherlist.size();
-        for (Ec aux : conditions) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= conditions.compare(otherlist);
 
         otherlist = ((NCLCompoundCondition) other).getStatements();
-        comp &= statements.size() == otherlist.size();
-        for (Es aux : statements) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= statements.compare(otherlist);
 
         return comp;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<compoundCondition";
-        content += parseAttributes();
-        content += ">\n";
+        space = indent(ident);
 
-        content += parseElements(ident + 1);
+        out.append(space).append("<compoundCondition");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</compoundCondition>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</compoundCondition>\n");
     }
 
 
@@ -491,11 +485,24 @@ public class NCLCompoundCondition<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadSimpleConditions(el);
-                    loadCompoundConditions(el);
-                    loadAssessmentStatements(el);
-                    loadCompoundStatements(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case SIMPLECONDITION:
+                            loadSimpleConditions(el);
+                            break;
+                        case COMPOUNDCONDITION:
+                            loadCompoundConditions(el);
+                            break;
+                        case ASSESSMENTSTATEMENT:
+                            loadAssessmentStatements(el);
+                            break;
+                        case COMPOUNDSTATEMENT:
+                            loadCompoundStatements(el);
+                            break;
+                    }
                 }
             }
         }
@@ -515,13 +522,18 @@ public class NCLCompoundCondition<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseConditions(ident);
-        content += parseStatements(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeConditions(out, ident);
+        writeStatements(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ec aux : conditions)
+            children.add(aux);
+        for(Es aux : statements)
+            children.add(aux);
     }
     
     
@@ -568,15 +580,12 @@ public class NCLCompoundCondition<T extends NCLElement,
     }
 
 
-    protected String parseConditions(int ident) {
+    protected void writeConditions(Appendable out, int ident) throws IOException {
         if(!hasCondition())
-            return "";
+            return;
         
-        String content = "";
         for(Ec aux : conditions)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -600,15 +609,12 @@ public class NCLCompoundCondition<T extends NCLElement,
     }
     
     
-    protected String parseStatements(int ident) {
+    protected void writeStatements(Appendable out, int ident) throws IOException {
         if(!hasStatement())
-            return "";
+            return;
         
-        String content = "";
         for(Es aux : statements)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -652,6 +658,59 @@ public class NCLCompoundCondition<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLCompoundCondition condition = (NCLCompoundCondition) copy;
+        if(operator != null)
+            condition.setOperator(operator);
+        if(delay != null)
+            condition.setDelay(copier.copyValue(delay));
+        for(Ec aux : conditions){
+            Ec inst = copier.instance(aux);
+            condition.addCondition(inst);
+            copier.fill(aux);
+        }
+        for(Es aux : statements){
+            Es inst = copier.instance(aux);
+            condition.addStatement(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("operator", operator);
+        out.writeValue("delay", delay);
+        out.writeElements("conditions", conditions);
+        out.writeElements("statements", statements);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("operator")) != null)
+            setOperator((NCLConditionOperator) aux);
+        if((aux = in.readValue("delay")) != null)
+            setDelay(aux);
+        for(Object child : in.readElements("conditions")){
+            addCondition((Ec) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("statements")){
+            addStatement((Es) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -44,9 +44,15 @@ import br.uff.midiacom.ana.util.enums.NCLOperator;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -136,6 +142,7 @@ public class NCLCompoundStatement<T extends NCLElement,
      *          if the element representing the operator is null.
      */
     public void setOperator(NCLOperator operator) throws XMLException {
+        checkModifiable();
         if(operator == null)
             throw new XMLException("Null operator.");
         
@@ -186,6 +193,7 @@ public class NCLCompoundStatement<T extends NCLElement,
      *          <i>null</i> to erase an isNegated already defined.
      */
     public void setIsNegated(Boolean isNegated) throws XMLException {
+        checkModifiable();
         Boolean aux = this.isNegated;
         this.isNegated = isNegated;
         notifyAltered(NCLElementAttributes.ISNEGATED, aux, isNegated);
@@ -222,6 +230,7 @@ public class NCLCompoundStatement<T extends NCLElement,
      *          if the element representing the statement is null.
      */
     public boolean addStatement(Es statement) throws XMLException {
+        checkModifiable();
         if(statements.add(statement)){
             notifyInserted((T) statement);
             statement.setParent(this);
@@ -243,6 +252,7 @@ public class NCLCompoundStatement<T extends NCLElement,
      *          if the element representing the statement is null.
      */
     public boolean removeStatement(Es statement) throws XMLException {
+        checkModifiable();
         if(statements.remove(statement)){
             notifyRemoved((T) statement);
             return true;
@@ -312,40 +322,29 @@ public class NCLCompoundStatement<T extends NCLElement,
         comp &= this_stat.equals(other_stat);
 
         ElementList<Es> otherlist = ((NCLCompoundStatement) other).getStatements();
-        comp &= statements.size() == otherlist.size();
-        for (Es aux : statements) {
-            try {
-                comp &= otherlist.contains(aux);
-            } catch (XMLException ex) {}
-            if(!comp)
-                break;
-        }
+        comp &= statements.compare(otherlist);
 
         return comp;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<compoundStatement";
-        content += parseAttributes();
-        content += ">\n";
+        space = indent(ident);
 
-        content += parseElements(ident + 1);
+        out.append(space).append("<compoundStatement");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</compoundStatement>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</compoundStatement>\n");
     }
 
 
@@ -368,9 +367,18 @@ public class NCLCompoundStatement<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
 
-                    loadAssessmentStatements(el);
-                    loadCompoundStatements(el);
+                    switch(tag){
+                        case ASSESSMENTSTATEMENT:
+                            loadAssessmentStatements(el);
+                            break;
+                        case COMPOUNDSTATEMENT:
+                            loadCompoundStatements(el);
+                            break;
+                    }
                 }
             }
         }
@@ -390,12 +398,15 @@ public class NCLCompoundStatement<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseStatements(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeStatements(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Es aux : statements)
+            children.add(aux);
     }
     
     
@@ -439,15 +450,12 @@ public class NCLCompoundStatement<T extends NCLElement,
     }
     
     
-    protected String parseStatements(int ident) {
+    protected void writeStatements(Appendable out, int ident) throws IOException {
         if(!hasStatement())
-            return "";
+            return;
         
-        String content = "";
         for(Es aux : statements)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -485,6 +493,49 @@ public class NCLCompoundStatement<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLCompoundStatement statement = (NCLCompoundStatement) copy;
+        if(operator != null)
+            statement.setOperator(operator);
+        if(isNegated != null)
+            statement.setIsNegated(isNegated);
+        for(Es aux : statements){
+            Es inst = copier.instance(aux);
+            statement.addStatement(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("operator", operator);
+        out.writeValue("isNegated", isNegated);
+        out.writeElements("statements", statements);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("operator")) != null)
+            setOperator((NCLOperator) aux);
+        if((aux = in.readValue("isNegated")) != null)
+            setIsNegated((Boolean) aux);
+        for(Object child : in.readElements("statements")){
+            addStatement((Es) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -47,9 +47,16 @@ import br.uff.midiacom.ana.reuse.NCLImportBase;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -125,6 +132,7 @@ public class NCLConnectorBase<T extends NCLElement,
      *          if the element representing the connector is null.
      */
     public boolean addCausalConnector(Ec connector) throws XMLException {
+        checkModifiable();
         if(connectors.add(connector)){
             notifyInserted((T) connector);
             connector.setParent(this);
@@ -146,6 +154,7 @@ public class NCLConnectorBase<T extends NCLElement,
      *          if the element representing the connector is null.
      */
     public boolean removeCausalConnector(Ec connector) throws XMLException {
+        checkModifiable();
         if(!connector.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -249,6 +258,20 @@ public class NCLConnectorBase<T extends NCLElement,
     }
     
     
+    /**
+     * Creates a copy of the base and of all its connectors.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLConnectorBase<T, Ec, Ei, R> deepCopy() throws XMLException {
+        return (NCLConnectorBase<T, Ec, Ei, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLConnectorBase))
@@ -259,45 +282,34 @@ public class NCLConnectorBase<T extends NCLElement,
         
         result &= super.compareImports((NCLBase) other);
         
-        result &= connectors.size() == othercon.size();
-        for (Ec con : connectors) {
-            try {
-                result &= othercon.contains(con);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= connectors.compare(othercon);
         
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<connectorBase";
-        content += parseAttributes();
+        out.append(space).append("<connectorBase");
+        out.append(parseAttributes());
 
         if(hasImportBase() || hasCausalConnector()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</connectorBase>\n";
+            out.append(space).append("</connectorBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -317,10 +329,20 @@ public class NCLConnectorBase<T extends NCLElement,
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
-                if(nd instanceof Element) {
+                if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-                    loadImportBases(el);
-                    loadCausalConnectors(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case IMPORTBASE:
+                            loadImportBases(el);
+                            break;
+                        case CAUSALCONNECTOR:
+                            loadCausalConnectors(el);
+                            break;
+                    }
                 }
             }
         }
@@ -339,13 +361,17 @@ public class NCLConnectorBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseCausalConnectors(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeCausalConnectors(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        super.collectChildren(children);
+        for(Ec aux : connectors)
+            children.add(aux);
     }
     
     
@@ -368,15 +394,12 @@ public class NCLConnectorBase<T extends NCLElement,
     }
     
     
-    protected String parseCausalConnectors(int ident) {
+    protected void writeCausalConnectors(Appendable out, int ident) throws IOException {
         if(!hasCausalConnector())
-            return "";
+            return;
         
-        String content = "";
         for(Ec aux : connectors)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -426,6 +449,38 @@ public class NCLConnectorBase<T extends NCLElement,
     }
 
 
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLConnectorBase base = (NCLConnectorBase) copy;
+        for(Ec aux : connectors){
+            Ec inst = copier.instance(aux);
+            base.addCausalConnector(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("connectors", connectors);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("connectors")){
+            addCausalConnector((Ec) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -43,8 +43,13 @@ import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -107,6 +112,7 @@ public class NCLConnectorParam<T extends NCLElement,
      */
     @Override
     public void setName(String name) throws XMLException {
+        checkModifiable();
         if(name == null)
             throw new XMLException("Null name.");
         
@@ -145,6 +151,7 @@ public class NCLConnectorParam<T extends NCLElement,
      *          if the string is empty.
      */
     public void setType(String type) throws XMLException {
+        checkModifiable();
         String aux = this.type;
         this.type = type;
         notifyAltered(NCLElementAttributes.TYPE, aux, type);
@@ -180,23 +187,32 @@ public class NCLConnectorParam<T extends NCLElement,
     }
     
     
+    /**
+     * Returns the parameter as it is referred in the attributes of the
+     * connector elements.
+     * 
+     * @return 
+     *          string with the parameter name preceded by <i>$</i>.
+     */
+    @Override
+    public String toString() {
+        return "$" + getName();
+    }
+    
+    
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<connectorParam";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<connectorParam");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -271,6 +287,8 @@ public class NCLConnectorParam<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Ep reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -278,6 +296,8 @@ public class NCLConnectorParam<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Ep reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -287,6 +307,34 @@ public class NCLConnectorParam<T extends NCLElement,
         return references;
     }
 
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLConnectorParam param = (NCLConnectorParam) copy;
+        if(type != null)
+            param.setType(type);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("type", type);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("type")) != null)
+            setType((String) aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -46,8 +46,13 @@ import br.uff.midiacom.ana.util.enums.NCLEventAction;
 import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -138,6 +143,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the role is null or of the wrong type.
      */
     public void setRole(Object role) throws XMLException {
+        checkModifiable();
         if(role == null)
             throw new XMLException("Null role.");
         
@@ -214,6 +220,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the value is of the wrong type.
      */
     public void setValue(Object value) throws XMLException {
+        checkModifiable();
         Object aux = this.value;
         
         if(value == null){
@@ -290,6 +297,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the value is negative.
      */
     public void setMin(Integer min) throws XMLException {
+        checkModifiable();
         if(min != null && min < 0)
             throw new XMLException("Invalid min");
 
@@ -330,6 +338,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          "unbounded" or <i>null</i> to erase a maximum already defined.
      */
     public void setMax(Object max) throws XMLException {
+        checkModifiable();
         Object aux = this.max;
         
         if(max == null){
@@ -409,6 +418,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          a qualifier already defined.
      */
     public void setQualifier(NCLActionOperator qualifier) throws XMLException {
+        checkModifiable();
         NCLActionOperator aux = this.qualifier;
         this.qualifier = qualifier;
         notifyAltered(NCLElementAttributes.QUALIFIER, aux, qualifier);
@@ -457,6 +467,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          already defined.
      */
     public void setEventType(NCLEventType eventType) throws XMLException {
+        checkModifiable();
         NCLEventType aux = this.eventType;
         this.eventType = eventType;
         notifyAltered(NCLElementAttributes.EVENTTYPE, aux, eventType);
@@ -495,6 +506,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          already defined.
      */
     public void setActionType(NCLEventAction actionType) throws XMLException {
+        checkModifiable();
         NCLEventAction aux = this.actionType;
         this.actionType = actionType;
         notifyAltered(NCLElementAttributes.ACTIONTYPE, aux, actionType);
@@ -543,6 +555,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the repeat value is of a wrong type.
      */
     public void setRepeat(Object repeat) throws XMLException {
+        checkModifiable();
         Object aux = this.repeat;
         
         if(repeat == null){
@@ -628,6 +641,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the delay type is wrong.
      */
     public void setRepeatDelay(Object repeatDelay) throws XMLException {
+        checkModifiable();
         Object aux = this.repeatDelay;
         
         if(repeatDelay == null){
@@ -712,6 +726,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the duration type is wrong.
      */
     public void setDuration(Object duration) throws XMLException {
+        checkModifiable();
         Object aux = this.duration;
         
         if(duration == null){
@@ -801,6 +816,7 @@ public class NCLSimpleAction<T extends NCLElement,
      *          if the increment type is wrong.
      */
     public void setBy(Object by) throws XMLException {
+        checkModifiable();
         Object aux = this.by;
         
         if(by == null){
@@ -869,6 +885,7 @@ public class NCLSimpleAction<T extends NCLElement,
 
     @Override
     public void setDelay(Object delay) throws XMLException {
+        checkModifiable();
         Object aux = this.delay;
         
         if(delay == null){
@@ -999,22 +1016,18 @@ public class NCLSimpleAction<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<simpleAction";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<simpleAction");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -1325,6 +1338,8 @@ public class NCLSimpleAction<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -1332,6 +1347,8 @@ public class NCLSimpleAction<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -1342,6 +1359,89 @@ public class NCLSimpleAction<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLSimpleAction action = (NCLSimpleAction) copy;
+        if(role != null)
+            action.setRole(role);
+        if(value != null)
+            action.setValue(copier.copyValue(value));
+        if(min != null)
+            action.setMin(min);
+        if(max != null)
+            action.setMax(copier.copyValue(max));
+        if(qualifier != null)
+            action.setQualifier(qualifier);
+        if(eventType != null)
+            action.setEventType(eventType);
+        if(actionType != null)
+            action.setActionType(actionType);
+        if(repeat != null)
+            action.setRepeat(copier.copyValue(repeat));
+        if(repeatDelay != null)
+            action.setRepeatDelay(copier.copyValue(repeatDelay));
+        if(duration != null)
+            action.setDuration(copier.copyValue(duration));
+        if(by != null)
+            action.setBy(copier.copyValue(by));
+        if(delay != null)
+            action.setDelay(copier.copyValue(delay));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("role", role);
+        out.writeValue("value", value);
+        out.writeValue("min", min);
+        out.writeValue("max", max);
+        out.writeValue("qualifier", qualifier);
+        out.writeValue("eventType", eventType);
+        out.writeValue("actionType", actionType);
+        out.writeValue("repeat", repeat);
+        out.writeValue("repeatDelay", repeatDelay);
+        out.writeValue("duration", duration);
+        out.writeValue("by", by);
+        out.writeValue("delay", delay);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("role")) != null)
+            setRole(aux);
+        if((aux = in.readValue("value")) != null)
+            setValue(aux);
+        if((aux = in.readValue("min")) != null)
+            setMin((Integer) aux);
+        if((aux = in.readValue("max")) != null)
+            setMax(aux);
+        if((aux = in.readValue("qualifier")) != null)
+            setQualifier((NCLActionOperator) aux);
+        if((aux = in.readValue("eventType")) != null)
+            setEventType((NCLEventType) aux);
+        if((aux = in.readValue("actionType")) != null)
+            setActionType((NCLEventAction) aux);
+        if((aux = in.readValue("repeat")) != null)
+            setRepeat(aux);
+        if((aux = in.readValue("repeatDelay")) != null)
+            setRepeatDelay(aux);
+        if((aux = in.readValue("duration")) != null)
+            setDuration(aux);
+        if((aux = in.readValue("by")) != null)
+            setBy(aux);
+        if((aux = in.readValue("delay")) != null)
+            setDelay(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
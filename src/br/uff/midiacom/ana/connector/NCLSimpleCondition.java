@@ -47,8 +47,13 @@ import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.util.enums.NCLKey;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -128,6 +133,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      *          if the role is null or of the wrong type.
      */
     public void setRole(Object role) throws XMLException {
+        checkModifiable();
         if(role == null)
             throw new XMLException("Null role.");
         
@@ -199,6 +205,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      *          if the value is negative.
      */
     public void setMin(Integer min) throws XMLException {
+        checkModifiable();
         if(min != null && min < 0)
             throw new XMLException("Invalid min");
 
@@ -239,6 +246,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      *          "unbounded" or <i>null</i> to erase a maximum already defined.
      */
     public void setMax(Object max) throws XMLException {
+        checkModifiable();
         Object aux = this.max;
         
         if(max == null){
@@ -318,6 +326,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      *          a qualifier already defined.
      */
     public void setQualifier(NCLConditionOperator qualifier) throws XMLException {
+        checkModifiable();
         NCLConditionOperator aux = this.qualifier;
         this.qualifier = qualifier;
         notifyAltered(NCLElementAttributes.QUALIFIER, aux, qualifier);
@@ -377,6 +386,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      *          if an error occur while creating the key value.
      */
     public void setKey(Object key) throws XMLException {
+        checkModifiable();
         Object aux = this.key;
         
         if(key == null){
@@ -452,6 +462,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      *          already defined.
      */
     public void setEventType(NCLEventType eventType) throws XMLException {
+        checkModifiable();
         NCLEventType aux = this.eventType;
         this.eventType = eventType;
         notifyAltered(NCLElementAttributes.EVENTTYPE, aux, eventType);
@@ -490,6 +501,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      *          already defined.
      */
     public void setTransition(NCLEventTransition transition) throws XMLException {
+        checkModifiable();
         NCLEventTransition aux = this.transition;
         this.transition = transition;
         notifyAltered(NCLElementAttributes.TRANSITION, aux, transition);
@@ -518,6 +530,7 @@ public class NCLSimpleCondition<T extends NCLElement,
 
     @Override
     public void setDelay(Object delay) throws XMLException {
+        checkModifiable();
         Object aux = this.delay;
         
         if(delay == null){
@@ -622,22 +635,18 @@ public class NCLSimpleCondition<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for (int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<simpleCondition";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<simpleCondition");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -852,6 +861,8 @@ public class NCLSimpleCondition<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -859,6 +870,8 @@ public class NCLSimpleCondition<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -869,6 +882,69 @@ public class NCLSimpleCondition<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLSimpleCondition condition = (NCLSimpleCondition) copy;
+        if(role != null)
+            condition.setRole(role);
+        if(min != null)
+            condition.setMin(min);
+        if(max != null)
+            condition.setMax(copier.copyValue(max));
+        if(qualifier != null)
+            condition.setQualifier(qualifier);
+        if(key != null)
+            condition.setKey(copier.copyValue(key));
+        if(eventType != null)
+            condition.setEventType(eventType);
+        if(transition != null)
+            condition.setTransition(transition);
+        if(delay != null)
+            condition.setDelay(copier.copyValue(delay));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("role", role);
+        out.writeValue("min", min);
+        out.writeValue("max", max);
+        out.writeValue("qualifier", qualifier);
+        out.writeValue("key", key);
+        out.writeValue("eventType", eventType);
+        out.writeValue("transition", transition);
+        out.writeValue("delay", delay);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("role")) != null)
+            setRole(aux);
+        if((aux = in.readValue("min")) != null)
+            setMin((Integer) aux);
+        if((aux = in.readValue("max")) != null)
+            setMax(aux);
+        if((aux = in.readValue("qualifier")) != null)
+            setQualifier((NCLConditionOperator) aux);
+        if((aux = in.readValue("key")) != null)
+            setKey(aux);
+        if((aux = in.readValue("eventType")) != null)
+            setEventType((NCLEventType) aux);
+        if((aux = in.readValue("transition")) != null)
+            setTransition((NCLEventTransition) aux);
+        if((aux = in.readValue("delay")) != null)
+            setDelay(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
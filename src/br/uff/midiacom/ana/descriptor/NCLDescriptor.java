@@ -52,9 +52,16 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.PercentageType;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -207,6 +214,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if the string is empty.
      */
     public void setPlayer(String player) throws XMLException {
+        checkModifiable();
         String aux = this.player;
         this.player = player;
         notifyAltered(NCLElementAttributes.PLAYER, aux, player);
@@ -241,6 +249,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> to erase a duration already defined.
      */
     public void setExplicitDur(TimeType explicitDur) throws XMLException {
+        checkModifiable();
         TimeType aux = this.explicitDur;
         this.explicitDur = explicitDur;
         notifyAltered(NCLElementAttributes.EXPLICITDUR, aux, explicitDur);
@@ -282,6 +291,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          defined.
      */
     public void setFreeze(Boolean freeze) throws XMLException {
+        checkModifiable();
         Boolean aux = this.freeze;
         this.freeze = freeze;
         notifyAltered(NCLElementAttributes.FREEZE, aux, freeze);
@@ -325,6 +335,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveLeft(Ed descriptor) throws XMLException {
+        checkModifiable();
         Ed aux = this.moveLeft;
         
         this.moveLeft = descriptor;
@@ -372,6 +383,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveRight(Ed descriptor) throws XMLException {
+        checkModifiable();
         Ed aux = this.moveRight;
         
         this.moveRight = descriptor;
@@ -419,6 +431,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveUp(Ed descriptor) throws XMLException {
+        checkModifiable();
         Ed aux = this.moveUp;
         
         this.moveUp = descriptor;
@@ -466,6 +479,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setMoveDown(Ed descriptor) throws XMLException {
+        checkModifiable();
         Ed aux = this.moveDown;
         
         this.moveDown = descriptor;
@@ -511,6 +525,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          
      */
     public void setFocusIndex(Object focusIndex) throws XMLException {
+        checkModifiable();
         Object aux = this.focusIndex;
         
         if(focusIndex == null){
@@ -567,6 +582,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          erase a border color already defined.
      */
     public void setFocusBorderColor(NCLColor focusBorderColor) throws XMLException {
+        checkModifiable();
         NCLColor aux = this.focusBorderColor;
         this.focusBorderColor = focusBorderColor;
         notifyAltered(NCLElementAttributes.FOCUSBORDERCOLOR, aux, focusBorderColor);
@@ -596,6 +612,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          erase a border width already defined.
      */
     public void setFocusBorderWidth(Integer focusBorderWidth) throws XMLException {
+        checkModifiable();
         Integer aux = this.focusBorderWidth;
         this.focusBorderWidth = focusBorderWidth;
         notifyAltered(NCLElementAttributes.FOCUSBORDERWIDTH, aux, focusBorderWidth);
@@ -625,6 +642,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          to erase a border transparency already defined.
      */
     public void setFocusBorderTransparency(PercentageType focusBorderTransparency) throws XMLException {
+        checkModifiable();
         PercentageType aux = this.focusBorderTransparency;
         this.focusBorderTransparency = focusBorderTransparency;
         notifyAltered(NCLElementAttributes.FOCUSBORDERTRANSPARENCY, aux, focusBorderTransparency);
@@ -654,6 +672,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> to erase an alternative content already defined.
      */
     public void setFocusSrc(SrcType focusSrc) throws XMLException {
+        checkModifiable();
         SrcType aux = this.focusSrc;
         this.focusSrc = focusSrc;
         notifyAltered(NCLElementAttributes.FOCUSSRC, aux, focusSrc);
@@ -683,6 +702,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          <i>null</i> to erase an alternative content already defined.
      */
     public void setFocusSelSrc(SrcType focusSelSrc) throws XMLException {
+        checkModifiable();
         SrcType aux = this.focusSelSrc;
         this.focusSelSrc = focusSelSrc;
         notifyAltered(NCLElementAttributes.FOCUSSELSRC, aux, focusSelSrc);
@@ -712,6 +732,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          erase a border color already defined.
      */
     public void setSelBorderColor(NCLColor selBorderColor) throws XMLException {
+        checkModifiable();
         NCLColor aux = this.selBorderColor;
         this.selBorderColor = selBorderColor;
         notifyAltered(NCLElementAttributes.BORDERCOLOR, aux, selBorderColor);
@@ -751,6 +772,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the transition.
      */
     public void setTransIn(Object transIn) throws XMLException {
+        checkModifiable();
         Object aux = this.transIn;
         
         if(transIn instanceof NCLTransition){
@@ -819,6 +841,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the transition.
      */
     public void setTransOut(Object transOut) throws XMLException {
+        checkModifiable();
         Object aux = this.transOut;
         
         if(transOut instanceof NCLTransition){
@@ -887,6 +910,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if any error occur while creating the reference to the region.
      */
     public void setRegion(Object region) throws XMLException {
+        checkModifiable();
         Object aux = this.region;
         
         if(region instanceof NCLRegion){
@@ -953,6 +977,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean addDescriptorParam(Ep descriptorParam) throws XMLException {
+        checkModifiable();
         if(params.add(descriptorParam)){
             notifyInserted((T) descriptorParam);
             descriptorParam.setParent(this);
@@ -980,6 +1005,7 @@ public class NCLDescriptor<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean removeDescriptorParam(Ep descriptorParam) throws XMLException {
+        checkModifiable();
         if(params.remove(descriptorParam)){
             notifyRemoved((T) descriptorParam);
             return true;
@@ -1138,47 +1164,35 @@ public class NCLDescriptor<T extends NCLElement,
         
         
         ElementList<Ep> otherpar = ((NCLDescriptor) other).getDescriptorParams();
-        result &= params.size() == otherpar.size();
-        for (Ep par : params) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= params.compare(otherpar);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<descriptor";
-        content += parseAttributes();
+        out.append(space).append("<descriptor");
+        out.append(parseAttributes());
 
         // Test if the descriptor has content
         if(hasDescriptorParam()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</descriptor>\n";
+            out.append(space).append("</descriptor>\n");
         }
         else
-            content += "/>\n";
-
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -1256,12 +1270,15 @@ public class NCLDescriptor<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseDescriptorParams(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeDescriptorParams(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ep aux : params)
+            children.add(aux);
     }
     
     
@@ -1665,27 +1682,21 @@ public class NCLDescriptor<T extends NCLElement,
     }
     
     
-    protected String parseDescriptorParams(int ident) {
+    protected void writeDescriptorParams(Appendable out, int ident) throws IOException {
         if(!hasDescriptorParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : params)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadDescriptorParams(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the descriptor child nodes
         ch_name = NCLElementAttributes.DESCRIPTORPARAM.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Ep inst = createDescriptorParam();
             addDescriptorParam(inst);
             inst.load(el);
@@ -1764,6 +1775,8 @@ public class NCLDescriptor<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -1771,6 +1784,8 @@ public class NCLDescriptor<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -1781,6 +1796,124 @@ public class NCLDescriptor<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLDescriptor descriptor = (NCLDescriptor) copy;
+        if(player != null)
+            descriptor.setPlayer(player);
+        if(explicitDur != null)
+            descriptor.setExplicitDur((TimeType) copier.copyValue(explicitDur));
+        if(freeze != null)
+            descriptor.setFreeze(freeze);
+        if(moveLeft != null)
+            descriptor.setMoveLeft((Ed) copier.copyValue(moveLeft));
+        if(moveRight != null)
+            descriptor.setMoveRight((Ed) copier.copyValue(moveRight));
+        if(moveUp != null)
+            descriptor.setMoveUp((Ed) copier.copyValue(moveUp));
+        if(moveDown != null)
+            descriptor.setMoveDown((Ed) copier.copyValue(moveDown));
+        if(focusIndex != null)
+            descriptor.setFocusIndex(focusIndex);
+        if(focusBorderColor != null)
+            descriptor.setFocusBorderColor(focusBorderColor);
+        if(focusBorderWidth != null)
+            descriptor.setFocusBorderWidth(focusBorderWidth);
+        if(focusBorderTransparency != null)
+            descriptor.setFocusBorderTransparency(focusBorderTransparency);
+        if(focusSrc != null)
+            descriptor.setFocusSrc(focusSrc);
+        if(focusSelSrc != null)
+            descriptor.setFocusSelSrc(focusSelSrc);
+        if(selBorderColor != null)
+            descriptor.setSelBorderColor(selBorderColor);
+        if(transIn != null)
+            descriptor.setTransIn(copier.copyValue(transIn));
+        if(transOut != null)
+            descriptor.setTransOut(copier.copyValue(transOut));
+        if(region != null)
+            descriptor.setRegion(copier.copyValue(region));
+        for(Ep aux : params){
+            Ep inst = copier.instance(aux);
+            descriptor.addDescriptorParam(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("player", player);
+        out.writeValue("explicitDur", explicitDur);
+        out.writeValue("freeze", freeze);
+        out.writeValue("moveLeft", moveLeft);
+        out.writeValue("moveRight", moveRight);
+        out.writeValue("moveUp", moveUp);
+        out.writeValue("moveDown", moveDown);
+        out.writeValue("focusIndex", focusIndex);
+        out.writeValue("focusBorderColor", focusBorderColor);
+        out.writeValue("focusBorderWidth", focusBorderWidth);
+        out.writeValue("focusBorderTransparency", focusBorderTransparency);
+        out.writeValue("focusSrc", focusSrc);
+        out.writeValue("focusSelSrc", focusSelSrc);
+        out.writeValue("selBorderColor", selBorderColor);
+        out.writeValue("transIn", transIn);
+        out.writeValue("transOut", transOut);
+        out.writeValue("region", region);
+        out.writeElements("params", params);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("player")) != null)
+            setPlayer((String) aux);
+        if((aux = in.readValue("explicitDur")) != null)
+            setExplicitDur((TimeType) aux);
+        if((aux = in.readValue("freeze")) != null)
+            setFreeze((Boolean) aux);
+        if((aux = in.readValue("moveLeft")) != null)
+            setMoveLeft((Ed) aux);
+        if((aux = in.readValue("moveRight")) != null)
+            setMoveRight((Ed) aux);
+        if((aux = in.readValue("moveUp")) != null)
+            setMoveUp((Ed) aux);
+        if((aux = in.readValue("moveDown")) != null)
+            setMoveDown((Ed) aux);
+        if((aux = in.readValue("focusIndex")) != null)
+            setFocusIndex((Integer) aux);
+        if((aux = in.readValue("focusBorderColor")) != null)
+            setFocusBorderColor((NCLColor) aux);
+        if((aux = in.readValue("focusBorderWidth")) != null)
+            setFocusBorderWidth((Integer) aux);
+        if((aux = in.readValue("focusBorderTransparency")) != null)
+            setFocusBorderTransparency((PercentageType) aux);
+        if((aux = in.readValue("focusSrc")) != null)
+            setFocusSrc((SrcType) aux);
+        if((aux = in.readValue("focusSelSrc")) != null)
+            setFocusSelSrc((SrcType) aux);
+        if((aux = in.readValue("selBorderColor")) != null)
+            setSelBorderColor((NCLColor) aux);
+        if((aux = in.readValue("transIn")) != null)
+            setTransIn(aux);
+        if((aux = in.readValue("transOut")) != null)
+            setTransOut(aux);
+        if((aux = in.readValue("region")) != null)
+            setRegion(aux);
+        for(Object child : in.readElements("params")){
+            addDescriptorParam((Ep) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         
@@ -54,9 +54,15 @@ import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -138,6 +144,7 @@ public class NCLDescriptorBase<T extends NCLElement,
      *          is null.
      */
     public boolean addDescriptor(El descriptor) throws XMLException {
+        checkModifiable();
         if(descriptors.add(descriptor)){
             notifyInserted((T) descriptor);
             descriptor.setParent(this);
@@ -162,6 +169,7 @@ public class NCLDescriptorBase<T extends NCLElement,
      *          is null.
      */
     public boolean removeDescriptor(El descriptor) throws XMLException {
+        checkModifiable();
         if(!descriptor.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -273,6 +281,21 @@ public class NCLDescriptorBase<T extends NCLElement,
     }
     
     
+    /**
+     * Creates a copy of the base and of all its descriptors. The copy
+     * keeps referring to the regions and transitions of the head.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLDescriptorBase<T, El, Ei, R> deepCopy() throws XMLException {
+        return (NCLDescriptorBase<T, El, Ei, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLDescriptorBase))
@@ -283,45 +306,34 @@ public class NCLDescriptorBase<T extends NCLElement,
         
         result &= super.compareImports((NCLBase) other);
         
-        result &= descriptors.size() == otherdes.size();
-        for (El des : descriptors) {
-            try {
-                result &= otherdes.contains(des);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= descriptors.compare(otherdes);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<descriptorBase";
-        content += parseAttributes();
+        out.append(space).append("<descriptorBase");
+        out.append(parseAttributes());
 
         if(hasDescriptor() || hasImportBase()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</descriptorBase>\n";
+            out.append(space).append("</descriptorBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -343,10 +355,21 @@ public class NCLDescriptorBase<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadImportBases(el);
-                    loadDescriptors(el);
-                    loadDescriptorSwitches(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case IMPORTBASE:
+                            loadImportBases(el);
+                            break;
+                        case DESCRIPTOR:
+                            loadDescriptors(el);
+                            break;
+                        case DESCRIPTORSWITCH:
+                            loadDescriptorSwitches(el);
+                            break;
+                    }
                 }
             }
         }
@@ -365,13 +388,17 @@ public class NCLDescriptorBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseDescriptors(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeDescriptors(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        super.collectChildren(children);
+        for(El aux : descriptors)
+            children.add(aux);
     }
     
     
@@ -394,15 +421,12 @@ public class NCLDescriptorBase<T extends NCLElement,
     }
     
     
-    protected String parseDescriptors(int ident) {
+    protected void writeDescriptors(Appendable out, int ident) throws IOException {
         if(!hasDescriptor())
-            return "";
+            return;
         
-        String content = "";
         for(El aux : descriptors)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -571,6 +595,38 @@ public class NCLDescriptorBase<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLDescriptorBase base = (NCLDescriptorBase) copy;
+        for(El aux : descriptors){
+            El inst = copier.instance(aux);
+            base.addDescriptor(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("descriptors", descriptors);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("descriptors")){
+            addDescriptor((El) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -49,8 +49,12 @@ import br.uff.midiacom.ana.util.enums.NCLScroll;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -105,6 +109,7 @@ public class NCLDescriptorParam<T extends NCLElement, V>
      *          if the value representing the name is null.
      */
     public void setName(NCLAttributes name) throws XMLException {
+        checkModifiable();
         if(name == null)
             throw new XMLException("Null name.");
         if(!matchNameAndType(name, value))
@@ -147,6 +152,7 @@ public class NCLDescriptorParam<T extends NCLElement, V>
      *          if the value is null.
      */
     public void setValue(Object value) throws XMLException {
+        checkModifiable();
         if(value == null)
             throw new XMLException("Null value.");
         
@@ -206,9 +212,14 @@ public class NCLDescriptorParam<T extends NCLElement, V>
      * 
      * @param percentSign 
      *          boolean determining if the value has a percent sign.
+     * @throws XMLException 
+     *          if the element is frozen.
      */
-    public void setPercentSign(boolean percentSign) {
+    public void setPercentSign(boolean percentSign) throws XMLException {
+        checkModifiable();
+        boolean aux = this.percentSign;
         this.percentSign = percentSign;
+        notifyAltered(NCLElementAttributes.VALUE, aux, percentSign);
     }
     
     
@@ -241,24 +252,20 @@ public class NCLDescriptorParam<T extends NCLElement, V>
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<descriptorParam";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<descriptorParam");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
     
@@ -492,6 +499,45 @@ public class NCLDescriptorParam<T extends NCLElement, V>
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLDescriptorParam param = (NCLDescriptorParam) copy;
+        // the percent sign is set first, since it restricts the value
+        param.setPercentSign(percentSign);
+        if(name != null)
+            param.setName(name);
+        if(value != null)
+            param.setValue(copier.copyValue(value));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("percentSign", percentSign);
+        out.writeValue("name", name);
+        out.writeValue("value", value);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        // the percent sign is read first, since it restricts the value
+        if((aux = in.readValue("percentSign")) != null)
+            setPercentSign((Boolean) aux);
+        if((aux = in.readValue("name")) != null)
+            setName((NCLAttributes) aux);
+        if((aux = in.readValue("value")) != null)
+            setValue(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
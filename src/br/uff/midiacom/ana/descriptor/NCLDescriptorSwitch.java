@@ -47,10 +47,18 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -160,6 +168,7 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          if the element representing the descriptor is null.
      */
     public boolean addDescriptor(Ed descriptor) throws XMLException {
+        checkModifiable();
         if(descriptors.add(descriptor)){
             notifyInserted((T) descriptor);
             descriptor.setParent(this);
@@ -181,6 +190,7 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          if the element representing the descriptor is null.
      */
     public boolean removeDescriptor(Ed descriptor) throws XMLException {
+        checkModifiable();
         if(!descriptor.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -296,6 +306,7 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean addBind(Eb bind) throws XMLException {
+        checkModifiable();
         if(binds.add(bind)){
             notifyInserted((T) bind);
             bind.setParent((T) this);
@@ -317,6 +328,7 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean removeBind(Eb bind) throws XMLException {
+        checkModifiable();
         if(binds.remove(bind)){
             notifyRemoved((T) bind);
             bind.clean();
@@ -382,6 +394,7 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          switch component descriptor.
      */
     public void setDefaultDescriptor(Ed defaultDescriptor) throws XMLException {
+        checkModifiable();
         if(this.defaultDescriptor != null)
             this.defaultDescriptor.removeReference(this);
         
@@ -424,51 +437,32 @@ public class NCLDescriptorSwitch<T extends NCLElement,
             result &= def.compare(((NCLDescriptorSwitch) other).getDefaultDescriptor());
         
         ElementList<Ed> otherdes = ((NCLDescriptorSwitch) other).getDescriptors();
-        result &= descriptors.size() == otherdes.size();
-        for (Ed des : descriptors) {
-            try {
-                result &= otherdes.contains(des);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= descriptors.compare(otherdes);
         
         ElementList<Eb> otherbin = ((NCLDescriptorSwitch) other).getBinds();
-        result &= binds.size() == otherbin.size();
-        for (Eb bin : binds) {
-            try {
-                result &= otherbin.contains(bin);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= binds.compare(otherbin);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<descriptorSwitch";
-        content += parseAttributes();
-        content += ">\n";
-
-        content += parseElements(ident + 1);
+        space = indent(ident);
 
-        content += space + "</descriptorSwitch>\n";
+        out.append(space).append("<descriptorSwitch");
+        out.append(parseAttributes());
+        out.append(">\n");
 
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</descriptorSwitch>\n");
     }
 
 
@@ -498,9 +492,18 @@ public class NCLDescriptorSwitch<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadBinds(el);
-                    loadDefaultDescriptor(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case BINDRULE:
+                            loadBinds(el);
+                            break;
+                        case DEFAULTDESCRIPTOR:
+                            loadDefaultDescriptor(el);
+                            break;
+                    }
                 }
             }
         }
@@ -525,14 +528,19 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseBinds(ident);
-        content += parseDefaultDescriptor(ident);
-        content += parseDescriptors(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeBinds(out, ident);
+        writeDefaultDescriptor(out, ident);
+        writeDescriptors(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Eb aux : binds)
+            children.add(aux);
+        for(Ed aux : descriptors)
+            children.add(aux);
     }
     
     
@@ -557,15 +565,12 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
     
     
-    protected String parseBinds(int ident) {
+    protected void writeBinds(Appendable out, int ident) throws IOException {
         if(!hasBind())
-            return "";
+            return;
         
-        String content = "";
         for(Eb aux : binds)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -579,19 +584,29 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
     
     
-    protected String parseDefaultDescriptor(int ident) {
+    @Override
+    protected String parseLocalContent() {
+        // the default descriptor is written as a child element
+        StringBuilder out = new StringBuilder(parseAttributes());
+        try{
+            writeDefaultDescriptor(out, 0);
+        }
+        catch(IOException ex){} // a StringBuilder does not throw IOException
+        
+        return out.toString();
+    }
+    
+    
+    protected void writeDefaultDescriptor(Appendable out, int ident) throws IOException {
         Ed aux = getDefaultDescriptor();
         if(aux == null)
-            return "";
+            return;
         
-        String space = "";
+        String space = indent(ident);
         if(ident < 0)
             ident = 0;
         
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-        
-        return space + "<defaultDescriptor descriptor='" + aux.getId() + "'/>\n";
+        out.append(space).append("<defaultDescriptor descriptor='").append(aux.getId()).append("'/>\n");
     }
     
     
@@ -607,30 +622,21 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
     
     
-    protected String parseDescriptors(int ident) {
+    protected void writeDescriptors(Appendable out, int ident) throws IOException {
         if(!hasDescriptor())
-            return "";
+            return;
         
-        String content = "";
         for(Ed aux : descriptors)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadDescriptors(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the descriptorSwitch child nodes
         ch_name = NCLElementAttributes.DESCRIPTOR.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
-            if(!el.getParentNode().equals(element))
-                continue;
-
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Ed inst = createDescriptor();
             addDescriptor(inst);
             inst.load(el);
@@ -672,6 +678,8 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -679,6 +687,8 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -689,6 +699,54 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLDescriptorSwitch swt = (NCLDescriptorSwitch) copy;
+        for(Eb aux : binds){
+            Eb inst = copier.instance(aux);
+            swt.addBind(inst);
+            copier.fill(aux);
+        }
+        if(defaultDescriptor != null)
+            swt.setDefaultDescriptor((Ed) copier.copyValue(defaultDescriptor));
+        for(Ed aux : descriptors){
+            Ed inst = copier.instance(aux);
+            swt.addDescriptor(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("binds", binds);
+        out.writeValue("defaultDescriptor", defaultDescriptor);
+        out.writeElements("descriptors", descriptors);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        for(Object child : in.readElements("binds")){
+            addBind((Eb) child);
+            in.fill(child);
+        }
+        if((aux = in.readValue("defaultDescriptor")) != null)
+            setDefaultDescriptor((Ed) aux);
+        for(Object child : in.readElements("descriptors")){
+            addDescriptor((Ed) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
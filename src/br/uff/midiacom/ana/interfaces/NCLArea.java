@@ -45,8 +45,13 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ArrayType;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -137,6 +142,7 @@ public class NCLArea<T extends NCLElement>
      *          to erase a coordinate already defined.
      */
     public void setCoords(ArrayType coords) throws XMLException {
+        checkModifiable();
         ArrayType aux = this.coords;
         this.coords = coords;
         notifyAltered(NCLElementAttributes.COORDS, aux, coords);
@@ -199,6 +205,7 @@ public class NCLArea<T extends NCLElement>
      *          to erase a begin already defined.
      */
     public void setBegin(TimeType begin) throws XMLException {
+        checkModifiable();
         TimeType aux = this.begin;
         this.begin = begin;
         notifyAltered(NCLElementAttributes.BEGIN, aux, begin);
@@ -282,6 +289,7 @@ public class NCLArea<T extends NCLElement>
      *          to erase a end already defined.
      */
     public void setEnd(TimeType end) throws XMLException {
+        checkModifiable();
         TimeType aux = this.end;
         this.end = end;
         notifyAltered(NCLElementAttributes.END, aux, end);
@@ -347,6 +355,7 @@ public class NCLArea<T extends NCLElement>
      *          if the string is empty.
      */
     public void setText(String text) throws XMLException {
+        checkModifiable();
         if(text != null && "".equals(text.trim()))
             throw new XMLException("Empty text string");
         
@@ -402,6 +411,7 @@ public class NCLArea<T extends NCLElement>
      *          if the integer is negative.
      */
     public void setPosition(Integer position) throws XMLException {
+        checkModifiable();
         if(position != null && position < 0)
             throw new XMLException("Invalid position");
         
@@ -457,6 +467,7 @@ public class NCLArea<T extends NCLElement>
      *          to erase a initial sample already defined.
      */
     public void setFirst(SampleType first) throws XMLException {
+        checkModifiable();
         SampleType aux = this.first;
         this.first = first;
         notifyAltered(NCLElementAttributes.FIRST, aux, first);
@@ -517,6 +528,7 @@ public class NCLArea<T extends NCLElement>
      *          to erase a final sample already defined.
      */
     public void setLast(SampleType last) throws XMLException {
+        checkModifiable();
         SampleType aux = this.last;
         this.last = last;
         notifyAltered(NCLElementAttributes.LAST, aux, last);
@@ -563,6 +575,7 @@ public class NCLArea<T extends NCLElement>
      *          if the string is empty.
      */
     public void setLabel(String label) throws XMLException {
+        checkModifiable();
         String aux = this.label;
         this.label = label;
         notifyAltered(NCLElementAttributes.LABEL, aux, label);
@@ -590,6 +603,8 @@ public class NCLArea<T extends NCLElement>
         boolean result = true;
         
         Object aux;
+        if((aux = getId()) != null)
+            result &= aux.equals(((NCLArea) other).getId());
         if((aux = getCoords()) != null)
             result &= aux.equals(((NCLArea) other).getCoords());
         if((aux = getBegin()) != null)
@@ -621,23 +636,19 @@ public class NCLArea<T extends NCLElement>
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
                 
         // <area> element and attributes declaration
-        content = space + "<area";
-        content += parseAttributes();
-        content += "/>\n";
-        
-        return content;
+        out.append(space).append("<area");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -864,6 +875,8 @@ public class NCLArea<T extends NCLElement>
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -871,6 +884,8 @@ public class NCLArea<T extends NCLElement>
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -882,6 +897,69 @@ public class NCLArea<T extends NCLElement>
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLArea area = (NCLArea) copy;
+        if(coords != null)
+            area.setCoords((ArrayType) copier.copyValue(coords));
+        if(begin != null)
+            area.setBegin((TimeType) copier.copyValue(begin));
+        if(end != null)
+            area.setEnd((TimeType) copier.copyValue(end));
+        if(text != null)
+            area.setText(text);
+        if(position != null)
+            area.setPosition(position);
+        if(first != null)
+            area.setFirst((SampleType) copier.copyValue(first));
+        if(last != null)
+            area.setLast((SampleType) copier.copyValue(last));
+        if(label != null)
+            area.setLabel(label);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("coords", coords);
+        out.writeValue("begin", begin);
+        out.writeValue("end", end);
+        out.writeValue("text", text);
+        out.writeValue("position", position);
+        out.writeValue("first", first);
+        out.writeValue("last", last);
+        out.writeValue("label", label);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("coords")) != null)
+            setCoords((ArrayType) aux);
+        if((aux = in.readValue("begin")) != null)
+            setBegin((TimeType) aux);
+        if((aux = in.readValue("end")) != null)
+            setEnd((TimeType) aux);
+        if((aux = in.readValue("text")) != null)
+            setText((String) aux);
+        if((aux = in.readValue("position")) != null)
+            setPosition((Integer) aux);
+        if((aux = in.readValue("first")) != null)
+            setFirst((SampleType) aux);
+        if((aux = in.readValue("last")) != null)
+            setLast((SampleType) aux);
+        if((aux = in.readValue("label")) != null)
+            setLabel((String) aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -46,7 +46,11 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -106,6 +110,7 @@ public class NCLMapping<T extends NCLElement,
      *          reference to the node.
      */
     public void setComponent(En component) throws XMLException {
+        checkModifiable();
         if(component == null)
             throw new XMLException("Null component.");
         
@@ -156,6 +161,7 @@ public class NCLMapping<T extends NCLElement,
      * @throws XMLException 
      */
     public void setInterface(Ei interfac) throws XMLException {
+        checkModifiable();
         Ei aux = this.interfac;
         
         this.interfac = interfac;
@@ -207,24 +213,20 @@ public class NCLMapping<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<mapping";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<mapping");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -310,6 +312,39 @@ public class NCLMapping<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLMapping mapping = (NCLMapping) copy;
+        if(component != null)
+            mapping.setComponent((En) copier.copyValue(component));
+        if(interfac != null)
+            mapping.setInterface((Ei) copier.copyValue(interfac));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("component", component);
+        out.writeValue("interface", interfac);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("component")) != null)
+            setComponent((En) aux);
+        if((aux = in.readValue("interface")) != null)
+            setInterface((Ei) aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
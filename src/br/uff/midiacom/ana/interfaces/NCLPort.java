@@ -45,8 +45,13 @@ import br.uff.midiacom.ana.node.NCLNode;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -135,6 +140,7 @@ public class NCLPort<T extends NCLElement,
      *          reference to the node.
      */
     public void setComponent(En component) throws XMLException {
+        checkModifiable();
         if(component == null)
             throw new XMLException("Null component.");
         
@@ -185,6 +191,7 @@ public class NCLPort<T extends NCLElement,
      * @throws XMLException 
      */
     public void setInterface(Ei interfac) throws XMLException {
+        checkModifiable();
         Ei aux = this.interfac;
         
         this.interfac = interfac;
@@ -240,24 +247,20 @@ public class NCLPort<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <port> element and attributes declaration
-        content = space + "<port";
-        content += parseAttributes();
-        content += "/>\n";
-        
-        return content;
+        out.append(space).append("<port");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -379,6 +382,8 @@ public class NCLPort<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -386,6 +391,8 @@ public class NCLPort<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -396,6 +403,39 @@ public class NCLPort<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLPort port = (NCLPort) copy;
+        if(component != null)
+            port.setComponent((En) copier.copyValue(component));
+        if(interfac != null)
+            port.setInterface((Ei) copier.copyValue(interfac));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("component", component);
+        out.writeValue("interface", interfac);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("component")) != null)
+            setComponent((En) aux);
+        if((aux = in.readValue("interface")) != null)
+            setInterface((Ei) aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
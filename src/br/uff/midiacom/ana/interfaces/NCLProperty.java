@@ -51,8 +51,13 @@ import br.uff.midiacom.ana.util.enums.NCLScroll;
 import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -125,6 +130,7 @@ public class NCLProperty<T extends NCLElement,
      */
     @Override
     public void setName(Object name) throws XMLException {
+        checkModifiable();
         if(name == null)
             throw new XMLException("Null name.");
         
@@ -197,6 +203,7 @@ public class NCLProperty<T extends NCLElement,
      *          if the string is empty.
      */
     public void setValue(Object value) throws XMLException {
+        checkModifiable();
         Object aux = this.value;
         
         if(value instanceof String)
@@ -280,24 +287,19 @@ public class NCLProperty<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         // <property> element and attributes declaration
-        content = space + "<property";
-        content += parseAttributes();
-        content += "/>\n";
-        
-        
-        return content;
+        out.append(space).append("<property");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -372,6 +374,8 @@ public class NCLProperty<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -379,6 +383,8 @@ public class NCLProperty<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -389,6 +395,34 @@ public class NCLProperty<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLProperty property = (NCLProperty) copy;
+        if(value != null)
+            property.setValue(copier.copyValue(value));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("value", value);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("value")) != null)
+            setValue(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
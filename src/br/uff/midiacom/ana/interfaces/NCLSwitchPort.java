@@ -43,9 +43,16 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -142,6 +149,7 @@ public class NCLSwitchPort<T extends NCLElement,
      *          if the element representing the mapping is null.
      */
     public boolean addMapping(Em mapping) throws XMLException {
+        checkModifiable();
         if(mappings.add(mapping)){
             notifyInserted((T) mapping);
             mapping.setParent(this);
@@ -163,6 +171,7 @@ public class NCLSwitchPort<T extends NCLElement,
      *          if the element representing the mapping is null.
      */
     public boolean removeMapping(Em mapping) throws XMLException {
+        checkModifiable();
         if(mappings.remove(mapping)){
             notifyRemoved((T) mapping);
             return true;
@@ -226,42 +235,31 @@ public class NCLSwitchPort<T extends NCLElement,
         
         
         ElementList<Em> othermap = ((NCLSwitchPort) other).getMappings();
-        result &= mappings.size() == othermap.size();
-        for (Em map : mappings) {
-            try {
-                result &= othermap.contains(map);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= mappings.compare(othermap);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // <port> element and attributes declaration
-        content = space + "<switchPort";
-        content += parseAttributes();
-        content += ">\n";
-
-        content += parseElements(ident + 1);
+        out.append(space).append("<switchPort");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += space + "</switchPort>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append(space).append("</switchPort>\n");
     }
 
 
@@ -304,12 +302,15 @@ public class NCLSwitchPort<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseMappings(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeMappings(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Em aux : mappings)
+            children.add(aux);
     }
     
     
@@ -334,27 +335,21 @@ public class NCLSwitchPort<T extends NCLElement,
     }
     
     
-    protected String parseMappings(int ident) {
+    protected void writeMappings(Appendable out, int ident) throws IOException {
         if(!hasMapping())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : mappings)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadMappings(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the child nodes
         ch_name = NCLElementAttributes.MAPPING.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Em inst = createMapping();
             addMapping(inst);
             inst.load(el);
@@ -365,6 +360,8 @@ public class NCLSwitchPort<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -372,6 +369,8 @@ public class NCLSwitchPort<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -383,6 +382,38 @@ public class NCLSwitchPort<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLSwitchPort port = (NCLSwitchPort) copy;
+        for(Em aux : mappings){
+            Em inst = copier.instance(aux);
+            port.addMapping(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("mappings", mappings);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("mappings")){
+            addMapping((Em) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -54,9 +54,15 @@ import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -152,6 +158,7 @@ public class NCLBind<T extends NCLElement,
      *          reference to the role.
      */
     public void setRole(Er role) throws XMLException {
+        checkModifiable();
         if(role == null)
             throw new XMLException("Null role.");
         
@@ -203,6 +210,7 @@ public class NCLBind<T extends NCLElement,
      *          reference to the node.
      */
     public void setComponent(En component) throws XMLException {
+        checkModifiable();
         if(component == null)
             throw new XMLException("Null component.");
         
@@ -253,6 +261,7 @@ public class NCLBind<T extends NCLElement,
      * @throws XMLException 
      */
     public void setInterface(Ei interfac) throws XMLException {
+        checkModifiable();
         Ei aux = this.interfac;
         
         this.interfac = interfac;
@@ -306,6 +315,7 @@ public class NCLBind<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setDescriptor(Object descriptor) throws XMLException {
+        checkModifiable();
         Object aux = this.descriptor;
         
         if(descriptor instanceof NCLLayoutDescriptor){
@@ -367,6 +377,7 @@ public class NCLBind<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean addBindParam(Ep param) throws XMLException {
+        checkModifiable();
         if(bindParams.add(param)){
             notifyInserted((T) param);
             param.setParent(this);
@@ -389,6 +400,7 @@ public class NCLBind<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean removeBindParam(Ep param) throws XMLException {
+        checkModifiable();
         if(bindParams.remove(param)){
             notifyRemoved((T) param);
             return true;
@@ -448,11 +460,15 @@ public class NCLBind<T extends NCLElement,
         boolean result = true;
 
         Object aux;
+        T el;
 
-        if((aux = getRole()) != null)
-            result &= aux.equals(((NCLBind) other).getRole());
+        // the roles are compared by name, since they belong to the connectors
+        Er role = getRole();
+        if(role != null){
+            Er orole = (Er) ((NCLBind) other).getRole();
+            result &= orole != null && role.getRole().equals(orole.getRole());
+        }
 
-        T el;
         if((el = (T) getComponent()) != null)
             result &= el.compare(((NCLBind) other).getComponent());
         if((el = (T) getInterface()) != null)
@@ -468,48 +484,37 @@ public class NCLBind<T extends NCLElement,
         }
 
         ElementList<Ep> otherpar = ((NCLBind) other).getBindParams();
-        result &= bindParams.size() == otherpar.size();
-        for (Ep par : bindParams) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= bindParams.compare(otherpar);
 
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <bind> element and attributes declaration
-        content = space + "<bind";
-        content += parseAttributes();
+        out.append(space).append("<bind");
+        out.append(parseAttributes());
         
         // <bind> element content
         if(hasBindParam()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</bind>\n";
+            out.append(space).append("</bind>\n");
         }
         else
-            content += "/>\n";
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -562,12 +567,15 @@ public class NCLBind<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseBindParams(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeBindParams(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ep aux : bindParams)
+            children.add(aux);
     }
     
     
@@ -700,27 +708,21 @@ public class NCLBind<T extends NCLElement,
     }
     
     
-    protected String parseBindParams(int ident) {
+    protected void writeBindParams(Appendable out, int ident) throws IOException {
         if(!hasBindParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : bindParams)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadBindParams(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the child nodes
         ch_name = NCLElementAttributes.BINDPARAM.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Ep inst = createBindParam();
             addBindParam(inst);
             inst.load(el);
@@ -758,6 +760,8 @@ public class NCLBind<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Epr reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -765,6 +769,8 @@ public class NCLBind<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Epr reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -776,6 +782,65 @@ public class NCLBind<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLBind bind = (NCLBind) copy;
+        if(role instanceof GetSetRole){
+            // each bind has its own role, also used by the parameters
+            GetSetRole aux = new GetSetRole(((GetSetRole) role).getRole());
+            copier.register(role, aux);
+            bind.setRole((Er) aux);
+        }
+        else if(role != null)
+            bind.setRole((Er) copier.copyValue(role));
+        if(component != null)
+            bind.setComponent((En) copier.copyValue(component));
+        if(interfac != null)
+            bind.setInterface((Ei) copier.copyValue(interfac));
+        if(descriptor != null)
+            bind.setDescriptor(copier.copyValue(descriptor));
+        for(Ep aux : bindParams){
+            Ep inst = copier.instance(aux);
+            bind.addBindParam(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("role", role);
+        out.writeValue("component", component);
+        out.writeValue("interface", interfac);
+        out.writeValue("descriptor", descriptor);
+        out.writeElements("bindParams", bindParams);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("role")) != null)
+            setRole((Er) aux);
+        if((aux = in.readValue("component")) != null)
+            setComponent((En) aux);
+        if((aux = in.readValue("interface")) != null)
+            setInterface((Ei) aux);
+        if((aux = in.readValue("descriptor")) != null)
+            setDescriptor(aux);
+        for(Object child : in.readElements("bindParams")){
+            addBindParam((Ep) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
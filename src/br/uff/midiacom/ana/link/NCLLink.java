@@ -46,9 +46,16 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -141,6 +148,7 @@ public class NCLLink<T extends NCLElement,
      *          reference to the connector.
      */
     public void setXconnector(Object xconnector) throws XMLException {
+        checkModifiable();
         if(xconnector == null)
             throw new XMLException("Null connector.");
         
@@ -205,6 +213,7 @@ public class NCLLink<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean addLinkParam(Ep param) throws XMLException {
+        checkModifiable();
         if(linkParams.add(param)){
             notifyInserted((T) param);
             param.setParent(this);
@@ -227,6 +236,7 @@ public class NCLLink<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean removeLinkParam(Ep param) throws XMLException {
+        checkModifiable();
         if(linkParams.remove(param)){
             notifyRemoved((T) param);
             return true;
@@ -290,6 +300,7 @@ public class NCLLink<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean addBind(Eb bind) throws XMLException {
+        checkModifiable();
         if(binds.add(bind)){
             notifyInserted((T) bind);
             bind.setParent(this);
@@ -311,6 +322,7 @@ public class NCLLink<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean removeBind(Eb bind) throws XMLException {
+        checkModifiable();
         if(binds.remove(bind)){
             notifyRemoved((T) bind);
             return true;
@@ -384,54 +396,36 @@ public class NCLLink<T extends NCLElement,
         }
 
         ElementList<Eb> otherbin = ((NCLLink) other).getBinds();
-        result &= binds.size() == otherbin.size();
-        for (Eb bin : binds) {
-            try {
-                result &= otherbin.contains(bin);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= binds.compare(otherbin);
         
         ElementList<Ep> otherpar = ((NCLLink) other).getLinkParams();
-        result &= linkParams.size() == otherpar.size();
-        for (Ep par : linkParams) {
-            try {
-                result &= otherpar.contains(par);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= linkParams.compare(otherpar);
 
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <link> element and attributes declaration
-        content = space + "<link";
-        content += parseAttributes();
-        content += ">\n";
+        out.append(space).append("<link");
+        out.append(parseAttributes());
+        out.append(">\n");
         
         // <link> element content
-        content += parseElements(ident + 1);
+        writeElements(out, ident + 1);
 
         // <link> element end declaration
-        content += space + "</link>\n";
-        
-        return content;
+        out.append(space).append("</link>\n");
     }
 
 
@@ -460,9 +454,18 @@ public class NCLLink<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
 
-                    loadLinkParams(el);
-                    loadBinds(el);
+                    switch(tag){
+                        case LINKPARAM:
+                            loadLinkParams(el);
+                            break;
+                        case BIND:
+                            loadBinds(el);
+                            break;
+                    }
                 }
             }
         }
@@ -488,13 +491,18 @@ public class NCLLink<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseLinkParams(ident);
-        content += parseBinds(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeLinkParams(out, ident);
+        writeBinds(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ep aux : linkParams)
+            children.add(aux);
+        for(Eb aux : binds)
+            children.add(aux);
     }
     
     
@@ -544,15 +552,12 @@ public class NCLLink<T extends NCLElement,
     }
     
     
-    protected String parseLinkParams(int ident) {
+    protected void writeLinkParams(Appendable out, int ident) throws IOException {
         if(!hasLinkParam())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : linkParams)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -566,15 +571,12 @@ public class NCLLink<T extends NCLElement,
     }
     
     
-    protected String parseBinds(int ident) {
+    protected void writeBinds(Appendable out, int ident) throws IOException {
         if(!hasBind())
-            return "";
+            return;
         
-        String content = "";
         for(Eb aux : binds)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -588,6 +590,56 @@ public class NCLLink<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLLink link = (NCLLink) copy;
+        if(xconnector != null)
+            link.setXconnector(copier.copyValue(xconnector));
+        // the binds are copied first, since the parameters may refer to
+        // the roles of the binds
+        for(Eb aux : binds){
+            Eb inst = copier.instance(aux);
+            link.addBind(inst);
+            copier.fill(aux);
+        }
+        for(Ep aux : linkParams){
+            Ep inst = copier.instance(aux);
+            link.addLinkParam(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("xconnector", xconnector);
+        out.writeElements("binds", binds);
+        out.writeElements("linkParams", linkParams);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("xconnector")) != null)
+            setXconnector(aux);
+        for(Object child : in.readElements("binds")){
+            addBind((Eb) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("linkParams")){
+            addLinkParam((Ep) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -47,7 +47,11 @@ import br.uff.midiacom.ana.util.enums.NCLKey;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -107,6 +111,7 @@ public abstract class NCLParam<T extends NCLElement,
      *          creating the reference to the connector parameter.
      */
     public void setName(Ec connectorParam) throws XMLException {
+        checkModifiable();
         if(connectorParam == null)
             throw new XMLException("Null connector parameter.");
         
@@ -149,6 +154,7 @@ public abstract class NCLParam<T extends NCLElement,
      *          if the string is null or empty.
      */
     public void setValue(Object value)  throws XMLException {
+        checkModifiable();
         if(value == null)
             throw new XMLException("Null value.");
         
@@ -261,24 +267,20 @@ public abstract class NCLParam<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // param element and attributes declaration
-        content = space + "<" + getType();
-        content += parseAttributes();
-        content += "/>\n";
-        
-        return content;
+        out.append(space).append("<").append(getType());
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -372,6 +374,39 @@ public abstract class NCLParam<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLParam param = (NCLParam) copy;
+        if(name != null)
+            param.setName((Ec) copier.copyValue(name));
+        if(value != null)
+            param.setValue(copier.copyValue(value));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("name", name);
+        out.writeValue("value", value);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("name")) != null)
+            setName((Ec) aux);
+        if((aux = in.readValue("value")) != null)
+            setValue(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
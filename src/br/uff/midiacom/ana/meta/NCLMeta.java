@@ -42,7 +42,12 @@ import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -91,10 +96,13 @@ public class NCLMeta<T extends NCLElement>
      */
     @Override
     public void setName(String name) throws XMLException {
+        checkModifiable();
         if(name == null)
             throw new XMLException("Null name.");
         
+        String aux = this.name;
         this.name = name;
+        notifyAltered(NCLElementAttributes.NAME, aux, name);
     }
 
 
@@ -122,6 +130,7 @@ public class NCLMeta<T extends NCLElement>
      *          if the string is null or empty.
      */
     public void setContent(String content) throws XMLException {
+        checkModifiable();
         if(content == null)
             throw new XMLException("Null content.");
         if("".equals(content.trim()))
@@ -163,24 +172,20 @@ public class NCLMeta<T extends NCLElement>
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<meta";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<meta");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -253,6 +258,34 @@ public class NCLMeta<T extends NCLElement>
             throw new NCLParsingException("Could not find " + att_name + " attribute.");
     }
 
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLMeta meta = (NCLMeta) copy;
+        if(mcontent != null)
+            meta.setContent(mcontent);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("content", mcontent);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("content")) != null)
+            setContent((String) aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -42,7 +42,11 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -82,6 +86,7 @@ public class NCLMetadata<T extends NCLElement>
      *          if the string is null or empty.
      */
     public void setRDFTree(String rdfTree) throws XMLException {
+        checkModifiable();
         if(rdfTree == null)
             throw new XMLException("Null metadata content.");
         if("".equals(rdfTree.trim()))
@@ -118,27 +123,29 @@ public class NCLMetadata<T extends NCLElement>
         else
             return false;
     }
+    
+    
+    @Override
+    protected String parseLocalContent() {
+        return parseContent();
+    }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<metadata>\n";
-        content += parseContent();
-        content += space + "</metadata>\n";
-
-        return content;
+        out.append(space).append("<metadata>\n");
+        out.append(parseContent());
+        out.append(space).append("</metadata>\n");
     }
     
     
@@ -164,6 +171,34 @@ public class NCLMetadata<T extends NCLElement>
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLMetadata metadata = (NCLMetadata) copy;
+        if(rdfTree != null)
+            metadata.setRDFTree(rdfTree);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("rdfTree", rdfTree);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("rdfTree")) != null)
+            setRDFTree((String) aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
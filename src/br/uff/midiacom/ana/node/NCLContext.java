@@ -52,9 +52,16 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
 import br.uff.midiacom.ana.interfaces.NCLInterface;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.xml.XMLStreamLoader;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
 
 
 /**
@@ -187,6 +194,7 @@ public class NCLContext<T extends NCLElement,
      *          or body elements.
      */
     public void setRefer(Object refer) throws XMLException {
+        checkModifiable();
         Object aux = this.refer;
         
         if(refer instanceof NCLCompositeNodeElement)
@@ -253,6 +261,21 @@ public class NCLContext<T extends NCLElement,
     }
     
     
+    /**
+     * Creates a copy of the context and of all its descendants. The ports
+     * and binds of the copy refer to the copied nodes and interfaces.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLContext<T, Ept, Epp, En, Ei, El, Em, Emt, R> deepCopy() throws XMLException {
+        return (NCLContext<T, Ept, Epp, En, Ei, El, Em, Emt, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLContext))
@@ -278,35 +301,31 @@ public class NCLContext<T extends NCLElement,
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
         
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <context> element and attributes declaration
-        content = space + "<context";
-        content += parseAttributes();
+        out.append(space).append("<context");
+        out.append(parseAttributes());
         
         // Test if the media has content
         if(hasMeta() || hasMetadata() || hasPort() || hasProperty() || hasNode() || hasLink()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
             // <context> element end declaration
-            content += space + "</context>\n";
+            out.append(space).append("</context>\n");
         }
         else
-            content += "/>\n";
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -329,30 +348,154 @@ public class NCLContext<T extends NCLElement,
 
         try{
             // create the child nodes (except ports and links)
+            ArrayList<Element> deferred = new ArrayList<Element>();
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadProperties(el);
-                    loadMetas(el);
-                    loadMetadatas(el);
-                    loadMedia(el);
-                    loadContext(el);
-                    loadSwitch(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case PROPERTY:
+                            loadProperties(el);
+                            break;
+                        case META:
+                            loadMetas(el);
+                            break;
+                        case METADATA:
+                            loadMetadatas(el);
+                            break;
+                        case MEDIA:
+                            loadMedia(el);
+                            break;
+                        case CONTEXT:
+                            loadContext(el);
+                            break;
+                        case SWITCH:
+                            loadSwitch(el);
+                            break;
+                        case PORT:
+                        case LINK:
+                            deferred.add(el);
+                            break;
+                    }
                 }
             }
 
             // create the child nodes (ports and links)
-            nl = element.getChildNodes();
-            for(int i=0; i < nl.getLength(); i++){
-                Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
+            for(Element el : deferred){
+                switch(NCLElementAttributes.getEnumType(el.getTagName())){
+                    case PORT:
+                        loadPorts(el);
+                        break;
+                    case LINK:
+                        loadLinks(el);
+                        break;
+                }
+            }
+        }
+        catch(XMLException ex){
+            String aux = getId();
+            if(aux != null)
+                aux = "(" + aux + ")";
+            else
+                aux = "";
+            
+            throw new NCLParsingException("Context" + aux + " > " + ex.getMessage());
+        }
+
+        try{
+            loadRefer(element);
+        }
+        catch(XMLException ex){
+            String aux = getId();
+            if(aux != null)
+                aux = "(" + aux + ")";
+            else
+                aux = "";
+            
+            throw new NCLParsingException("Context" + aux + ":\n" + ex.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Reads the XML code representing the context from a stream loader. The
+     * children of the context are read one at a time and their XML code is
+     * discarded after they are loaded. Ports and links are kept to be loaded
+     * after the nodes, since they refer to them.
+     * 
+     * @param loader
+     *          stream loader positioned at the context element.
+     * @throws XMLException 
+     *          if any error occur.
+     */
+    public void load(XMLStreamLoader loader) throws XMLException {
+        ArrayList<Element> deferred = new ArrayList<Element>();
+        Element element = loader.readAttributes();
+
+        try{
+            loadId(element);
+        }
+        catch(XMLException ex){
+            String aux = getId();
+            if(aux != null)
+                aux = "(" + aux + ")";
+            else
+                aux = "";
+            
+            throw new NCLParsingException("Context" + aux + ":\n" + ex.getMessage());
+        }
+
+        try{
+            // create the child nodes (except ports and links)
+            while(loader.nextChild()){
+                NCLElementAttributes tag = NCLElementAttributes.getEnumType(loader.getTagName());
+                if(tag == null){
+                    loader.skipElement();
+                    continue;
+                }
 
-                    loadPorts(el);
-                    loadLinks(el);
+                switch(tag){
+                    case CONTEXT:
+                        loadContext(loader);
+                        break;
+                    case PORT:
+                    case LINK:
+                        deferred.add(loader.readElement());
+                        break;
+                    case PROPERTY:
+                        loadProperties(loader.readElement());
+                        break;
+                    case META:
+                        loadMetas(loader.readElement());
+                        break;
+                    case METADATA:
+                        loadMetadatas(loader.readElement());
+                        break;
+                    case MEDIA:
+                        loadMedia(loader.readElement());
+                        break;
+                    case SWITCH:
+                        loadSwitch(loader.readElement());
+                        break;
+                    default:
+                        loader.skipElement();
+                }
+            }
+
+            // create the child nodes (ports and links)
+            for(Element el : deferred){
+                switch(NCLElementAttributes.getEnumType(el.getTagName())){
+                    case PORT:
+                        loadPorts(el);
+                        break;
+                    case LINK:
+                        loadLinks(el);
+                        break;
                 }
             }
         }
@@ -391,17 +534,13 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseMetas(ident);
-        content += parseMetadatas(ident);
-        content += parsePorts(ident);
-        content += parseProperties(ident);
-        content += parseNodes(ident);
-        content += parseLinks(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeMetas(out, ident);
+        writeMetadatas(out, ident);
+        writePorts(out, ident);
+        writeProperties(out, ident);
+        writeNodes(out, ident);
+        writeLinks(out, ident);
     }
     
     
@@ -452,15 +591,12 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parseMetas(int ident) {
+    protected void writeMetas(Appendable out, int ident) throws IOException {
         if(!hasMeta())
-            return "";
+            return;
         
-        String content = "";
         for(Em aux : metas)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -474,15 +610,12 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parseMetadatas(int ident) {
+    protected void writeMetadatas(Appendable out, int ident) throws IOException {
         if(!hasMetadata())
-            return "";
+            return;
         
-        String content = "";
         for(Emt aux : metadatas)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -496,15 +629,12 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parsePorts(int ident) {
+    protected void writePorts(Appendable out, int ident) throws IOException {
         if(!hasPort())
-            return "";
+            return;
         
-        String content = "";
         for(Ept aux : ports)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -518,15 +648,12 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parseProperties(int ident) {
+    protected void writeProperties(Appendable out, int ident) throws IOException {
         if(!hasProperty())
-            return "";
+            return;
         
-        String content = "";
         for(Epp aux : properties)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -540,15 +667,12 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parseNodes(int ident) {
+    protected void writeNodes(Appendable out, int ident) throws IOException {
         if(!hasNode())
-            return "";
+            return;
         
-        String content = "";
         for(En aux : nodes)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -572,6 +696,17 @@ public class NCLContext<T extends NCLElement,
     }
     
     
+    protected void loadContext(XMLStreamLoader loader) throws XMLException {
+        // create the context reading its children from the stream
+        En inst = createContext();
+        addNode(inst);
+        if(inst instanceof NCLContext)
+            ((NCLContext) inst).load(loader);
+        else
+            inst.load(loader.readElement());
+    }
+    
+    
     protected void loadSwitch(Element element) throws XMLException {
         // create the switch
         if(element.getTagName().equals(NCLElementAttributes.SWITCH.toString())){
@@ -582,15 +717,12 @@ public class NCLContext<T extends NCLElement,
     }
     
     
-    protected String parseLinks(int ident) {
+    protected void writeLinks(Appendable out, int ident) throws IOException {
         if(!hasLink())
-            return "";
+            return;
         
-        String content = "";
         for(El aux : links)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -622,6 +754,11 @@ public class NCLContext<T extends NCLElement,
         if(result != null)
             return result;
         
+        // search in the document registry
+        NCLElement el = findRegistered(id);
+        if(el instanceof NCLInterface)
+            return (Ei) el;
+        
         // search as a port
         result = (Ei) ports.get(id);
         if(result != null)
@@ -654,6 +791,11 @@ public class NCLContext<T extends NCLElement,
                 return (En) ((En) ((R) aux).getTarget()).findNode(id);
         }
         
+        // search in the document registry
+        NCLElement el = findRegistered(id);
+        if(el instanceof NCLNode)
+            return (En) el;
+        
         for(En node : nodes){
             result = (En) node.findNode(id);
             if(result != null)
@@ -692,6 +834,34 @@ public class NCLContext<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLContext context = (NCLContext) copy;
+        if(refer != null)
+            context.setRefer(copier.copyValue(refer));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("refer", refer);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("refer")) != null)
+            setRefer(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -55,10 +55,17 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -206,6 +213,7 @@ public class NCLMedia<T extends NCLElement,
      *          <i>null</i> to erase the location already defined.
      */
     public void setSrc(SrcType src) throws XMLException {
+        checkModifiable();
         SrcType aux = this.src;
         this.src = src;
         notifyAltered(NCLElementAttributes.SRC, aux, src);
@@ -280,6 +288,7 @@ public class NCLMedia<T extends NCLElement,
      *          or <i>null</i> to erase a type already defined.
      */
     public void setType(NCLMimeType type) throws XMLException {
+        checkModifiable();
         NCLMimeType aux = this.type;
         this.type = type;
         notifyAltered(NCLElementAttributes.TYPE, aux, type);
@@ -334,6 +343,7 @@ public class NCLMedia<T extends NCLElement,
      *          if any error occur while creating the reference to the descriptor.
      */
     public void setDescriptor(Object descriptor) throws XMLException {
+        checkModifiable();
         Object aux = this.descriptor;
         
         if(descriptor instanceof NCLLayoutDescriptor)
@@ -430,6 +440,7 @@ public class NCLMedia<T extends NCLElement,
      *          element.
      */
     public void setRefer(Object refer) throws XMLException {
+        checkModifiable();
         Object aux = this.refer;
         
         if(refer instanceof NCLMedia)
@@ -541,6 +552,7 @@ public class NCLMedia<T extends NCLElement,
      *          to erase a type already defined.
      */
     public void setInstance(NCLInstanceType instance) throws XMLException {
+        checkModifiable();
         NCLInstanceType aux = this.instance;
         this.instance = instance;
         notifyAltered(NCLElementAttributes.INSTANCE, aux, instance);
@@ -599,6 +611,7 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the area is null.
      */
     public boolean addArea(Ea area) throws XMLException {
+        checkModifiable();
         if(areas.add(area)){
             notifyInserted((T) area);
             area.setParent(this);
@@ -620,6 +633,7 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the area is null.
      */
     public boolean removeArea(Ea area) throws XMLException {
+        checkModifiable();
         if(!area.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -736,6 +750,7 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean addProperty(Ep property) throws XMLException {
+        checkModifiable();
         if(properties.add(property)){
             notifyInserted((T) property);
             property.setParent(this);
@@ -757,6 +772,7 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean removeProperty(Ep property) throws XMLException {
+        checkModifiable();
         if(!property.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -882,6 +898,21 @@ public class NCLMedia<T extends NCLElement,
     }
 
 
+    /**
+     * Creates a copy of the media and of its areas and properties. The
+     * copy keeps referring to the descriptor and to the media it refers to.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLMedia<T, Ea, Ep, El, En, Ei, R> deepCopy() throws XMLException {
+        return (NCLMedia<T, Ea, Ep, El, En, Ei, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLMedia))
@@ -922,58 +953,40 @@ public class NCLMedia<T extends NCLElement,
         }
         
         ElementList<Ea> otherare = ((NCLMedia) other).getAreas();
-        result &= areas.size() == otherare.size();
-        for (Ea are : areas) {
-            try {
-                result &= otherare.contains(are);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= areas.compare(otherare);
         
         ElementList<Ep> otherpro = ((NCLMedia) other).getProperties();
-        result &= properties.size() == otherpro.size();
-        for (Ep pro : properties) {
-            try {
-                result &= otherpro.contains(pro);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= properties.compare(otherpro);
         
         return result;
     }
     
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
         
         
         // <media> element and attributes declaration
-        content = space + "<media";
-        content += parseAttributes();
+        out.append(space).append("<media");
+        out.append(parseAttributes());
         
         // Test if the media has content
         if(hasArea() || hasProperty()){
-            content += ">\n";
+            out.append(">\n");
             
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</media>\n";
+            out.append(space).append("</media>\n");
         }
         else
-            content += "/>\n";
-        
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -1005,9 +1018,18 @@ public class NCLMedia<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
 
-                    loadAreas(el);
-                    loadProperties(el);
+                    switch(tag){
+                        case AREA:
+                            loadAreas(el);
+                            break;
+                        case PROPERTY:
+                            loadProperties(el);
+                            break;
+                    }
                 }
             }
         }
@@ -1050,13 +1072,18 @@ public class NCLMedia<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseAreas(ident);
-        content += parseProperties(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeAreas(out, ident);
+        writeProperties(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ea aux : areas)
+            children.add(aux);
+        for(Ep aux : properties)
+            children.add(aux);
     }
     
     
@@ -1188,15 +1215,12 @@ public class NCLMedia<T extends NCLElement,
     }
     
     
-    protected String parseAreas(int ident) {
+    protected void writeAreas(Appendable out, int ident) throws IOException {
         if(!hasArea())
-            return "";
+            return;
         
-        String content = "";
         for(Ea aux : areas)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -1210,15 +1234,12 @@ public class NCLMedia<T extends NCLElement,
     }
     
     
-    protected String parseProperties(int ident) {
+    protected void writeProperties(Appendable out, int ident) throws IOException {
         if(!hasProperty())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : properties)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -1295,6 +1316,8 @@ public class NCLMedia<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -1302,6 +1325,8 @@ public class NCLMedia<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -1312,6 +1337,74 @@ public class NCLMedia<T extends NCLElement,
     }
 
 
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLMedia media = (NCLMedia) copy;
+        if(src != null)
+            media.setSrc(src);
+        if(type != null)
+            media.setType(type);
+        if(descriptor != null)
+            media.setDescriptor(copier.copyValue(descriptor));
+        if(refer != null)
+            media.setRefer(copier.copyValue(refer));
+        if(instance != null)
+            media.setInstance(instance);
+        for(Ea aux : areas){
+            Ea inst = copier.instance(aux);
+            media.addArea(inst);
+            copier.fill(aux);
+        }
+        for(Ep aux : properties){
+            Ep inst = copier.instance(aux);
+            media.addProperty(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("src", src);
+        out.writeValue("type", type);
+        out.writeValue("descriptor", descriptor);
+        out.writeValue("refer", refer);
+        out.writeValue("instance", instance);
+        out.writeElements("areas", areas);
+        out.writeElements("properties", properties);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("src")) != null)
+            setSrc((SrcType) aux);
+        if((aux = in.readValue("type")) != null)
+            setType((NCLMimeType) aux);
+        if((aux = in.readValue("descriptor")) != null)
+            setDescriptor(aux);
+        if((aux = in.readValue("refer")) != null)
+            setRefer(aux);
+        if((aux = in.readValue("instance")) != null)
+            setInstance((NCLInstanceType) aux);
+        for(Object child : in.readElements("areas")){
+            addArea((Ea) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("properties")){
+            addProperty((Ep) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
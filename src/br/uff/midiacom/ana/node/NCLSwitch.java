@@ -53,10 +53,16 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -210,6 +216,7 @@ public class NCLSwitch<T extends NCLElement,
      *          element.
      */
     public void setRefer(Object refer) throws XMLException {
+        checkModifiable();
         Object aux = this.refer;
         
         if(refer instanceof NCLSwitch)
@@ -288,6 +295,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean addPort(Ep port) throws XMLException {
+        checkModifiable();
         if(ports.add(port)){
             notifyInserted((T) port);
             port.setParent(this);
@@ -309,6 +317,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean removePort(Ep port) throws XMLException {
+        checkModifiable();
         if(!port.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -425,6 +434,7 @@ public class NCLSwitch<T extends NCLElement,
      *          component.
      */
     public void setDefaultComponent(En defaultComponent) throws XMLException {
+        checkModifiable();
         if(this.defaultComponent != null)
             this.defaultComponent.removeReference(this);
         
@@ -462,6 +472,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean addBind(Eb bind) throws XMLException {
+        checkModifiable();
         if(binds.add(bind)){
             notifyInserted((T) bind);
             bind.setParent((T) this);
@@ -483,6 +494,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean removeBind(Eb bind) throws XMLException {
+        checkModifiable();
         if(binds.remove(bind)){
             notifyRemoved((T) bind);
             return true;
@@ -546,6 +558,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean addNode(En node) throws XMLException {
+        checkModifiable();
         if(nodes.add(node)){
             notifyInserted((T) node);
             node.setParent(this);
@@ -568,6 +581,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean removeNode(En node) throws XMLException {
+        checkModifiable();
         if(!node.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -673,6 +687,21 @@ public class NCLSwitch<T extends NCLElement,
     }
 
 
+    /**
+     * Creates a copy of the switch and of all its descendants. The switch
+     * ports and default component of the copy refer to the copied nodes.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLSwitch<T, En, Ei, Ep, Er, R, Eb> deepCopy() throws XMLException {
+        return (NCLSwitch<T, En, Ei, Ep, Er, R, Eb>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLSwitch))
@@ -700,65 +729,40 @@ public class NCLSwitch<T extends NCLElement,
         }
         
         ElementList<En> othernod = ((NCLSwitch) other).getNodes();
-        result &= nodes.size() == othernod.size();
-        for (En nod : nodes) {
-            try {
-                result &= othernod.contains(nod);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= nodes.compare(othernod);
         
         ElementList<Ep> otherpor = ((NCLSwitch) other).getPorts();
-        result &= ports.size() == otherpor.size();
-        for (Ep por : ports) {
-            try {
-                result &= otherpor.contains(por);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= ports.compare(otherpor);
         
         ElementList<Eb> otherbin = ((NCLSwitch) other).getBinds();
-        result &= binds.size() == otherbin.size();
-        for (Eb bin : binds) {
-            try {
-                result &= otherbin.contains(bin);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= binds.compare(otherbin);
         
         return result;
     }
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<switch";
-        content += parseAttributes();
+        out.append(space).append("<switch");
+        out.append(parseAttributes());
 
         if(hasPort() || hasBind() || hasNode()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</switch>\n";
+            out.append(space).append("</switch>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -781,28 +785,47 @@ public class NCLSwitch<T extends NCLElement,
 
         try{
             // create the child nodes (except ports and binds)
+            ArrayList<Element> deferred = new ArrayList<Element>();
             nl = element.getChildNodes();
             for(int i=0; i < nl.getLength(); i++){
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadMedia(el);
-                    loadContext(el);
-                    loadSwitch(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case MEDIA:
+                            loadMedia(el);
+                            break;
+                        case CONTEXT:
+                            loadContext(el);
+                            break;
+                        case SWITCH:
+                            loadSwitch(el);
+                            break;
+                        case SWITCHPORT:
+                        case BINDRULE:
+                        case DEFAULTCOMPONENT:
+                            deferred.add(el);
+                            break;
+                    }
                 }
             }
 
             // create the child nodes (ports, binds and defaultComponent)
-            nl = element.getChildNodes();
-            for(int i=0; i < nl.getLength(); i++){
-                Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-
-                    loadPorts(el);
-                    loadBinds(el);
-                    loadDefaultComponent(el);
+            for(Element el : deferred){
+                switch(NCLElementAttributes.getEnumType(el.getTagName())){
+                    case SWITCHPORT:
+                        loadPorts(el);
+                        break;
+                    case BINDRULE:
+                        loadBinds(el);
+                        break;
+                    case DEFAULTCOMPONENT:
+                        loadDefaultComponent(el);
+                        break;
                 }
             }
         }
@@ -841,15 +864,22 @@ public class NCLSwitch<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parsePorts(ident);
-        content += parseBinds(ident);
-        content += parseDefaultComponent(ident);
-        content += parseNodes(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writePorts(out, ident);
+        writeBinds(out, ident);
+        writeDefaultComponent(out, ident);
+        writeNodes(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ep aux : ports)
+            children.add(aux);
+        for(Eb aux : binds)
+            children.add(aux);
+        for(En aux : nodes)
+            children.add(aux);
     }
     
     
@@ -899,15 +929,12 @@ public class NCLSwitch<T extends NCLElement,
     }
     
     
-    protected String parsePorts(int ident) {
+    protected void writePorts(Appendable out, int ident) throws IOException {
         if(!hasPort())
-            return "";
+            return;
         
-        String content = "";
         for(Ep aux : ports)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -921,15 +948,12 @@ public class NCLSwitch<T extends NCLElement,
     }
     
     
-    protected String parseBinds(int ident) {
+    protected void writeBinds(Appendable out, int ident) throws IOException {
         if(!hasBind())
-            return "";
+            return;
         
-        String content = "";
         for(Eb aux : binds)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -943,19 +967,29 @@ public class NCLSwitch<T extends NCLElement,
     }
     
     
-    protected String parseDefaultComponent(int ident) {
+    @Override
+    protected String parseLocalContent() {
+        // the default component is written as a child element
+        StringBuilder out = new StringBuilder(parseAttributes());
+        try{
+            writeDefaultComponent(out, 0);
+        }
+        catch(IOException ex){} // a StringBuilder does not throw IOException
+        
+        return out.toString();
+    }
+    
+    
+    protected void writeDefaultComponent(Appendable out, int ident) throws IOException {
         En aux = getDefaultComponent();
         if(aux == null)
-            return "";
+            return;
         
-        String space = "";
+        String space = indent(ident);
         if(ident < 0)
             ident = 0;
         
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-        
-        return space + "<defaultComponent component='" + aux.getId() + "'/>\n";
+        out.append(space).append("<defaultComponent component='").append(aux.getId()).append("'/>\n");
     }
     
     
@@ -971,15 +1005,12 @@ public class NCLSwitch<T extends NCLElement,
     }
     
     
-    protected String parseNodes(int ident) {
+    protected void writeNodes(Appendable out, int ident) throws IOException {
         if(!hasNode())
-            return "";
+            return;
         
-        String content = "";
         for(En aux : nodes)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -1031,6 +1062,11 @@ public class NCLSwitch<T extends NCLElement,
         if(result != null)
             return result;
         
+        // search in the document registry
+        NCLElement el = findRegistered(id);
+        if(el instanceof NCLInterface)
+            return (Ei) el;
+        
         // search in inner nodes
         for(En node : nodes){
             result = (Ei) node.findInterface(id);
@@ -1058,6 +1094,11 @@ public class NCLSwitch<T extends NCLElement,
                 return (En) ((En) ((R) aux).getTarget()).findNode(id);
         }
         
+        // search in the document registry
+        NCLElement el = findRegistered(id);
+        if(el instanceof NCLNode)
+            return (En) el;
+        
         for(En node : nodes){
             result = (En) node.findNode(id);
             if(result != null)
@@ -1095,6 +1136,8 @@ public class NCLSwitch<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -1102,6 +1145,8 @@ public class NCLSwitch<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -1112,6 +1157,69 @@ public class NCLSwitch<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLSwitch swt = (NCLSwitch) copy;
+        if(refer != null)
+            swt.setRefer(copier.copyValue(refer));
+        for(Ep aux : ports){
+            Ep inst = copier.instance(aux);
+            swt.addPort(inst);
+            copier.fill(aux);
+        }
+        for(Eb aux : binds){
+            Eb inst = copier.instance(aux);
+            swt.addBind(inst);
+            copier.fill(aux);
+        }
+        if(defaultComponent != null)
+            swt.setDefaultComponent((En) copier.copyValue(defaultComponent));
+        for(En aux : nodes){
+            En inst = copier.instance(aux);
+            swt.addNode(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("refer", refer);
+        out.writeElements("ports", ports);
+        out.writeElements("binds", binds);
+        out.writeValue("defaultComponent", defaultComponent);
+        out.writeElements("nodes", nodes);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("refer")) != null)
+            setRefer(aux);
+        for(Object child : in.readElements("ports")){
+            addPort((Ep) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("binds")){
+            addBind((Eb) child);
+            in.fill(child);
+        }
+        if((aux = in.readValue("defaultComponent")) != null)
+            setDefaultComponent((En) aux);
+        for(Object child : in.readElements("nodes")){
+            addNode((En) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
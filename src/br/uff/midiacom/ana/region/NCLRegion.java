@@ -45,9 +45,16 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -175,6 +182,7 @@ public class NCLRegion<T extends NCLElement,
      *          if the string is empty.
      */
     public void setTitle(String title) throws XMLException {
+        checkModifiable();
         if(title != null && "".equals(title.trim()))
             throw new XMLException("Empty title string");
         
@@ -220,6 +228,7 @@ public class NCLRegion<T extends NCLElement,
      *          region left location or <i>null</i> to erase a location already defined.
      */
     public void setLeft(Object left) throws XMLException {
+        checkModifiable();
         Object aux = this.left;
         
         if(left == null){
@@ -308,6 +317,7 @@ public class NCLRegion<T extends NCLElement,
      *          region right location or <i>null</i> to erase a location already defined.
      */
     public void setRight(Object right) throws XMLException {
+        checkModifiable();
         Object aux = this.right;
         
         if(right == null){
@@ -396,6 +406,7 @@ public class NCLRegion<T extends NCLElement,
      *          region top location or <i>null</i> to erase a location already defined.
      */
     public void setTop(Object top) throws XMLException {
+        checkModifiable();
         Object aux = this.top;
         
         if(top == null){
@@ -484,6 +495,7 @@ public class NCLRegion<T extends NCLElement,
      *          region bottom location or <i>null</i> to erase a location already defined.
      */
     public void setBottom(Object bottom) throws XMLException {
+        checkModifiable();
         Object aux = this.bottom;
         
         if(bottom == null){
@@ -571,6 +583,7 @@ public class NCLRegion<T extends NCLElement,
      *          region height or <i>null</i> to erase a height already defined.
      */
     public void setHeight(Object height) throws XMLException {
+        checkModifiable();
         Object aux = this.height;
         
         if(height == null){
@@ -658,6 +671,7 @@ public class NCLRegion<T extends NCLElement,
      *          region width or <i>null</i> to erase a width already defined.
      */
     public void setWidth(Object width) throws XMLException {
+        checkModifiable();
         Object aux = this.width;
         
         if(width == null){
@@ -747,6 +761,7 @@ public class NCLRegion<T extends NCLElement,
      *          if the zIndex value is not in the interval [0, 250].
      */
     public void setzIndex(Integer zIndex) throws XMLException {
+        checkModifiable();
         if(zIndex != null && zIndex < 0 && zIndex > 250)
             throw new XMLException("Illegal index value");
 
@@ -793,6 +808,7 @@ public class NCLRegion<T extends NCLElement,
      *          if the element representing the region is null.
      */
     public boolean addRegion(Er region) throws XMLException {
+        checkModifiable();
         if(regions.add(region)){
             notifyInserted((T) region);
             region.setParent(this);
@@ -814,6 +830,7 @@ public class NCLRegion<T extends NCLElement,
      *          if the element representing the region is null.
      */
     public boolean removeRegion(Er region) throws XMLException {
+        checkModifiable();
         if(!region.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -942,45 +959,34 @@ public class NCLRegion<T extends NCLElement,
         
         ElementList<Er> otherreg = ((NCLRegion) other).getRegions();
         
-        result &= regions.size() == otherreg.size();
-        for (Er reg : regions) {
-            try {
-                result &= otherreg.contains(reg);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= regions.compare(otherreg);
         
         return result;
     }
     
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<region";
-        content += parseAttributes();
+        out.append(space).append("<region");
+        out.append(parseAttributes());
         
         if(hasRegion()) {
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</region>\n";
+            out.append(space).append("</region>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -1039,12 +1045,15 @@ public class NCLRegion<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseRegions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeRegions(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Er aux : regions)
+            children.add(aux);
     }
     
     
@@ -1245,30 +1254,21 @@ public class NCLRegion<T extends NCLElement,
     }
     
     
-    protected String parseRegions(int ident) {
+    protected void writeRegions(Appendable out, int ident) throws IOException {
         if(!hasRegion())
-            return "";
+            return;
         
-        String content = "";
         for(Er aux : regions)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadRegions(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the child nodes
         ch_name = NCLElementAttributes.REGION.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
-            if(!el.getParentNode().equals(element))
-                continue;
-
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Er inst = createRegion();
             addRegion(inst);
             inst.load(el);
@@ -1303,6 +1303,8 @@ public class NCLRegion<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -1310,6 +1312,8 @@ public class NCLRegion<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -1320,6 +1324,79 @@ public class NCLRegion<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLRegion region = (NCLRegion) copy;
+        if(title != null)
+            region.setTitle(title);
+        if(left != null)
+            region.setLeft(copier.copyValue(left));
+        if(right != null)
+            region.setRight(copier.copyValue(right));
+        if(top != null)
+            region.setTop(copier.copyValue(top));
+        if(bottom != null)
+            region.setBottom(copier.copyValue(bottom));
+        if(height != null)
+            region.setHeight(copier.copyValue(height));
+        if(width != null)
+            region.setWidth(copier.copyValue(width));
+        if(zIndex != null)
+            region.setzIndex(zIndex);
+        for(Er aux : regions){
+            Er inst = copier.instance(aux);
+            region.addRegion(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("title", title);
+        out.writeValue("left", left);
+        out.writeValue("right", right);
+        out.writeValue("top", top);
+        out.writeValue("bottom", bottom);
+        out.writeValue("height", height);
+        out.writeValue("width", width);
+        out.writeValue("zIndex", zIndex);
+        out.writeElements("regions", regions);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("title")) != null)
+            setTitle((String) aux);
+        if((aux = in.readValue("left")) != null)
+            setLeft(aux);
+        if((aux = in.readValue("right")) != null)
+            setRight(aux);
+        if((aux = in.readValue("top")) != null)
+            setTop(aux);
+        if((aux = in.readValue("bottom")) != null)
+            setBottom(aux);
+        if((aux = in.readValue("height")) != null)
+            setHeight(aux);
+        if((aux = in.readValue("width")) != null)
+            setWidth(aux);
+        if((aux = in.readValue("zIndex")) != null)
+            setzIndex((Integer) aux);
+        for(Object child : in.readElements("regions")){
+            addRegion((Er) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
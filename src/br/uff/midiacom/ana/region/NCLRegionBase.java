@@ -48,9 +48,15 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.enums.NCLDevice;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -138,6 +144,7 @@ public class NCLRegionBase<T extends NCLElement,
      *          if an error occur while notifying the modification.
      */
     public void setDevice(NCLDevice device) throws XMLException {
+        checkModifiable();
         NCLDevice aux = this.device;
         this.device = device;
         notifyAltered(NCLElementAttributes.DEVICE, aux, device);
@@ -172,6 +179,7 @@ public class NCLRegionBase<T extends NCLElement,
      *          if any error occur while creating the reference to the region.
      */
     public void setParentRegion(Object region) throws XMLException {
+        checkModifiable();
         Object aux = this.parent_region;
         
         if(region instanceof NCLRegion)
@@ -222,6 +230,7 @@ public class NCLRegionBase<T extends NCLElement,
      *          if the element representing the region is null.
      */
     public boolean addRegion(Er region) throws XMLException {
+        checkModifiable();
         if(regions.add(region)){
             notifyInserted((T) region);
             region.setParent(this);
@@ -243,6 +252,7 @@ public class NCLRegionBase<T extends NCLElement,
      *          if the element representing the region is null.
      */
     public boolean removeRegion(Er region) throws XMLException {
+        checkModifiable();
         if(!region.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -342,6 +352,20 @@ public class NCLRegionBase<T extends NCLElement,
     }
     
     
+    /**
+     * Creates a copy of the base and of all its regions.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLRegionBase<T, Er, Ei, R> deepCopy() throws XMLException {
+        return (NCLRegionBase<T, Er, Ei, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLRegionBase))
@@ -350,16 +374,13 @@ public class NCLRegionBase<T extends NCLElement,
         boolean result = true;
         ElementList<Er> otherreg = ((NCLRegionBase) other).getRegions();
         
+        String aux = getId();
+        if(aux != null)
+            result &= aux.equals(((NCLRegionBase) other).getId());
+        
         result &= super.compareImports((NCLBase) other);
         
-        result &= regions.size() == otherreg.size();
-        for (Er reg : regions) {
-            try {
-                result &= otherreg.contains(reg);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= regions.compare(otherreg);
         
         if(device != null)
             result &= getDevice().compare(((NCLRegionBase) other).getDevice());
@@ -369,38 +390,32 @@ public class NCLRegionBase<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<regionBase";
-        content += parseAttributes();
+        out.append(space).append("<regionBase");
+        out.append(parseAttributes());
         
         if(hasRegion() || hasImportBase()) {
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
             
-            content += space + "</regionBase>\n";
+            out.append(space).append("</regionBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
     @Override
     public void load(Element element) throws NCLParsingException {
-        NodeList nl;
-        
         try{
             loadId(element);
             loadDevice(element);
@@ -419,15 +434,8 @@ public class NCLRegionBase<T extends NCLElement,
             loadRegions(element);
             
             // create the importBases
-            nl = element.getElementsByTagName(NCLElementAttributes.IMPORTBASE.toString());
-            for(int i=0; i < nl.getLength(); i++){
-                Node nd = nl.item(i);
-                if(nd instanceof Element){
-                    Element el = (Element) nl.item(i);
-                    
-                    loadImportBases(el);
-                }
-            }
+            for(Element el : XMLChildElements.getChildren(element, NCLElementAttributes.IMPORTBASE.toString()))
+                loadImportBases(el);
         }
         catch(XMLException ex){
             String aux = getId();
@@ -465,13 +473,17 @@ public class NCLRegionBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseRegions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeRegions(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        super.collectChildren(children);
+        for(Er aux : regions)
+            children.add(aux);
     }
     
     
@@ -537,30 +549,21 @@ public class NCLRegionBase<T extends NCLElement,
     }
     
     
-    protected String parseRegions(int ident) {
+    protected void writeRegions(Appendable out, int ident) throws IOException {
         if(!hasRegion())
-            return "";
+            return;
         
-        String content = "";
         for(Er aux : regions)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadRegions(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the region child nodes
         ch_name = NCLElementAttributes.REGION.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
-            if(!el.getParentNode().equals(element))
-                continue;
-
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Er inst = createRegion();
             addRegion(inst);
             inst.load(el);
@@ -605,6 +608,49 @@ public class NCLRegionBase<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLRegionBase base = (NCLRegionBase) copy;
+        if(device != null)
+            base.setDevice(device);
+        if(parent_region != null)
+            base.setParentRegion(copier.copyValue(parent_region));
+        for(Er aux : regions){
+            Er inst = copier.instance(aux);
+            base.addRegion(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("device", device);
+        out.writeValue("parentRegion", parent_region);
+        out.writeElements("regions", regions);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("device")) != null)
+            setDevice((NCLDevice) aux);
+        if((aux = in.readValue("parentRegion")) != null)
+            setParentRegion(aux);
+        for(Object child : in.readElements("regions")){
+            addRegion((Er) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -0,0 +1,86 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.reuse;
+
+import br.uff.midiacom.ana.NCLDoc;
+import java.io.File;
+
+
+/**
+ * Interface that represents a cache of imported documents. When a document
+ * has a cache, the documents imported by its importNCL and importBase elements
+ * are taken from the cache instead of being loaded again from their files.
+ * 
+ * <br/>
+ * 
+ * A document taken from the cache is shared by all the elements that import
+ * it, so it is frozen before being stored and can not be changed. The
+ * importing documents do not modify it: their global variables are copies of
+ * the variables of the imported document and the elements of the imported
+ * document do not register the elements that refer to them.
+ */
+public interface NCLDocumentCache {
+    
+    
+    /**
+     * Returns the document loaded from a file, if it is in the cache and the
+     * file was not modified since the document was stored.
+     * 
+     * @param file
+     *          file the document was loaded from.
+     * @return 
+     *          document loaded from the file or <i>null</i> if the cache does
+     *          not have an up to date document for the file.
+     */
+    public NCLDoc get(File file);
+    
+    
+    /**
+     * Stores a document loaded from a file in the cache. The modification time
+     * must be read before the document is loaded, so a document loaded while
+     * its file is modified is not taken as up to date.
+     * 
+     * @param file
+     *          file the document was loaded from.
+     * @param doc 
+     *          document loaded from the file.
+     * @param lastModified
+     *          modification time of the file before the document was loaded.
+     */
+    public void put(File file, NCLDoc doc, long lastModified);
+}
@@ -0,0 +1,157 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.reuse;
+
+import br.uff.midiacom.ana.NCLDoc;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Cache of imported documents that keeps a limited number of documents. When
+ * the cache is full, the document used least recently is discarded.
+ * 
+ * <br/>
+ * 
+ * The documents are identified by the canonical path of their files. A stored
+ * document is discarded when the modification time of its file changes.
+ */
+public class NCLDocumentLRUCache implements NCLDocumentCache {
+    
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries;
+    
+    
+    /**
+     * Cache constructor.
+     * 
+     * @param maxSize
+     *          maximum number of documents kept in the cache.
+     * @throws IllegalArgumentException
+     *          if the maximum number of documents is not positive.
+     */
+    public NCLDocumentLRUCache(int maxSize) {
+        if(maxSize <= 0)
+            throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+        
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > NCLDocumentLRUCache.this.maxSize;
+            }
+        };
+    }
+    
+    
+    @Override
+    public synchronized NCLDoc get(File file) {
+        String key = key(file);
+        Entry aux = entries.get(key);
+        if(aux == null)
+            return null;
+        
+        if(aux.lastModified != file.lastModified()){
+            entries.remove(key);
+            return null;
+        }
+        
+        return aux.doc;
+    }
+    
+    
+    @Override
+    public synchronized void put(File file, NCLDoc doc, long lastModified) {
+        entries.put(key(file), new Entry(doc, lastModified));
+    }
+    
+    
+    /**
+     * Returns the number of documents in the cache.
+     * 
+     * @return 
+     *          number of documents.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    
+    /**
+     * Returns the maximum number of documents kept in the cache.
+     * 
+     * @return 
+     *          maximum number of documents.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    
+    /**
+     * Removes all the documents from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+    
+    
+    private String key(File file) {
+        try{
+            return file.getCanonicalPath();
+        }
+        catch(IOException ex){
+            return file.getAbsolutePath();
+        }
+    }
+    
+    
+    private static class Entry {
+        
+        private final NCLDoc doc;
+        private final long lastModified;
+        
+        
+        private Entry(NCLDoc doc, long lastModified) {
+            this.doc = doc;
+            this.lastModified = lastModified;
+        }
+    }
+}
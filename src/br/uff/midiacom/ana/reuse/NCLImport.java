@@ -45,11 +45,21 @@ import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLLoadProfile;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -84,6 +94,9 @@ public abstract class NCLImport<T extends NCLElement,
 
     protected Ed importedDoc;
     protected ArrayList<T> references;
+    
+    // set by the loading thread and read by the threads that use the import
+    private transient volatile FutureTask<Ed> pendingDoc;
 
 
     /**
@@ -109,6 +122,7 @@ public abstract class NCLImport<T extends NCLElement,
      *          if the string is empty or null.
      */
     public void setAlias(String alias) throws XMLException {
+        checkModifiable();
         if(alias == null)
             throw new XMLException("Null alias");
         if("".equals(alias.trim()))
@@ -145,6 +159,7 @@ public abstract class NCLImport<T extends NCLElement,
      *          if the URI is null.
      */
     public void setDocumentURI(SrcType documentURI) throws XMLException {
+        checkModifiable();
         if(documentURI == null)
             throw new XMLException("Null documentURI.");
         
@@ -169,27 +184,79 @@ public abstract class NCLImport<T extends NCLElement,
     
     
     /**
-     * Sets the document imported by the import element.
+     * Sets the document imported by the import element. The imported document
+     * is not an attribute of the element, so no modification is notified.
      * 
      * @param importedDoc
      *          document imported.
      * @throws XMLException 
-     *          if the import element does not import a document.
+     *          if the element is frozen.
      */
-    public void setImportedDoc(Ed importedDoc) {
+    public void setImportedDoc(Ed importedDoc) throws XMLException {
+        checkModifiable();
         this.importedDoc = importedDoc;
     }
     
     
     /**
-     * Returns the document imported by the import element.
+     * Returns the document imported by the import element. If the document is
+     * still being loaded, waits until it is loaded. If the importing document
+     * loads its imports lazily, the document is loaded by the first call.
      * 
      * @return 
      *          document imported.
+     * @throws XMLException 
+     *          if an error occur while loading the imported document.
      */
-    public Ed getImportedDoc() {
+    public Ed getImportedDoc() throws XMLException {
+        if(pendingDoc != null)
+            finishLoading();
+        
         return importedDoc;
     }
+    
+    
+    /**
+     * Waits until the imported document, which is being loaded by the import
+     * executor of the document, is loaded. If the document loading has not
+     * started yet, it is loaded by the calling thread. The imported document
+     * is set before the import stops being pending, so a thread that finds
+     * the import not pending also finds its document.
+     * 
+     * @throws XMLException 
+     *          if an error occur while loading the imported document or the
+     *          thread is interrupted while waiting. An interrupted import is
+     *          still pending and can be waited for again.
+     */
+    @Deprecated
+    public synchronized void finishLoading() throws XMLException {
+        FutureTask<Ed> task = pendingDoc;
+        if(task == null)
+            return;
+        
+        Ed aux;
+        try{
+            task.run();
+            aux = task.get();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw loadError("Interrupted while loading document.");
+        }
+        catch(ExecutionException e){
+            pendingDoc = null;
+            throw loadError("Error loading document: " + e.getCause().getMessage());
+        }
+        
+        try{
+            importedDoc = aux;
+            if(getDoc() != null)
+                ((Ed) getDoc()).mergeGlobalVariables(aux);
+        }
+        finally{
+            pendingDoc = null;
+        }
+    }
 
 
     @Override
@@ -209,22 +276,18 @@ public abstract class NCLImport<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
-
-        content = space + "<" + getType();
-        content += parseAttributes();
-        content += "/>\n";
+        space = indent(ident);
 
-        return content;
+        out.append(space).append("<").append(getType());
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -239,7 +302,6 @@ public abstract class NCLImport<T extends NCLElement,
             // load the imported document or base depending on the element type
             URI path = null;
             try{
-                Ed aux = createDoc();
                 String sep = File.separator;
                 String loc = ((Ed) getDoc()).getLocation() + sep;
                 if(sep.equals("\\"))
@@ -247,9 +309,35 @@ public abstract class NCLImport<T extends NCLElement,
                 
                 URI base = new URI(loc);
                 path = base.resolve(getDocumentURI().toString());
-                aux.loadXML(new File(path.getPath()));
-                setImportedDoc(aux);
-                ((Ed) getDoc()).mergeGlobalVariables(aux);
+                
+                final File file = new File(path.getPath());
+                final Ed importer = (Ed) getDoc();
+                Executor executor = importer.getImportExecutor();
+                
+                if(executor == null && !importer.isLazyImports()){
+                    Ed aux = loadDoc(file, importer);
+                    importedDoc = aux;
+                    importer.mergeGlobalVariables(aux);
+                }
+                else{
+                    pendingDoc = new FutureTask<Ed>(new Callable<Ed>() {
+                        @Override
+                        public Ed call() throws XMLException {
+                            return loadDoc(file, importer);
+                        }
+                    });
+                    
+                    // lazy imports are only loaded when used for the first time
+                    if(!importer.isLazyImports()){
+                        // the document is loaded in parallel and waited for when used
+                        importer.waitImport(this);
+                        
+                        try{
+                            executor.execute(pendingDoc);
+                        }
+                        catch(RejectedExecutionException e){} // loaded when waited for
+                    }
+                }
             }catch(XMLException e){
                 throw new NCLParsingException("Error loading document: " + e.getMessage());
             }catch(URISyntaxException e){
@@ -268,6 +356,82 @@ public abstract class NCLImport<T extends NCLElement,
     }
     
     
+    /**
+     * Loads the imported document from its file or takes it from the cache of
+     * the importing document. A document stored in the cache is frozen before
+     * being stored.
+     * 
+     * @param file
+     *          file of the imported document.
+     * @param importer
+     *          document that imports the document.
+     * @return 
+     *          imported document.
+     * @throws XMLException 
+     *          if an error occur while loading the document.
+     */
+    protected Ed loadDoc(File file, Ed importer) throws XMLException {
+        NCLLoadProfile profile = null;
+        if(importer.isPartialImports())
+            profile = getLoadProfile();
+        
+        NCLDocumentCache cache = importer.getDocumentCache();
+        Ed aux = null;
+        if(cache != null){
+            aux = (Ed) cache.get(file);
+            
+            // a partially loaded document may not have the parts needed
+            NCLLoadProfile cached;
+            if(aux != null && (cached = aux.getLoadProfile()) != null && !cached.covers(profile))
+                aux = null;
+        }
+        
+        if(aux == null){
+            // read before loading, so a change during the load is detected
+            long lastModified = file.lastModified();
+            aux = createDoc();
+            aux.setDocumentCache(cache);
+            aux.setImportExecutor(importer.getImportExecutor());
+            aux.setLazyImports(importer.isLazyImports());
+            aux.setPartialImports(importer.isPartialImports());
+            aux.loadXML(file, profile);
+            
+            // the cached document is shared by the importers, so it can not change
+            if(cache != null){
+                aux.freeze();
+                cache.put(file, aux, lastModified);
+            }
+        }
+        
+        return aux;
+    }
+    
+    
+    /**
+     * Returns the profile used to load the imported document when the
+     * importing document loads its imports partially.
+     * 
+     * @return 
+     *          load profile or <i>null</i> to load the whole document.
+     * @throws XMLException 
+     *          if an error occur while creating the profile.
+     */
+    protected NCLLoadProfile getLoadProfile() throws XMLException {
+        return null;
+    }
+    
+    
+    private NCLParsingException loadError(String message) {
+        String aux = getAlias();
+        if(aux != null)
+            aux = "(" + aux + ")";
+        else
+            aux = "";
+        
+        return new NCLParsingException(getType() + aux + ":\n" + message);
+    }
+    
+    
     protected String parseAttributes() {
         String content = "";
         
@@ -336,6 +500,8 @@ public abstract class NCLImport<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -343,6 +509,8 @@ public abstract class NCLImport<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -366,4 +534,42 @@ public abstract class NCLImport<T extends NCLElement,
     protected Ed createDoc() throws XMLException {
         return (Ed) new NCLDoc();
     }
+
+
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLImport imp = (NCLImport) copy;
+        if(alias != null)
+            imp.setAlias(alias);
+        if(documentURI != null)
+            imp.setDocumentURI(documentURI);
+        // the imported document is not copied
+        imp.setImportedDoc(getImportedDoc());
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("alias", alias);
+        out.writeValue("documentURI", documentURI);
+        out.writeValue("importedDoc", getImportedDoc());
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("alias")) != null)
+            setAlias((String) aux);
+        if((aux = in.readValue("documentURI")) != null)
+            setDocumentURI((SrcType) aux);
+        if((aux = in.readValue("importedDoc")) != null)
+            setImportedDoc((Ed) aux);
+    }
 }
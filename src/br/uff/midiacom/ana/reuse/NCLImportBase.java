@@ -40,8 +40,18 @@ package br.uff.midiacom.ana.reuse;
 import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
 import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.transition.NCLTransitionBase;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLLoadProfile;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
 
 
@@ -121,6 +131,7 @@ public class NCLImportBase<T extends NCLElement,
      *          if any error occur while creating the reference to the region.
      */
     public void setRegion(Er region) throws XMLException {
+        checkModifiable();
         Er aux = this.region;
         // Set the new region
         this.region = region;
@@ -161,10 +172,13 @@ public class NCLImportBase<T extends NCLElement,
      *          if the string is empty.
      */
     public void setBaseId(String baseId) throws XMLException {
+        checkModifiable();
         if(baseId != null && "".equals(baseId.trim()))
             throw new XMLException("Empty baseId String.");
         
+        String aux = this.baseId;
         this.baseId = baseId;
+        notifyAltered(NCLElementAttributes.BASEID, aux, baseId);
     }
     
     
@@ -247,6 +261,60 @@ public class NCLImportBase<T extends NCLElement,
     protected String getType() {
         return "importBase";
     }
+    
+    
+    @Override
+    protected NCLLoadProfile getLoadProfile() throws XMLException {
+        // the head searches also the documents imported by the imported one
+        NCLElementAttributes base;
+        if(parent instanceof NCLConnectorBase)
+            base = NCLElementAttributes.CONNECTORBASE;
+        else if(parent instanceof NCLDescriptorBase)
+            base = NCLElementAttributes.DESCRIPTORBASE;
+        else if(parent instanceof NCLRegionBase)
+            base = NCLElementAttributes.REGIONBASE;
+        else if(parent instanceof NCLRuleBase)
+            base = NCLElementAttributes.RULEBASE;
+        else if(parent instanceof NCLTransitionBase)
+            base = NCLElementAttributes.TRANSITIONBASE;
+        else
+            return null;
+        
+        return NCLLoadProfile.bases(base, NCLElementAttributes.IMPORTEDDOCUMENTBASE);
+    }
+
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLImportBase imp = (NCLImportBase) copy;
+        if(region != null)
+            imp.setRegion((Er) copier.copyValue(region));
+        if(baseId != null)
+            imp.setBaseId(baseId);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("region", region);
+        out.writeValue("baseId", baseId);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("region")) != null)
+            setRegion((Er) aux);
+        if((aux = in.readValue("baseId")) != null)
+            setBaseId((String) aux);
+    }
+
 
     @Override
     public void clean() throws XMLException {
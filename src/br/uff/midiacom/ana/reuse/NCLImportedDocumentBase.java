@@ -52,8 +52,15 @@ import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.xml.XMLChildElements;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -136,6 +143,7 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          if the import element is null.
      */
     public boolean addImportNCL(Ei importNCL) throws XMLException {
+        checkModifiable();
         if(imports.add(importNCL)){
             notifyInserted((T) importNCL);
             importNCL.setParent(this);
@@ -157,6 +165,7 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          if the import element is null.
      */
     public boolean removeImportNCL(Ei importNCL) throws XMLException {
+        checkModifiable();
         if(!importNCL.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -209,6 +218,21 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
 
 
+    /**
+     * Creates a copy of the base and of all its imports. The imported
+     * documents are not copied.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLImportedDocumentBase<T, Ei, R> deepCopy() throws XMLException {
+        return (NCLImportedDocumentBase<T, Ei, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLImportedDocumentBase))
@@ -221,45 +245,34 @@ public class NCLImportedDocumentBase<T extends NCLElement,
         if(aux != null)
             result &= aux.equals(((NCLImportedDocumentBase) other).getId());
         
-        result &= imports.size() == otherimp.size();
-        for (Ei imp : imports) {
-            try {
-                result &= otherimp.contains(imp);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= imports.compare(otherimp);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<importedDocumentBase";
-        content += parseAttributes();
+        out.append(space).append("<importedDocumentBase");
+        out.append(parseAttributes());
 
         if(hasImportNCL()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</importedDocumentBase>\n";
+            out.append(space).append("</importedDocumentBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -290,12 +303,15 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportNCL(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportNCL(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ei aux : imports)
+            children.add(aux);
     }
     
     
@@ -318,27 +334,21 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
     
     
-    protected String parseImportNCL(int ident) {
+    protected void writeImportNCL(Appendable out, int ident) throws IOException {
         if(!hasImportNCL())
-            return "";
+            return;
         
-        String content = "";
         for(Ei aux : imports)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
     protected void loadImportNCL(Element element) throws XMLException {
         String ch_name;
-        NodeList nl;
         
         // create the child nodes
         ch_name = NCLElementAttributes.IMPORTNCL.toString();
-        nl = element.getElementsByTagName(ch_name);
-        for(int i=0; i < nl.getLength(); i++){
-            Element el = (Element) nl.item(i);
+        for(Element el : XMLChildElements.getChildren(element, ch_name)){
             Ei inst = createImportNCL();
             addImportNCL(inst);
             inst.load(el);
@@ -496,6 +506,38 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLImportedDocumentBase base = (NCLImportedDocumentBase) copy;
+        for(Ei aux : imports){
+            Ei inst = copier.instance(aux);
+            base.addImportNCL(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("imports", imports);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("imports")){
+            addImportNCL((Ei) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -49,7 +49,11 @@ import br.uff.midiacom.ana.node.NCLNode;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLBindConstituent;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -111,6 +115,7 @@ public class NCLBindRule<T extends NCLElement,
      *          reference to the descriptor.
      */
     public void setConstituent(Ec constituent) throws XMLException {
+        checkModifiable();
         if(constituent == null)
             throw new XMLException("Null constituent.");
         
@@ -163,6 +168,7 @@ public class NCLBindRule<T extends NCLElement,
      *          
      */
     public void setRule(Object rule) throws XMLException {
+        checkModifiable();
         if(rule == null)
             throw new XMLException("Null rule.");
         
@@ -237,23 +243,18 @@ public class NCLBindRule<T extends NCLElement,
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<bindRule";
-        content += parseAttributes();
-        content += "/>\n";
-
-
-        return content;
+        out.append(space).append("<bindRule");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -326,7 +327,7 @@ public class NCLBindRule<T extends NCLElement,
                 throw new NCLParsingException("Could not find element " + att_var);
 
             Ec comp = null;
-            if(aux instanceof NCLDescriptor)
+            if(aux instanceof NCLDescriptorSwitch)
                 comp = (Ec) ((NCLDescriptorSwitch) aux).getDescriptors().get(att_var);
             else if(aux instanceof NCLNode)
                 comp = (Ec) ((NCLNode) aux).findNode(att_var);
@@ -340,6 +341,39 @@ public class NCLBindRule<T extends NCLElement,
             throw new NCLParsingException("Could not find " + att_name + " attribute.");
     }
 
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLBindRule bind = (NCLBindRule) copy;
+        if(constituent != null)
+            bind.setConstituent((Ec) copier.copyValue(constituent));
+        if(rule != null)
+            bind.setRule(copier.copyValue(rule));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("constituent", constituent);
+        out.writeValue("rule", rule);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("constituent")) != null)
+            setConstituent((Ec) aux);
+        if((aux = in.readValue("rule")) != null)
+            setRule(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -46,10 +46,16 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -147,6 +153,7 @@ public class NCLCompositeRule<T extends NCLElement,
      *          if the value representing the operator is null.
      */
     public void setOperator(NCLOperator operator) throws XMLException {
+        checkModifiable();
         if(operator == null)
             throw new XMLException("Null operator.");
         
@@ -184,6 +191,7 @@ public class NCLCompositeRule<T extends NCLElement,
      *          if the element representing the rule is null.
      */
     public boolean addRule(Et rule) throws XMLException {
+        checkModifiable();
         if(rules.add(rule)){
             notifyInserted((T) rule);
             rule.setParent(this);
@@ -206,6 +214,7 @@ public class NCLCompositeRule<T extends NCLElement,
      *          if the element representing the rule is null.
      */
     public boolean removeRule(Et rule) throws XMLException {
+        checkModifiable();
         if(!rule.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -327,42 +336,31 @@ public class NCLCompositeRule<T extends NCLElement,
             result &= aux.equals(((NCLCompositeRule) other).getOperator());
         
         ElementList<Et> otherpar = ((NCLCompositeRule) other).getRules();
-        result &= rules.size() == otherpar.size();
-        for (Et rul : rules) {
-            try {
-                result &= otherpar.contains(rul);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= rules.compare(otherpar);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<compositeRule";
-        content += parseAttributes();
-        content += ">\n";
-
-        content += parseElements(ident + 1);
+        out.append(space).append("<compositeRule");
+        out.append(parseAttributes());
+        out.append(">\n");
 
-        content += "</compositeRule>\n";
+        writeElements(out, ident + 1);
 
-        return content;
+        out.append("</compositeRule>\n");
     }
 
 
@@ -391,9 +389,18 @@ public class NCLCompositeRule<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadRules(el);
-                    loadCompositeRules(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case RULE:
+                            loadRules(el);
+                            break;
+                        case COMPOSITERULE:
+                            loadCompositeRules(el);
+                            break;
+                    }
                 }
             }
         }
@@ -419,12 +426,15 @@ public class NCLCompositeRule<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseRules(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeRules(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Et aux : rules)
+            children.add(aux);
     }
     
     
@@ -470,15 +480,12 @@ public class NCLCompositeRule<T extends NCLElement,
     }
     
     
-    protected String parseRules(int ident) {
+    protected void writeRules(Appendable out, int ident) throws IOException {
         if(!hasRule())
-            return "";
+            return;
         
-        String content = "";
         for(Et aux : rules)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -522,6 +529,8 @@ public class NCLCompositeRule<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -529,6 +538,8 @@ public class NCLCompositeRule<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -539,6 +550,44 @@ public class NCLCompositeRule<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLCompositeRule rule = (NCLCompositeRule) copy;
+        if(operator != null)
+            rule.setOperator(operator);
+        for(Et aux : rules){
+            Et inst = copier.instance(aux);
+            rule.addRule(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("operator", operator);
+        out.writeElements("rules", rules);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("operator")) != null)
+            setOperator((NCLOperator) aux);
+        for(Object child : in.readElements("rules")){
+            addRule((Et) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
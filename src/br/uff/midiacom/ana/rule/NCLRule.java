@@ -46,8 +46,13 @@ import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -129,6 +134,7 @@ public class NCLRule<T extends NCLElement,
      *          reference to the variable.
      */
     public void setVar(Ev var) throws XMLException {
+        checkModifiable();
         if(var == null)
             throw new XMLException("Null variable");
         
@@ -173,6 +179,7 @@ public class NCLRule<T extends NCLElement,
      *          if the value representing the comparator is null.
      */
     public void setComparator(NCLComparator comparator) throws XMLException {
+        checkModifiable();
         if(comparator == null)
             throw new XMLException("Null comparator.");
         
@@ -206,6 +213,7 @@ public class NCLRule<T extends NCLElement,
      *          if the string representing the value is null or empty.
      */
     public void setValue(String value) throws XMLException {
+        checkModifiable();
         if(value == null)
             throw new XMLException("Null value.");
         
@@ -252,24 +260,20 @@ public class NCLRule<T extends NCLElement,
     
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<rule";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<rule");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -420,6 +424,8 @@ public class NCLRule<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -427,6 +433,8 @@ public class NCLRule<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Eb reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -437,6 +445,44 @@ public class NCLRule<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLRule rule = (NCLRule) copy;
+        if(var != null)
+            rule.setVar((Ev) copier.copyValue(var));
+        if(comparator != null)
+            rule.setComparator(comparator);
+        if(value != null)
+            rule.setValue(value);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("var", var);
+        out.writeValue("comparator", comparator);
+        out.writeValue("value", value);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("var")) != null)
+            setVar((Ev) aux);
+        if((aux = in.readValue("comparator")) != null)
+            setComparator((NCLComparator) aux);
+        if((aux = in.readValue("value")) != null)
+            setValue((String) aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
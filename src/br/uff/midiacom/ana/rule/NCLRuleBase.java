@@ -51,9 +51,15 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -134,6 +140,7 @@ public class NCLRuleBase<T extends NCLElement,
      *          if the element representing the rule is null.
      */
     public boolean addRule(Et rule) throws XMLException {
+        checkModifiable();
         if(rules.add(rule)){
             notifyInserted((T) rule);
             rule.setParent(this);
@@ -156,6 +163,7 @@ public class NCLRuleBase<T extends NCLElement,
      *          if the element representing the rule is null.
      */
     public boolean removeRule(Et rule) throws XMLException {
+        checkModifiable();
         if(!rule.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -263,6 +271,20 @@ public class NCLRuleBase<T extends NCLElement,
     }
     
     
+    /**
+     * Creates a copy of the base and of all its rules.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLRuleBase<T, Et, Ei, R> deepCopy() throws XMLException {
+        return (NCLRuleBase<T, Et, Ei, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLRuleBase))
@@ -273,45 +295,34 @@ public class NCLRuleBase<T extends NCLElement,
         
         result &= super.compareImports((NCLBase) other);
         
-        result &= rules.size() == otherrul.size();
-        for (Et rul : rules) {
-            try {
-                result &= otherrul.contains(rul);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= rules.compare(otherrul);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<ruleBase";
-        content += parseAttributes();
+        out.append(space).append("<ruleBase");
+        out.append(parseAttributes());
 
         if(hasImportBase() || hasRule()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</ruleBase>\n";
+            out.append(space).append("</ruleBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -333,10 +344,21 @@ public class NCLRuleBase<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadImportBases(el);
-                    loadRules(el);
-                    loadCompositeRules(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case IMPORTBASE:
+                            loadImportBases(el);
+                            break;
+                        case RULE:
+                            loadRules(el);
+                            break;
+                        case COMPOSITERULE:
+                            loadCompositeRules(el);
+                            break;
+                    }
                 }
             }
         }
@@ -355,13 +377,17 @@ public class NCLRuleBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseRules(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeRules(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        super.collectChildren(children);
+        for(Et aux : rules)
+            children.add(aux);
     }
     
     
@@ -384,15 +410,12 @@ public class NCLRuleBase<T extends NCLElement,
     }
     
     
-    protected String parseRules(int ident) {
+    protected void writeRules(Appendable out, int ident) throws IOException {
         if(!hasRule())
-            return "";
+            return;
         
-        String content = "";
         for(Et aux : rules)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -455,6 +478,38 @@ public class NCLRuleBase<T extends NCLElement,
     }
 
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLRuleBase base = (NCLRuleBase) copy;
+        for(Et aux : rules){
+            Et inst = copier.instance(aux);
+            base.addRule(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("rules", rules);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("rules")){
+            addRule((Et) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
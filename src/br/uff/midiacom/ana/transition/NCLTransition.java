@@ -49,8 +49,13 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.descriptor.NCLDescriptor;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -126,7 +131,7 @@ public class NCLTransition<T extends NCLElement,
         if(id == null)
             throw new XMLException("Null id String");
         
-        this.id = id;
+        super.setId(id);
     }
 
 
@@ -142,6 +147,7 @@ public class NCLTransition<T extends NCLElement,
      *          if the element representing the transition type is null.
      */
     public void setType(NCLTransitionType type) throws XMLException {
+        checkModifiable();
         if(type == null)
             throw new XMLException("Null type.");
         
@@ -182,6 +188,7 @@ public class NCLTransition<T extends NCLElement,
      *          already defined.
      */
     public void setSubtype(NCLTransitionSubtype subtype) throws XMLException {
+        checkModifiable();
         NCLTransitionSubtype aux = this.subtype;
         this.subtype = subtype;
         notifyAltered(NCLElementAttributes.SUBTYPE, aux, subtype);
@@ -221,6 +228,7 @@ public class NCLTransition<T extends NCLElement,
      *          erase a duration already defined.
      */
     public void setDur(TimeType dur) throws XMLException {
+        checkModifiable();
         TimeType aux = this.dur;
         this.dur = dur;
         notifyAltered(NCLElementAttributes.DUR, aux, dur);
@@ -267,6 +275,7 @@ public class NCLTransition<T extends NCLElement,
      *          if the number is not between 0 and 1.
      */
     public void setStartProgress(Double startProgress) throws XMLException {
+        checkModifiable();
         if(startProgress != null & (startProgress < 0 || startProgress > 1))
             throw new XMLException("Invalid progress value.");
         
@@ -323,6 +332,7 @@ public class NCLTransition<T extends NCLElement,
      *          if the number is not between 0 and 1.
      */
     public void setEndProgress(Double endProgress) throws XMLException {
+        checkModifiable();
         if(endProgress != null & (endProgress < 0 || endProgress > 1))
             throw new XMLException("Invalid progress value.");
         
@@ -376,6 +386,7 @@ public class NCLTransition<T extends NCLElement,
      *          <i>NCLTransitionDirection</i>.
      */
     public void setDirection(NCLTransitionDirection direction) throws XMLException {
+        checkModifiable();
         NCLTransitionDirection aux = this.direction;
         this.direction = direction;
         notifyAltered(NCLElementAttributes.DIRECTION, aux, direction);
@@ -426,6 +437,7 @@ public class NCLTransition<T extends NCLElement,
      *          <i>NCLColor</i> or <i>null</i> to erase a color already defined.
      */
     public void setFadeColor(NCLColor fadeColor) throws XMLException {
+        checkModifiable();
         NCLColor aux = this.fadeColor;
         this.fadeColor = fadeColor;
         notifyAltered(NCLElementAttributes.FADECOLOR, aux, fadeColor);
@@ -469,6 +481,7 @@ public class NCLTransition<T extends NCLElement,
      *          <i>null</i> to erase a repetition already defined.
      */
     public void setHorRepeat(Integer horRepeat) throws XMLException {
+        checkModifiable();
         Integer aux = this.horRepeat;
         this.horRepeat = horRepeat;
         notifyAltered(NCLElementAttributes.HORREPEAT, aux, horRepeat);
@@ -506,6 +519,7 @@ public class NCLTransition<T extends NCLElement,
      *          <i>null</i> to erase a repetition already defined.
      */
     public void setVertRepeat(Integer vertRepeat) throws XMLException {
+        checkModifiable();
         Integer aux = this.vertRepeat;
         this.vertRepeat = vertRepeat;
         notifyAltered(NCLElementAttributes.VERTREPEAT, aux, vertRepeat);
@@ -550,6 +564,7 @@ public class NCLTransition<T extends NCLElement,
      *          if the width is negative.
      */
     public void setBorderWidth(Integer borderWidth) throws XMLException {
+        checkModifiable();
         if(borderWidth != null && borderWidth < 0)
             throw new XMLException("Negative border width.");
         
@@ -603,6 +618,7 @@ public class NCLTransition<T extends NCLElement,
      *          a color already defined.
      */
     public void setBorderColor(Object borderColor) throws XMLException {
+        checkModifiable();
         Object aux = this.borderColor;
         
         if(borderColor == null){
@@ -692,25 +708,21 @@ public class NCLTransition<T extends NCLElement,
 
     
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
         Object aux;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
 
         // param element and attributes declaration
-        content = space + "<transition";
-        content += parseAttributes();
-        content += "/>\n";
-
-        return content;
+        out.append(space).append("<transition");
+        out.append(parseAttributes());
+        out.append("/>\n");
     }
 
 
@@ -1023,6 +1035,8 @@ public class NCLTransition<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(Ed reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -1030,6 +1044,8 @@ public class NCLTransition<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(Ed reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -1039,6 +1055,84 @@ public class NCLTransition<T extends NCLElement,
         return references;
     }
 
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLTransition transition = (NCLTransition) copy;
+        if(type != null)
+            transition.setType(type);
+        if(subtype != null)
+            transition.setSubtype(subtype);
+        if(dur != null)
+            transition.setDur((TimeType) copier.copyValue(dur));
+        if(startProgress != null)
+            transition.setStartProgress(startProgress);
+        if(endProgress != null)
+            transition.setEndProgress(endProgress);
+        if(direction != null)
+            transition.setDirection(direction);
+        if(fadeColor != null)
+            transition.setFadeColor(fadeColor);
+        if(horRepeat != null)
+            transition.setHorRepeat(horRepeat);
+        if(vertRepeat != null)
+            transition.setVertRepeat(vertRepeat);
+        if(borderWidth != null)
+            transition.setBorderWidth(borderWidth);
+        if(borderColor != null)
+            transition.setBorderColor(copier.copyValue(borderColor));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("type", type);
+        out.writeValue("subtype", subtype);
+        out.writeValue("dur", dur);
+        out.writeValue("startProgress", startProgress);
+        out.writeValue("endProgress", endProgress);
+        out.writeValue("direction", direction);
+        out.writeValue("fadeColor", fadeColor);
+        out.writeValue("horRepeat", horRepeat);
+        out.writeValue("vertRepeat", vertRepeat);
+        out.writeValue("borderWidth", borderWidth);
+        out.writeValue("borderColor", borderColor);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("type")) != null)
+            setType((NCLTransitionType) aux);
+        if((aux = in.readValue("subtype")) != null)
+            setSubtype((NCLTransitionSubtype) aux);
+        if((aux = in.readValue("dur")) != null)
+            setDur((TimeType) aux);
+        if((aux = in.readValue("startProgress")) != null)
+            setStartProgress((Double) aux);
+        if((aux = in.readValue("endProgress")) != null)
+            setEndProgress((Double) aux);
+        if((aux = in.readValue("direction")) != null)
+            setDirection((NCLTransitionDirection) aux);
+        if((aux = in.readValue("fadeColor")) != null)
+            setFadeColor((NCLColor) aux);
+        if((aux = in.readValue("horRepeat")) != null)
+            setHorRepeat((Integer) aux);
+        if((aux = in.readValue("vertRepeat")) != null)
+            setVertRepeat((Integer) aux);
+        if((aux = in.readValue("borderWidth")) != null)
+            setBorderWidth((Integer) aux);
+        if((aux = in.readValue("borderColor")) != null)
+            setBorderColor(aux);
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
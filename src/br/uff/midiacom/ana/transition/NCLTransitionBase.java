@@ -49,9 +49,16 @@ import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementCopier;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -126,6 +133,7 @@ public class NCLTransitionBase<T extends NCLElement,
      *          if the element representing the transition is null.
      */
     public boolean addTransition(Et transition) throws XMLException {
+        checkModifiable();
         if(transitions.add(transition)){
             transition.setParent(this);
             notifyInserted((T) transition);
@@ -147,6 +155,7 @@ public class NCLTransitionBase<T extends NCLElement,
      *          if the element representing the transition is null.
      */
     public boolean removeTransition(Et transition) throws XMLException {
+        checkModifiable();
         if(!transition.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -250,6 +259,20 @@ public class NCLTransitionBase<T extends NCLElement,
     }
     
     
+    /**
+     * Creates a copy of the base and of all its transitions.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    @Override
+    public NCLTransitionBase<T, Et, Ei, R> deepCopy() throws XMLException {
+        return (NCLTransitionBase<T, Et, Ei, R>) super.deepCopy();
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLTransitionBase))
@@ -260,45 +283,34 @@ public class NCLTransitionBase<T extends NCLElement,
         
         result &= super.compareImports((NCLBase) other);
         
-        result &= transitions.size() == othertra.size();
-        for (Et tra : transitions) {
-            try {
-                result &= othertra.contains(tra);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= transitions.compare(othertra);
         
         return result;
     }
 
 
     @Override
-    public String parse(int ident) {
-        String space, content;
+    public void write(Appendable out, int ident) throws IOException {
+        String space;
 
         if(ident < 0)
             ident = 0;
 
         // Element indentation
-        space = "";
-        for(int i = 0; i < ident; i++)
-            space += "\t";
+        space = indent(ident);
 
-        content = space + "<transitionBase";
-        content += parseAttributes();
+        out.append(space).append("<transitionBase");
+        out.append(parseAttributes());
 
         if(hasImportBase() || hasTransition()){
-            content += ">\n";
+            out.append(">\n");
 
-            content += parseElements(ident + 1);
+            writeElements(out, ident + 1);
 
-            content += space + "</transitionBase>\n";
+            out.append(space).append("</transitionBase>\n");
         }
         else
-            content += "/>\n";
-
-        return content;
+            out.append("/>\n");
     }
 
 
@@ -320,9 +332,18 @@ public class NCLTransitionBase<T extends NCLElement,
                 Node nd = nl.item(i);
                 if(nd instanceof Element){
                     Element el = (Element) nl.item(i);
-
-                    loadImportBases(el);
-                    loadTransitions(el);
+                    NCLElementAttributes tag = NCLElementAttributes.getEnumType(el.getTagName());
+                    if(tag == null)
+                        continue;
+
+                    switch(tag){
+                        case IMPORTBASE:
+                            loadImportBases(el);
+                            break;
+                        case TRANSITION:
+                            loadTransitions(el);
+                            break;
+                    }
                 }
             }
         }
@@ -341,13 +362,17 @@ public class NCLTransitionBase<T extends NCLElement,
     }
     
     
-    protected String parseElements(int ident) {
-        String content = "";
-        
-        content += parseImportBases(ident);
-        content += parseTransitions(ident);
-        
-        return content;
+    protected void writeElements(Appendable out, int ident) throws IOException {
+        writeImportBases(out, ident);
+        writeTransitions(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        super.collectChildren(children);
+        for(Et aux : transitions)
+            children.add(aux);
     }
     
     
@@ -370,15 +395,12 @@ public class NCLTransitionBase<T extends NCLElement,
     }
     
     
-    protected String parseTransitions(int ident) {
+    protected void writeTransitions(Appendable out, int ident) throws IOException {
         if(!hasTransition())
-            return "";
+            return;
         
-        String content = "";
         for(Et aux : transitions)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
     }
     
     
@@ -428,6 +450,38 @@ public class NCLTransitionBase<T extends NCLElement,
     }
     
     
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLTransitionBase base = (NCLTransitionBase) copy;
+        for(Et aux : transitions){
+            Et inst = copier.instance(aux);
+            base.addTransition(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("transitions", transitions);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("transitions")){
+            addTransition((Et) child);
+            in.fill(child);
+        }
+    }
+
+
     @Override
     public void clean() throws XMLException {
         setParent(null);
@@ -38,19 +38,37 @@
 package br.uff.midiacom.ana.util;
 
 import br.uff.midiacom.ana.util.xml.XMLElement;
+import br.uff.midiacom.ana.util.exception.NCLModificationException;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 
 /**
  * This class represents a list of xml elements. This element list does not
  * stores null elements or repeated elements.
+ * 
+ * <br/>
+ * 
+ * The list keeps an index of its elements by identification (id or name), so
+ * retrieving an element by its identification and looking for repeated
+ * elements does not need to go through the whole list. Elements without an
+ * identification, or whose name is a reference to another element, are kept
+ * apart and always checked. Two elements with different identifications are
+ * never considered repeated.
+ * 
+ * <br/>
+ * 
+ * A list can be frozen, together with its document, after which it can not be
+ * modified anymore and can be read by several threads at the same time.
  *
  * @param <T>
  *          the type of element stored in the list.
@@ -59,6 +77,9 @@ public class ElementList<T extends XMLElement>
         implements Iterable<T>, Serializable {
 
     protected List<T> elements;
+    protected Map<String, List<T>> index;
+    protected List<T> unkeyed;
+    protected boolean frozen;
 
 
     /**
@@ -66,6 +87,8 @@ public class ElementList<T extends XMLElement>
      */
     public ElementList() {
         elements = new ArrayList<T>();
+        index = new HashMap<String, List<T>>();
+        unkeyed = new ArrayList<T>();
     }
 
 
@@ -105,19 +128,112 @@ public class ElementList<T extends XMLElement>
         if(element == null)
             throw new XMLException("Null element.");
 
-        return elements.contains(element);
+        String key = identification(element);
+        if(key == null)
+            return unkeyed.contains(element);
+        
+        List<T> bucket = index.get(key);
+        return bucket != null && bucket.contains(element);
     }
 
 
     /**
-     * Returns the list iterator.
+     * Verifies if the list has the same elements of another list. The elements
+     * are compared by their content, using their method <i>compare</i>, and
+     * the order of the elements is not considered.
+     * 
+     * <br/>
+     * 
+     * The elements of the other list with the same content hash are compared
+     * first, so lists with the same content are compared in linear time. An
+     * element without a match among them is compared with the remaining
+     * elements of the other list.
+     *
+     * @param other
+     *          list to be compared.
+     * @return
+     *          true if both lists have the same elements.
+     */
+    public boolean compare(ElementList<T> other) {
+        if(other == null || size() != other.size())
+            return false;
+        
+        List<T> others = other.elements;
+        boolean[] matched = new boolean[others.size()];
+        Map<Integer, List<Integer>> candidates = new HashMap<Integer, List<Integer>>();
+        for(int i = 0; i < others.size(); i++){
+            Integer hash = contentHash(others.get(i));
+            List<Integer> bucket = candidates.get(hash);
+            if(bucket == null){
+                bucket = new ArrayList<Integer>(1);
+                candidates.put(hash, bucket);
+            }
+            bucket.add(i);
+        }
+        
+        for(T el : elements){
+            int found = -1;
+            List<Integer> bucket = candidates.get(contentHash(el));
+            if(bucket != null){
+                for(int i = 0; i < bucket.size() && found < 0; i++){
+                    int index = bucket.get(i);
+                    if(!matched[index] && el.compare(others.get(index)))
+                        found = index;
+                }
+            }
+            
+            // compare ignores attributes the element does not have, so an
+            // equal element may have another hash
+            for(int i = 0; i < others.size() && found < 0; i++){
+                if(!matched[i] && el.compare(others.get(i)))
+                    found = i;
+            }
+            
+            if(found < 0)
+                return false;
+            matched[found] = true;
+        }
+        
+        return true;
+    }
+
+
+    /**
+     * Returns the list iterator. Since the method <i>remove</i> of an iterator
+     * can not throw an <i>NCLModificationException</i>, removing an element of
+     * a frozen list through the iterator throws an
+     * <i>UnsupportedOperationException</i> caused by that exception.
      *
      * @return
      *          iterator of the list elements.
      */
     @Override
     public Iterator<T> iterator() {
-        return elements.iterator();
+        final Iterator<T> it = elements.iterator();
+        
+        return new Iterator<T>() {
+            private T last;
+            
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public T next() {
+                last = it.next();
+                return last;
+            }
+
+            public void remove() {
+                try{
+                    checkModifiable();
+                }catch(NCLModificationException e){
+                    throw (UnsupportedOperationException) new UnsupportedOperationException(e.getMessage()).initCause(e);
+                }
+                
+                it.remove();
+                unindex(last);
+            }
+        };
     }
     
 
@@ -130,20 +246,25 @@ public class ElementList<T extends XMLElement>
      * @return
      *          true if the element was added to the list.
      * @throws XMLException
-     *          if the element is null.
+     *          if the element is null or the list is frozen.
      */
     public boolean add(T element) throws XMLException {
+        checkModifiable();
         if(element == null)
             throw new XMLException("Null element.");
 
-        for(T el : elements){
-            if(el.compare(element)){
-                elements.remove(el);
-                break;
-            }
+        String key = identification(element);
+        T el = findRepeated(element, key);
+        if(el != null){
+            elements.remove(el);
+            unindex(el);
+            if(el != element)
+                el.setParent(null);
         }
 
-        return elements.add(element);
+        elements.add(element);
+        index(element, key);
+        return true;
     }
     
 
@@ -155,17 +276,20 @@ public class ElementList<T extends XMLElement>
      * @return
      *          true if the element was removed.
      * @throws XMLException
-     *          if the element is null.
+     *          if the element is null or the list is frozen.
      */
     public boolean remove(T element) throws XMLException {
+        checkModifiable();
         if(element == null)
             throw new XMLException("Null element.");
 
-        if(elements.remove(element)){
-            element.setParent(null);
-            return true;
-        }
-        return false;
+        if(!contains(element))
+            return false;
+        
+        elements.remove(element);
+        unindex(element);
+        element.setParent(null);
+        return true;
     }
     
     
@@ -177,17 +301,22 @@ public class ElementList<T extends XMLElement>
      * @return
      *          true if the element was removed.
      * @throws XMLException
-     *          if the string is null or empty.
+     *          if the string is null or empty or the list is frozen.
      */
     public boolean remove(String ident) throws XMLException {
+        checkModifiable();
         if(ident == null)
             throw new XMLException("Null identification string.");
         if("".equals(ident.trim()))
             throw new XMLException("Empty identification string");
 
         T aux = get(ident);
-        if(aux != null)
-            return elements.remove(aux);
+        if(aux != null){
+            elements.remove(aux);
+            unindex(aux);
+            aux.setParent(null);
+            return true;
+        }
         else
             return false;
     }
@@ -203,15 +332,24 @@ public class ElementList<T extends XMLElement>
      * @return
      *          true if all elements were added and false if at least one
      *          element was not added.
+     * @throws XMLException
+     *          if the list is frozen.
      */
-    public boolean addAll(ElementList<T> list) {
+    public boolean addAll(ElementList<T> list) throws XMLException {
+        checkModifiable();
+        
         boolean result = true;
         
         for(T aux : list){
-            if(elements.contains(aux))
+            String key = identification(aux);
+            List<T> bucket = key == null ? unkeyed : index.get(key);
+            
+            if(bucket != null && bucket.contains(aux))
                 result = false;
-            else
+            else{
                 elements.add(aux);
+                index(aux, key);
+            }
         }
         
         return result;
@@ -225,17 +363,43 @@ public class ElementList<T extends XMLElement>
      *          collection of elements to be removed.
      * @return
      *          true if the elements were removed.
+     * @throws XMLException
+     *          if the list is frozen.
      */
-    public boolean removeAll(Collection<?> clctn) {
-        return elements.removeAll(clctn);
+    public boolean removeAll(Collection<?> clctn) throws XMLException {
+        checkModifiable();
+        
+        boolean result = false;
+        
+        Iterator<T> it = iterator();
+        while(it.hasNext()){
+            if(clctn.contains(it.next())){
+                it.remove();
+                result = true;
+            }
+        }
+        
+        return result;
     }
 
 
     /**
      * Removes all the elements from the list.
+     * 
+     * @throws XMLException
+     *          if the list is frozen.
      */
-    public void clear() {
+    public void clear() throws XMLException {
+        checkModifiable();
+        
+        for(T el : elements){
+            if(el instanceof NCLElementPrototype)
+                ((NCLElementPrototype) el).removeOwnerList(this);
+        }
+        
         elements.clear();
+        index.clear();
+        unkeyed.clear();
     }
 
 
@@ -276,23 +440,18 @@ public class ElementList<T extends XMLElement>
         if("".equals(ident.trim()))
             throw new XMLException("Empty identification string");
         
-        if(elements.isEmpty())
-            return null;
+        List<T> bucket = index.get(ident);
+        if(bucket != null && !bucket.isEmpty())
+            return bucket.get(0);
         
-        T aux = elements.get(0);
-        if(aux instanceof NCLIdentifiableElementPrototype){
-            for(T el : elements){
-                if(((NCLIdentifiableElementPrototype) el).getId().equals(ident))
-                    return el;
-            }
-        }
-        else if(aux instanceof NCLNamedElementPrototype){
-            for(T el : elements){
+        // elements named after other elements are not indexed
+        for(T el : unkeyed){
+            if(el instanceof NCLNamedElementPrototype){
                 Object name = ((NCLNamedElementPrototype) el).getName();
                 if(name instanceof NCLNamedElementPrototype)
                     name = ((NCLNamedElementPrototype) name).getName();
                 
-                if(name.toString().equals(ident))
+                if(name != null && name.toString().equals(ident))
                     return el;
             }
         }
@@ -312,4 +471,158 @@ public class ElementList<T extends XMLElement>
     public int getPosition(T element) {
         return elements.indexOf(element);
     }
+    
+    
+    /**
+     * Freezes the list. A frozen list can not be modified.
+     */
+    @Deprecated
+    public void freeze() {
+        frozen = true;
+    }
+    
+    
+    /**
+     * Verifies if the list is frozen.
+     * 
+     * @return 
+     *          true if the list can not be modified.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    
+    private void checkModifiable() throws NCLModificationException {
+        if(frozen)
+            throw new NCLModificationException("Frozen list.");
+    }
+    
+    
+    /**
+     * Updates the index of the list when the identification of one of its
+     * elements changes. This method is called by the element itself.
+     * 
+     * @param element
+     *          element whose identification changed.
+     * @param oldIdent
+     *          the previous identification (id or name) of the element.
+     */
+    @Deprecated
+    public void updateIdentification(T element, Object oldIdent) {
+        String oldKey = key(oldIdent);
+        String newKey = identification(element);
+        
+        if(oldKey == null ? newKey == null : oldKey.equals(newKey))
+            return;
+        
+        List<T> bucket = oldKey == null ? unkeyed : index.get(oldKey);
+        if(bucket == null || !removeFrom(bucket, element))
+            return;
+        if(bucket.isEmpty() && oldKey != null)
+            index.remove(oldKey);
+        
+        if(newKey == null)
+            unkeyed.add(element);
+        else
+            bucket(newKey).add(element);
+    }
+    
+    
+    private int contentHash(T element) {
+        if(element instanceof NCLElementPrototype)
+            return ((NCLElementPrototype) element).contentHash();
+        else
+            return 0;
+    }
+    
+    
+    private T findRepeated(T element, String key) {
+        if(key != null){
+            List<T> bucket = index.get(key);
+            if(bucket != null){
+                for(T el : bucket){
+                    if(el.compare(element))
+                        return el;
+                }
+            }
+        }
+        
+        for(T el : unkeyed){
+            if(el.compare(element))
+                return el;
+        }
+        
+        return null;
+    }
+    
+    
+    private void index(T element, String key) {
+        if(key == null)
+            unkeyed.add(element);
+        else
+            bucket(key).add(element);
+        
+        if(element instanceof NCLElementPrototype)
+            ((NCLElementPrototype) element).addOwnerList(this);
+    }
+    
+    
+    private void unindex(T element) {
+        String key = identification(element);
+        
+        if(key == null)
+            removeFrom(unkeyed, element);
+        else{
+            List<T> bucket = index.get(key);
+            if(bucket != null){
+                removeFrom(bucket, element);
+                if(bucket.isEmpty())
+                    index.remove(key);
+            }
+        }
+        
+        if(element instanceof NCLElementPrototype)
+            ((NCLElementPrototype) element).removeOwnerList(this);
+    }
+    
+    
+    private List<T> bucket(String key) {
+        List<T> bucket = index.get(key);
+        if(bucket == null){
+            bucket = new ArrayList<T>(1);
+            index.put(key, bucket);
+        }
+        return bucket;
+    }
+    
+    
+    private boolean removeFrom(List<T> list, T element) {
+        for(int i = 0; i < list.size(); i++){
+            if(list.get(i) == element){
+                list.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    
+    private static String identification(Object element) {
+        if(element instanceof NCLIdentifiableElementPrototype)
+            return ((NCLIdentifiableElementPrototype) element).getId();
+        else if(element instanceof NCLNamedElementPrototype)
+            return key(((NCLNamedElementPrototype) element).getName());
+        else
+            return null;
+    }
+    
+    
+    private static String key(Object ident) {
+        // names referencing other elements may change without notice
+        if(ident == null || ident instanceof NCLNamedElementPrototype)
+            return null;
+        
+        return ident.toString();
+    }
 }
@@ -116,6 +116,29 @@ public class SrcType implements Serializable {
     }
 
 
+    /**
+     * Returns the locator type.
+     *
+     * @return
+     *          element representing the locator type or <i>null</i> if the
+     *          locator is untyped.
+     */
+    public NCLUriType getType() {
+        return type;
+    }
+
+
+    /**
+     * Returns the locator without its type.
+     *
+     * @return
+     *          String representing the locator.
+     */
+    public String getSrc() {
+        return src;
+    }
+
+
     public String getExtension() {
         return src.substring(src.lastIndexOf("."));
     }
@@ -37,6 +37,9 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.enums;
 
+import java.util.HashMap;
+import java.util.Map;
+
 
 /**
  * Nomes dos atributos dos elementos NCL
@@ -175,8 +178,29 @@ public enum NCLElementAttributes {
     XMLNS("xmlns"),
     ZINDEX("zIndex");
 
+    private static final Map<String, NCLElementAttributes> names = new HashMap<String, NCLElementAttributes>();
+    static {
+        for(NCLElementAttributes opt : values())
+            names.put(opt.name, opt);
+    }
+    
     private String name;
     private NCLElementAttributes(String name) { this.name = name;}
+    
+    /**
+     * Returns the constant with a given name, which is also the name of the XML
+     * element or attribute. The constants are kept in a table, so the elements
+     * can be dispatched by their tag names without comparing each name.
+     * 
+     * @param name
+     *          name of the element or attribute.
+     * @return 
+     *          constant with the name or <i>null</i> if there is none.
+     */
+    public static NCLElementAttributes getEnumType(String name){
+        return names.get(name);
+    }
+    
     @Override
     public String toString() { return name;}
 }
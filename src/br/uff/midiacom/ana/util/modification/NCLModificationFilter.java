@@ -0,0 +1,208 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.modification;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.modification.NCLNotification.NCLNotificationType;
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * Class that represents the modifications a listener is interested in. A
+ * listener registered with a filter only receives the notifications accepted
+ * by the filter. Each part of the filter that is not defined (<i>null</i>)
+ * accepts any notification.
+ * 
+ * The notification types and attributes accepted are used by the notifier to
+ * compute, when the listener is registered, which listeners are interested in
+ * each kind of notification. The element class and subtree are tested for each
+ * notification.
+ */
+public class NCLModificationFilter {
+    
+    private final EnumSet<NCLNotificationType> types;
+    private final EnumSet<NCLElementAttributes> attributes;
+    private final Class elementClass;
+    private final NCLElement root;
+    
+    
+    /**
+     * Creates a filter.
+     * 
+     * @param types
+     *          types of notification accepted or <i>null</i> to accept any
+     *          type.
+     * @param attributes
+     *          attributes whose modification is accepted or <i>null</i> to
+     *          accept any attribute. When the attributes are defined, only
+     *          notifications of the type <i>ALTERED_ATT</i> are accepted.
+     * @param elementClass
+     *          class of the elements whose modifications are accepted or
+     *          <i>null</i> to accept any element.
+     * @param root
+     *          element whose subtree modifications are accepted or <i>null</i>
+     *          to accept modifications in any element.
+     */
+    public NCLModificationFilter(Set<NCLNotificationType> types,
+                                 Set<NCLElementAttributes> attributes,
+                                 Class elementClass,
+                                 NCLElement root) {
+        if(types != null){
+            this.types = EnumSet.noneOf(NCLNotificationType.class);
+            this.types.addAll(types);
+        }
+        else
+            this.types = null;
+        
+        if(attributes != null){
+            this.attributes = EnumSet.noneOf(NCLElementAttributes.class);
+            this.attributes.addAll(attributes);
+        }
+        else
+            this.attributes = null;
+        
+        this.elementClass = elementClass;
+        this.root = root;
+    }
+    
+    
+    /**
+     * Checks if the filter accepts a notification.
+     * 
+     * @param notification
+     *          notification to be tested.
+     * @return 
+     *          true if the notification is accepted.
+     */
+    public boolean accepts(NCLNotification notification) {
+        if(!acceptsType(notification.getType()))
+            return false;
+        if(notification.getType() == NCLNotificationType.ALTERED_ATT && !acceptsAttribute(notification.getAttribute()))
+            return false;
+        
+        return acceptsElements(notification);
+    }
+    
+    
+    /**
+     * Checks if the filter accepts notifications of a type.
+     * 
+     * @param type
+     *          notification type.
+     * @return 
+     *          true if the type is accepted.
+     */
+    public boolean acceptsType(NCLNotificationType type) {
+        if(attributes != null && type != NCLNotificationType.ALTERED_ATT)
+            return false;
+        
+        return types == null || types.contains(type);
+    }
+    
+    
+    /**
+     * Checks if the filter accepts notifications about an attribute.
+     * 
+     * @param attribute
+     *          attribute modified.
+     * @return 
+     *          true if the attribute is accepted.
+     */
+    public boolean acceptsAttribute(NCLElementAttributes attribute) {
+        return attributes == null || attributes.contains(attribute);
+    }
+    
+    
+    /**
+     * Checks if the filter accepts the elements of a notification. The
+     * notification is accepted if its source or its element is an instance of
+     * the element class and is inside the subtree of the filter.
+     * 
+     * @param notification
+     *          notification to be tested.
+     * @return 
+     *          true if the elements are accepted.
+     */
+    public boolean acceptsElements(NCLNotification notification) {
+        if(elementClass == null && root == null)
+            return true;
+        
+        return acceptsElement(notification.getSource()) || acceptsElement(notification.getElement());
+    }
+    
+    
+    private boolean acceptsElement(NCLElement element) {
+        if(element == null)
+            return false;
+        if(elementClass != null && !elementClass.isInstance(element))
+            return false;
+        if(root == null)
+            return true;
+        
+        NCLElement aux = element;
+        while(aux != null){
+            if(aux == root)
+                return true;
+            aux = (NCLElement) aux.getParent();
+        }
+        
+        return false;
+    }
+    
+    
+    public Set<NCLNotificationType> getTypes() {
+        return types == null ? null : EnumSet.copyOf(types);
+    }
+    
+    
+    public Set<NCLElementAttributes> getAttributes() {
+        return attributes == null ? null : EnumSet.copyOf(attributes);
+    }
+    
+    
+    public Class getElementClass() {
+        return elementClass;
+    }
+    
+    
+    public NCLElement getRoot() {
+        return root;
+    }
+}
@@ -37,115 +37,524 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.modification;
 
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.modification.NCLNotification.NCLNotificationType;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 
 /**
  * Class that implements a notifier for modifications in the elements.
+ * 
+ * The notifications are stored in a lock free queue and delivered to the
+ * listeners by the notifier thread in batches. Besides the global notifier,
+ * a notifier can be created for a single document (see
+ * <i>NCLDoc.setModificationNotifier</i>), so the modifications of that document
+ * are not delivered by the global notifier. A notifier may also limit the
+ * number of notifications waiting to be delivered, in which case its overflow
+ * policy decides what happens when that limit is reached.
+ * 
+ * A listener can be registered with a filter, so it only receives the
+ * notifications it is interested in. The notifier keeps a routing table with
+ * the listeners interested in each notification type and attribute, which is
+ * computed again when a listener is added or removed.
+ * 
+ * The notifier thread is only started when the first listener is added, since
+ * no notification is kept while there are no listeners, and it is a daemon
+ * thread, so a notifier never keeps the virtual machine running. The thread
+ * runs until <i>finish</i> is called, which delivers the notifications still
+ * waiting and stops it. A notifier created for a document should be finished
+ * when the document is no longer used; otherwise its thread stays parked, and
+ * the notifications waiting when the virtual machine exits are not delivered.
  */
 public class NCLModificationNotifier extends Thread implements Serializable {
     
-    private int index;
-    private boolean run;
-    private ArrayList<NCLNotification> notifications;
-    private ArrayList<NCLModificationListener> listeners;
+    /**
+     * Policy applied when a notification is added to a notifier that already
+     * has its maximum number of notifications waiting to be delivered.
+     * <ul>
+     *  <li><b>BLOCK</b> - waits until there is room for the notification.</li>
+     *  <li><b>DISCARD_NEWEST</b> - discards the notification being added.</li>
+     *  <li><b>DISCARD_OLDEST</b> - discards the oldest notification waiting.</li>
+     * </ul>
+     */
+    public enum NCLOverflowPolicy {BLOCK, DISCARD_NEWEST, DISCARD_OLDEST;}
     
-    private static NCLModificationNotifier instance;
+    private static final int MAX_BATCH = 256;
+    private static final long BLOCK_WAIT = 100000L;
+    
+    private final int capacity;
+    private final NCLOverflowPolicy policy;
+    private final AtomicInteger index;
+    private final AtomicInteger pending;
+    private final AtomicLong discarded;
+    private volatile boolean run;
+    private volatile boolean waiting;
+    private final ConcurrentLinkedQueue<NCLNotification> notifications;
+    private final ArrayList<NCLSubscription> subscriptions;
+    private volatile NCLRoutingTable routes;
+    
+    private static volatile NCLModificationNotifier instance;
+    private static final ThreadLocal<int[]> bulk = new ThreadLocal<int[]>(){
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
     
     
     private NCLModificationNotifier() {
-        index = 0;
+        this(0, NCLOverflowPolicy.BLOCK);
+    }
+    
+    
+    /**
+     * Creates a notifier. This constructor is used to create a notifier for a
+     * single document, the global notifier is returned by <i>getInstance</i>.
+     * The notifier thread is started when the first listener is added.
+     * 
+     * @param capacity
+     *          maximum number of notifications waiting to be delivered. A
+     *          value less or equal to zero means no limit.
+     * @param policy
+     *          policy applied when the limit of notifications is reached.
+     */
+    public NCLModificationNotifier(int capacity, NCLOverflowPolicy policy) {
+        if(policy == null)
+            policy = NCLOverflowPolicy.BLOCK;
+        
+        this.capacity = capacity;
+        this.policy = policy;
+        index = new AtomicInteger();
+        pending = new AtomicInteger();
+        discarded = new AtomicLong();
         run = true;
-        notifications = new ArrayList<NCLNotification>();
-        listeners = new ArrayList<NCLModificationListener>();
-        start();
+        waiting = false;
+        notifications = new ConcurrentLinkedQueue<NCLNotification>();
+        subscriptions = new ArrayList<NCLSubscription>();
+        routes = new NCLRoutingTable(subscriptions);
+        setName("NCLModificationNotifier");
+        setDaemon(true);
     }
     
     
-    public synchronized static NCLModificationNotifier getInstance() {
-        if(instance == null)
-            instance = new NCLModificationNotifier();
+    public static NCLModificationNotifier getInstance() {
+        NCLModificationNotifier aux = instance;
+        if(aux == null){
+            synchronized(NCLModificationNotifier.class){
+                if(instance == null)
+                    instance = new NCLModificationNotifier();
+                aux = instance;
+            }
+        }
         
-        return instance;
+        return aux;
+    }
+    
+    
+    /**
+     * Checks if a notification would be delivered to any listener of the
+     * global notifier. Elements call this method before creating a
+     * notification, so no notification is created when nobody is listening or
+     * the current thread is in bulk mode.
+     * 
+     * @return 
+     *          true if a notification would be delivered to a listener.
+     */
+    public static boolean isNotifying() {
+        NCLModificationNotifier aux = instance;
+        return aux != null && aux.isListened();
     }
     
     
-    public synchronized void addNotification(NCLNotification notification) {
-        if(listeners.isEmpty())
+    /**
+     * Checks if a notification added to this notifier by the current thread
+     * would be delivered to any listener.
+     * 
+     * @return 
+     *          true if the notifier has listeners and the current thread is
+     *          not in bulk mode.
+     */
+    public boolean isListened() {
+        return routes.all.length > 0 && bulk.get()[0] == 0;
+    }
+    
+    
+    /**
+     * Enters the bulk mode in the current thread. While in bulk mode, the
+     * modifications made by the thread are not notified. The calls to this
+     * method can be nested and each call must be matched by a call to
+     * <i>endBulk</i>, usually in a <i>finally</i> block.
+     */
+    public static void beginBulk() {
+        bulk.get()[0]++;
+    }
+    
+    
+    /**
+     * Leaves the bulk mode in the current thread. The modifications are only
+     * notified again when the outermost bulk mode is left.
+     */
+    public static void endBulk() {
+        int[] depth = bulk.get();
+        if(depth[0] > 0)
+            depth[0]--;
+    }
+    
+    
+    /**
+     * Checks if the current thread is in bulk mode.
+     * 
+     * @return 
+     *          true if the current thread is in bulk mode.
+     */
+    public static boolean isBulk() {
+        return bulk.get()[0] > 0;
+    }
+    
+    
+    /**
+     * Adds a notification to be delivered to the listeners. The notification
+     * is ignored if no listener is interested in it. The notifications added by
+     * a thread are delivered in the order they were added.
+     * 
+     * @param notification
+     *          notification to be delivered.
+     */
+    public void addNotification(NCLNotification notification) {
+        if(routes.route(notification).length == 0 || !reserve())
             return;
         
-        index++;
-        notification.setOrderNumber(index);
-        notifications.add(notification);
-        notify();
+        notification.setOrderNumber(index.incrementAndGet());
+        notifications.offer(notification);
+        if(waiting)
+            LockSupport.unpark(this);
     }
     
     
     public void addListener(NCLModificationListener listener) {
-        listeners.add(listener);
+        addListener(listener, null);
+    }
+    
+    
+    /**
+     * Adds a listener that only receives the notifications accepted by a
+     * filter.
+     * 
+     * @param listener
+     *          listener to be added.
+     * @param filter
+     *          filter of the notifications or <i>null</i> to receive all the
+     *          notifications.
+     */
+    public void addListener(NCLModificationListener listener, NCLModificationFilter filter) {
+        synchronized(subscriptions){
+            subscriptions.add(new NCLSubscription(listener, filter));
+            routes = new NCLRoutingTable(subscriptions);
+            
+            // the thread is only needed once there is someone to notify
+            if(run && getState() == State.NEW)
+                start();
+        }
     }
     
     
     public void removeListener(NCLModificationListener listener) {
-        listeners.remove(listener);
+        synchronized(subscriptions){
+            for(int i = subscriptions.size() - 1; i >= 0; i--){
+                if(subscriptions.get(i).listener.equals(listener))
+                    subscriptions.remove(i);
+            }
+            routes = new NCLRoutingTable(subscriptions);
+        }
     }
     
     
     public void clearListeners() {
-        listeners.clear();
+        synchronized(subscriptions){
+            subscriptions.clear();
+            routes = new NCLRoutingTable(subscriptions);
+        }
+    }
+    
+    
+    /**
+     * Returns the maximum number of notifications waiting to be delivered.
+     * 
+     * @return 
+     *          maximum number of notifications or a value less or equal to
+     *          zero if there is no limit.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    
+    /**
+     * Returns the policy applied when the limit of notifications is reached.
+     * 
+     * @return 
+     *          overflow policy.
+     */
+    public NCLOverflowPolicy getOverflowPolicy() {
+        return policy;
     }
     
     
+    /**
+     * Returns the number of notifications waiting to be delivered.
+     * 
+     * @return 
+     *          number of notifications waiting.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+    
+    
+    /**
+     * Returns the number of notifications discarded because the limit of
+     * notifications was reached.
+     * 
+     * @return 
+     *          number of notifications discarded.
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+    
+    
+    /**
+     * Stops the notifier after delivering the notifications waiting. If this
+     * is the global notifier, a new one is created by the next call to
+     * <i>getInstance</i>. A finished notifier can not be started again, so it
+     * must not be used after this method is called.
+     * 
+     * @throws InterruptedException 
+     *          if the current thread is interrupted while waiting.
+     */
     public void finish() throws InterruptedException {
-        if(notifications.isEmpty())
-            interrupt();
-        else
-            run = false;
+        synchronized(NCLModificationNotifier.class){
+            if(instance == this)
+                instance = null;
+        }
         
-        instance = null;
-        join();
+        run = false;
+        LockSupport.unpark(this);
+        if(Thread.currentThread() != this)
+            join();
     }
     
     
-    protected synchronized void sendNotification() throws InterruptedException{
-        if(!notifications.isEmpty()){
-            NCLNotification notification = notifications.get(0);
-            notifications.remove(0);
+    /**
+     * Reserves room for a notification in the queue, applying the overflow
+     * policy if the queue is full.
+     * 
+     * @return 
+     *          true if the notification can be added.
+     */
+    private boolean reserve() {
+        if(capacity <= 0){
+            pending.incrementAndGet();
+            return true;
+        }
+        
+        while(true){
+            int size = pending.get();
+            if(size < capacity){
+                if(pending.compareAndSet(size, size + 1))
+                    return true;
+                continue;
+            }
             
-            for (NCLModificationListener listener : listeners) {
-                // Avoiding user errors
-                try{
-                    listener.modifiedElement(notification);
-                }catch(Exception e){}
+            switch(policy){
+                case DISCARD_NEWEST:
+                    discarded.incrementAndGet();
+                    return false;
+                    
+                case DISCARD_OLDEST:
+                    // the new notification takes the place of the removed one
+                    if(notifications.poll() != null){
+                        discarded.incrementAndGet();
+                        return true;
+                    }
+                    break;
+                    
+                default:
+                    // a listener modifying elements can not wait for itself
+                    if(Thread.currentThread() == this || !isAlive()){
+                        pending.incrementAndGet();
+                        return true;
+                    }
+                    LockSupport.unpark(this);
+                    LockSupport.parkNanos(BLOCK_WAIT);
             }
         }
-        else
-            wait();
     }
     
     
-    protected void sendRemainingNotifications() throws InterruptedException{
-        if(notifications.isEmpty())
-            return;
+    /**
+     * Delivers a batch of the notifications waiting.
+     * 
+     * @return 
+     *          false if there was no notification to deliver.
+     */
+    protected boolean sendNotification() {
+        ArrayList<NCLNotification> batch = new ArrayList<NCLNotification>();
+        NCLNotification notification;
+        
+        while(batch.size() < MAX_BATCH && (notification = notifications.poll()) != null)
+            batch.add(notification);
+        
+        if(batch.isEmpty())
+            return false;
+        
+        pending.addAndGet(-batch.size());
+        
+        NCLRoutingTable table = routes;
+        Map<NCLSubscription, List<NCLNotification>> batches = null;
+        for(NCLNotification aux : batch){
+            for(NCLSubscription subscription : table.route(aux)){
+                if(subscription.filter != null && !subscription.filter.acceptsElements(aux))
+                    continue;
+                
+                if(subscription.listener instanceof NCLModificationBatchListener){
+                    if(batches == null)
+                        batches = new LinkedHashMap<NCLSubscription, List<NCLNotification>>();
+                    List<NCLNotification> list = batches.get(subscription);
+                    if(list == null){
+                        list = new ArrayList<NCLNotification>();
+                        batches.put(subscription, list);
+                    }
+                    list.add(aux);
+                }
+                else{
+                    // Avoiding user errors
+                    try{
+                        subscription.listener.modifiedElement(aux);
+                    }catch(Exception e){}
+                }
+            }
+        }
         
-        for (NCLNotification notification : notifications) {
-            for (NCLModificationListener listener : listeners) {
-                listener.modifiedElement(notification);
+        if(batches != null){
+            for(Map.Entry<NCLSubscription, List<NCLNotification>> entry : batches.entrySet()){
+                try{
+                    ((NCLModificationBatchListener) entry.getKey().listener).modifiedElements(Collections.unmodifiableList(entry.getValue()));
+                }catch(Exception e){}
             }
         }
         
-        notifications.clear();
+        return true;
+    }
+    
+    
+    protected void sendRemainingNotifications() {
+        while(sendNotification());
     }
     
     
     @Override
     public void run() {
-        try{
-            while(run)
-                sendNotification();
+        while(run){
+            if(!sendNotification()){
+                // the producers wake the notifier only when it is waiting
+                waiting = true;
+                if(run && notifications.isEmpty())
+                    LockSupport.park(this);
+                waiting = false;
+            }
+        }
+        
+        sendRemainingNotifications();
+    }
+    
+    
+    /**
+     * Listener registered with a filter.
+     */
+    private static class NCLSubscription implements Serializable {
+        
+        private final NCLModificationListener listener;
+        private final NCLModificationFilter filter;
+        
+        
+        private NCLSubscription(NCLModificationListener listener, NCLModificationFilter filter) {
+            this.listener = listener;
+            this.filter = filter;
+        }
+    }
+    
+    
+    /**
+     * Table with the subscriptions interested in each notification type and,
+     * for the attribute modifications, in each attribute. The table is not
+     * modified after created, a new one replaces it when the subscriptions
+     * change.
+     */
+    private static class NCLRoutingTable implements Serializable {
+        
+        private static final NCLSubscription[] EMPTY = new NCLSubscription[0];
+        
+        private final NCLSubscription[] all;
+        private final EnumMap<NCLNotificationType, NCLSubscription[]> byType;
+        private final EnumMap<NCLElementAttributes, NCLSubscription[]> byAttribute;
+        
+        
+        private NCLRoutingTable(List<NCLSubscription> subscriptions) {
+            all = subscriptions.toArray(EMPTY);
+            byType = new EnumMap<NCLNotificationType, NCLSubscription[]>(NCLNotificationType.class);
+            byAttribute = new EnumMap<NCLElementAttributes, NCLSubscription[]>(NCLElementAttributes.class);
+            
+            if(all.length == 0)
+                return;
+            
+            ArrayList<NCLSubscription> aux = new ArrayList<NCLSubscription>();
+            for(NCLNotificationType type : NCLNotificationType.values()){
+                if(type == NCLNotificationType.ALTERED_ATT)
+                    continue;
+                
+                aux.clear();
+                for(NCLSubscription subscription : all){
+                    if(subscription.filter == null || subscription.filter.acceptsType(type))
+                        aux.add(subscription);
+                }
+                if(!aux.isEmpty())
+                    byType.put(type, aux.toArray(EMPTY));
+            }
             
-            sendRemainingNotifications();
-        }catch(Exception ex){}
+            for(NCLElementAttributes attribute : NCLElementAttributes.values()){
+                aux.clear();
+                for(NCLSubscription subscription : all){
+                    if(subscription.filter == null ||
+                            (subscription.filter.acceptsType(NCLNotificationType.ALTERED_ATT) &&
+                            subscription.filter.acceptsAttribute(attribute)))
+                        aux.add(subscription);
+                }
+                if(!aux.isEmpty())
+                    byAttribute.put(attribute, aux.toArray(EMPTY));
+            }
+        }
+        
+        
+        private NCLSubscription[] route(NCLNotification notification) {
+            NCLSubscription[] result;
+            
+            if(notification.getType() == NCLNotificationType.ALTERED_ATT)
+                result = byAttribute.get(notification.getAttribute());
+            else
+                result = byType.get(notification.getType());
+            
+            return result == null ? EMPTY : result;
+        }
     }
 }
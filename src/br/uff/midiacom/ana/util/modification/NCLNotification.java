@@ -37,6 +37,7 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.modification;
 
+import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.NCLModificationException;
@@ -50,9 +51,10 @@ import java.util.Date;
  */
 public class NCLNotification {
     
-    public enum NCLNotificationType {INSERTED_CHILD, REMOVED_CHILD, ALTERED_ATT;}
+    public enum NCLNotificationType {INSERTED_CHILD, REMOVED_CHILD, ALTERED_ATT, LOADED_DOC;}
     
     private int orderNumber;
+    private long time;
     private String timeStamp;
     private NCLNotificationType type;
     private NCLElementAttributes attName;
@@ -77,6 +79,29 @@ public class NCLNotification {
     }
 
 
+    /**
+     * Creates a notification that a document was loaded. The document loading
+     * does not notify each element created, so this notification replaces all
+     * of them.
+     * 
+     * @param type
+     *          notification type, must be <i>LOADED_DOC</i>.
+     * @param doc
+     *          document loaded.
+     * @throws NCLModificationException 
+     *          if the type is not <i>LOADED_DOC</i> or the document is null.
+     */
+    public NCLNotification(NCLNotificationType type, NCLDoc doc) throws NCLModificationException {
+        super();
+        if(type != NCLNotificationType.LOADED_DOC)
+            throw new NCLModificationException("Invalid notification type.");
+        
+        setTimeStamp();
+        this.type = type;
+        setSource(doc);
+    }
+
+
     public NCLNotification(NCLElement source, NCLElementAttributes attName, Object old_value, Object new_value) throws NCLModificationException {
         super();
         setTimeStamp();
@@ -94,10 +119,8 @@ public class NCLNotification {
     
     
     private void setTimeStamp() {
-        DateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-       //get current date time with Date()
-       Date date = new Date();
-       timeStamp = dateFormat.format(date);
+        // the time is only formated if the time stamp is requested
+        time = System.currentTimeMillis();
     }
     
     
@@ -141,10 +164,25 @@ public class NCLNotification {
     
     
     public String getTimeStamp() {
+        if(timeStamp == null){
+            DateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+            timeStamp = dateFormat.format(new Date(time));
+        }
         return timeStamp;
     }
     
     
+    /**
+     * Returns the time the notification was created.
+     * 
+     * @return 
+     *          time in milliseconds since January 1, 1970 UTC.
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    
     public NCLNotificationType getType() {
         return type;
     }
@@ -44,6 +44,9 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import org.w3c.dom.Element;
+import java.io.IOException;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -89,6 +92,7 @@ public abstract class NCLBase<T extends NCLElement,
      *          if the import element is null.
      */
     public boolean addImportBase(Ei importBase) throws XMLException {
+        checkModifiable();
         if(imports.add(importBase)){
             importBase.setParent(this);
             notifyInserted((T) importBase);
@@ -112,6 +116,7 @@ public abstract class NCLBase<T extends NCLElement,
      *          if the import element is null.
      */
     public boolean removeImportBase(Ei importBase) throws XMLException {
+        checkModifiable();
         if(!importBase.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -167,15 +172,19 @@ public abstract class NCLBase<T extends NCLElement,
     }
     
     
-    protected String parseImportBases(int ident) {
+    protected void writeImportBases(Appendable out, int ident) throws IOException {
         if(!hasImportBase())
-            return "";
+            return;
         
-        String content = "";
         for(Ei aux : imports)
-            content += aux.parse(ident);
-        
-        return content;
+            aux.write(out, ident);
+    }
+
+
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Ei aux : imports)
+            children.add(aux);
     }
     
     
@@ -193,14 +202,7 @@ public abstract class NCLBase<T extends NCLElement,
         boolean result = true;
         ElementList<Ei> otherimp = other.getImportBases();
         
-        result &= imports.size() == otherimp.size();
-        for (Ei imp : imports) {
-            try {
-                result &= otherimp.contains(imp);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= imports.compare(otherimp);
         
         return result;
     }
@@ -216,4 +218,36 @@ public abstract class NCLBase<T extends NCLElement,
     protected Ei createImportBase() throws XMLException {
         return (Ei) new NCLImportBase();
     }
+
+
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLBase base = (NCLBase) copy;
+        for(Ei aux : imports){
+            Ei inst = copier.instance(aux);
+            base.addImportBase(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("imports", imports);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("imports")){
+            addImportBase((Ei) child);
+            in.fill(child);
+        }
+    }
 }
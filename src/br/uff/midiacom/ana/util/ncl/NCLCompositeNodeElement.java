@@ -49,6 +49,8 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import java.util.ArrayList;
+import java.util.List;
+import br.uff.midiacom.ana.util.xml.XMLElement;
 
 
 /**
@@ -156,6 +158,23 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     }
 
 
+    @Override
+    protected void collectChildren(List<XMLElement> children) {
+        for(Em aux : metas)
+            children.add(aux);
+        for(Emt aux : metadatas)
+            children.add(aux);
+        for(Ept aux : ports)
+            children.add(aux);
+        for(Epp aux : properties)
+            children.add(aux);
+        for(En aux : nodes)
+            children.add(aux);
+        for(El aux : links)
+            children.add(aux);
+    }
+
+
     /**
      * Adds an element representing a composite node interface point to the
      * composite node. The composite node can have none or several port elements.
@@ -168,6 +187,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean addPort(Ept port) throws XMLException {
+        checkModifiable();
         if(ports.add(port)){
             notifyInserted((T) port);
             port.setParent(this);
@@ -189,6 +209,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean removePort(Ept port) throws XMLException {
+        checkModifiable();
         if(!port.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -304,6 +325,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean addProperty(Epp property) throws XMLException {
+        checkModifiable();
         if(properties.add(property)){
             notifyInserted((T) property);
             property.setParent(this);
@@ -325,6 +347,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean removeProperty(Epp property) throws XMLException {
+        checkModifiable();
         if(!property.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -437,6 +460,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean addNode(En node) throws XMLException {
+        checkModifiable();
         if(nodes.add(node)){
             notifyInserted((T) node);
             node.setParent(this);
@@ -459,6 +483,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean removeNode(En node) throws XMLException {
+        checkModifiable();
         if(!node.getReferences().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
@@ -576,6 +601,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the link is null.
      */
     public boolean addLink(El link) throws XMLException {
+        checkModifiable();
         if(links.add(link)){
             notifyInserted((T) link);
             link.setParent(this);
@@ -597,6 +623,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the link is null.
      */
     public boolean removeLink(El link) throws XMLException {
+        checkModifiable();
         if(links.remove(link)){
             notifyRemoved((T) link);
             return true;
@@ -707,6 +734,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the meta element is null.
      */
     public boolean addMeta(Em meta) throws XMLException {
+        checkModifiable();
         if(metas.add(meta)){
             notifyInserted((T) meta);
             meta.setParent(this);
@@ -728,6 +756,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the meta element is null.
      */
     public boolean removeMeta(Em meta) throws XMLException {
+        checkModifiable();
         if(metas.remove(meta)){
             notifyRemoved((T) meta);
             return true;
@@ -788,6 +817,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the metadata element is null.
      */
     public boolean addMetadata(Emt metadata) throws XMLException {
+        checkModifiable();
         if(metadatas.add(metadata)){
             notifyInserted((T) metadata);
             metadata.setParent(this);
@@ -809,6 +839,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the metadata element is null.
      */
     public boolean removeMetadata(Emt metadata) throws XMLException {
+        checkModifiable();
         if(metadatas.remove(metadata)){
             notifyRemoved((T) metadata);
             return true;
@@ -866,64 +897,22 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
         
         
         ElementList<Ept> otherpor = other.getPorts();
-        result &= ports.size() == otherpor.size();
-        for (Ept aux : ports) {
-            try {
-                result &= otherpor.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= ports.compare(otherpor);
         
         ElementList<Epp> otherpro = other.getProperties();
-        result &= properties.size() == otherpro.size();
-        for (Epp aux : properties) {
-            try {
-                result &= otherpro.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= properties.compare(otherpro);
         
         ElementList<En> othernod = other.getNodes();
-        result &= nodes.size() == othernod.size();
-        for (En aux : nodes) {
-            try {
-                result &= othernod.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= nodes.compare(othernod);
         
         ElementList<El> otherlin = other.getLinks();
-        result &= links.size() == otherlin.size();
-        for (El aux : links) {
-            try {
-                result &= otherlin.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= links.compare(otherlin);
         
         ElementList<Em> othermet = other.getMetas();
-        result &= metas.size() == othermet.size();
-        for (Em aux : metas) {
-            try {
-                result &= othermet.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metas.compare(othermet);
         
         ElementList<Emt> othermtd = other.getMetadatas();
-        result &= metadatas.size() == othermtd.size();
-        for (Emt aux : metadatas) {
-            try {
-                result &= othermtd.contains(aux);
-            } catch (XMLException ex) {}
-            if(!result)
-                break;
-        }
+        result &= metadatas.compare(othermtd);
         
         return result;
     }
@@ -932,6 +921,8 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -939,6 +930,8 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -947,4 +940,86 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     public ArrayList getReferences() {
         return references;
     }
+
+
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLCompositeNodeElement composite = (NCLCompositeNodeElement) copy;
+        for(Em aux : metas){
+            Em inst = copier.instance(aux);
+            composite.addMeta(inst);
+            copier.fill(aux);
+        }
+        for(Emt aux : metadatas){
+            Emt inst = copier.instance(aux);
+            composite.addMetadata(inst);
+            copier.fill(aux);
+        }
+        for(Ept aux : ports){
+            Ept inst = copier.instance(aux);
+            composite.addPort(inst);
+            copier.fill(aux);
+        }
+        for(Epp aux : properties){
+            Epp inst = copier.instance(aux);
+            composite.addProperty(inst);
+            copier.fill(aux);
+        }
+        for(En aux : nodes){
+            En inst = copier.instance(aux);
+            composite.addNode(inst);
+            copier.fill(aux);
+        }
+        for(El aux : links){
+            El inst = copier.instance(aux);
+            composite.addLink(inst);
+            copier.fill(aux);
+        }
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeElements("metas", metas);
+        out.writeElements("metadatas", metadatas);
+        out.writeElements("ports", ports);
+        out.writeElements("properties", properties);
+        out.writeElements("nodes", nodes);
+        out.writeElements("links", links);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        for(Object child : in.readElements("metas")){
+            addMeta((Em) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("metadatas")){
+            addMetadata((Emt) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("ports")){
+            addPort((Ept) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("properties")){
+            addProperty((Epp) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("nodes")){
+            addNode((En) child);
+            in.fill(child);
+        }
+        for(Object child : in.readElements("links")){
+            addLink((El) child);
+            in.fill(child);
+        }
+    }
 }
@@ -0,0 +1,110 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.List;
+
+
+/**
+ * Class that provides the content of the elements written by a
+ * <i>NCLContentWriter</i>. Each element class reads its own content, see
+ * <i>NCLElementPrototype.readContent</i>, in the order it was written. The
+ * elements read are already created, so the references among them can be
+ * set before their content is read.
+ * 
+ * <br/>
+ * 
+ * A child element is read empty, added to its parent and then filled by the
+ * reader, in the same order used when an element is loaded. The elements
+ * that are only referred are filled when their own parent is filled.
+ */
+public abstract class NCLContentReader {
+    
+    
+    /**
+     * Reads an attribute or a child element.
+     * 
+     * @param name
+     *          name of the attribute or child element.
+     * @return 
+     *          value of the attribute, child element or <i>null</i> if it was
+     *          not set.
+     * @throws XMLException 
+     *          if the value can not be read.
+     */
+    public abstract Object readValue(String name) throws XMLException;
+    
+    
+    /**
+     * Reads a list of child elements.
+     * 
+     * @param name
+     *          name of the list.
+     * @return 
+     *          child elements, in the order they were written. The list is
+     *          empty if no element was written.
+     * @throws XMLException 
+     *          if an element can not be read.
+     */
+    public abstract List<Object> readElements(String name) throws XMLException;
+    
+    
+    /**
+     * Reads the content of a child element, after it was added to its parent.
+     * 
+     * @param element
+     *          child element read by <i>readValue</i> or <i>readElements</i>.
+     * @throws XMLException 
+     *          if an error occur while reading the element.
+     */
+    public abstract void fill(Object element) throws XMLException;
+    
+    
+    /**
+     * Reads the content of an element from this reader.
+     * 
+     * @param element
+     *          element whose content is read.
+     * @throws XMLException 
+     *          if an error occur while reading the element.
+     */
+    protected void readContent(NCLElementPrototype element) throws XMLException {
+        element.readContent(this);
+    }
+}
@@ -0,0 +1,97 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.util.exception.XMLException;
+
+
+/**
+ * Class that receives the content of the elements, that is, their attributes
+ * and child elements. Each element class writes its own content, see
+ * <i>NCLElementPrototype.writeContent</i>. Every attribute and every list of
+ * child elements is written with a name, even if it is not set, so the names
+ * written by a class do not depend on the content of the element.
+ * 
+ * <br/>
+ * 
+ * The elements are written as values, like the references to other elements.
+ * A writer that needs the content of the child elements writes it by calling
+ * <i>writeContent</i> for each one of them.
+ */
+public abstract class NCLContentWriter {
+    
+    
+    /**
+     * Writes an attribute or a child element.
+     * 
+     * @param name
+     *          name of the attribute or child element.
+     * @param value
+     *          value of the attribute, child element or <i>null</i> if it is
+     *          not set.
+     * @throws XMLException 
+     *          if the value can not be written.
+     */
+    public abstract void writeValue(String name, Object value) throws XMLException;
+    
+    
+    /**
+     * Writes a list of child elements.
+     * 
+     * @param name
+     *          name of the list.
+     * @param elements
+     *          child elements, in the order they were added.
+     * @throws XMLException 
+     *          if an element can not be written.
+     */
+    public abstract void writeElements(String name, Iterable elements) throws XMLException;
+    
+    
+    /**
+     * Writes the content of an element to this writer.
+     * 
+     * @param element
+     *          element whose content is written.
+     * @throws XMLException 
+     *          if an error occur while writing the element.
+     */
+    protected void writeContent(NCLElementPrototype element) throws XMLException {
+        element.writeContent(this);
+    }
+}
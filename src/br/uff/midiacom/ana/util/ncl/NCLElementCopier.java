@@ -0,0 +1,257 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.util.ArrayType;
+import br.uff.midiacom.ana.util.SampleType;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/**
+ * Class that copies an element together with all its descendants. The copy is
+ * built through the public constructors and methods of the elements, like
+ * when an element is created by an application, so the parents, the lists
+ * and the references of the copy are set by the elements themselves. The
+ * modifications made while the copy is built are not notified.
+ * 
+ * <br/>
+ * 
+ * Each element class copies its own attributes and child elements, see
+ * <i>NCLElementPrototype.copyContent</i>. A child element is created, added to
+ * the copy of its parent and then filled, in the same order used when an
+ * element is loaded. The references among the copied elements point to the
+ * copies, like a bind that refers to a node of a copied context or a
+ * descriptor that refers to a region of a copied head. An element referred
+ * before its parent is copied is copied when it is referred. The references to
+ * elements that are not copied, like a descriptor of the document head
+ * referred by a copied media or an element of an imported document, are kept
+ * and the copy is added to the references of the element referred, unless
+ * that element is frozen. Imported documents are not copied.
+ * 
+ * <br/>
+ * 
+ * Unless the element copied is a document, the copy has no parent and no
+ * document. Its identifiers are registered when it is added to an element of
+ * a document. The copy of a frozen element is not frozen.
+ */
+public class NCLElementCopier {
+    
+    private NCLElementPrototype root;
+    private Map<Object, Object> copies;
+    private Map<Object, Object> filled;
+    
+    
+    private NCLElementCopier(NCLElementPrototype root) {
+        this.root = root;
+        this.copies = new IdentityHashMap<Object, Object>();
+        this.filled = new IdentityHashMap<Object, Object>();
+    }
+    
+    
+    /**
+     * Copies an element and all its descendants.
+     * 
+     * @param element
+     *          element to be copied.
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while loading an imported document or if an
+     *          element can not be copied.
+     */
+    public static <E extends NCLElementPrototype> E copy(E element) throws XMLException {
+        if(element == null)
+            throw new XMLException("Null element.");
+        
+        NCLElementCopier copier = new NCLElementCopier(element);
+        NCLModificationNotifier.beginBulk();
+        try{
+            return copier.copyElement(element);
+        }finally{
+            NCLModificationNotifier.endBulk();
+        }
+    }
+    
+    
+    /**
+     * Returns the copy of an element, created empty if it was not created
+     * yet. The content of the copy is copied by the method <i>fill</i>, after
+     * the copy is added to the copy of the element parent.
+     * 
+     * @param element
+     *          element being copied.
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if the element can not be created.
+     */
+    public <E extends NCLElement> E instance(E element) throws XMLException {
+        if(element == null)
+            throw new XMLException("Null element.");
+        
+        Object copy = copies.get(element);
+        if(copy == null){
+            copy = ((NCLElementPrototype) element).createCopy();
+            copies.put(element, copy);
+        }
+        return (E) copy;
+    }
+    
+    
+    /**
+     * Copies the content of an element, that is, its attributes and its child
+     * elements, to the copy of the element. The content of an element is only
+     * copied once.
+     * 
+     * @param element
+     *          element being copied.
+     * @throws XMLException 
+     *          if an error occur while copying the element content.
+     */
+    public void fill(NCLElement element) throws XMLException {
+        NCLElementPrototype copy = (NCLElementPrototype) instance(element);
+        if(filled.put(element, copy) == null)
+            ((NCLElementPrototype) element).copyContent(copy, this);
+    }
+    
+    
+    /**
+     * Returns the copy of an element with its content. Used for elements
+     * that are not added to a parent, like the copied element itself.
+     * 
+     * @param element
+     *          element being copied.
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    public <E extends NCLElement> E copyElement(E element) throws XMLException {
+        E copy = instance(element);
+        fill(element);
+        return copy;
+    }
+    
+    
+    /**
+     * Registers the copy of an object that is not an element, like a role of
+     * a bind, so that the attribute values that refer to the object refer to
+     * its copy.
+     * 
+     * @param value
+     *          object being copied.
+     * @param copy
+     *          copy of the object.
+     */
+    public void register(Object value, Object copy) {
+        copies.put(value, copy);
+    }
+    
+    
+    /**
+     * Returns the value to be set in an attribute of a copy. The copied
+     * elements are replaced by their copies, the references to elements of
+     * imported documents are recreated if their import element is copied and
+     * the mutable values, like times, are copied. Other values are immutable
+     * and returned as they are, as well as the elements that are not copied.
+     * 
+     * @param value
+     *          attribute value of the element being copied.
+     * @return 
+     *          attribute value of the copy.
+     * @throws XMLException 
+     *          if an error occur while copying an element referred.
+     */
+    public Object copyValue(Object value) throws XMLException {
+        if(value == null)
+            return null;
+        
+        Object copy = copies.get(value);
+        if(copy != null)
+            return copy;
+        
+        if(value instanceof NCLElementPrototype){
+            if(isCopied((NCLElementPrototype) value))
+                return copyElement((NCLElementPrototype) value);
+            return value;
+        }
+        if(value instanceof ExternalReferenceType){
+            ExternalReferenceType ref = (ExternalReferenceType) value;
+            Object alias = copyValue(ref.getAlias());
+            if(alias == ref.getAlias())
+                return ref;
+            return new ExternalReferenceType((NCLImport) alias, ref.getTarget());
+        }
+        if(value instanceof TimeType){
+            TimeType time = (TimeType) value;
+            return new TimeType(time.getYear(), time.getMonth(), time.getDay(),
+                    time.getHour(), time.getMinute(), time.getSecond());
+        }
+        if(value instanceof SampleType){
+            SampleType sample = (SampleType) value;
+            return new SampleType(sample.getValue(), sample.getType());
+        }
+        if(value instanceof ArrayType){
+            double[] array = ((ArrayType) value).getArray();
+            return new ArrayType(array == null ? null : array.clone());
+        }
+        
+        return value;
+    }
+    
+    
+    private boolean isCopied(NCLElementPrototype element) {
+        if(root instanceof NCLDoc && element.getDoc() == root)
+            return true;
+        
+        for(XMLElement e = element; e != null; e = e.getParent()){
+            if(e == root)
+                return true;
+        }
+        return false;
+    }
+}
@@ -37,13 +37,22 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.ncl;
 
+import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLModificationException;
 import br.uff.midiacom.ana.util.xml.*;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
 import br.uff.midiacom.ana.util.modification.NCLNotification;
+import br.uff.midiacom.ana.util.reference.ReferredElement;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,11 +69,15 @@ public abstract class NCLElementPrototype<T extends NCLElement>
         extends XMLElementPrototype<T>
         implements NCLElement<T> {
 
-    private NCLModificationNotifier notifier;
+    private ArrayList<ElementList> lists;
+    private boolean frozen;
+    private transient volatile int contentHash;
+    private transient volatile byte[] merkleHash;
+    
+    private static final Charset UTF8 = Charset.forName("UTF-8");
     
 
     public NCLElementPrototype() {
-        notifier = NCLModificationNotifier.getInstance();
     }
 
 
@@ -77,7 +90,7 @@ public abstract class NCLElementPrototype<T extends NCLElement>
 
         this.parent = parent;
         if(parent == null)
-            this.doc = null;
+            setDoc(null);
         else
             setDoc((T) parent.getDoc());
         
@@ -118,6 +131,361 @@ public abstract class NCLElementPrototype<T extends NCLElement>
     }
 
 
+    /**
+     * Registers a list that contains this element. The list is told when the
+     * element identification changes, so it can keep its index updated.
+     *
+     * @param list
+     *          list that contains the element.
+     */
+    @Deprecated
+    public void addOwnerList(ElementList list) {
+        if(lists == null)
+            lists = new ArrayList<ElementList>(1);
+        lists.add(list);
+    }
+
+
+    /**
+     * Unregisters a list that no longer contains this element.
+     *
+     * @param list
+     *          list that contained the element.
+     */
+    @Deprecated
+    public void removeOwnerList(ElementList list) {
+        if(lists == null)
+            return;
+        
+        for(int i = 0; i < lists.size(); i++){
+            if(lists.get(i) == list){
+                lists.remove(i);
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Freezes the element. A frozen element can not be modified. This method
+     * is called when the document of the element is frozen.
+     */
+    @Deprecated
+    public void freezeElement() {
+        frozen = true;
+    }
+    
+    
+    /**
+     * Verifies if the element is frozen, that is, if it belongs to a frozen
+     * document and can not be modified.
+     * 
+     * @return 
+     *          true if the element can not be modified.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    
+    /**
+     * Verifies if the element can be modified. Every method that modifies the
+     * element must call this method before changing it.
+     * 
+     * @throws NCLModificationException 
+     *          if the element is frozen.
+     */
+    protected void checkModifiable() throws NCLModificationException {
+        if(frozen)
+            throw new NCLModificationException("The element is frozen and can not be modified.");
+    }
+
+
+    /**
+     * Returns a hash of the element content. The hash is computed from the
+     * attributes of the element and from the hashes of its child elements,
+     * without considering the order of the children, so elements with the
+     * same content have the same hash. The hash is kept until the element or
+     * one of its descendants is modified.
+     * 
+     * <br/>
+     * 
+     * The method <i>compare</i> ignores the attributes that are not set in
+     * the element it is called on, so elements with different hashes may
+     * still be equal according to it. The hash is only used to find the
+     * elements most likely to be equal, which are then compared.
+     * 
+     * @return 
+     *          hash of the element content.
+     */
+    public int contentHash() {
+        int hash = contentHash;
+        if(hash == 0){
+            hash = computeContentHash();
+            // zero marks a hash not computed yet
+            if(hash == 0)
+                hash = 1;
+            contentHash = hash;
+        }
+        
+        return hash;
+    }
+    
+    
+    /**
+     * Computes the hash of the element content.
+     * 
+     * @return 
+     *          hash of the element content.
+     */
+    protected int computeContentHash() {
+        int hash = getClass().getName().hashCode();
+        hash = 31 * hash + parseLocalContent().hashCode();
+        
+        int children = 0;
+        for(XMLElement child : NCLObjectGraph.children(this)){
+            if(child instanceof NCLElementPrototype)
+                children += ((NCLElementPrototype) child).contentHash();
+        }
+        
+        return 31 * hash + children;
+    }
+    
+    
+    /**
+     * Returns the Merkle hash of the element. The hash is a SHA-256 digest of
+     * the element content, written as in the document, and of the Merkle
+     * hashes of its child elements, in the order they are written. Two
+     * versions of an element with the same hash have the same content, so a
+     * subtree whose hash did not change does not need to be sent, cached or
+     * validated again.
+     * 
+     * <br/>
+     * 
+     * The hash is kept until the element or one of its descendants is
+     * modified. After a modification, only the hashes of the modified
+     * element and of its ancestors are computed again.
+     * 
+     * @return 
+     *          Merkle hash of the element.
+     */
+    public byte[] getMerkleHash() {
+        return merkleHash().clone();
+    }
+    
+    
+    byte[] merkleHash() {
+        byte[] hash = merkleHash;
+        if(hash == null){
+            MessageDigest digest;
+            try{
+                digest = MessageDigest.getInstance("SHA-256");
+            }catch(NoSuchAlgorithmException e){
+                throw new IllegalStateException(e);
+            }
+            
+            digest.update(getClass().getName().getBytes(UTF8));
+            digest.update((byte) 0);
+            digest.update(parseLocalContent().getBytes(UTF8));
+            for(XMLElement child : NCLObjectGraph.children(this)){
+                if(child instanceof NCLElementPrototype)
+                    digest.update(((NCLElementPrototype) child).merkleHash());
+            }
+            
+            hash = digest.digest();
+            merkleHash = hash;
+        }
+        
+        return hash;
+    }
+    
+    
+    /**
+     * Adds the child elements of this element to a list, in the order they
+     * are written in the document. Classes with child elements override this
+     * method.
+     * 
+     * @param children
+     *          list that receives the child elements.
+     */
+    protected void collectChildren(List<XMLElement> children) {}
+    
+    
+    /**
+     * Returns the content of the element that is not held by its child
+     * elements, as it is written in the document. Elements with content that
+     * is neither an attribute nor a child element, like a text, must override
+     * this method.
+     * 
+     * @return 
+     *          string with the element attributes.
+     */
+    protected String parseLocalContent() {
+        return parseAttributes();
+    }
+    
+    
+    /**
+     * Returns the attributes of the element as they are written in the
+     * element tag.
+     * 
+     * @return 
+     *          string with the element attributes.
+     */
+    protected String parseAttributes() {
+        return "";
+    }
+    
+    
+    private void invalidateHashes() {
+        // the children of an element with a hash also have their hashes, so
+        // the ancestors above an element without hashes have no hashes either
+        for(Object e = this; e instanceof NCLElementPrototype; e = ((NCLElementPrototype) e).getParent()){
+            NCLElementPrototype aux = (NCLElementPrototype) e;
+            if(aux.contentHash == 0 && aux.merkleHash == null)
+                break;
+            aux.contentHash = 0;
+            aux.merkleHash = null;
+        }
+    }
+
+
+    /**
+     * Creates a copy of the element and of all its descendants. The copy is
+     * built through the public methods of the elements and no modification is
+     * notified while it is made.
+     * 
+     * <br/>
+     * 
+     * References among the copied elements refer to the copies, while the
+     * references to other elements are kept. Unless the element is a
+     * document, the copy has no parent and is registered in a document when
+     * it is added to an element of that document. The copy of a frozen
+     * element is not frozen, so it can be used to create new documents from a
+     * frozen one.
+     * 
+     * @return 
+     *          copy of the element.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    public NCLElementPrototype<T> deepCopy() throws XMLException {
+        return NCLElementCopier.copy(this);
+    }
+    
+    
+    /**
+     * Creates the empty element that receives the copy of this element. The
+     * element is created by the public constructor without arguments of the
+     * element class. Classes without such a constructor must override this
+     * method.
+     * 
+     * @return 
+     *          empty element of the same class of this element.
+     * @throws XMLException 
+     *          if the element can not be created.
+     */
+    protected NCLElementPrototype createCopy() throws XMLException {
+        try{
+            return (NCLElementPrototype) getClass().getConstructor().newInstance();
+        }catch(NoSuchMethodException e){
+            throw new XMLException("Could not copy an element of type " + getClass().getName());
+        }catch(InstantiationException e){
+            throw new XMLException(e);
+        }catch(IllegalAccessException e){
+            throw new XMLException(e);
+        }catch(InvocationTargetException e){
+            throw new XMLException(e);
+        }
+    }
+    
+    
+    /**
+     * Copies the attributes and the child elements of this element to its
+     * copy, through the public methods of the copy. The attribute values are
+     * mapped by the copier, so the references to copied elements refer to
+     * their copies. Each child element is created by the copier, added to the
+     * copy and then filled by the copier.
+     * 
+     * <br/>
+     * 
+     * Classes that define attributes or child elements override this method
+     * and call the method of their superclass.
+     * 
+     * @param copy
+     *          empty element created by <i>createCopy</i>.
+     * @param copier
+     *          copier that creates the copies of the elements and values.
+     * @throws XMLException 
+     *          if an error occur while copying the element.
+     */
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {}
+    
+    
+    /**
+     * Writes the attributes and the child elements of this element. Each
+     * attribute and each list of child elements is written with a name, in the
+     * order they are read by <i>readContent</i>, even if it is not set. The
+     * elements are written as references, their own content is written by
+     * their own <i>writeContent</i>.
+     * 
+     * <br/>
+     * 
+     * Classes that define attributes or child elements override this method
+     * and call the method of their superclass.
+     * 
+     * @param out
+     *          writer that receives the attributes and the child elements.
+     * @throws XMLException 
+     *          if an error occur while writing the element.
+     */
+    protected void writeContent(NCLContentWriter out) throws XMLException {}
+    
+    
+    /**
+     * Reads the attributes and the child elements written by
+     * <i>writeContent</i>, through the public methods of this element. Each
+     * child element is read empty, added to this element and then filled by
+     * the reader, in the same order used when an element is loaded.
+     * 
+     * <br/>
+     * 
+     * Classes that define attributes or child elements override this method
+     * and call the method of their superclass.
+     * 
+     * @param in
+     *          reader that provides the attributes and the child elements.
+     * @throws XMLException 
+     *          if an error occur while reading the element.
+     */
+    protected void readContent(NCLContentReader in) throws XMLException {}
+
+
+    /**
+     * Returns the notifier that delivers the modifications of this element.
+     * If the document of the element has its own notifier, the modifications
+     * are delivered by it, otherwise they are delivered by the global notifier.
+     * 
+     * @return 
+     *          notifier or <i>null</i> if the modification would not be
+     *          delivered to any listener.
+     */
+    protected NCLModificationNotifier getActiveNotifier() {
+        Object aux = this instanceof NCLDoc ? this : doc;
+        
+        if(aux instanceof NCLDoc){
+            NCLModificationNotifier notifier = ((NCLDoc) aux).getModificationNotifier();
+            if(notifier != null)
+                return notifier.isListened() ? notifier : null;
+        }
+        
+        if(NCLModificationNotifier.isNotifying())
+            return NCLModificationNotifier.getInstance();
+        else
+            return null;
+    }
+
+
     /**
      * Notify the listener about a child node inserted.
      *
@@ -126,7 +494,11 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyInserted(T inserted) throws NCLModificationException {
-        notifier.addNotification(new NCLNotification(inserted));
+        invalidateHashes();
+        
+        NCLModificationNotifier notifier = getActiveNotifier();
+        if(notifier != null)
+            notifier.addNotification(new NCLNotification(inserted));
     }
 
 
@@ -138,7 +510,11 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyRemoved(T removed) throws NCLModificationException {
-        notifier.addNotification(new NCLNotification(this, removed));
+        invalidateHashes();
+        
+        NCLModificationNotifier notifier = getActiveNotifier();
+        if(notifier != null)
+            notifier.addNotification(new NCLNotification(this, removed));
     }
 
 
@@ -154,6 +530,23 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyAltered(NCLElementAttributes attributeName, Object oldValue, Object newValue) throws NCLModificationException {
-        notifier.addNotification(new NCLNotification(this, attributeName, oldValue, newValue));
+        if(lists != null && (attributeName == NCLElementAttributes.ID || attributeName == NCLElementAttributes.NAME)){
+            for(ElementList list : lists)
+                list.updateIdentification(this, oldValue);
+        }
+        
+        invalidateHashes();
+        // the elements that refer to this one write its identification
+        if(this instanceof ReferredElement && (attributeName == NCLElementAttributes.ID || attributeName == NCLElementAttributes.NAME)){
+            ArrayList references = ((ReferredElement) this).getReferences();
+            for(int i = 0; references != null && i < references.size(); i++){
+                if(references.get(i) instanceof NCLElementPrototype)
+                    ((NCLElementPrototype) references.get(i)).invalidateHashes();
+            }
+        }
+        
+        NCLModificationNotifier notifier = getActiveNotifier();
+        if(notifier != null)
+            notifier.addNotification(new NCLNotification(this, attributeName, oldValue, newValue));
     }
 }
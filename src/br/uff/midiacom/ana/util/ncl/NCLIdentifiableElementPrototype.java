@@ -37,6 +37,7 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.ncl;
 
+import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
@@ -58,6 +59,25 @@ public abstract class NCLIdentifiableElementPrototype<T extends NCLElement>
     public NCLIdentifiableElementPrototype() {
         super();
     }
+    
+    
+    @Override
+    @Deprecated
+    public void setDoc(T doc) {
+        T aux = getDoc();
+        if(aux == doc){
+            super.setDoc(doc);
+            return;
+        }
+        
+        if(aux instanceof NCLDoc)
+            ((NCLDoc) aux).removeIdentifier(this, id);
+        
+        super.setDoc(doc);
+        
+        if(doc instanceof NCLDoc)
+            ((NCLDoc) doc).addIdentifier(this);
+    }
 
 
     /**
@@ -69,6 +89,7 @@ public abstract class NCLIdentifiableElementPrototype<T extends NCLElement>
      *          if the id is not valid.
      */
     public void setId(String id) throws XMLException {
+        checkModifiable();
         if(id != null && "".equals(id.trim()))
             throw new XMLException("Empty id String");
         if(!validate(id))
@@ -76,10 +97,36 @@ public abstract class NCLIdentifiableElementPrototype<T extends NCLElement>
         
         String aux = this.id;
         this.id = id;
+        
+        T doc = getDoc();
+        if(doc instanceof NCLDoc){
+            ((NCLDoc) doc).removeIdentifier(this, aux);
+            ((NCLDoc) doc).addIdentifier(this);
+        }
+        
         notifyAltered(NCLElementAttributes.ID, aux, id);
     }
 
 
+    /**
+     * Searches the registry of the document for an element with a specific id
+     * inside this element.
+     * 
+     * @param id
+     *          string representing the id of the element.
+     * @return 
+     *          element with the id or <i>null</i> if it was not found in the
+     *          registry.
+     */
+    protected NCLElement findRegistered(String id) {
+        T doc = getDoc();
+        if(doc instanceof NCLDoc)
+            return ((NCLDoc) doc).findElement(this, id);
+        else
+            return null;
+    }
+
+
     /**
      * Returns the XML element id attribute.
      *
@@ -89,4 +136,32 @@ public abstract class NCLIdentifiableElementPrototype<T extends NCLElement>
     public String getId() {
         return id;
     }
+
+
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLIdentifiableElementPrototype element = (NCLIdentifiableElementPrototype) copy;
+        if(id != null)
+            element.setId(id);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("id", id);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("id")) != null)
+            setId((String) aux);
+    }
 }
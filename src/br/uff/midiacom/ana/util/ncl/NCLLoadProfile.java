@@ -0,0 +1,215 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.xml.XMLElementFilter;
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * Class that represents the parts of an NCL document that are loaded. A
+ * profile is used as a filter of the stream loader, so the parts not needed
+ * are skipped while the file is read, without building their DOM tree or
+ * their objects.
+ * 
+ * <br/>
+ * 
+ * The available profiles are:
+ * <ul>
+ *  <li><i>FULL</i> - loads the whole document.</li>
+ *  <li><i>HEAD</i> - loads only the document head.</li>
+ *  <li><i>bases</i> - loads only some bases of the document head. The bases
+ *                     referred to by the chosen ones are also loaded, that is,
+ *                     the region, transition and rule bases are loaded
+ *                     together with the descriptor base.</li>
+ *  <li><i>BODY_SKELETON</i> - loads the document head and the body nodes
+ *                             without the media children (areas and
+ *                             properties). The elements that refer to those
+ *                             children (ports, switch ports and links) are
+ *                             not loaded either.</li>
+ * </ul>
+ */
+public class NCLLoadProfile implements XMLElementFilter, Serializable {
+    
+    public static final NCLLoadProfile FULL = new NCLLoadProfile(null, true, true);
+    public static final NCLLoadProfile HEAD = new NCLLoadProfile(null, false, false);
+    public static final NCLLoadProfile BODY_SKELETON = new NCLLoadProfile(null, true, false);
+    
+    private static final EnumSet<NCLElementAttributes> headBases = EnumSet.of(
+            NCLElementAttributes.IMPORTEDDOCUMENTBASE, NCLElementAttributes.RULEBASE,
+            NCLElementAttributes.TRANSITIONBASE, NCLElementAttributes.REGIONBASE,
+            NCLElementAttributes.DESCRIPTORBASE, NCLElementAttributes.CONNECTORBASE);
+    
+    private Set<NCLElementAttributes> bases;
+    private boolean body;
+    private boolean bodyDetails;
+    
+    
+    private NCLLoadProfile(Set<NCLElementAttributes> bases, boolean body, boolean bodyDetails) {
+        this.bases = bases;
+        this.body = body;
+        this.bodyDetails = bodyDetails;
+    }
+    
+    
+    /**
+     * Creates a profile that loads only some bases of the document head.
+     * 
+     * @param bases
+     *          elements representing the bases to be loaded, like
+     *          <i>NCLElementAttributes.CONNECTORBASE</i>.
+     * @return 
+     *          load profile.
+     * @throws XMLException 
+     *          if one of the elements is not a base of the document head.
+     */
+    public static NCLLoadProfile bases(NCLElementAttributes... bases) throws XMLException {
+        Set<NCLElementAttributes> aux = new HashSet<NCLElementAttributes>();
+        for(NCLElementAttributes base : bases){
+            if(base == null || !headBases.contains(base))
+                throw new XMLException("Invalid head base: " + base);
+            
+            aux.add(base);
+        }
+        
+        // descriptors refer to regions, transitions and rules
+        if(aux.contains(NCLElementAttributes.DESCRIPTORBASE)){
+            aux.add(NCLElementAttributes.REGIONBASE);
+            aux.add(NCLElementAttributes.TRANSITIONBASE);
+            aux.add(NCLElementAttributes.RULEBASE);
+        }
+        
+        return new NCLLoadProfile(aux, false, false);
+    }
+    
+    
+    /**
+     * Verifies if a child of the document head is loaded by the profile.
+     * 
+     * @param element
+     *          element representing the head child, like
+     *          <i>NCLElementAttributes.CONNECTORBASE</i>.
+     * @return 
+     *          true if the element is loaded.
+     */
+    public boolean loadsHeadElement(NCLElementAttributes element) {
+        return bases == null || bases.contains(element);
+    }
+    
+    
+    /**
+     * Verifies if the document body is loaded by the profile.
+     * 
+     * @return 
+     *          true if the body is loaded.
+     */
+    public boolean loadsBody() {
+        return body;
+    }
+    
+    
+    /**
+     * Verifies if the media children, ports, switch ports and links of the
+     * document body are loaded by the profile.
+     * 
+     * @return 
+     *          true if the whole body is loaded.
+     */
+    public boolean loadsBodyDetails() {
+        return bodyDetails;
+    }
+    
+    
+    /**
+     * Verifies if this profile loads every part of a document that another
+     * profile loads. A document loaded with this profile can then be used
+     * where a document loaded with the other profile is expected.
+     * 
+     * @param other
+     *          load profile.
+     * @return 
+     *          true if this profile loads all parts loaded by the other one.
+     */
+    public boolean covers(NCLLoadProfile other) {
+        if(other == null)
+            other = FULL;
+        
+        if(other.body && !body)
+            return false;
+        if(other.bodyDetails && !bodyDetails)
+            return false;
+        if(bases == null)
+            return true;
+        
+        return other.bases != null && bases.containsAll(other.bases);
+    }
+    
+    
+    @Override
+    public boolean accept(String parent, String tag) {
+        NCLElementAttributes aux = NCLElementAttributes.getEnumType(tag);
+        if(aux == null)
+            return true;
+        
+        if(aux == NCLElementAttributes.BODY)
+            return body;
+        
+        NCLElementAttributes owner = NCLElementAttributes.getEnumType(parent);
+        if(owner == null)
+            return true;
+        
+        switch(owner){
+            case HEAD:
+                return loadsHeadElement(aux);
+            case BODY:
+            case CONTEXT:
+                return bodyDetails || (aux != NCLElementAttributes.PORT && aux != NCLElementAttributes.LINK);
+            case SWITCH:
+                return bodyDetails || aux != NCLElementAttributes.SWITCHPORT;
+            case MEDIA:
+                return bodyDetails;
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class that finds the elements that changed between two versions of a
+ * document or of an element. The versions are compared through the Merkle
+ * hashes of their elements, so the subtrees with the same hash in both
+ * versions are skipped without being visited.
+ * 
+ * <br/>
+ * 
+ * The children of the elements compared are matched by their id. Children
+ * without id are matched first with a child with the same Merkle hash and
+ * then, in order, with a child of the same type. The result lists:
+ * <ul>
+ *  <li>the elements of the new version whose attributes changed;</li>
+ *  <li>the elements of the new version that do not exist in the old one;</li>
+ *  <li>the elements of the old version that do not exist in the new one.</li>
+ * </ul>
+ * The descendants of an element inserted or removed are not listed.
+ */
+public class NCLMerkleDiff {
+    
+    private List<XMLElement> changed;
+    private List<XMLElement> inserted;
+    private List<XMLElement> removed;
+    
+    
+    /**
+     * Compares two versions of an element.
+     * 
+     * @param oldVersion
+     *          old version of the element.
+     * @param newVersion
+     *          new version of the element.
+     */
+    public NCLMerkleDiff(NCLElementPrototype oldVersion, NCLElementPrototype newVersion) {
+        changed = new ArrayList<XMLElement>();
+        inserted = new ArrayList<XMLElement>();
+        removed = new ArrayList<XMLElement>();
+        
+        if(oldVersion.getClass() != newVersion.getClass()){
+            removed.add(oldVersion);
+            inserted.add(newVersion);
+        }
+        else
+            compare(oldVersion, newVersion);
+    }
+    
+    
+    /**
+     * Verifies if the versions compared are different.
+     * 
+     * @return 
+     *          true if any element changed, was inserted or was removed.
+     */
+    public boolean hasChanges() {
+        return !changed.isEmpty() || !inserted.isEmpty() || !removed.isEmpty();
+    }
+    
+    
+    /**
+     * Returns the elements of the new version whose attributes changed.
+     * 
+     * @return 
+     *          list of elements of the new version.
+     */
+    public List<XMLElement> getChanged() {
+        return changed;
+    }
+    
+    
+    /**
+     * Returns the elements of the new version that do not exist in the old
+     * version.
+     * 
+     * @return 
+     *          list of elements of the new version.
+     */
+    public List<XMLElement> getInserted() {
+        return inserted;
+    }
+    
+    
+    /**
+     * Returns the elements of the old version that do not exist in the new
+     * version.
+     * 
+     * @return 
+     *          list of elements of the old version.
+     */
+    public List<XMLElement> getRemoved() {
+        return removed;
+    }
+    
+    
+    private void compare(NCLElementPrototype oldElement, NCLElementPrototype newElement) {
+        if(Arrays.equals(oldElement.merkleHash(), newElement.merkleHash()))
+            return;
+        
+        if(!oldElement.parseLocalContent().equals(newElement.parseLocalContent()))
+            changed.add(newElement);
+        
+        Map<String, NCLElementPrototype> keyed = new LinkedHashMap<String, NCLElementPrototype>();
+        List<NCLElementPrototype> unkeyed = new ArrayList<NCLElementPrototype>();
+        for(XMLElement child : NCLObjectGraph.children(oldElement)){
+            if(!(child instanceof NCLElementPrototype))
+                continue;
+            
+            String key = key(child);
+            if(key == null || keyed.containsKey(key))
+                unkeyed.add((NCLElementPrototype) child);
+            else
+                keyed.put(key, (NCLElementPrototype) child);
+        }
+        
+        List<NCLElementPrototype> pending = new ArrayList<NCLElementPrototype>();
+        for(XMLElement child : NCLObjectGraph.children(newElement)){
+            if(!(child instanceof NCLElementPrototype))
+                continue;
+            
+            String key = key(child);
+            NCLElementPrototype match = key != null ? keyed.remove(key) : null;
+            if(match != null)
+                compare(match, (NCLElementPrototype) child);
+            else
+                pending.add((NCLElementPrototype) child);
+        }
+        
+        // children without id are matched first with an unchanged child
+        Map<ByteBuffer, List<NCLElementPrototype>> hashes = new HashMap<ByteBuffer, List<NCLElementPrototype>>();
+        for(NCLElementPrototype child : unkeyed){
+            ByteBuffer hash = ByteBuffer.wrap(child.merkleHash());
+            List<NCLElementPrototype> aux = hashes.get(hash);
+            if(aux == null){
+                aux = new ArrayList<NCLElementPrototype>(1);
+                hashes.put(hash, aux);
+            }
+            aux.add(child);
+        }
+        
+        Iterator<NCLElementPrototype> it = pending.iterator();
+        while(it.hasNext()){
+            List<NCLElementPrototype> aux = hashes.get(ByteBuffer.wrap(it.next().merkleHash()));
+            if(aux != null && !aux.isEmpty()){
+                unkeyed.remove(aux.remove(0));
+                it.remove();
+            }
+        }
+        
+        // and then, in order, with a child of the same type
+        for(NCLElementPrototype child : pending){
+            NCLElementPrototype match = null;
+            for(int i = 0; i < unkeyed.size() && key(child) == null; i++){
+                NCLElementPrototype aux = unkeyed.get(i);
+                if(aux.getClass() == child.getClass() && key(aux) == null){
+                    match = aux;
+                    break;
+                }
+            }
+            
+            if(match != null){
+                unkeyed.remove(match);
+                compare(match, child);
+            }
+            else
+                inserted.add(child);
+        }
+        
+        removed.addAll(keyed.values());
+        removed.addAll(unkeyed);
+    }
+    
+    
+    private String key(XMLElement element) {
+        if(!(element instanceof NCLIdentifiableElementPrototype))
+            return null;
+        
+        String id = ((NCLIdentifiableElementPrototype) element).getId();
+        return id != null ? element.getClass().getName() + "#" + id : null;
+    }
+}
@@ -79,4 +79,32 @@ public abstract class NCLNamedElementPrototype<T extends NCLElement, V>
     public V getName() {
         return name;
     }
+
+
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLNamedElementPrototype element = (NCLNamedElementPrototype) copy;
+        if(name != null)
+            element.setName(copier.copyValue(name));
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("name", name);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("name")) != null)
+            setName((V) aux);
+    }
 }
@@ -0,0 +1,217 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import br.uff.midiacom.ana.util.xml.XMLElementPrototype;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Class that visits the objects of the API reachable from an object, like all
+ * the elements, lists and attribute values of a document. The objects are
+ * found through their fields, including the elements of collections, maps
+ * and arrays. Static and transient fields are not followed, so the document
+ * cache, the import executor and the modification notifier of a document are
+ * not visited.
+ * 
+ * <br/>
+ * 
+ * Each object is visited once, before its fields are read, so the visitor can
+ * prepare an object, like loading an imported document, before the objects it
+ * refers to are found.
+ */
+public class NCLObjectGraph {
+    
+    private static final String API_PACKAGE = "br.uff.midiacom.ana.";
+    private static final Map<Class, Field[]> fields = new ConcurrentHashMap<Class, Field[]>();
+    
+    
+    /**
+     * Interface of the visitor of the objects.
+     */
+    public interface Visitor {
+        
+        
+        /**
+         * Visits an object of the API.
+         * 
+         * @param object
+         *          object visited.
+         * @throws XMLException 
+         *          if an error occur while visiting the object.
+         */
+        public void visit(Object object) throws XMLException;
+    }
+    
+    
+    private NCLObjectGraph() {}
+    
+    
+    /**
+     * Visits the objects of the API reachable from an object, including the
+     * object itself.
+     * 
+     * @param root
+     *          object where the search starts.
+     * @param visitor
+     *          visitor of the objects.
+     * @throws XMLException 
+     *          if the visitor throws an exception.
+     */
+    public static void walk(Object root, Visitor visitor) throws XMLException {
+        Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+        List<Object> pending = new ArrayList<Object>();
+        pending.add(root);
+        
+        while(!pending.isEmpty()){
+            Object o = pending.remove(pending.size() - 1);
+            if(o == null || visited.containsKey(o))
+                continue;
+            visited.put(o, o);
+            
+            if(o instanceof Collection)
+                pending.addAll((Collection) o);
+            else if(o instanceof Map){
+                pending.addAll(((Map) o).keySet());
+                pending.addAll(((Map) o).values());
+            }
+            else if(o instanceof Object[]){
+                for(Object e : (Object[]) o)
+                    pending.add(e);
+            }
+            else if(!(o instanceof Enum) && o.getClass().getName().startsWith(API_PACKAGE)){
+                visitor.visit(o);
+                
+                try{
+                    for(Field f : fields(o.getClass()))
+                        pending.add(f.get(o));
+                }catch(IllegalAccessException e){
+                    throw new XMLException(e);
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Returns the child elements of an element, in the order they are written
+     * in the document. The elements only referred by the element, like the
+     * descriptor of a media, are not returned.
+     * 
+     * @param element
+     *          element whose children are returned.
+     * @return 
+     *          list of child elements.
+     */
+    public static List<XMLElement> children(XMLElement element) {
+        List<XMLElement> result = new ArrayList<XMLElement>();
+        if(element instanceof NCLElementPrototype)
+            ((NCLElementPrototype) element).collectChildren(result);
+        
+        return result;
+    }
+    
+    
+    /**
+     * Returns the elements referred by an element, like the descriptor of a
+     * media or the component of a port. The references to elements of other
+     * documents are returned as the <i>ExternalReferenceType</i> that holds
+     * them. The parent, the document and the children of the element are not
+     * returned, neither are the documents referred, like an imported document.
+     * 
+     * @param element
+     *          element whose references are returned.
+     * @return 
+     *          list of elements and external references.
+     */
+    public static List<Object> references(XMLElement element) {
+        List<Object> result = new ArrayList<Object>();
+        
+        try{
+            for(Field f : fields(element.getClass())){
+                if(f.getDeclaringClass() == XMLElementPrototype.class)
+                    continue;
+                
+                Object value = f.get(element);
+                if(value instanceof ExternalReferenceType)
+                    result.add(value);
+                else if(value instanceof XMLElement && !(value instanceof NCLDoc) &&
+                        ((XMLElement) value).getParent() != element)
+                    result.add(value);
+            }
+        }catch(IllegalAccessException e){
+            throw new IllegalStateException(e);
+        }
+        
+        return result;
+    }
+    
+    
+    private static Field[] fields(Class type) {
+        Field[] result = fields.get(type);
+        if(result != null)
+            return result;
+        
+        List<Field> aux = new ArrayList<Field>();
+        for(Class c = type; c != null && c != Object.class; c = c.getSuperclass()){
+            for(Field f : c.getDeclaredFields()){
+                int mod = f.getModifiers();
+                if(Modifier.isStatic(mod) || Modifier.isTransient(mod) || f.getType().isPrimitive())
+                    continue;
+                
+                f.setAccessible(true);
+                aux.add(f);
+            }
+        }
+        
+        result = aux.toArray(new Field[aux.size()]);
+        fields.put(type, result);
+        return result;
+    }
+}
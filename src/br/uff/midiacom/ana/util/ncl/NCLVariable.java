@@ -39,12 +39,14 @@ package br.uff.midiacom.ana.util.ncl;
 
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.interfaces.NCLProperty;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.rule.NCLRule;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
+import java.io.IOException;
 
 
 /**
@@ -93,9 +95,12 @@ public class NCLVariable<T extends NCLElement>
      */
     @Override
     public void setName(Object name) throws XMLException {
+        checkModifiable();
         if(name == null)
             throw new XMLException("Null name.");
         
+        Object aux = this.name;
+        
         if(name instanceof String){
             String n,a;
             Integer i, p = null;
@@ -125,6 +130,8 @@ public class NCLVariable<T extends NCLElement>
         else{
             throw new XMLException("Wrong name type.");
         }
+        
+        notifyAltered(NCLElementAttributes.NAME, aux, name);
     }
     
     
@@ -134,21 +141,23 @@ public class NCLVariable<T extends NCLElement>
     
     
     public void setParamenter(int param) throws XMLException {
+        checkModifiable();
         if(param < 0)
             throw new XMLException("Parameter can not be negative.");
         
+        Integer aux = this.param;
         this.param = param;
+        notifyAltered(NCLElementAttributes.NAME, aux, param);
     }
     
     
     @Override
-    public String parse(int ident) {
+    public void write(Appendable out, int ident) throws IOException {
         if(name instanceof NCLSystemVariable &&
                 ((NCLSystemVariable) name).isParameterized() && hasParameter())
-            return name + "(" + param + ")";
-        
-        
-        return name.toString();
+            out.append(name.toString()).append("(").append(param.toString()).append(")");
+        else
+            out.append(name.toString());
     }
     
     
@@ -176,6 +185,8 @@ public class NCLVariable<T extends NCLElement>
     @Override
     @Deprecated
     public boolean addReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.add(reference);
     }
     
@@ -183,6 +194,8 @@ public class NCLVariable<T extends NCLElement>
     @Override
     @Deprecated
     public boolean removeReference(T reference) throws XMLException {
+        if(isFrozen())
+            return false;
         return references.remove(reference);
     }
     
@@ -196,6 +209,41 @@ public class NCLVariable<T extends NCLElement>
     @Override
     @Deprecated
     public void load(Element element) throws XMLException {}
+    
+    
+    @Override
+    protected NCLElementPrototype createCopy() throws XMLException {
+        return new NCLVariable(name);
+    }
+
+
+    @Override
+    protected void copyContent(NCLElementPrototype copy, NCLElementCopier copier) throws XMLException {
+        super.copyContent(copy, copier);
+        
+        NCLVariable variable = (NCLVariable) copy;
+        if(param != null)
+            variable.setParamenter(param);
+    }
+
+
+    @Override
+    protected void writeContent(NCLContentWriter out) throws XMLException {
+        super.writeContent(out);
+        
+        out.writeValue("parameter", param);
+    }
+
+
+    @Override
+    protected void readContent(NCLContentReader in) throws XMLException {
+        super.readContent(in);
+        
+        Object aux;
+        if((aux = in.readValue("parameter")) != null)
+            setParamenter((Integer) aux);
+    }
+
 
     @Override
     @Deprecated
@@ -37,6 +37,7 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.reference;
 
+import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.reuse.NCLImport;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
@@ -131,12 +132,27 @@ public class ExternalReferenceType<T extends ReferredElement,
         
         boolean result = true;
         
-        T aux;
-        if((aux = (T) getAlias()) != null)
-            result &= aux.equals(((ExternalReferenceType) o).getAlias());
-        if((aux = getTarget()) != null)
-            result &= aux.equals(((ExternalReferenceType) o).getTarget());
+        // the alias and the target are compared by their content, so the
+        // references of two versions of a document are equal
+        Object aux, oaux;
+        if((aux = getAlias()) != null){
+            oaux = ((ExternalReferenceType) o).getAlias();
+            result &= aux == oaux || ((NCLImport) aux).compare((NCLElement) oaux);
+        }
+        if((aux = getTarget()) != null){
+            oaux = ((ExternalReferenceType) o).getTarget();
+            if(aux instanceof NCLElement && oaux instanceof NCLElement)
+                result &= aux == oaux || ((NCLElement) aux).compare((NCLElement) oaux);
+            else
+                result &= aux.equals(oaux);
+        }
         
         return result;
     }
+    
+    
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
 }
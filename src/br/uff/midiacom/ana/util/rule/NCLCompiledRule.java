@@ -0,0 +1,84 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.rule.NCLTestRule;
+
+
+/**
+ * Class that represents a rule compiled by an <i>NCLRuleEvaluator</i>.
+ */
+public class NCLCompiledRule {
+    
+    private NCLTestRule rule;
+    private NCLRuleEvaluator.Generation generation;
+    private NCLRuleEvaluator.Node node;
+    
+    
+    NCLCompiledRule(NCLTestRule rule, NCLRuleEvaluator.Generation generation, NCLRuleEvaluator.Node node) {
+        this.rule = rule;
+        this.generation = generation;
+        this.node = node;
+    }
+    
+    
+    /**
+     * Returns the rule compiled.
+     * 
+     * @return 
+     *          simple or composite rule.
+     */
+    public NCLTestRule getRule() {
+        return rule;
+    }
+    
+    
+    /**
+     * Evaluates the rule with the values of an environment. The results of
+     * the rules evaluated are kept by the environment until one of its values
+     * changes.
+     * 
+     * @param environment
+     *          values of the variables.
+     * @return 
+     *          true if the rule is satisfied.
+     */
+    public boolean evaluate(NCLRuleEnvironment environment) {
+        return node.evaluate(environment, environment.getResults(generation, generation.size));
+    }
+}
@@ -0,0 +1,252 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.util.enums.NCLMimeType;
+import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
+import br.uff.midiacom.ana.util.ncl.NCLObjectGraph;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Class that represents the values of the variables tested by the rules, like
+ * the system variables of the receiver and the variables defined by the
+ * settings node of a document. The variables are identified by their names,
+ * including the parameter of the parameterized system variables, like
+ * <i>system.screenSize(0)</i>.
+ * 
+ * <br/>
+ * 
+ * The numeric value of a variable is computed when the value is set, so the
+ * rules compare numbers without converting the values at each evaluation. The
+ * environment also keeps the results of the rules already evaluated by an
+ * <i>NCLRuleEvaluator</i>, which are discarded when a value changes. An
+ * environment must not be shared by several threads.
+ */
+public class NCLRuleEnvironment {
+    
+    private Map<String, Value> values;
+    private Object owner;
+    private byte[] results;
+    
+    
+    /**
+     * Environment constructor. The environment starts without values.
+     */
+    public NCLRuleEnvironment() {
+        values = new HashMap<String, Value>();
+        results = new byte[0];
+    }
+    
+    
+    /**
+     * Sets the value of a system variable without parameter.
+     * 
+     * @param variable
+     *          system variable.
+     * @param value
+     *          value of the variable or <i>null</i> to erase the value.
+     */
+    public void setValue(NCLSystemVariable variable, Object value) {
+        setValue(variable.toString(), value);
+    }
+    
+    
+    /**
+     * Sets the value of a variable.
+     * 
+     * @param name
+     *          name of the variable, like <i>system.language</i> or
+     *          <i>system.screenSize(0)</i>.
+     * @param value
+     *          value of the variable or <i>null</i> to erase the value.
+     */
+    public void setValue(String name, Object value) {
+        if(name == null)
+            throw new IllegalArgumentException("Null variable name.");
+        
+        if(value == null)
+            values.remove(name);
+        else
+            values.put(name, new Value(value));
+        
+        owner = null;
+    }
+    
+    
+    /**
+     * Returns the value of a variable.
+     * 
+     * @param name
+     *          name of the variable.
+     * @return 
+     *          value of the variable or <i>null</i> if it does not have a
+     *          value.
+     */
+    public Object getValue(String name) {
+        Value aux = values.get(name);
+        return aux == null ? null : aux.value;
+    }
+    
+    
+    /**
+     * Sets the values of the variables that do not have a value with the
+     * initial values of the properties of the settings nodes of a document.
+     * The nodes of the body are visited in document order, so the first
+     * settings node that defines a variable gives its value. The settings
+     * nodes of imported documents are not used.
+     * 
+     * @param doc
+     *          document whose settings nodes are used.
+     */
+    public void setDefaultValues(NCLDoc doc) {
+        if(doc.getBody() != null)
+            setDefaultValues(doc.getBody());
+    }
+    
+    
+    private void setDefaultValues(XMLElement node) {
+        if(node instanceof NCLMedia){
+            if(((NCLMedia) node).getType() == NCLMimeType.APPLICATION_X_GINGA_SETTINGS){
+                for(Object o : ((NCLMedia) node).getProperties())
+                    setDefaultValue((NCLProperty) o);
+            }
+            return;
+        }
+        
+        for(XMLElement child : NCLObjectGraph.children(node)){
+            if(child instanceof NCLNode)
+                setDefaultValues(child);
+        }
+    }
+    
+    
+    private void setDefaultValue(NCLProperty property) {
+        Object aux = property.getName();
+        if(property.getValue() == null)
+            return;
+        
+        String name;
+        if(aux instanceof NCLVariable)
+            name = getName((NCLVariable) aux);
+        else if(aux instanceof String)
+            name = (String) aux;
+        else
+            return;
+        
+        if(!values.containsKey(name))
+            setValue(name, property.getValue());
+    }
+    
+    
+    /**
+     * Returns the name of a variable, including its parameter.
+     */
+    static String getName(NCLVariable variable) {
+        StringBuilder result = new StringBuilder();
+        try{
+            variable.write(result, 0);
+        }catch(IOException e){}
+        
+        return result.toString();
+    }
+    
+    
+    Value get(String name) {
+        return values.get(name);
+    }
+    
+    
+    /**
+     * Returns the results of the rules compiled by an evaluator with the
+     * current values, discarding the results of other evaluators.
+     */
+    byte[] getResults(Object owner, int size) {
+        if(this.owner != owner){
+            this.owner = owner;
+            if(results.length < size)
+                results = new byte[size];
+            else
+                Arrays.fill(results, (byte) 0);
+        }
+        else if(results.length < size){
+            byte[] aux = new byte[size];
+            System.arraycopy(results, 0, aux, 0, results.length);
+            results = aux;
+        }
+        
+        return results;
+    }
+    
+    
+    /**
+     * Value of a variable and its numeric value, that is <i>NaN</i> if the
+     * value is not a number.
+     */
+    static class Value {
+        
+        final Object value;
+        final String text;
+        final double number;
+        
+        
+        Value(Object value) {
+            this.value = value;
+            text = value.toString().trim();
+            number = value instanceof Number ? ((Number) value).doubleValue() : parse(text);
+        }
+        
+        
+        static double parse(String text) {
+            try{
+                return Double.parseDouble(text);
+            }catch(NumberFormatException e){
+                return Double.NaN;
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.rule.NCLCompositeRule;
+import br.uff.midiacom.ana.rule.NCLRule;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.rule.NCLTestRule;
+import br.uff.midiacom.ana.util.enums.NCLComparator;
+import br.uff.midiacom.ana.util.enums.NCLOperator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class that compiles the rules of a document into predicates over the values
+ * of the variables of an <i>NCLRuleEnvironment</i>.
+ * 
+ * <br/>
+ * 
+ * A simple rule is compiled into a comparison whose value is converted to a
+ * number once, when it is compiled. A composite rule is compiled into a
+ * conjunction or disjunction of its rules, evaluated in order until the result
+ * is known. The rules that test the same variable with the same comparator and
+ * value, and the composite rules with the same operator and rules, are
+ * compiled into the same predicate, so they are evaluated once for each set of
+ * values of the environment.
+ * 
+ * <br/>
+ * 
+ * The compiled rules are not updated when the rules are modified. After a
+ * modification, the evaluator must be cleared and the rules compiled again.
+ * The evaluator can be used by several threads.
+ */
+public class NCLRuleEvaluator {
+    
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    
+    private Generation generation;
+    private Map<NCLTestRule, NCLCompiledRule> compiled;
+    private Map<String, Node> predicates;
+    
+    
+    /**
+     * Evaluator constructor.
+     */
+    public NCLRuleEvaluator() {
+        clear();
+    }
+    
+    
+    /**
+     * Compiles a rule. A rule already compiled is not compiled again.
+     * 
+     * @param rule
+     *          simple or composite rule.
+     * @return 
+     *          compiled rule.
+     */
+    public synchronized NCLCompiledRule compile(NCLTestRule rule) {
+        if(rule == null)
+            throw new IllegalArgumentException("Null rule.");
+        
+        NCLCompiledRule result = compiled.get(rule);
+        if(result == null){
+            result = new NCLCompiledRule(rule, generation, node(rule));
+            compiled.put(rule, result);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Compiles the rules of a rule base.
+     * 
+     * @param base
+     *          rule base.
+     * @return 
+     *          list of compiled rules, in the order they are defined in the
+     *          rule base.
+     */
+    public List<NCLCompiledRule> compile(NCLRuleBase base) {
+        List<NCLCompiledRule> result = new ArrayList<NCLCompiledRule>();
+        for(Object r : base.getRules())
+            result.add(compile((NCLTestRule) r));
+        
+        return result;
+    }
+    
+    
+    /**
+     * Evaluates a rule, compiling it if it was not compiled yet.
+     * 
+     * @param rule
+     *          simple or composite rule.
+     * @param environment
+     *          values of the variables.
+     * @return 
+     *          true if the rule is satisfied.
+     */
+    public boolean evaluate(NCLTestRule rule, NCLRuleEnvironment environment) {
+        return compile(rule).evaluate(environment);
+    }
+    
+    
+    /**
+     * Removes the compiled rules. The rules compiled before can still be
+     * evaluated but do not share their results with the rules compiled after.
+     */
+    public synchronized void clear() {
+        generation = new Generation();
+        compiled = new IdentityHashMap<NCLTestRule, NCLCompiledRule>();
+        predicates = new HashMap<String, Node>();
+    }
+    
+    
+    private Node node(Object rule) {
+        if(rule instanceof NCLRule){
+            NCLRule r = (NCLRule) rule;
+            if(r.getVar() == null || r.getValue() == null)
+                return predicate("false", new Constant(0));
+            
+            String name = NCLRuleEnvironment.getName(r.getVar());
+            NCLComparator comparator = r.getComparator() == null ? NCLComparator.EQ : r.getComparator();
+            String value = r.getValue().trim();
+            return predicate(name + " " + comparator + " " + value, new Comparison(0, name, comparator, value));
+        }
+        else if(rule instanceof NCLCompositeRule){
+            NCLCompositeRule r = (NCLCompositeRule) rule;
+            boolean and = r.getOperator() != NCLOperator.OR;
+            List<Node> rules = new ArrayList<Node>();
+            StringBuilder key = new StringBuilder(and ? "and" : "or");
+            for(Object o : r.getRules()){
+                Node n = node(o);
+                rules.add(n);
+                key.append(' ').append(n.index);
+            }
+            
+            if(rules.size() == 1)
+                return rules.get(0);
+            
+            return predicate(key.toString(), new Composite(0, and, rules.toArray(new Node[rules.size()])));
+        }
+        
+        return predicate("false", new Constant(0));
+    }
+    
+    
+    /**
+     * Returns the predicate with a key, using the new predicate if there is no
+     * predicate with that key.
+     */
+    private Node predicate(String key, Node node) {
+        Node result = predicates.get(key);
+        if(result == null){
+            result = node;
+            result.index = generation.size++;
+            predicates.put(key, result);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Predicates compiled since the evaluator was cleared.
+     */
+    static class Generation {
+        
+        volatile int size;
+    }
+    
+    
+    /**
+     * Predicate over the values of the variables. The result of the predicate
+     * is kept by the environment in the position given by its index.
+     */
+    abstract static class Node {
+        
+        int index;
+        
+        
+        Node(int index) {
+            this.index = index;
+        }
+        
+        
+        boolean evaluate(NCLRuleEnvironment environment, byte[] results) {
+            byte r = results[index];
+            if(r != 0)
+                return r == TRUE;
+            
+            boolean result = compute(environment, results);
+            results[index] = result ? TRUE : FALSE;
+            return result;
+        }
+        
+        
+        abstract boolean compute(NCLRuleEnvironment environment, byte[] results);
+    }
+    
+    
+    private static class Constant extends Node {
+        
+        private Constant(int index) {
+            super(index);
+        }
+        
+        
+        @Override
+        boolean compute(NCLRuleEnvironment environment, byte[] results) {
+            return false;
+        }
+    }
+    
+    
+    private static class Comparison extends Node {
+        
+        private String name;
+        private NCLComparator comparator;
+        private String text;
+        private double number;
+        
+        
+        private Comparison(int index, String name, NCLComparator comparator, String text) {
+            super(index);
+            this.name = name;
+            this.comparator = comparator;
+            this.text = text;
+            number = NCLRuleEnvironment.Value.parse(text);
+        }
+        
+        
+        @Override
+        boolean compute(NCLRuleEnvironment environment, byte[] results) {
+            NCLRuleEnvironment.Value value = environment.get(name);
+            if(value == null)
+                return false;
+            
+            int result;
+            if(!Double.isNaN(number) && !Double.isNaN(value.number))
+                result = Double.compare(value.number, number);
+            else
+                result = value.text.compareTo(text);
+            
+            switch(comparator){
+                case NE:
+                    return result != 0;
+                case GT:
+                    return result > 0;
+                case LT:
+                    return result < 0;
+                case GTE:
+                    return result >= 0;
+                case LTE:
+                    return result <= 0;
+                default:
+                    return result == 0;
+            }
+        }
+    }
+    
+    
+    private static class Composite extends Node {
+        
+        private boolean and;
+        private Node[] rules;
+        
+        
+        private Composite(int index, boolean and, Node[] rules) {
+            super(index);
+            this.and = and;
+            this.rules = rules;
+        }
+        
+        
+        @Override
+        boolean compute(NCLRuleEnvironment environment, byte[] results) {
+            for(Node n : rules){
+                if(n.evaluate(environment, results) != and)
+                    return !and;
+            }
+            
+            return and;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.rule.NCLBindRule;
+import br.uff.midiacom.ana.rule.NCLTestRule;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class that selects the component of a switch and the descriptor of a
+ * descriptor switch for the values of an <i>NCLRuleEnvironment</i>. The
+ * selected element is the one bound to the first rule satisfied, in the order
+ * of the bind rules, or the default element if no rule is satisfied.
+ * 
+ * <br/>
+ * 
+ * The bind rules of a switch are compiled the first time the switch is
+ * resolved. The selected component can be another switch, which must be
+ * resolved in turn. Like the evaluator, the resolver is not updated when the
+ * switches are modified and must be cleared after a modification.
+ */
+public class NCLSwitchResolver {
+    
+    private NCLRuleEvaluator evaluator;
+    private Map<Object, Choice[]> choices;
+    
+    
+    /**
+     * Resolver constructor. The resolver uses its own evaluator.
+     */
+    public NCLSwitchResolver() {
+        this(new NCLRuleEvaluator());
+    }
+    
+    
+    /**
+     * Resolver constructor.
+     * 
+     * @param evaluator
+     *          evaluator used to compile the rules.
+     */
+    public NCLSwitchResolver(NCLRuleEvaluator evaluator) {
+        if(evaluator == null)
+            throw new IllegalArgumentException("Null evaluator.");
+        
+        this.evaluator = evaluator;
+        choices = new IdentityHashMap<Object, Choice[]>();
+    }
+    
+    
+    /**
+     * Returns the evaluator used to compile the rules.
+     * 
+     * @return 
+     *          rule evaluator.
+     */
+    public NCLRuleEvaluator getEvaluator() {
+        return evaluator;
+    }
+    
+    
+    /**
+     * Selects the component of a switch.
+     * 
+     * @param element
+     *          switch.
+     * @param environment
+     *          values of the variables.
+     * @return 
+     *          selected component or <i>null</i> if no rule is satisfied and
+     *          the switch does not have a default component.
+     */
+    public NCLNode resolve(NCLSwitch element, NCLRuleEnvironment environment) {
+        Object result = select(element, element.getBinds(), environment);
+        return result != null ? (NCLNode) result : element.getDefaultComponent();
+    }
+    
+    
+    /**
+     * Selects the descriptor of a descriptor switch.
+     * 
+     * @param element
+     *          descriptor switch.
+     * @param environment
+     *          values of the variables.
+     * @return 
+     *          selected descriptor or <i>null</i> if no rule is satisfied and
+     *          the switch does not have a default descriptor.
+     */
+    public NCLDescriptor resolve(NCLDescriptorSwitch element, NCLRuleEnvironment environment) {
+        Object result = select(element, element.getBinds(), environment);
+        return result != null ? (NCLDescriptor) result : element.getDefaultDescriptor();
+    }
+    
+    
+    /**
+     * Removes the compiled bind rules of the switches and the compiled rules
+     * of the evaluator.
+     */
+    public synchronized void clear() {
+        choices.clear();
+        evaluator.clear();
+    }
+    
+    
+    private Object select(Object element, Iterable binds, NCLRuleEnvironment environment) {
+        for(Choice c : choices(element, binds)){
+            if(c.rule.evaluate(environment))
+                return c.constituent;
+        }
+        
+        return null;
+    }
+    
+    
+    private synchronized Choice[] choices(Object element, Iterable binds) {
+        Choice[] result = choices.get(element);
+        if(result != null)
+            return result;
+        
+        List<Choice> list = new ArrayList<Choice>();
+        for(Object o : binds){
+            NCLBindRule bind = (NCLBindRule) o;
+            Object rule = bind.getRule();
+            if(rule instanceof ExternalReferenceType)
+                rule = ((ExternalReferenceType) rule).getTarget();
+            if(rule instanceof NCLTestRule && bind.getConstituent() != null)
+                list.add(new Choice(evaluator.compile((NCLTestRule) rule), bind.getConstituent()));
+        }
+        
+        result = list.toArray(new Choice[list.size()]);
+        choices.put(element, result);
+        return result;
+    }
+    
+    
+    /**
+     * Compiled rule of a bind rule and the element it selects.
+     */
+    private static class Choice {
+        
+        private NCLCompiledRule rule;
+        private Object constituent;
+        
+        
+        private Choice(NCLCompiledRule rule, Object constituent) {
+            this.rule = rule;
+            this.constituent = constituent;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.snapshot;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLAssessmentStatement;
+import br.uff.midiacom.ana.connector.NCLAttributeAssessment;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLCompoundAction;
+import br.uff.midiacom.ana.connector.NCLCompoundCondition;
+import br.uff.midiacom.ana.connector.NCLCompoundStatement;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.connector.NCLConnectorParam;
+import br.uff.midiacom.ana.connector.NCLSimpleAction;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorParam;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLMapping;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.interfaces.NCLSwitchPort;
+import br.uff.midiacom.ana.link.GetSetRole;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLBindParam;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.link.NCLLinkParam;
+import br.uff.midiacom.ana.meta.NCLMeta;
+import br.uff.midiacom.ana.meta.NCLMetadata;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.reuse.NCLImportBase;
+import br.uff.midiacom.ana.reuse.NCLImportNCL;
+import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
+import br.uff.midiacom.ana.rule.NCLBindRule;
+import br.uff.midiacom.ana.rule.NCLCompositeRule;
+import br.uff.midiacom.ana.rule.NCLRule;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.transition.NCLTransition;
+import br.uff.midiacom.ana.transition.NCLTransitionBase;
+import br.uff.midiacom.ana.util.enums.NCLActionOperator;
+import br.uff.midiacom.ana.util.enums.NCLAttributeType;
+import br.uff.midiacom.ana.util.enums.NCLAttributes;
+import br.uff.midiacom.ana.util.enums.NCLColor;
+import br.uff.midiacom.ana.util.enums.NCLComparator;
+import br.uff.midiacom.ana.util.enums.NCLConditionOperator;
+import br.uff.midiacom.ana.util.enums.NCLDefaultActionRole;
+import br.uff.midiacom.ana.util.enums.NCLDefaultConditionRole;
+import br.uff.midiacom.ana.util.enums.NCLDefaultValueAssessment;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.enums.NCLElementSets;
+import br.uff.midiacom.ana.util.enums.NCLEventAction;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.enums.NCLFit;
+import br.uff.midiacom.ana.util.enums.NCLFontVariant;
+import br.uff.midiacom.ana.util.enums.NCLFontWeight;
+import br.uff.midiacom.ana.util.enums.NCLInstanceType;
+import br.uff.midiacom.ana.util.enums.NCLKey;
+import br.uff.midiacom.ana.util.enums.NCLMediaType;
+import br.uff.midiacom.ana.util.enums.NCLMimeType;
+import br.uff.midiacom.ana.util.enums.NCLNamespace;
+import br.uff.midiacom.ana.util.enums.NCLNodeAttributes;
+import br.uff.midiacom.ana.util.enums.NCLOperator;
+import br.uff.midiacom.ana.util.enums.NCLPlayerLife;
+import br.uff.midiacom.ana.util.enums.NCLSampleType;
+import br.uff.midiacom.ana.util.enums.NCLScroll;
+import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
+import br.uff.midiacom.ana.util.enums.NCLTransitionDirection;
+import br.uff.midiacom.ana.util.enums.NCLTransitionSubtype;
+import br.uff.midiacom.ana.util.enums.NCLTransitionType;
+import br.uff.midiacom.ana.util.enums.NCLUriType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Constants and helpers shared by the snapshot writer and reader.
+ * 
+ * <br/>
+ * 
+ * A snapshot file has the following sections, in order:
+ * <ul>
+ * <li>header: magic number, format version, layout of the element classes
+ * and the list of source files (path and SHA-256 hash) the snapshot was
+ * created from;</li>
+ * <li>string table: every string used by the snapshot, written once;</li>
+ * <li>class table: the classes of the elements and enumerations of the
+ * snapshot;</li>
+ * <li>object table: the class of each object and, for global variables and
+ * link roles, the name given to their constructor;</li>
+ * <li>element contents: for each element, in the order of the object table,
+ * the attributes and child elements it writes, each one with its name.</li>
+ * </ul>
+ * Integers are written as variable length values and references to strings,
+ * classes and objects are written as indexes in their tables. A list of child
+ * elements is written as a list of indexes. The first object of the table is
+ * the document.
+ * 
+ * <br/>
+ * 
+ * The layout is a SHA-256 hash of the names of the classes listed by this
+ * format, of the constants of the enumerations and of the names written by
+ * each element class. A snapshot written with another layout is refused.
+ * 
+ * <br/>
+ * 
+ * Only the classes listed by this format can be part of a snapshot. Value
+ * types, like times, sources and external references, are not objects of the
+ * snapshot. They are written inline with the values needed to create them
+ * again through their public constructors.
+ */
+final class NCLSnapshotFormat {
+
+    static final int MAGIC = 0x4E434C53;
+    static final int VERSION = 3;
+    static final int HASH_LENGTH = 32;
+    
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    // value tags
+    static final byte NULL = 0;
+    static final byte REFERENCE = 1;
+    static final byte STRING = 2;
+    static final byte INTEGER = 3;
+    static final byte LONG = 4;
+    static final byte DOUBLE = 5;
+    static final byte FLOAT = 6;
+    static final byte TRUE = 7;
+    static final byte FALSE = 8;
+    static final byte ENUM_VALUE = 9;
+    static final byte CHARACTER = 10;
+    static final byte SHORT = 11;
+    static final byte BYTE = 12;
+    static final byte TIME = 13;
+    static final byte SAMPLE = 14;
+    static final byte ARRAY = 15;
+    static final byte SRC = 16;
+    static final byte PERCENTAGE = 17;
+    static final byte EXTERNAL_REFERENCE = 18;
+    static final byte DEVICE = 19;
+    static final byte LOAD_PROFILE = 20;
+    static final byte LIST = 21;
+    
+    // load profiles
+    static final byte PROFILE_FULL = 0;
+    static final byte PROFILE_HEAD = 1;
+    static final byte PROFILE_BODY_SKELETON = 2;
+    static final byte PROFILE_BASES = 3;
+    
+    // classes that can be part of a snapshot
+    private static final Class[] CLASSES = {
+        NCLDoc.class, NCLHead.class, NCLBody.class,
+        NCLAssessmentStatement.class, NCLAttributeAssessment.class, NCLCausalConnector.class,
+        NCLCompoundAction.class, NCLCompoundCondition.class, NCLCompoundStatement.class,
+        NCLConnectorBase.class, NCLConnectorParam.class, NCLSimpleAction.class,
+        NCLSimpleCondition.class,
+        NCLDescriptor.class, NCLDescriptorBase.class, NCLDescriptorParam.class,
+        NCLDescriptorSwitch.class,
+        NCLArea.class, NCLMapping.class, NCLPort.class, NCLProperty.class, NCLSwitchPort.class,
+        GetSetRole.class, NCLBind.class, NCLBindParam.class, NCLLink.class, NCLLinkParam.class,
+        NCLMeta.class, NCLMetadata.class,
+        NCLContext.class, NCLMedia.class, NCLSwitch.class,
+        NCLRegion.class, NCLRegionBase.class,
+        NCLImportBase.class, NCLImportNCL.class, NCLImportedDocumentBase.class,
+        NCLBindRule.class, NCLCompositeRule.class, NCLRule.class, NCLRuleBase.class,
+        NCLTransition.class, NCLTransitionBase.class,
+        NCLVariable.class,
+        
+        NCLActionOperator.class, NCLAttributeType.class, NCLAttributes.class, NCLColor.class,
+        NCLComparator.class, NCLConditionOperator.class, NCLDefaultActionRole.class,
+        NCLDefaultConditionRole.class, NCLDefaultValueAssessment.class,
+        NCLElementAttributes.class, NCLElementSets.class, NCLEventAction.class,
+        NCLEventTransition.class, NCLEventType.class, NCLFit.class, NCLFontVariant.class,
+        NCLFontWeight.class, NCLInstanceType.class, NCLKey.class, NCLMediaType.class,
+        NCLMimeType.class, NCLNamespace.class, NCLNodeAttributes.class, NCLOperator.class,
+        NCLPlayerLife.class, NCLSampleType.class, NCLScroll.class, NCLSystemVariable.class,
+        NCLTransitionDirection.class, NCLTransitionSubtype.class, NCLTransitionType.class,
+        NCLUriType.class
+    };
+    
+    private static final Map<String, Class> allowed = new HashMap<String, Class>();
+    private static byte[] layout;
+    
+    static {
+        for(Class type : CLASSES)
+            allowed.put(type.getName(), type);
+    }
+
+
+    private NCLSnapshotFormat() {}
+
+
+    /**
+     * Returns a class that can be part of a snapshot.
+     * 
+     * @param name
+     *          name of the class.
+     * @return 
+     *          class or null if the class can not be part of a snapshot.
+     */
+    static Class findClass(String name) {
+        return allowed.get(name);
+    }
+
+
+    /**
+     * Verifies if objects of a class are created with an argument, stored in
+     * the object table, instead of with the public constructor without
+     * arguments.
+     * 
+     * @param type
+     *          class of the object.
+     * @return 
+     *          true if the object is created with an argument.
+     */
+    static boolean hasArgument(Class type) {
+        return type == NCLVariable.class || type == GetSetRole.class;
+    }
+
+
+    /**
+     * Returns the argument used to create an object again.
+     * 
+     * @param o
+     *          object created with an argument.
+     * @return 
+     *          name of the global variable or of the link role.
+     */
+    static Object argument(Object o) {
+        if(o instanceof NCLVariable)
+            return ((NCLVariable) o).getName();
+        return ((GetSetRole) o).getRole();
+    }
+
+
+    /**
+     * Creates an object using its argument.
+     * 
+     * @param type
+     *          class of the object.
+     * @param argument
+     *          argument read from the object table.
+     * @return 
+     *          object created.
+     * @throws XMLException 
+     *          if the argument is not valid.
+     */
+    static Object create(Class type, Object argument) throws XMLException {
+        if(type == NCLVariable.class)
+            return new NCLVariable(argument);
+        return new GetSetRole((String) argument);
+    }
+
+
+    /**
+     * Returns the layout of the classes that can be part of a snapshot. The
+     * layout changes when a class is added or removed, when a constant of an
+     * enumeration changes or when an element class writes other names or
+     * writes them in another order.
+     * 
+     * @return 
+     *          SHA-256 hash of the layout.
+     * @throws XMLException 
+     *          if an element class can not be created.
+     */
+    static synchronized byte[] layout() throws XMLException {
+        if(layout == null)
+            layout = new LayoutWriter().layout();
+        return layout;
+    }
+
+
+    /**
+     * Calculates the SHA-256 hash of a file content.
+     * 
+     * @param file
+     *          file to be read.
+     * @return 
+     *          file hash or null if the file does not exist.
+     * @throws XMLException 
+     *          if an error occur while reading the file.
+     */
+    static byte[] hash(File file) throws XMLException {
+        if(!file.isFile())
+            return null;
+        
+        InputStream in = null;
+        try{
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            in = new BufferedInputStream(new FileInputStream(file));
+            byte[] buffer = new byte[8192];
+            int n;
+            while((n = in.read(buffer)) > 0)
+                digest.update(buffer, 0, n);
+            
+            return digest.digest();
+        }catch(IOException e){
+            throw new XMLException(e);
+        }catch(NoSuchAlgorithmException e){
+            throw new XMLException(e);
+        }finally{
+            try{
+                if(in != null)
+                    in.close();
+            }catch(IOException e){}
+        }
+    }
+    
+    
+    /**
+     * Writer that hashes the names written by an empty element of each
+     * element class, instead of its content.
+     */
+    private static class LayoutWriter extends NCLContentWriter {
+        
+        private MessageDigest digest;
+        
+        
+        byte[] layout() throws XMLException {
+            try{
+                digest = MessageDigest.getInstance("SHA-256");
+            }catch(NoSuchAlgorithmException e){
+                throw new XMLException(e);
+            }
+            
+            for(Class type : CLASSES){
+                update(type.getName());
+                if(type.isEnum()){
+                    for(Object c : type.getEnumConstants())
+                        update(((Enum) c).name());
+                }
+                else if(NCLElementPrototype.class.isAssignableFrom(type))
+                    writeContent(instance(type));
+            }
+            
+            return digest.digest();
+        }
+        
+        
+        @Override
+        public void writeValue(String name, Object value) {
+            update(name);
+        }
+        
+        
+        @Override
+        public void writeElements(String name, Iterable elements) {
+            update(name + "[]");
+        }
+        
+        
+        private void update(String s) {
+            digest.update(s.getBytes(UTF8));
+            digest.update((byte) 0);
+        }
+        
+        
+        private NCLElementPrototype instance(Class type) throws XMLException {
+            if(hasArgument(type))
+                return (NCLElementPrototype) create(type, type.getSimpleName());
+            
+            try{
+                return (NCLElementPrototype) type.getConstructor().newInstance();
+            }catch(NoSuchMethodException e){
+                throw new XMLException(e);
+            }catch(InstantiationException e){
+                throw new XMLException(e);
+            }catch(IllegalAccessException e){
+                throw new XMLException(e);
+            }catch(InvocationTargetException e){
+                throw new XMLException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,535 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.snapshot;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.util.ArrayType;
+import br.uff.midiacom.ana.util.PercentageType;
+import br.uff.midiacom.ana.util.SampleType;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.enums.NCLDevice;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.enums.NCLSampleType;
+import br.uff.midiacom.ana.util.enums.NCLUriType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
+import br.uff.midiacom.ana.util.ncl.NCLContentReader;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLLoadProfile;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.reference.ReferredElement;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static br.uff.midiacom.ana.util.snapshot.NCLSnapshotFormat.*;
+
+
+/**
+ * Class that reads a snapshot file written by the <i>NCLSnapshotWriter</i>.
+ * The file is mapped in memory and the elements of the document are rebuilt
+ * directly from it, without parsing XML or resolving references again.
+ * 
+ * <br/>
+ * 
+ * The elements are created through the public constructors of their classes
+ * and only classes known by the snapshot format are accepted. All elements
+ * are created before their content is read, so the references among them are
+ * set directly. The content of each element is read through its public
+ * methods, see <i>NCLElementPrototype.readContent</i>, parents before their
+ * children, so the lists, the identifiers and the references of the elements
+ * are built by the elements themselves, like when the document is loaded.
+ * The reader does not send notifications.
+ * 
+ * <br/>
+ * 
+ * A snapshot is only read if it was written by the same format version, with
+ * the same layout of the element classes, and if the document files it was
+ * created from were not changed.
+ */
+public class NCLSnapshotReader {
+
+    private File snapshot;
+    private ByteBuffer buffer;
+    private List<File> sources;
+    private List<byte[]> hashes;
+    private int contentStart;
+    
+    private String[] strings;
+    private Class[] classes;
+    private Constructor[] constructors;
+    private Object[] objects;
+
+
+    /**
+     * Snapshot reader constructor. Maps the snapshot file in memory and reads
+     * its header.
+     * 
+     * @param snapshot
+     *          snapshot file.
+     * @throws XMLException 
+     *          if the file is not a snapshot, if it was written by another
+     *          format version or layout or if an error occur while reading the
+     *          file.
+     */
+    public NCLSnapshotReader(File snapshot) throws XMLException {
+        if(snapshot == null)
+            throw new XMLException("Null snapshot file.");
+        
+        this.snapshot = snapshot;
+        
+        RandomAccessFile file = null;
+        try{
+            file = new RandomAccessFile(snapshot, "r");
+            FileChannel channel = file.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }catch(IOException e){
+            throw new XMLException(e);
+        }finally{
+            try{
+                if(file != null)
+                    file.close();
+            }catch(IOException e){}
+        }
+        
+        try{
+            readHeader();
+        }catch(BufferUnderflowException e){
+            throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        }
+    }
+    
+    
+    /**
+     * Returns the document files the snapshot was created from, that is, the
+     * document file and the files of its imported documents.
+     * 
+     * @return 
+     *          list of files.
+     */
+    public List<File> getSources() {
+        return sources;
+    }
+    
+    
+    /**
+     * Verifies if the snapshot is up to date, that is, if none of its document
+     * files was changed after the snapshot was written.
+     * 
+     * @return 
+     *          true if the snapshot is up to date.
+     * @throws XMLException 
+     *          if an error occur while reading the document files.
+     */
+    public boolean isCurrent() throws XMLException {
+        for(int i = 0; i < sources.size(); i++){
+            if(!Arrays.equals(hashes.get(i), hash(sources.get(i))))
+                return false;
+        }
+        return true;
+    }
+    
+    
+    /**
+     * Reads the document stored in the snapshot.
+     * 
+     * @return 
+     *          document read.
+     * @throws XMLException 
+     *          if the snapshot is not up to date, if it does not match the
+     *          classes of the API or if an error occur while reading it.
+     */
+    public NCLDoc read() throws XMLException {
+        if(!isCurrent())
+            throw new XMLException("Snapshot out of date: " + snapshot.getPath());
+        
+        NCLModificationNotifier.beginBulk();
+        try{
+            ByteBuffer in = buffer.duplicate();
+            in.position(contentStart);
+            
+            strings = new String[readVarInt(in)];
+            for(int i = 0; i < strings.length; i++)
+                strings[i] = readString(in);
+            
+            classes = new Class[readVarInt(in)];
+            constructors = new Constructor[classes.length];
+            for(int i = 0; i < classes.length; i++)
+                readClass(in, i);
+            
+            // create all objects first, so references can be set directly
+            objects = new Object[readVarInt(in)];
+            int[] types = new int[objects.length];
+            int[] offsets = new int[objects.length];
+            for(int i = 0; i < objects.length; i++){
+                types[i] = readVarInt(in);
+                offsets[i] = readVarInt(in);
+            }
+            for(int i = 0; i < objects.length; i++){
+                if(hasArgument(classes[types[i]]))
+                    objects[i] = create(classes[types[i]], readValue(in));
+                else
+                    objects[i] = newInstance(types[i]);
+            }
+            
+            // the document fills its descendants, the elements left, like the
+            // imported documents, are filled in the order they were written
+            ContentReader reader = new ContentReader(in, offsets);
+            for(int i = 0; i < objects.length; i++)
+                reader.read(i);
+            
+            return (NCLDoc) objects[0];
+        }catch(BufferUnderflowException e){
+            throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        }catch(IndexOutOfBoundsException e){
+            throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        }catch(ClassCastException e){
+            throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        }catch(IllegalArgumentException e){
+            throw new XMLException("Snapshot does not match the API classes: " + snapshot.getPath());
+        }finally{
+            NCLModificationNotifier.endBulk();
+            strings = null;
+            classes = null;
+            constructors = null;
+            objects = null;
+        }
+    }
+
+
+    /**
+     * Loads a document using its snapshot. The snapshot is read if it is up to
+     * date. Otherwise the document file is loaded and a new snapshot is
+     * written.
+     * 
+     * @param source
+     *          document file.
+     * @param snapshot
+     *          snapshot file.
+     * @return 
+     *          document loaded.
+     * @throws XMLException 
+     *          if an error occur while loading the document.
+     */
+    public static NCLDoc load(File source, File snapshot) throws XMLException {
+        if(snapshot.isFile()){
+            try{
+                NCLSnapshotReader reader = new NCLSnapshotReader(snapshot);
+                if(reader.getSources().contains(source.getAbsoluteFile()) && reader.isCurrent())
+                    return reader.read();
+            }catch(XMLException e){} // the snapshot is written again
+        }
+        
+        NCLDoc doc = new NCLDoc();
+        doc.loadXML(source);
+        new NCLSnapshotWriter().write(doc, snapshot);
+        return doc;
+    }
+    
+    
+    private void readHeader() throws XMLException {
+        ByteBuffer in = buffer.duplicate();
+        if(in.getInt() != MAGIC)
+            throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        if(readVarInt(in) != VERSION)
+            throw new XMLException("Unsupported snapshot version: " + snapshot.getPath());
+        
+        byte[] aux = new byte[HASH_LENGTH];
+        in.get(aux);
+        if(!Arrays.equals(aux, layout()))
+            throw new XMLException("Snapshot does not match the API classes: " + snapshot.getPath());
+        
+        int size = readVarInt(in);
+        sources = new ArrayList<File>(size);
+        hashes = new ArrayList<byte[]>(size);
+        for(int i = 0; i < size; i++){
+            sources.add(new File(readString(in)));
+            byte[] hash = new byte[HASH_LENGTH];
+            in.get(hash);
+            hashes.add(hash);
+        }
+        
+        contentStart = in.position();
+    }
+    
+    
+    private void readClass(ByteBuffer in, int index) throws XMLException {
+        Class type = findClass(strings[readVarInt(in)]);
+        if(type == null)
+            throw new XMLException("Snapshot does not match the API classes: " + snapshot.getPath());
+        
+        classes[index] = type;
+        if(!NCLElementPrototype.class.isAssignableFrom(type) || hasArgument(type))
+            return;
+        
+        try{
+            constructors[index] = type.getConstructor();
+        }catch(NoSuchMethodException e){
+            throw new XMLException("Snapshot does not match the API classes: " + snapshot.getPath());
+        }
+    }
+    
+    
+    private Object newInstance(int type) throws XMLException {
+        if(constructors[type] == null)
+            throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        
+        try{
+            return constructors[type].newInstance();
+        }catch(InstantiationException e){
+            throw new XMLException(e);
+        }catch(IllegalAccessException e){
+            throw new XMLException(e);
+        }catch(InvocationTargetException e){
+            throw new XMLException(e);
+        }
+    }
+    
+    
+    private Object readValue(ByteBuffer in) throws XMLException {
+        byte tag = in.get();
+        switch(tag){
+            case NULL:
+                return null;
+            case REFERENCE:
+                return objects[readVarInt(in)];
+            case STRING:
+                return strings[readVarInt(in)];
+            case INTEGER:
+                return (int) unzigzag(readVarLong(in));
+            case LONG:
+                return unzigzag(readVarLong(in));
+            case DOUBLE:
+                return Double.longBitsToDouble(in.getLong());
+            case FLOAT:
+                return Float.intBitsToFloat(in.getInt());
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case ENUM_VALUE:
+                Class type = classes[readVarInt(in)];
+                return Enum.valueOf(type, strings[readVarInt(in)]);
+            case CHARACTER:
+                return (char) readVarInt(in);
+            case SHORT:
+                return (short) unzigzag(readVarLong(in));
+            case BYTE:
+                return in.get();
+            case TIME:
+                return new TimeType((Integer) readValue(in), (Integer) readValue(in), (Integer) readValue(in),
+                        (Integer) readValue(in), (Integer) readValue(in), (Double) readValue(in));
+            case SAMPLE:
+                return new SampleType((Integer) readValue(in), (NCLSampleType) readValue(in));
+            case ARRAY:
+                int length = readVarInt(in);
+                if(length == 0)
+                    return new ArrayType((double[]) null);
+                
+                double[] values = new double[length - 1];
+                for(int i = 0; i < values.length; i++)
+                    values[i] = Double.longBitsToDouble(in.getLong());
+                return new ArrayType(values);
+            case SRC:
+                return new SrcType((NCLUriType) readValue(in), (String) readValue(in));
+            case PERCENTAGE:
+                return new PercentageType((Double) readValue(in), (Boolean) readValue(in));
+            case EXTERNAL_REFERENCE:
+                return new ExternalReferenceType((NCLImport) readValue(in), (ReferredElement) readValue(in));
+            case DEVICE:
+                return new NCLDevice((String) readValue(in));
+            case LOAD_PROFILE:
+                return readProfile(in);
+            case LIST:
+                Object[] elements = new Object[readVarInt(in)];
+                for(int i = 0; i < elements.length; i++)
+                    elements[i] = readValue(in);
+                return Arrays.asList(elements);
+            default:
+                throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        }
+    }
+    
+    
+    private NCLLoadProfile readProfile(ByteBuffer in) throws XMLException {
+        switch(in.get()){
+            case PROFILE_FULL:
+                return NCLLoadProfile.FULL;
+            case PROFILE_HEAD:
+                return NCLLoadProfile.HEAD;
+            case PROFILE_BODY_SKELETON:
+                return NCLLoadProfile.BODY_SKELETON;
+            case PROFILE_BASES:
+                NCLElementAttributes[] bases = new NCLElementAttributes[readVarInt(in)];
+                for(int i = 0; i < bases.length; i++)
+                    bases[i] = (NCLElementAttributes) readValue(in);
+                return NCLLoadProfile.bases(bases);
+            default:
+                throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+        }
+    }
+    
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    
+    private static int readVarInt(ByteBuffer in) {
+        return (int) readVarLong(in);
+    }
+    
+    
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do{
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }while((b & 0x80) != 0);
+        
+        return value;
+    }
+    
+    
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return new String(bytes, UTF8);
+    }
+    
+    
+    /**
+     * Reader of the element contents. The content of each element is found
+     * by its offset, so a child is filled as soon as it is added to its
+     * parent and each element is filled once. An attribute or list not
+     * written is read as not set. The entries of an element not read by the
+     * element mean the snapshot does not match the element classes.
+     */
+    private class ContentReader extends NCLContentReader {
+        
+        private ByteBuffer in;
+        private int start;
+        private int[] offsets;
+        private boolean[] filled;
+        private Map<Object, Integer> indexes;
+        private int remaining;
+        
+        
+        ContentReader(ByteBuffer in, int[] offsets) {
+            this.in = in;
+            this.start = in.position();
+            this.offsets = offsets;
+            this.filled = new boolean[objects.length];
+            this.indexes = new IdentityHashMap<Object, Integer>();
+            for(int i = 0; i < objects.length; i++)
+                indexes.put(objects[i], i);
+        }
+        
+        
+        void read(int index) throws XMLException {
+            if(filled[index] || !(objects[index] instanceof NCLElementPrototype))
+                return;
+            filled[index] = true;
+            
+            // the element being read continues after its child is filled
+            int position = in.position();
+            int count = remaining;
+            
+            in.position(start + offsets[index]);
+            remaining = readVarInt(in);
+            readContent((NCLElementPrototype) objects[index]);
+            if(remaining != 0)
+                throw new XMLException("Snapshot does not match the API classes: " + snapshot.getPath());
+            
+            in.position(position);
+            remaining = count;
+        }
+        
+        
+        @Override
+        public void fill(Object element) throws XMLException {
+            Integer index = indexes.get(element);
+            if(index == null)
+                throw new XMLException("Invalid snapshot file: " + snapshot.getPath());
+            
+            read(index);
+        }
+        
+        
+        @Override
+        public Object readValue(String name) throws XMLException {
+            if(remaining == 0)
+                return null;
+            
+            int position = in.position();
+            if(!strings[readVarInt(in)].equals(name)){
+                in.position(position);
+                return null;
+            }
+            
+            remaining--;
+            return NCLSnapshotReader.this.readValue(in);
+        }
+        
+        
+        @Override
+        public List<Object> readElements(String name) throws XMLException {
+            Object aux = readValue(name);
+            if(aux == null)
+                return Collections.emptyList();
+            
+            return (List<Object>) aux;
+        }
+    }
+}
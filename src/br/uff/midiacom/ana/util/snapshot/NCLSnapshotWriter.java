@@ -0,0 +1,496 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.snapshot;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.ArrayType;
+import br.uff.midiacom.ana.util.PercentageType;
+import br.uff.midiacom.ana.util.SampleType;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.enums.NCLDevice;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLContentWriter;
+import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLLoadProfile;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static br.uff.midiacom.ana.util.snapshot.NCLSnapshotFormat.*;
+
+
+/**
+ * Class that writes a loaded NCL document to a snapshot file. A snapshot
+ * stores each element of the document, including its head bases, body and
+ * imported documents, as its class, its attributes and its child elements,
+ * so it can be read again by the <i>NCLSnapshotReader</i> without parsing the
+ * XML files. The references among elements are stored as indexes of the
+ * elements referred.
+ * 
+ * <br/>
+ * 
+ * The snapshot keeps the SHA-256 hash of the document file and of each
+ * imported document file. The reader refuses a snapshot whose files were
+ * changed after it was written.
+ * 
+ * <br/>
+ * 
+ * Only the content written by the elements themselves is stored, see
+ * <i>NCLElementPrototype.writeContent</i>. The document cache, the import
+ * executor and the modification notifier of the documents are not part of the
+ * snapshot, neither are the lists and registries the elements keep of their
+ * identifiers and references, which are built again when the snapshot is
+ * read.
+ * 
+ * <br/>
+ * 
+ * Only the element classes of the API and its enumerations can be stored. A
+ * document with objects of other classes, like subclasses of the API
+ * elements, can not be written to a snapshot.
+ */
+public class NCLSnapshotWriter {
+
+    private ByteArrayOutputStream content;
+    private ByteArrayOutputStream arguments;
+    private List<Object> objects;
+    private List<Integer> offsets;
+    private Map<Object, Integer> objectIndex;
+    private List<String> strings;
+    private Map<String, Integer> stringIndex;
+    private List<Class> classes;
+    private Map<Class, Integer> classIndex;
+    private List<NCLDoc> docs;
+
+
+    /**
+     * Writes a document to a snapshot file.
+     * 
+     * @param doc
+     *          document to be written. Imported documents that were not
+     *          loaded yet are loaded before being written.
+     * @param snapshot
+     *          snapshot file.
+     * @throws XMLException 
+     *          if the document has an object that can not be stored or if an
+     *          error occur while writing the file.
+     */
+    public void write(NCLDoc doc, File snapshot) throws XMLException {
+        if(doc == null)
+            throw new XMLException("Null document.");
+        if(snapshot == null)
+            throw new XMLException("Null snapshot file.");
+        
+        content = new ByteArrayOutputStream();
+        arguments = new ByteArrayOutputStream();
+        objects = new ArrayList<Object>();
+        offsets = new ArrayList<Integer>();
+        objectIndex = new IdentityHashMap<Object, Integer>();
+        strings = new ArrayList<String>();
+        stringIndex = new HashMap<String, Integer>();
+        classes = new ArrayList<Class>();
+        classIndex = new HashMap<Class, Integer>();
+        docs = new ArrayList<NCLDoc>();
+        
+        OutputStream out = null;
+        try{
+            // elements found while writing the content are appended to the list
+            ContentWriter writer = new ContentWriter();
+            reference(doc);
+            for(int i = 0; i < objects.size(); i++){
+                offsets.add(content.size());
+                if(objects.get(i) instanceof NCLElementPrototype)
+                    writer.write((NCLElementPrototype) objects.get(i));
+            }
+            
+            out = new BufferedOutputStream(new FileOutputStream(snapshot));
+            writeHeader(out);
+            writeTables(out);
+            content.writeTo(out);
+        }catch(IOException e){
+            throw new XMLException(e);
+        }finally{
+            try{
+                if(out != null)
+                    out.close();
+            }catch(IOException e){}
+            
+            content = null;
+            arguments = null;
+            objects = null;
+            offsets = null;
+            objectIndex = null;
+            strings = null;
+            stringIndex = null;
+            classes = null;
+            classIndex = null;
+            docs = null;
+        }
+    }
+    
+    
+    private void writeHeader(OutputStream out) throws IOException, XMLException {
+        List<String> paths = new ArrayList<String>();
+        List<byte[]> hashes = new ArrayList<byte[]>();
+        for(NCLDoc d : docs){
+            if(d.getFileName() == null)
+                continue;
+            
+            File file = new File(d.getLocation(), d.getFileName()).getAbsoluteFile();
+            byte[] hash = hash(file);
+            if(hash == null || paths.contains(file.getPath()))
+                continue;
+            
+            paths.add(file.getPath());
+            hashes.add(hash);
+        }
+        
+        writeInt(out, MAGIC);
+        writeVarInt(out, VERSION);
+        out.write(layout());
+        writeVarInt(out, paths.size());
+        for(int i = 0; i < paths.size(); i++){
+            writeString(out, paths.get(i));
+            out.write(hashes.get(i));
+        }
+    }
+    
+    
+    private void writeTables(OutputStream out) throws IOException {
+        // class names are added to the strings before the table is written
+        for(Class type : classes)
+            string(type.getName());
+        
+        writeVarInt(out, strings.size());
+        for(String s : strings)
+            writeString(out, s);
+        
+        writeVarInt(out, classes.size());
+        for(Class type : classes)
+            writeVarInt(out, string(type.getName()));
+        
+        writeVarInt(out, objects.size());
+        for(int i = 0; i < objects.size(); i++){
+            writeVarInt(out, classIndex.get(objects.get(i).getClass()));
+            writeVarInt(out, offsets.get(i));
+        }
+        arguments.writeTo(out);
+    }
+    
+    
+    private void writeValue(OutputStream out, Object value) throws IOException, XMLException {
+        if(value == null)
+            out.write(NULL);
+        else if(value instanceof String){
+            out.write(STRING);
+            writeVarInt(out, string((String) value));
+        }
+        else if(value instanceof Integer){
+            out.write(INTEGER);
+            writeVarLong(out, zigzag((Integer) value));
+        }
+        else if(value instanceof Long){
+            out.write(LONG);
+            writeVarLong(out, zigzag((Long) value));
+        }
+        else if(value instanceof Double){
+            out.write(DOUBLE);
+            writeLong(out, Double.doubleToLongBits((Double) value));
+        }
+        else if(value instanceof Float){
+            out.write(FLOAT);
+            writeInt(out, Float.floatToIntBits((Float) value));
+        }
+        else if(value instanceof Boolean)
+            out.write((Boolean) value ? TRUE : FALSE);
+        else if(value instanceof Character){
+            out.write(CHARACTER);
+            writeVarInt(out, (Character) value);
+        }
+        else if(value instanceof Short){
+            out.write(SHORT);
+            writeVarLong(out, zigzag((Short) value));
+        }
+        else if(value instanceof Byte){
+            out.write(BYTE);
+            out.write((Byte) value);
+        }
+        else if(value instanceof Enum){
+            Enum e = (Enum) value;
+            out.write(ENUM_VALUE);
+            writeVarInt(out, classEntry(e.getDeclaringClass()));
+            writeVarInt(out, string(e.name()));
+        }
+        else if(value instanceof TimeType){
+            TimeType t = (TimeType) value;
+            out.write(TIME);
+            writeValue(out, t.getYear());
+            writeValue(out, t.getMonth());
+            writeValue(out, t.getDay());
+            writeValue(out, t.getHour());
+            writeValue(out, t.getMinute());
+            writeValue(out, t.getSecond());
+        }
+        else if(value instanceof SampleType){
+            SampleType s = (SampleType) value;
+            out.write(SAMPLE);
+            writeValue(out, s.getValue());
+            writeValue(out, s.getType());
+        }
+        else if(value instanceof ArrayType){
+            double[] a = ((ArrayType) value).getArray();
+            out.write(ARRAY);
+            // zero stands for a null array
+            writeVarInt(out, a == null ? 0 : a.length + 1);
+            if(a != null){
+                for(double d : a)
+                    writeLong(out, Double.doubleToLongBits(d));
+            }
+        }
+        else if(value instanceof SrcType){
+            SrcType s = (SrcType) value;
+            out.write(SRC);
+            writeValue(out, s.getType());
+            writeValue(out, s.getSrc());
+        }
+        else if(value instanceof PercentageType){
+            PercentageType p = (PercentageType) value;
+            out.write(PERCENTAGE);
+            writeValue(out, p.getValue());
+            writeValue(out, p.isRelative());
+        }
+        else if(value instanceof ExternalReferenceType){
+            ExternalReferenceType r = (ExternalReferenceType) value;
+            out.write(EXTERNAL_REFERENCE);
+            writeValue(out, r.getAlias());
+            writeValue(out, r.getTarget());
+        }
+        else if(value instanceof NCLDevice){
+            out.write(DEVICE);
+            writeValue(out, value.toString());
+        }
+        else if(value instanceof NCLLoadProfile)
+            writeProfile(out, (NCLLoadProfile) value);
+        else{
+            out.write(REFERENCE);
+            writeVarInt(out, reference(value));
+        }
+    }
+    
+    
+    private void writeProfile(OutputStream out, NCLLoadProfile profile) throws IOException, XMLException {
+        out.write(LOAD_PROFILE);
+        if(profile == NCLLoadProfile.FULL)
+            out.write(PROFILE_FULL);
+        else if(profile == NCLLoadProfile.HEAD)
+            out.write(PROFILE_HEAD);
+        else if(profile == NCLLoadProfile.BODY_SKELETON)
+            out.write(PROFILE_BODY_SKELETON);
+        else{
+            // other profiles only load some bases of the head
+            List<NCLElementAttributes> bases = new ArrayList<NCLElementAttributes>();
+            for(NCLElementAttributes a : NCLElementAttributes.values()){
+                if(profile.loadsHeadElement(a))
+                    bases.add(a);
+            }
+            
+            out.write(PROFILE_BASES);
+            writeVarInt(out, bases.size());
+            for(NCLElementAttributes a : bases)
+                writeValue(out, a);
+        }
+    }
+    
+    
+    private int reference(Object o) throws IOException, XMLException {
+        Integer index = objectIndex.get(o);
+        if(index != null)
+            return index;
+        
+        if(!(o instanceof NCLElementPrototype) && !hasArgument(o.getClass()))
+            throw new XMLException("Can not store objects of class " + o.getClass().getName() + " in a snapshot.");
+        
+        classEntry(o.getClass());
+        if(hasArgument(o.getClass()))
+            writeValue(arguments, argument(o));
+        
+        index = objects.size();
+        objects.add(o);
+        objectIndex.put(o, index);
+        if(o instanceof NCLDoc)
+            docs.add((NCLDoc) o);
+        
+        return index;
+    }
+    
+    
+    private int string(String s) {
+        Integer index = stringIndex.get(s);
+        if(index == null){
+            index = strings.size();
+            strings.add(s);
+            stringIndex.put(s, index);
+        }
+        return index;
+    }
+    
+    
+    private int classEntry(Class type) throws XMLException {
+        Integer index = classIndex.get(type);
+        if(index != null)
+            return index;
+        
+        if(findClass(type.getName()) != type)
+            throw new XMLException("Can not store objects of class " + type.getName() + " in a snapshot.");
+        
+        index = classes.size();
+        classes.add(type);
+        classIndex.put(type, index);
+        return index;
+    }
+    
+    
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+    
+    
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while((value & ~0x7FL) != 0){
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+    
+    
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+    
+    
+    private static void writeLong(OutputStream out, long value) throws IOException {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+    
+    
+    private static void writeString(OutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+    
+    
+    /**
+     * Writer of the element contents. The entries of an element are buffered,
+     * since their number is written before them. The attributes not set and
+     * the empty lists are not written.
+     */
+    private class ContentWriter extends NCLContentWriter {
+        
+        private ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        private int count;
+        
+        
+        void write(NCLElementPrototype element) throws IOException, XMLException {
+            entries.reset();
+            count = 0;
+            writeContent(element);
+            
+            writeVarInt(content, count);
+            entries.writeTo(content);
+        }
+        
+        
+        @Override
+        public void writeValue(String name, Object value) throws XMLException {
+            if(value == null)
+                return;
+            
+            try{
+                writeVarInt(entries, string(name));
+                NCLSnapshotWriter.this.writeValue(entries, value);
+                count++;
+            }catch(IOException e){
+                throw new XMLException(e);
+            }
+        }
+        
+        
+        @Override
+        public void writeElements(String name, Iterable elements) throws XMLException {
+            List<Object> aux = new ArrayList<Object>();
+            for(Object e : elements)
+                aux.add(e);
+            if(aux.isEmpty())
+                return;
+            
+            try{
+                writeVarInt(entries, string(name));
+                entries.write(LIST);
+                writeVarInt(entries, aux.size());
+                for(Object e : aux){
+                    entries.write(REFERENCE);
+                    writeVarInt(entries, reference(e));
+                }
+                count++;
+            }catch(IOException e){
+                throw new XMLException(e);
+            }
+        }
+    }
+}
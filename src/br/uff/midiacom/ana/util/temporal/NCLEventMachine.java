@@ -0,0 +1,320 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.util.enums.NCLDefaultValueAssessment;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+
+/**
+ * Class that executes the events of a temporal graph on a virtual clock. The
+ * transitions are processed in time order from a priority queue and the ones
+ * that happen at the same time are processed in the order they were
+ * scheduled. Each transition accepted by the state machine of its event is
+ * recorded and triggers the structural relations of the event. The relations
+ * created from links are dispatched by the subclasses.
+ * 
+ * <br/>
+ * 
+ * A composition stops when all its children stop. The transitions scheduled by
+ * a structural relation, like the end of an area, are cancelled when the event
+ * that scheduled them stops and are delayed while it is paused. An event
+ * started with repetitions starts again after it stops, with the delay between
+ * repetitions, until the repetitions end or the event is aborted.
+ */
+abstract class NCLEventMachine {
+    
+    protected NCLTemporalGraph graph;
+    private PriorityQueue<Occurrence> queue;
+    private Map<NCLTemporalEvent, EventState> states;
+    private List<NCLTimelineEntry> entries;
+    private long order;
+    private double time;
+    
+    
+    NCLEventMachine(NCLTemporalGraph graph) {
+        this.graph = graph;
+        queue = new PriorityQueue<Occurrence>();
+        states = new HashMap<NCLTemporalEvent, EventState>();
+        entries = new ArrayList<NCLTimelineEntry>();
+    }
+    
+    
+    /**
+     * Dispatches the relations created from links triggered by a transition
+     * accepted by the state machine of an event.
+     * 
+     * @param occurrence
+     *          transition accepted.
+     */
+    protected abstract void triggered(Occurrence occurrence);
+    
+    
+    /**
+     * Schedules a transition of an event.
+     * 
+     * @param time
+     *          time of the transition.
+     * @param event
+     *          event.
+     * @param transition
+     *          transition.
+     * @return 
+     *          transition scheduled, whose optional fields can be set before
+     *          it is processed.
+     */
+    Occurrence schedule(double time, NCLTemporalEvent event, NCLEventTransition transition) {
+        Occurrence result = new Occurrence();
+        result.time = time;
+        result.order = order++;
+        result.event = event;
+        result.transition = transition;
+        queue.add(result);
+        return result;
+    }
+    
+    
+    /**
+     * Processes the next transition if it happens up to a time limit.
+     * 
+     * @param limit
+     *          time limit.
+     * @return 
+     *          true if a transition was processed.
+     */
+    boolean step(double limit) {
+        Occurrence o = next();
+        if(o == null || o.time > limit)
+            return false;
+        
+        queue.poll();
+        time = o.time;
+        apply(o);
+        return true;
+    }
+    
+    
+    /**
+     * Verifies if there are transitions scheduled.
+     */
+    boolean hasPending() {
+        return next() != null;
+    }
+    
+    
+    double getTime() {
+        return time;
+    }
+    
+    
+    void setTime(double time) {
+        this.time = time;
+    }
+    
+    
+    List<NCLTimelineEntry> getEntries() {
+        return entries;
+    }
+    
+    
+    EventState state(NCLTemporalEvent event) {
+        EventState result = states.get(event);
+        if(result == null){
+            result = new EventState();
+            states.put(event, result);
+        }
+        
+        return result;
+    }
+    
+    
+    private Occurrence next() {
+        Occurrence o;
+        while((o = queue.peek()) != null && o.cancelled)
+            queue.poll();
+        
+        return o;
+    }
+    
+    
+    private void apply(Occurrence o) {
+        NCLTemporalEvent event = o.event;
+        // the children may have started again after the end was scheduled
+        if(o.ending && isOccurring(graph.getChildren(event)))
+            return;
+        
+        EventState st = state(event);
+        NCLDefaultValueAssessment next = event.getNextState(st.state, o.transition);
+        if(next == null)
+            return;
+        
+        st.state = next;
+        entries.add(new NCLTimelineEntry(o.time, event, o.transition));
+        
+        switch(o.transition){
+            case STARTS:
+                st.start = o;
+                st.repetitions = o.repeat;
+                break;
+            case STOPS:
+                st.occurrences++;
+                cancel(st);
+                if(st.repetitions > 0){
+                    Occurrence r = schedule(o.time + st.start.repeatDelay, event, NCLEventTransition.STARTS);
+                    r.duration = st.start.duration;
+                    r.value = st.start.value;
+                    r.repeat = st.repetitions - 1;
+                    r.repeatDelay = st.start.repeatDelay;
+                }
+                break;
+            case ABORTS:
+                cancel(st);
+                st.repetitions = 0;
+                break;
+            case PAUSES:
+                for(Occurrence p : st.pending){
+                    if(!p.cancelled){
+                        p.cancelled = true;
+                        p.remaining = p.time - o.time;
+                        st.paused.add(p);
+                    }
+                }
+                st.pending.clear();
+                break;
+            case RESUMES:
+                for(Occurrence p : st.paused)
+                    st.pending.add(schedule(o.time + p.remaining, p.event, p.transition));
+                st.paused.clear();
+                break;
+        }
+        
+        for(NCLTemporalEdge edge : event.getEdges()){
+            if(edge.getTriggerTransition() != o.transition || !edge.isStructural())
+                continue;
+            
+            Occurrence n = schedule(o.time + edge.getDelay(), edge.getAction(), edge.getActionTransition());
+            if(edge.getDelay() > 0)
+                st.pending.add(n);
+        }
+        
+        triggered(o);
+        
+        // an attribution lasts the duration given by the set action
+        if(event.getType() == NCLEventType.ATTRIBUTION && o.transition == NCLEventTransition.STARTS)
+            st.pending.add(schedule(o.time + o.duration, event, NCLEventTransition.STOPS));
+        
+        if(next == NCLDefaultValueAssessment.SLEEPING && event.getInterface() == null)
+            stopParent(o.time, event);
+    }
+    
+    
+    private void cancel(EventState st) {
+        for(Occurrence p : st.pending)
+            p.cancelled = true;
+        st.pending.clear();
+        st.paused.clear();
+    }
+    
+    
+    private void stopParent(double time, NCLTemporalEvent event) {
+        NCLTemporalEvent parent = graph.getParent(event);
+        if(parent == null || state(parent).state == NCLDefaultValueAssessment.SLEEPING ||
+                isOccurring(graph.getChildren(parent)))
+            return;
+        
+        schedule(time, parent, NCLEventTransition.STOPS).ending = true;
+    }
+    
+    
+    private boolean isOccurring(List<NCLTemporalEvent> events) {
+        for(NCLTemporalEvent e : events){
+            if(state(e).state != NCLDefaultValueAssessment.SLEEPING)
+                return true;
+        }
+        
+        return false;
+    }
+    
+    
+    /**
+     * Transition scheduled for an event.
+     */
+    static class Occurrence implements Comparable<Occurrence> {
+        
+        double time;
+        NCLTemporalEvent event;
+        NCLEventTransition transition;
+        double duration;
+        Object value;
+        int repeat;
+        double repeatDelay;
+        private double remaining;
+        private long order;
+        private boolean ending;
+        private boolean cancelled;
+        
+        
+        @Override
+        public int compareTo(Occurrence o) {
+            if(time != o.time)
+                return time < o.time ? -1 : 1;
+            
+            return order < o.order ? -1 : (order == o.order ? 0 : 1);
+        }
+    }
+    
+    
+    /**
+     * State of an event during the execution.
+     */
+    static class EventState {
+        
+        NCLDefaultValueAssessment state = NCLDefaultValueAssessment.SLEEPING;
+        int occurrences;
+        int repetitions;
+        private Occurrence start;
+        private List<Occurrence> pending = new ArrayList<Occurrence>();
+        private List<Occurrence> paused = new ArrayList<Occurrence>();
+    }
+}
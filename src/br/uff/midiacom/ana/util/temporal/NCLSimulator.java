@@ -0,0 +1,496 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.connector.NCLAssessmentStatement;
+import br.uff.midiacom.ana.connector.NCLAttributeAssessment;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLCompoundAction;
+import br.uff.midiacom.ana.connector.NCLCompoundCondition;
+import br.uff.midiacom.ana.connector.NCLCompoundStatement;
+import br.uff.midiacom.ana.connector.NCLSimpleAction;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.util.enums.NCLAttributeType;
+import br.uff.midiacom.ana.util.enums.NCLComparator;
+import br.uff.midiacom.ana.util.enums.NCLConditionOperator;
+import br.uff.midiacom.ana.util.enums.NCLDefaultValueAssessment;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.enums.NCLOperator;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class that simulates the presentation of a document on a virtual clock,
+ * without presenting the content of the media. The simulation interprets the
+ * links as the formatter does: a transition of an event triggers the link
+ * conditions bound to it, the statements of the connector are evaluated with
+ * the current state of the events and the actions are scheduled with their
+ * delays, repetitions and attribution values.
+ * 
+ * <br/>
+ * 
+ * The conditions triggered by a transition are found directly in the index of
+ * the temporal graph, so the dispatch of a transition does not depend on the
+ * number of links of the document. The graph is not modified by the simulation
+ * and can be shared by several simulators, one for each session.
+ * 
+ * <br/>
+ * 
+ * The simulation has the following simplifications:
+ * <ul>
+ *  <li>a condition with the qualifier <i>and</i> and several binds, or inside a
+ *  compound condition <i>and</i> with other conditions, is never satisfied,
+ *  since its transitions do not happen at the same time;</li>
+ *  <li>the actions of a compound action <i>seq</i> are executed at the same
+ *  time, in the order they are defined;</li>
+ *  <li>the repetitions of an action restart its event after it stops, with the
+ *  repetition delay;</li>
+ *  <li>the components of a switch are not selected.</li>
+ * </ul>
+ */
+public class NCLSimulator {
+    
+    private NCLTemporalGraph graph;
+    private Machine machine;
+    private Map<NCLTemporalEvent, Object> values;
+    private boolean started;
+    
+    
+    /**
+     * Simulator constructor.
+     * 
+     * @param graph
+     *          temporal graph of the document.
+     */
+    public NCLSimulator(NCLTemporalGraph graph) {
+        this.graph = graph;
+        machine = new Machine(graph);
+        values = new HashMap<NCLTemporalEvent, Object>();
+    }
+    
+    
+    /**
+     * Starts the presentation of the document at the current time. The
+     * transitions that happen at this time are processed.
+     */
+    public void start() {
+        NCLTemporalEvent root = graph.getRoot();
+        if(started || root == null)
+            return;
+        
+        started = true;
+        machine.schedule(machine.getTime(), root, NCLEventTransition.STARTS);
+        runUntil(machine.getTime());
+    }
+    
+    
+    /**
+     * Returns the current time of the simulation.
+     * 
+     * @return 
+     *          time in seconds.
+     */
+    public double getTime() {
+        return machine.getTime();
+    }
+    
+    
+    /**
+     * Advances the clock of the simulation, processing the transitions that
+     * happen in the interval.
+     * 
+     * @param seconds
+     *          interval, in seconds.
+     */
+    public void advance(double seconds) {
+        runUntil(machine.getTime() + seconds);
+    }
+    
+    
+    /**
+     * Processes the transitions that happen up to a time and moves the clock
+     * of the simulation to that time.
+     * 
+     * @param time
+     *          time in seconds.
+     */
+    public void runUntil(double time) {
+        if(time < machine.getTime())
+            throw new IllegalArgumentException("The simulation can not go back in time.");
+        
+        while(machine.step(time));
+        machine.setTime(time);
+    }
+    
+    
+    /**
+     * Verifies if the simulation has transitions scheduled.
+     * 
+     * @return 
+     *          true if there are transitions to be processed.
+     */
+    public boolean hasPending() {
+        return machine.hasPending();
+    }
+    
+    
+    /**
+     * Simulates the selection of a node or of an interface of a node, at the
+     * current time. The selection is only accepted if the node or interface
+     * is occurring.
+     * 
+     * @param component
+     *          node selected.
+     * @param interfac
+     *          interface selected or <i>null</i> for the whole content of the
+     *          node.
+     * @param key
+     *          key used in the selection, like an <i>NCLKey</i>, or
+     *          <i>null</i> for a selection without key.
+     * @return 
+     *          true if the selection was accepted.
+     */
+    public boolean select(XMLElement component, XMLElement interfac, Object key) {
+        NCLTemporalEvent presentation = graph.getEvent(component, interfac, NCLEventType.PRESENTATION);
+        if(presentation == null || getState(presentation) != NCLDefaultValueAssessment.OCCURRING)
+            return false;
+        
+        NCLTemporalEvent selection = graph.getEvent(component, interfac, NCLEventType.SELECTION);
+        if(selection == null)
+            return true;
+        
+        machine.schedule(machine.getTime(), selection, NCLEventTransition.STARTS).value = key;
+        machine.schedule(machine.getTime(), selection, NCLEventTransition.STOPS).value = key;
+        runUntil(machine.getTime());
+        return true;
+    }
+    
+    
+    /**
+     * Returns the current state of an event.
+     * 
+     * @param event
+     *          event of the graph.
+     * @return 
+     *          state of the event.
+     */
+    public NCLDefaultValueAssessment getState(NCLTemporalEvent event) {
+        return machine.state(event).state;
+    }
+    
+    
+    /**
+     * Returns the number of times an event has stopped.
+     * 
+     * @param event
+     *          event of the graph.
+     * @return 
+     *          number of occurrences of the event.
+     */
+    public int getOccurrences(NCLTemporalEvent event) {
+        return machine.state(event).occurrences;
+    }
+    
+    
+    /**
+     * Returns the number of repetitions still to be done by an event.
+     * 
+     * @param event
+     *          event of the graph.
+     * @return 
+     *          number of repetitions of the event.
+     */
+    public int getRepetitions(NCLTemporalEvent event) {
+        return machine.state(event).repetitions;
+    }
+    
+    
+    /**
+     * Returns the current value of a property.
+     * 
+     * @param event
+     *          attribution event of the property.
+     * @return 
+     *          value set by the last attribution or the initial value of the
+     *          property if it was not set.
+     */
+    public Object getPropertyValue(NCLTemporalEvent event) {
+        if(values.containsKey(event))
+            return values.get(event);
+        
+        XMLElement interfac = event.getInterface();
+        return interfac instanceof NCLProperty ? ((NCLProperty) interfac).getValue() : null;
+    }
+    
+    
+    /**
+     * Returns the transitions processed by the simulation.
+     * 
+     * @return 
+     *          list of transitions in time order.
+     */
+    public List<NCLTimelineEntry> getTrace() {
+        return Collections.unmodifiableList(machine.getEntries());
+    }
+    
+    
+    private void dispatch(NCLEventMachine.Occurrence occurrence) {
+        NCLTemporalEvent event = occurrence.event;
+        if(event.getType() == NCLEventType.ATTRIBUTION && occurrence.transition == NCLEventTransition.STARTS)
+            values.put(event, occurrence.value);
+        
+        for(NCLBind bind : event.getTriggers(occurrence.transition)){
+            NCLLink link = (NCLLink) bind.getParent();
+            NCLSimpleCondition condition = (NCLSimpleCondition) bind.getRole();
+            if(event.getType() == NCLEventType.SELECTION && condition.getKey() != null){
+                Object key = NCLTemporalGraph.value(condition.getKey(), bind, link);
+                if(key == null || occurrence.value == null || !key.toString().equals(occurrence.value.toString()))
+                    continue;
+            }
+            if(condition.getQualifier() == NCLConditionOperator.AND &&
+                    NCLTemporalGraph.binds(link, condition).size() > 1)
+                continue;
+            
+            double delay = seconds(condition.getDelay(), bind, link);
+            boolean satisfied = true;
+            Object element = condition;
+            Object parent;
+            while((parent = ((XMLElement) element).getParent()) instanceof NCLCompoundCondition){
+                NCLCompoundCondition compound = (NCLCompoundCondition) parent;
+                if(compound.getOperator() == NCLConditionOperator.AND){
+                    satisfied = compound.getConditions().size() < 2;
+                    for(Object s : compound.getStatements()){
+                        if(!satisfied)
+                            break;
+                        satisfied = evaluate(s, link);
+                    }
+                }
+                if(!satisfied)
+                    break;
+                
+                delay += seconds(compound.getDelay(), null, link);
+                element = parent;
+            }
+            
+            if(satisfied && parent instanceof NCLCausalConnector)
+                execute(((NCLCausalConnector) parent).getAction(), link, delay);
+        }
+    }
+    
+    
+    private void execute(Object action, NCLLink link, double delay) {
+        if(action instanceof NCLCompoundAction){
+            NCLCompoundAction compound = (NCLCompoundAction) action;
+            double d = delay + seconds(compound.getDelay(), null, link);
+            for(Object a : compound.getActions())
+                execute(a, link, d);
+        }
+        else if(action instanceof NCLSimpleAction){
+            NCLSimpleAction simple = (NCLSimpleAction) action;
+            NCLEventTransition transition = NCLTemporalGraph.actionTransition(simple);
+            if(transition == null)
+                return;
+            
+            for(NCLBind bind : NCLTemporalGraph.binds(link, simple)){
+                NCLTemporalEvent event = graph.getEvent(bind);
+                if(event == null)
+                    continue;
+                
+                NCLEventMachine.Occurrence o = machine.schedule(
+                        machine.getTime() + delay + seconds(simple.getDelay(), bind, link), event, transition);
+                o.repeat = repeat(NCLTemporalGraph.value(simple.getRepeat(), bind, link));
+                o.repeatDelay = seconds(simple.getRepeatDelay(), bind, link);
+                if(event.getType() == NCLEventType.ATTRIBUTION){
+                    o.duration = seconds(simple.getDuration(), bind, link);
+                    o.value = NCLTemporalGraph.value(simple.getValue(), bind, link);
+                }
+            }
+        }
+    }
+    
+    
+    private boolean evaluate(Object statement, NCLLink link) {
+        if(statement instanceof NCLCompoundStatement){
+            NCLCompoundStatement compound = (NCLCompoundStatement) statement;
+            boolean and = compound.getOperator() != NCLOperator.OR;
+            boolean result = and;
+            for(Object s : compound.getStatements()){
+                if(evaluate(s, link) != and){
+                    result = !and;
+                    break;
+                }
+            }
+            
+            return Boolean.TRUE.equals(compound.getIsNegated()) ? !result : result;
+        }
+        else if(statement instanceof NCLAssessmentStatement){
+            NCLAssessmentStatement assessment = (NCLAssessmentStatement) statement;
+            Iterator it = assessment.getAttributeAssessments().iterator();
+            if(!it.hasNext())
+                return false;
+            
+            Object left = attribute((NCLAttributeAssessment) it.next(), link);
+            Object right = it.hasNext() ? attribute((NCLAttributeAssessment) it.next(), link) :
+                    NCLTemporalGraph.value(assessment.getValueAssessment(), null, link);
+            
+            return compare(left, right, assessment.getComparator());
+        }
+        
+        return false;
+    }
+    
+    
+    private Object attribute(NCLAttributeAssessment assessment, NCLLink link) {
+        List<NCLBind> binds = NCLTemporalGraph.binds(link, assessment);
+        NCLTemporalEvent event = binds.isEmpty() ? null : graph.getEvent(binds.get(0));
+        if(event == null)
+            return null;
+        
+        Object result;
+        NCLAttributeType type = assessment.getAttributeType();
+        if(type == NCLAttributeType.NODE_PROPERTY)
+            result = getPropertyValue(event);
+        else if(type == NCLAttributeType.OCCURRENCES)
+            result = getOccurrences(event);
+        else if(type == NCLAttributeType.REPETITIONS)
+            result = getRepetitions(event);
+        else
+            result = getState(event);
+        
+        Object offset = NCLTemporalGraph.value(assessment.getOffset(), binds.get(0), link);
+        double number = number(result);
+        if(offset != null && !Double.isNaN(number) && !Double.isNaN(number(offset)))
+            result = number + number(offset);
+        
+        return result;
+    }
+    
+    
+    private boolean compare(Object left, Object right, NCLComparator comparator) {
+        if(left == null || right == null)
+            return false;
+        
+        int result;
+        double l = number(left);
+        double r = number(right);
+        if(!Double.isNaN(l) && !Double.isNaN(r))
+            result = Double.compare(l, r);
+        else
+            result = left.toString().compareTo(right.toString());
+        
+        if(comparator == null)
+            return result == 0;
+        
+        switch(comparator){
+            case NE:
+                return result != 0;
+            case GT:
+                return result > 0;
+            case LT:
+                return result < 0;
+            case GTE:
+                return result >= 0;
+            case LTE:
+                return result <= 0;
+            default:
+                return result == 0;
+        }
+    }
+    
+    
+    private double number(Object value) {
+        if(value instanceof Number)
+            return ((Number) value).doubleValue();
+        if(value instanceof String){
+            try{
+                return Double.parseDouble(((String) value).trim());
+            }catch(NumberFormatException e){
+                return Double.NaN;
+            }
+        }
+        
+        return Double.NaN;
+    }
+    
+    
+    private int repeat(Object value) {
+        if(value instanceof Number)
+            return ((Number) value).intValue();
+        if("indefinite".equals(value))
+            return Integer.MAX_VALUE;
+        
+        double aux = number(value);
+        return Double.isNaN(aux) ? 0 : (int) aux;
+    }
+    
+    
+    /**
+     * Returns a time attribute in seconds, considering an unknown value as
+     * <i>0</i>.
+     */
+    private double seconds(Object value, NCLBind bind, NCLLink link) {
+        double result = NCLTemporalGraph.seconds(value, bind, link);
+        return Double.isNaN(result) ? 0 : result;
+    }
+    
+    
+    /**
+     * Machine that dispatches the links triggered by the transitions.
+     */
+    private class Machine extends NCLEventMachine {
+        
+        private Machine(NCLTemporalGraph graph) {
+            super(graph);
+        }
+        
+        
+        @Override
+        protected void triggered(Occurrence occurrence) {
+            dispatch(occurrence);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+
+
+/**
+ * Class that represents a causal relation of the temporal graph of a document.
+ * When the trigger event has the trigger transition, the relation applies the
+ * action transition to the action event after a delay.
+ * 
+ * <br/>
+ * 
+ * The relations created from links have the link as origin. The relations
+ * defined by the structure of the document don't have a link, like the start
+ * of the nodes mapped by the ports of a context when the context starts, the
+ * begin and end of the areas of a media and the end of a media given by the
+ * explicit duration of its descriptor. A structural relation with delay only
+ * applies while the presentation of the trigger event that created it lasts.
+ * 
+ * <br/>
+ * 
+ * A relation is not predictable if it depends on the user or on the state of
+ * the presentation, like a relation triggered by a selection or one whose
+ * condition tests attribute values.
+ */
+public class NCLTemporalEdge {
+    
+    private NCLLink link;
+    private NCLTemporalEvent trigger;
+    private NCLEventTransition triggerTransition;
+    private NCLTemporalEvent action;
+    private NCLEventTransition actionTransition;
+    private double delay;
+    private double duration;
+    private Object value;
+    private boolean predictable;
+    
+    
+    NCLTemporalEdge(NCLLink link, NCLTemporalEvent trigger, NCLEventTransition triggerTransition,
+            NCLTemporalEvent action, NCLEventTransition actionTransition, double delay, boolean predictable) {
+        this.link = link;
+        this.trigger = trigger;
+        this.triggerTransition = triggerTransition;
+        this.action = action;
+        this.actionTransition = actionTransition;
+        this.delay = delay;
+        this.predictable = predictable;
+    }
+    
+    
+    /**
+     * Returns the link that defines the relation.
+     * 
+     * @return 
+     *          element representing the link or <i>null</i> if the relation
+     *          is defined by the structure of the document.
+     */
+    public NCLLink getLink() {
+        return link;
+    }
+    
+    
+    /**
+     * Verifies if the relation is defined by the structure of the document.
+     * 
+     * @return 
+     *          true if the relation was not created from a link.
+     */
+    public boolean isStructural() {
+        return link == null;
+    }
+    
+    
+    /**
+     * Returns the event whose transition triggers the relation.
+     * 
+     * @return 
+     *          trigger event.
+     */
+    public NCLTemporalEvent getTrigger() {
+        return trigger;
+    }
+    
+    
+    /**
+     * Returns the transition that triggers the relation.
+     * 
+     * @return 
+     *          trigger transition.
+     */
+    public NCLEventTransition getTriggerTransition() {
+        return triggerTransition;
+    }
+    
+    
+    /**
+     * Returns the event that receives the action of the relation.
+     * 
+     * @return 
+     *          action event.
+     */
+    public NCLTemporalEvent getAction() {
+        return action;
+    }
+    
+    
+    /**
+     * Returns the transition applied to the action event. A <i>set</i> action
+     * starts an attribution event.
+     * 
+     * @return 
+     *          action transition.
+     */
+    public NCLEventTransition getActionTransition() {
+        return actionTransition;
+    }
+    
+    
+    /**
+     * Returns the time between the trigger and the action, in seconds.
+     * 
+     * @return 
+     *          delay in seconds.
+     */
+    public double getDelay() {
+        return delay;
+    }
+    
+    
+    /**
+     * Returns the duration of an attribution started by the relation, in
+     * seconds.
+     * 
+     * @return 
+     *          duration in seconds, <i>0</i> for other actions.
+     */
+    public double getDuration() {
+        return duration;
+    }
+    
+    
+    /**
+     * Returns the value assigned by a <i>set</i> action.
+     * 
+     * @return 
+     *          value assigned or <i>null</i> for other actions.
+     */
+    public Object getValue() {
+        return value;
+    }
+    
+    
+    /**
+     * Verifies if the relation can be followed without knowing the user
+     * interaction or the values of the properties.
+     * 
+     * @return 
+     *          true if the relation is predictable.
+     */
+    public boolean isPredictable() {
+        return predictable;
+    }
+    
+    
+    void setAttribution(double duration, Object value) {
+        this.duration = duration;
+        this.value = value;
+    }
+    
+    
+    @Override
+    public String toString() {
+        return trigger + " " + triggerTransition + " -> " + action + " " + actionTransition
+                + (delay != 0 ? " after " + delay + "s" : "");
+    }
+}
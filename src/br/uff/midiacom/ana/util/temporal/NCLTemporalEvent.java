@@ -0,0 +1,211 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.util.enums.NCLDefaultValueAssessment;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class that represents an event of the temporal graph of a document, that is,
+ * the presentation, selection or attribution of a node or of one of its
+ * interfaces. The event is identified by the node, by the interface, that is
+ * <i>null</i> for the whole content of the node, and by the event type.
+ * 
+ * <br/>
+ * 
+ * The event defines the state machine of the NCL events:
+ * <ul>
+ *  <li><i>starts</i> - from sleeping to occurring;</li>
+ *  <li><i>stops</i> and <i>aborts</i> - from occurring or paused to sleeping;</li>
+ *  <li><i>pauses</i> - from occurring to paused;</li>
+ *  <li><i>resumes</i> - from paused to occurring.</li>
+ * </ul>
+ * A selection event can not be paused. The state of the event is not kept by
+ * the graph, so the same graph can be used by several schedulers.
+ */
+public class NCLTemporalEvent {
+    
+    private XMLElement component;
+    private XMLElement interfac;
+    private NCLEventType type;
+    private List<NCLTemporalEdge> edges;
+    private Map<NCLEventTransition, List<NCLBind>> triggers;
+    
+    
+    NCLTemporalEvent(XMLElement component, XMLElement interfac, NCLEventType type) {
+        this.component = component;
+        this.interfac = interfac;
+        this.type = type;
+        edges = new ArrayList<NCLTemporalEdge>();
+        triggers = new EnumMap<NCLEventTransition, List<NCLBind>>(NCLEventTransition.class);
+    }
+    
+    
+    /**
+     * Returns the node of the event.
+     * 
+     * @return 
+     *          element representing the node.
+     */
+    public XMLElement getComponent() {
+        return component;
+    }
+    
+    
+    /**
+     * Returns the interface of the event.
+     * 
+     * @return 
+     *          element representing the interface of the node, like an area
+     *          or a property, or <i>null</i> if the event refers to the whole
+     *          content of the node.
+     */
+    public XMLElement getInterface() {
+        return interfac;
+    }
+    
+    
+    /**
+     * Returns the type of the event.
+     * 
+     * @return 
+     *          event type.
+     */
+    public NCLEventType getType() {
+        return type;
+    }
+    
+    
+    /**
+     * Returns the edges that leave the event, that is, the relations
+     * triggered by a transition of the event.
+     * 
+     * @return 
+     *          list of edges.
+     */
+    public List<NCLTemporalEdge> getEdges() {
+        return Collections.unmodifiableList(edges);
+    }
+    
+    
+    /**
+     * Returns the state of the event after a transition.
+     * 
+     * @param state
+     *          current state of the event.
+     * @param transition
+     *          transition applied to the event.
+     * @return 
+     *          new state of the event or <i>null</i> if the transition can
+     *          not be applied in the current state.
+     */
+    public NCLDefaultValueAssessment getNextState(NCLDefaultValueAssessment state, NCLEventTransition transition) {
+        switch(transition){
+            case STARTS:
+                return state == NCLDefaultValueAssessment.SLEEPING ? NCLDefaultValueAssessment.OCCURRING : null;
+            case STOPS:
+            case ABORTS:
+                return state != NCLDefaultValueAssessment.SLEEPING ? NCLDefaultValueAssessment.SLEEPING : null;
+            case PAUSES:
+                if(type == NCLEventType.SELECTION)
+                    return null;
+                return state == NCLDefaultValueAssessment.OCCURRING ? NCLDefaultValueAssessment.PAUSED : null;
+            case RESUMES:
+                return state == NCLDefaultValueAssessment.PAUSED ? NCLDefaultValueAssessment.OCCURRING : null;
+            default:
+                return null;
+        }
+    }
+    
+    
+    void addEdge(NCLTemporalEdge edge) {
+        edges.add(edge);
+    }
+    
+    
+    /**
+     * Returns the binds of the link conditions triggered by a transition of
+     * the event.
+     */
+    List<NCLBind> getTriggers(NCLEventTransition transition) {
+        List<NCLBind> aux = triggers.get(transition);
+        return aux == null ? Collections.<NCLBind>emptyList() : aux;
+    }
+    
+    
+    void addTrigger(NCLEventTransition transition, NCLBind bind) {
+        List<NCLBind> aux = triggers.get(transition);
+        if(aux == null){
+            aux = new ArrayList<NCLBind>(1);
+            triggers.put(transition, aux);
+        }
+        aux.add(bind);
+    }
+    
+    
+    @Override
+    public String toString() {
+        String result = type + " " + name(component);
+        if(interfac != null)
+            result += "#" + name(interfac);
+        
+        return result;
+    }
+    
+    
+    private String name(XMLElement element) {
+        if(element instanceof NCLIdentifiableElementPrototype &&
+                ((NCLIdentifiableElementPrototype) element).getId() != null)
+            return ((NCLIdentifiableElementPrototype) element).getId();
+        if(element instanceof NCLNamedElementPrototype)
+            return "" + ((NCLNamedElementPrototype) element).getName();
+        
+        return element.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,617 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.connector.NCLAssessmentStatement;
+import br.uff.midiacom.ana.connector.NCLAttributeAssessment;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLCompoundAction;
+import br.uff.midiacom.ana.connector.NCLCompoundCondition;
+import br.uff.midiacom.ana.connector.NCLCompoundStatement;
+import br.uff.midiacom.ana.connector.NCLConnectorParam;
+import br.uff.midiacom.ana.connector.NCLSimpleAction;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.link.NCLParam;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.enums.NCLAttributeType;
+import br.uff.midiacom.ana.util.enums.NCLConditionOperator;
+import br.uff.midiacom.ana.util.enums.NCLDefaultActionRole;
+import br.uff.midiacom.ana.util.enums.NCLDefaultConditionRole;
+import br.uff.midiacom.ana.util.enums.NCLEventAction;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Class that represents the temporal graph of a document. The nodes of the
+ * graph are the events of the media, contexts, switches, areas and properties
+ * of the body and the edges are the causal relations among them, defined by
+ * the links and by the structure of the document.
+ * 
+ * <br/>
+ * 
+ * The graph is built from the document once and is not updated when the
+ * document is modified. The relations of a link are created for each pair of
+ * binds of a condition role and an action role, with the sum of the delays of
+ * the conditions and actions. The delays defined by connector parameters are
+ * resolved with the parameters of the binds and of the link. The components of
+ * the switches are not started by the graph, since the selection of a
+ * component depends on the rules evaluated during the presentation.
+ * 
+ * <br/>
+ * 
+ * The predictable part of the presentation can be computed with an
+ * <i>NCLTimelineScheduler</i> and the whole presentation, including the
+ * selections and the conditions that depend on the state of the events, can be
+ * simulated with an <i>NCLSimulator</i>. For the simulation, the graph indexes
+ * the binds of the link conditions by the event and the transition that
+ * trigger them.
+ */
+public class NCLTemporalGraph {
+    
+    private static final NCLEventTransition[] PROPAGATED = {NCLEventTransition.STOPS,
+        NCLEventTransition.ABORTS, NCLEventTransition.PAUSES, NCLEventTransition.RESUMES};
+    
+    private NCLDoc doc;
+    private Map<XMLElement, List<NCLTemporalEvent>> events;
+    private List<NCLTemporalEvent> eventList;
+    private List<NCLTemporalEdge> edges;
+    private Map<NCLTemporalEvent, NCLTemporalEvent> parents;
+    private Map<NCLTemporalEvent, List<NCLTemporalEvent>> children;
+    private Map<NCLBind, NCLTemporalEvent> bindEvents;
+    
+    
+    /**
+     * Builds the temporal graph of a document. The imported documents still
+     * being loaded are waited before the graph is built.
+     * 
+     * @param doc
+     *          document whose graph is built.
+     * @throws XMLException 
+     *          if an error occur while loading an imported document.
+     */
+    public NCLTemporalGraph(NCLDoc doc) throws XMLException {
+        this.doc = doc;
+        events = new IdentityHashMap<XMLElement, List<NCLTemporalEvent>>();
+        eventList = new ArrayList<NCLTemporalEvent>();
+        edges = new ArrayList<NCLTemporalEdge>();
+        parents = new HashMap<NCLTemporalEvent, NCLTemporalEvent>();
+        children = new LinkedHashMap<NCLTemporalEvent, List<NCLTemporalEvent>>();
+        bindEvents = new IdentityHashMap<NCLBind, NCLTemporalEvent>();
+        
+        doc.waitImports();
+        if(doc.getBody() != null)
+            addNode(doc.getBody(), null);
+    }
+    
+    
+    /**
+     * Returns the document of the graph.
+     * 
+     * @return 
+     *          document whose graph was built.
+     */
+    public NCLDoc getDoc() {
+        return doc;
+    }
+    
+    
+    /**
+     * Returns the presentation event of the body, that starts the
+     * presentation of the document.
+     * 
+     * @return 
+     *          event or <i>null</i> if the document does not have a body.
+     */
+    public NCLTemporalEvent getRoot() {
+        return doc.getBody() == null ? null : getEvent(doc.getBody(), null, NCLEventType.PRESENTATION);
+    }
+    
+    
+    /**
+     * Returns the events of the graph.
+     * 
+     * @return 
+     *          list of events.
+     */
+    public List<NCLTemporalEvent> getEvents() {
+        return Collections.unmodifiableList(eventList);
+    }
+    
+    
+    /**
+     * Returns the relations of the graph.
+     * 
+     * @return 
+     *          list of edges.
+     */
+    public List<NCLTemporalEdge> getEdges() {
+        return Collections.unmodifiableList(edges);
+    }
+    
+    
+    /**
+     * Returns an event of the graph.
+     * 
+     * @param component
+     *          node of the event.
+     * @param interfac
+     *          interface of the event or <i>null</i> for the whole content of
+     *          the node.
+     * @param type
+     *          type of the event.
+     * @return 
+     *          event or <i>null</i> if the graph does not have the event.
+     */
+    public NCLTemporalEvent getEvent(XMLElement component, XMLElement interfac, NCLEventType type) {
+        List<NCLTemporalEvent> list = events.get(component);
+        if(list == null)
+            return null;
+        
+        for(NCLTemporalEvent e : list){
+            if(e.getInterface() == interfac && e.getType() == type)
+                return e;
+        }
+        
+        return null;
+    }
+    
+    
+    /**
+     * Returns the presentation event of the composition parent of the node of
+     * an event, for an event that refers to the whole content of a node.
+     */
+    NCLTemporalEvent getParent(NCLTemporalEvent event) {
+        return parents.get(event);
+    }
+    
+    
+    /**
+     * Returns the presentation events of the children of a composition.
+     */
+    List<NCLTemporalEvent> getChildren(NCLTemporalEvent event) {
+        List<NCLTemporalEvent> aux = children.get(event);
+        return aux == null ? Collections.<NCLTemporalEvent>emptyList() : aux;
+    }
+    
+    
+    /**
+     * Returns the event a bind of a link refers to.
+     */
+    NCLTemporalEvent getEvent(NCLBind bind) {
+        return bindEvents.get(bind);
+    }
+    
+    
+    private NCLTemporalEvent event(XMLElement component, XMLElement interfac, NCLEventType type) {
+        NCLTemporalEvent result = getEvent(component, interfac, type);
+        if(result != null)
+            return result;
+        
+        List<NCLTemporalEvent> list = events.get(component);
+        if(list == null){
+            list = new ArrayList<NCLTemporalEvent>(1);
+            events.put(component, list);
+        }
+        
+        result = new NCLTemporalEvent(component, interfac, type);
+        list.add(result);
+        eventList.add(result);
+        return result;
+    }
+    
+    
+    private NCLTemporalEdge edge(NCLLink link, NCLTemporalEvent trigger, NCLEventTransition triggerTransition,
+            NCLTemporalEvent action, NCLEventTransition actionTransition, double delay, boolean predictable) {
+        NCLTemporalEdge result = new NCLTemporalEdge(link, trigger, triggerTransition,
+                action, actionTransition, delay, predictable);
+        trigger.addEdge(result);
+        edges.add(result);
+        return result;
+    }
+    
+    
+    private void propagate(NCLTemporalEvent parent, NCLTemporalEvent child) {
+        for(NCLEventTransition t : PROPAGATED)
+            edge(null, parent, t, child, t, 0, true);
+    }
+    
+    
+    private void addNode(XMLElement node, NCLTemporalEvent parent) {
+        NCLTemporalEvent presentation = event(node, null, NCLEventType.PRESENTATION);
+        if(parent != null){
+            parents.put(presentation, parent);
+            List<NCLTemporalEvent> aux = children.get(parent);
+            if(aux == null){
+                aux = new ArrayList<NCLTemporalEvent>();
+                children.put(parent, aux);
+            }
+            aux.add(presentation);
+            propagate(parent, presentation);
+        }
+        
+        if(node instanceof NCLMedia)
+            addMedia((NCLMedia) node, presentation);
+        else if(node instanceof NCLCompositeNodeElement){
+            NCLCompositeNodeElement composite = (NCLCompositeNodeElement) node;
+            
+            for(Object p : composite.getProperties())
+                event(node, (XMLElement) p, NCLEventType.ATTRIBUTION);
+            for(Object n : composite.getNodes())
+                addNode((XMLElement) n, presentation);
+            for(Object p : composite.getPorts()){
+                NCLTemporalEvent target = resolve(node, (XMLElement) p, NCLEventType.PRESENTATION);
+                if(target != null)
+                    edge(null, presentation, NCLEventTransition.STARTS, target, NCLEventTransition.STARTS, 0, true);
+            }
+            for(Object l : composite.getLinks())
+                addLink((NCLLink) l);
+        }
+        else if(node instanceof NCLSwitch){
+            for(Object n : ((NCLSwitch) node).getNodes())
+                addNode((XMLElement) n, presentation);
+        }
+    }
+    
+    
+    private void addMedia(NCLMedia media, NCLTemporalEvent presentation) {
+        for(Object p : media.getProperties())
+            event(media, (XMLElement) p, NCLEventType.ATTRIBUTION);
+        
+        for(Object o : media.getAreas()){
+            NCLArea area = (NCLArea) o;
+            TimeType begin = area.getBegin();
+            TimeType end = area.getEnd();
+            NCLTemporalEvent event = event(media, area, NCLEventType.PRESENTATION);
+            if(begin == null && end == null)
+                continue;
+            
+            edge(null, presentation, NCLEventTransition.STARTS, event, NCLEventTransition.STARTS,
+                    begin == null ? 0 : begin.getTimeInSeconds(), true);
+            if(end != null)
+                edge(null, presentation, NCLEventTransition.STARTS, event, NCLEventTransition.STOPS,
+                        end.getTimeInSeconds(), true);
+            propagate(presentation, event);
+        }
+        
+        Object descriptor = media.getDescriptor();
+        if(descriptor instanceof ExternalReferenceType)
+            descriptor = ((ExternalReferenceType) descriptor).getTarget();
+        if(descriptor instanceof NCLDescriptor && ((NCLDescriptor) descriptor).getExplicitDur() != null){
+            double dur = ((NCLDescriptor) descriptor).getExplicitDur().getTimeInSeconds();
+            edge(null, presentation, NCLEventTransition.STARTS, presentation, NCLEventTransition.STOPS, dur, true);
+        }
+    }
+    
+    
+    /**
+     * Returns the event of an interface of a node, following the ports of
+     * the compositions to the interface they map.
+     */
+    private NCLTemporalEvent resolve(XMLElement component, XMLElement interfac, NCLEventType type) {
+        while(interfac instanceof NCLPort){
+            component = (XMLElement) ((NCLPort) interfac).getComponent();
+            interfac = (XMLElement) ((NCLPort) interfac).getInterface();
+        }
+        
+        if(component == null)
+            return null;
+        
+        return event(component, interfac, type);
+    }
+    
+    
+    private void addLink(NCLLink link) {
+        Object aux = link.getXconnector();
+        if(aux instanceof ExternalReferenceType)
+            aux = ((ExternalReferenceType) aux).getTarget();
+        if(!(aux instanceof NCLCausalConnector))
+            return;
+        
+        NCLCausalConnector connector = (NCLCausalConnector) aux;
+        List<Object[]> conditions = new ArrayList<Object[]>();
+        List<Object[]> actions = new ArrayList<Object[]>();
+        addConditions(link, connector.getCondition(), 0, true, conditions);
+        addActions(link, connector.getAction(), 0, actions);
+        addAssessments(link, connector.getCondition());
+        
+        for(Object[] c : conditions){
+            NCLSimpleCondition condition = (NCLSimpleCondition) c[0];
+            NCLEventType type = conditionType(condition);
+            NCLEventTransition transition = conditionTransition(condition);
+            if(type == null || transition == null)
+                continue;
+            
+            List<NCLBind> triggers = binds(link, condition);
+            boolean predictable = (Boolean) c[2] && type != NCLEventType.SELECTION &&
+                    (condition.getQualifier() != NCLConditionOperator.AND || triggers.size() < 2);
+            
+            for(NCLBind trigger : triggers){
+                NCLTemporalEvent from = resolve((XMLElement) trigger.getComponent(),
+                        (XMLElement) trigger.getInterface(), type);
+                if(from == null)
+                    continue;
+                
+                from.addTrigger(transition, trigger);
+                bindEvents.put(trigger, from);
+                double cdelay = (Double) c[1] + seconds(condition.getDelay(), trigger, link);
+                
+                for(Object[] a : actions){
+                    addAction(link, from, transition, (NCLSimpleAction) a[0],
+                            cdelay + (Double) a[1], predictable);
+                }
+            }
+        }
+    }
+    
+    
+    private void addAction(NCLLink link, NCLTemporalEvent from, NCLEventTransition transition,
+            NCLSimpleAction action, double delay, boolean predictable) {
+        NCLEventType type = actionType(action);
+        NCLEventTransition actionTransition = actionTransition(action);
+        if(from == null || type == null || actionTransition == null)
+            return;
+        
+        for(NCLBind bind : binds(link, action)){
+            NCLTemporalEvent to = resolve((XMLElement) bind.getComponent(),
+                    (XMLElement) bind.getInterface(), type);
+            if(to == null)
+                continue;
+            
+            bindEvents.put(bind, to);
+            double total = delay + seconds(action.getDelay(), bind, link);
+            NCLTemporalEdge edge = edge(link, from, transition, to, actionTransition,
+                    Double.isNaN(total) ? 0 : total, predictable && !Double.isNaN(total));
+            if(type == NCLEventType.ATTRIBUTION){
+                double dur = seconds(action.getDuration(), bind, link);
+                edge.setAttribution(Double.isNaN(dur) ? 0 : dur, value(action.getValue(), bind, link));
+            }
+        }
+    }
+    
+    
+    private void addConditions(NCLLink link, Object condition, double delay, boolean predictable, List<Object[]> result) {
+        if(condition instanceof NCLSimpleCondition)
+            result.add(new Object[]{condition, delay, predictable});
+        else if(condition instanceof NCLCompoundCondition){
+            NCLCompoundCondition compound = (NCLCompoundCondition) condition;
+            double d = delay + seconds(compound.getDelay(), null, link);
+            boolean p = predictable && !Double.isNaN(d) && !compound.hasStatement() &&
+                    (compound.getOperator() != NCLConditionOperator.AND || compound.getConditions().size() < 2);
+            
+            for(Object c : compound.getConditions())
+                addConditions(link, c, Double.isNaN(d) ? delay : d, p, result);
+        }
+    }
+    
+    
+    private void addAssessments(NCLLink link, Object element) {
+        if(element instanceof NCLCompoundCondition){
+            for(Object c : ((NCLCompoundCondition) element).getConditions())
+                addAssessments(link, c);
+            for(Object s : ((NCLCompoundCondition) element).getStatements())
+                addAssessments(link, s);
+        }
+        else if(element instanceof NCLCompoundStatement){
+            for(Object s : ((NCLCompoundStatement) element).getStatements())
+                addAssessments(link, s);
+        }
+        else if(element instanceof NCLAssessmentStatement){
+            for(Object a : ((NCLAssessmentStatement) element).getAttributeAssessments()){
+                NCLAttributeAssessment assessment = (NCLAttributeAssessment) a;
+                NCLEventType type = assessment.getAttributeType() == NCLAttributeType.NODE_PROPERTY ?
+                        NCLEventType.ATTRIBUTION : assessment.getEventType();
+                
+                for(NCLBind bind : binds(link, assessment)){
+                    NCLTemporalEvent event = resolve((XMLElement) bind.getComponent(),
+                            (XMLElement) bind.getInterface(), type == null ? NCLEventType.PRESENTATION : type);
+                    if(event != null)
+                        bindEvents.put(bind, event);
+                }
+            }
+        }
+    }
+    
+    
+    private void addActions(NCLLink link, Object action, double delay, List<Object[]> result) {
+        if(action instanceof NCLSimpleAction)
+            result.add(new Object[]{action, delay});
+        else if(action instanceof NCLCompoundAction){
+            NCLCompoundAction compound = (NCLCompoundAction) action;
+            double d = delay + seconds(compound.getDelay(), null, link);
+            
+            for(Object a : compound.getActions())
+                addActions(link, a, d, result);
+        }
+    }
+    
+    
+    static List<NCLBind> binds(NCLLink link, Object role) {
+        List<NCLBind> result = new ArrayList<NCLBind>();
+        for(Object b : link.getBinds()){
+            if(((NCLBind) b).getRole() == role)
+                result.add((NCLBind) b);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Returns the value of an attribute of a connector element, replacing a
+     * connector parameter by the value given by the bind or by the link.
+     */
+    static Object value(Object value, NCLBind bind, NCLLink link) {
+        if(!(value instanceof NCLConnectorParam))
+            return value;
+        
+        if(bind != null){
+            for(Object p : bind.getBindParams()){
+                if(((NCLParam) p).getName() == value)
+                    return ((NCLParam) p).getValue();
+            }
+        }
+        for(Object p : link.getLinkParams()){
+            if(((NCLParam) p).getName() == value)
+                return ((NCLParam) p).getValue();
+        }
+        
+        return null;
+    }
+    
+    
+    /**
+     * Returns a time attribute in seconds, <i>0</i> if it is not defined and
+     * <i>NaN</i> if its value is not known.
+     */
+    static double seconds(Object value, NCLBind bind, NCLLink link) {
+        if(value == null)
+            return 0;
+        
+        value = value(value, bind, link);
+        if(value instanceof Number)
+            return ((Number) value).doubleValue();
+        if(value instanceof TimeType)
+            return ((TimeType) value).getTimeInSeconds();
+        if(value instanceof String){
+            String aux = ((String) value).trim();
+            if(aux.endsWith("s"))
+                aux = aux.substring(0, aux.length() - 1);
+            try{
+                return Double.parseDouble(aux);
+            }catch(NumberFormatException e){
+                return Double.NaN;
+            }
+        }
+        
+        return Double.NaN;
+    }
+    
+    
+    static NCLEventType conditionType(NCLSimpleCondition condition) {
+        Object role = condition.getRole();
+        if(!(role instanceof NCLDefaultConditionRole))
+            return condition.getEventType();
+        
+        switch((NCLDefaultConditionRole) role){
+            case ONSELECTION:
+                return NCLEventType.SELECTION;
+            case ONBEGINATTRIBUTION:
+            case ONENDATTRIBUTION:
+                return NCLEventType.ATTRIBUTION;
+            default:
+                return NCLEventType.PRESENTATION;
+        }
+    }
+    
+    
+    static NCLEventTransition conditionTransition(NCLSimpleCondition condition) {
+        Object role = condition.getRole();
+        if(!(role instanceof NCLDefaultConditionRole))
+            return condition.getTransition();
+        
+        switch((NCLDefaultConditionRole) role){
+            case ONEND:
+            case ONENDATTRIBUTION:
+                return NCLEventTransition.STOPS;
+            case ONABORT:
+                return NCLEventTransition.ABORTS;
+            case ONPAUSE:
+                return NCLEventTransition.PAUSES;
+            case ONRESUME:
+                return NCLEventTransition.RESUMES;
+            default:
+                return NCLEventTransition.STARTS;
+        }
+    }
+    
+    
+    static NCLEventType actionType(NCLSimpleAction action) {
+        Object role = action.getRole();
+        if(!(role instanceof NCLDefaultActionRole))
+            return action.getEventType();
+        
+        return role == NCLDefaultActionRole.SET ? NCLEventType.ATTRIBUTION : NCLEventType.PRESENTATION;
+    }
+    
+    
+    static NCLEventTransition actionTransition(NCLSimpleAction action) {
+        Object role = action.getRole();
+        NCLEventAction type;
+        if(role instanceof NCLDefaultActionRole)
+            type = role == NCLDefaultActionRole.SET ? NCLEventAction.START :
+                    NCLEventAction.getEnumType(role.toString());
+        else
+            type = action.getActionType();
+        
+        if(type == null)
+            return null;
+        
+        switch(type){
+            case START:
+                return NCLEventTransition.STARTS;
+            case STOP:
+                return NCLEventTransition.STOPS;
+            case ABORT:
+                return NCLEventTransition.ABORTS;
+            case PAUSE:
+                return NCLEventTransition.PAUSES;
+            default:
+                return NCLEventTransition.RESUMES;
+        }
+    }
+}
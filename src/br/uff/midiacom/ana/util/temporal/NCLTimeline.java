@@ -0,0 +1,123 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Class that represents the predictable part of the presentation of a
+ * document, that is, the transitions of the events that happen without user
+ * interaction, in the order they happen.
+ */
+public class NCLTimeline {
+    
+    private List<NCLTimelineEntry> entries;
+    private boolean truncated;
+    
+    
+    NCLTimeline(List<NCLTimelineEntry> entries, boolean truncated) {
+        this.entries = entries;
+        this.truncated = truncated;
+    }
+    
+    
+    /**
+     * Returns the transitions of the timeline.
+     * 
+     * @return 
+     *          list of transitions in the order they happen.
+     */
+    public List<NCLTimelineEntry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+    
+    
+    /**
+     * Returns the transitions of an event.
+     * 
+     * @param event
+     *          event whose transitions are returned.
+     * @return 
+     *          list of transitions in the order they happen.
+     */
+    public List<NCLTimelineEntry> getEntries(NCLTemporalEvent event) {
+        List<NCLTimelineEntry> result = new ArrayList<NCLTimelineEntry>();
+        for(NCLTimelineEntry e : entries){
+            if(e.getEvent() == event)
+                result.add(e);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Returns the time an event starts for the first time.
+     * 
+     * @param event
+     *          event.
+     * @return 
+     *          time in seconds or <i>null</i> if the event does not start in
+     *          the timeline.
+     */
+    public Double getStartTime(NCLTemporalEvent event) {
+        for(NCLTimelineEntry e : entries){
+            if(e.getEvent() == event && e.getTransition() == NCLEventTransition.STARTS)
+                return e.getTime();
+        }
+        
+        return null;
+    }
+    
+    
+    /**
+     * Verifies if the computation of the timeline stopped before the end of
+     * the presentation, because the time or the number of transitions limit
+     * was reached.
+     * 
+     * @return 
+     *          true if the timeline is not complete.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
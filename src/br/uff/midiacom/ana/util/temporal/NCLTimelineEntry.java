@@ -0,0 +1,109 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+
+
+/**
+ * Class that represents a transition of an event in the timeline of a
+ * document.
+ */
+public class NCLTimelineEntry {
+    
+    private double time;
+    private NCLTemporalEvent event;
+    private NCLEventTransition transition;
+    
+    
+    /**
+     * Timeline entry constructor.
+     * 
+     * @param time
+     *          time of the transition, in seconds from the beginning of the
+     *          presentation.
+     * @param event
+     *          event that has the transition.
+     * @param transition
+     *          transition of the event.
+     */
+    public NCLTimelineEntry(double time, NCLTemporalEvent event, NCLEventTransition transition) {
+        this.time = time;
+        this.event = event;
+        this.transition = transition;
+    }
+    
+    
+    /**
+     * Returns the time of the transition.
+     * 
+     * @return 
+     *          time in seconds from the beginning of the presentation.
+     */
+    public double getTime() {
+        return time;
+    }
+    
+    
+    /**
+     * Returns the event that has the transition.
+     * 
+     * @return 
+     *          event.
+     */
+    public NCLTemporalEvent getEvent() {
+        return event;
+    }
+    
+    
+    /**
+     * Returns the transition of the event.
+     * 
+     * @return 
+     *          transition.
+     */
+    public NCLEventTransition getTransition() {
+        return transition;
+    }
+    
+    
+    @Override
+    public String toString() {
+        return time + "s " + event + " " + transition;
+    }
+}
@@ -0,0 +1,152 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+
+
+/**
+ * Class that computes the timeline of a document from its temporal graph. The
+ * presentation starts with the body at the time <i>0</i> and the transitions
+ * are processed in time order from a priority queue. Each transition accepted
+ * by the state machine of its event is added to the timeline and schedules the
+ * transitions of the predictable relations it triggers. The transitions that
+ * happen at the same time are processed in the order they were scheduled.
+ * 
+ * <br/>
+ * 
+ * A composition stops when all its children stop. The transitions scheduled by
+ * a structural relation, like the end of an area, are cancelled when the event
+ * that scheduled them stops and are delayed while it is paused.
+ * 
+ * <br/>
+ * 
+ * The computation stops at a time limit and at a limit of transitions, so the
+ * documents with loops can also be scheduled.
+ */
+public class NCLTimelineScheduler {
+    
+    private static final int DEFAULT_MAX_ENTRIES = 100000;
+    
+    private NCLTemporalGraph graph;
+    private int maxEntries;
+    
+    
+    /**
+     * Scheduler constructor.
+     * 
+     * @param graph
+     *          temporal graph of the document.
+     */
+    public NCLTimelineScheduler(NCLTemporalGraph graph) {
+        this.graph = graph;
+        maxEntries = DEFAULT_MAX_ENTRIES;
+    }
+    
+    
+    /**
+     * Sets the maximum number of transitions of a timeline.
+     * 
+     * @param maxEntries
+     *          positive integer.
+     */
+    public void setMaxEntries(int maxEntries) {
+        if(maxEntries <= 0)
+            throw new IllegalArgumentException("Invalid maximum number of entries.");
+        
+        this.maxEntries = maxEntries;
+    }
+    
+    
+    /**
+     * Returns the maximum number of transitions of a timeline.
+     * 
+     * @return 
+     *          positive integer.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    
+    
+    /**
+     * Computes the timeline of the document.
+     * 
+     * @param horizon
+     *          time limit, in seconds. The transitions after this time are not
+     *          computed.
+     * @return 
+     *          timeline with the predictable transitions of the presentation.
+     */
+    public NCLTimeline compute(double horizon) {
+        Computation c = new Computation(graph);
+        NCLTemporalEvent root = graph.getRoot();
+        if(root != null)
+            c.schedule(0, root, NCLEventTransition.STARTS);
+        
+        while(c.getEntries().size() < maxEntries && c.step(horizon));
+        
+        return new NCLTimeline(c.getEntries(), c.hasPending());
+    }
+    
+    
+    /**
+     * Computation of a timeline, which follows only the predictable relations.
+     */
+    private static class Computation extends NCLEventMachine {
+        
+        private Computation(NCLTemporalGraph graph) {
+            super(graph);
+        }
+        
+        
+        @Override
+        protected void triggered(Occurrence occurrence) {
+            for(NCLTemporalEdge edge : occurrence.event.getEdges()){
+                if(edge.getTriggerTransition() != occurrence.transition || edge.isStructural() ||
+                        !edge.isPredictable())
+                    continue;
+                
+                Occurrence n = schedule(occurrence.time + edge.getDelay(), edge.getAction(),
+                        edge.getActionTransition());
+                n.duration = edge.getDuration();
+                n.value = edge.getValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.transition.NCLTransition;
+import br.uff.midiacom.ana.util.enums.NCLTransitionSubtype;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+
+
+/**
+ * Check that verifies the consistency of descriptors and transitions.
+ * 
+ * <br/>
+ * 
+ * A warning is reported when a descriptor defines the appearance of the focus
+ * or the focus navigation without a focus index, or when it moves the focus to
+ * a descriptor without a focus index, since these attributes have no effect.
+ * 
+ * <br/>
+ * 
+ * A transition must define its type and the subtype must belong to that type.
+ * The start progress of a transition can not be greater than its end progress.
+ */
+public class NCLDescriptorCheck implements NCLValidationCheck {
+    
+    
+    @Override
+    public String getName() {
+        return "descriptor";
+    }
+    
+    
+    @Override
+    public void check(XMLElement element, NCLValidationContext context) {
+        if(element instanceof NCLDescriptor)
+            checkDescriptor((NCLDescriptor) element, context);
+        else if(element instanceof NCLTransition)
+            checkTransition((NCLTransition) element, context);
+    }
+    
+    
+    private void checkDescriptor(NCLDescriptor descriptor, NCLValidationContext context) {
+        boolean focus = descriptor.getFocusIndex() != null;
+        
+        if(!focus && (descriptor.getFocusBorderColor() != null ||
+                descriptor.getFocusBorderWidth() != null ||
+                descriptor.getFocusBorderTransparency() != null ||
+                descriptor.getFocusSrc() != null ||
+                descriptor.getFocusSelSrc() != null ||
+                descriptor.getSelBorderColor() != null))
+            context.addWarning(descriptor, "The focus attributes have no effect without a focusIndex.");
+        
+        checkMove(descriptor, "moveLeft", descriptor.getMoveLeft(), focus, context);
+        checkMove(descriptor, "moveRight", descriptor.getMoveRight(), focus, context);
+        checkMove(descriptor, "moveUp", descriptor.getMoveUp(), focus, context);
+        checkMove(descriptor, "moveDown", descriptor.getMoveDown(), focus, context);
+    }
+    
+    
+    private void checkMove(NCLDescriptor descriptor, String name, NCLDescriptor target,
+            boolean focus, NCLValidationContext context) {
+        if(target == null)
+            return;
+        
+        if(!focus)
+            context.addWarning(descriptor, "The " + name + " attribute has no effect without a focusIndex.");
+        if(target.getFocusIndex() == null)
+            context.addWarning(descriptor, "The " + name + " attribute refers to a descriptor without a focusIndex.");
+    }
+    
+    
+    private void checkTransition(NCLTransition transition, NCLValidationContext context) {
+        NCLTransitionSubtype subtype = transition.getSubtype();
+        
+        if(transition.getType() == null)
+            context.addError(transition, "The transition does not define its type.");
+        else if(subtype != null && subtype.getType() != transition.getType())
+            context.addError(transition, "The subtype " + subtype + " does not belong to the type "
+                    + transition.getType() + ".");
+        
+        Double start = transition.getStartProgress();
+        Double end = transition.getEndProgress();
+        if(start != null && end != null && start > end)
+            context.addError(transition, "The startProgress is greater than the endProgress.");
+    }
+}
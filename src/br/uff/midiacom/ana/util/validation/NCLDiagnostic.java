@@ -0,0 +1,142 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+
+
+/**
+ * Class that represents a problem found by a validation check in an element of
+ * a document.
+ */
+public class NCLDiagnostic {
+    
+    
+    /**
+     * Severity of a problem found in a document.
+     */
+    public enum Severity {
+        
+        /** The document is not valid. */
+        ERROR,
+        /** The document is valid, but may not be presented as expected. */
+        WARNING;
+    }
+    
+    
+    private Severity severity;
+    private String check;
+    private XMLElement element;
+    private String message;
+    
+    
+    /**
+     * Diagnostic constructor.
+     * 
+     * @param severity
+     *          severity of the problem.
+     * @param check
+     *          name of the check that found the problem.
+     * @param element
+     *          element where the problem was found.
+     * @param message
+     *          description of the problem.
+     */
+    public NCLDiagnostic(Severity severity, String check, XMLElement element, String message) {
+        this.severity = severity;
+        this.check = check;
+        this.element = element;
+        this.message = message;
+    }
+    
+    
+    /**
+     * Returns the severity of the problem.
+     * 
+     * @return 
+     *          severity of the problem.
+     */
+    public Severity getSeverity() {
+        return severity;
+    }
+    
+    
+    /**
+     * Returns the name of the check that found the problem.
+     * 
+     * @return 
+     *          string representing the name of the check.
+     */
+    public String getCheck() {
+        return check;
+    }
+    
+    
+    /**
+     * Returns the element where the problem was found.
+     * 
+     * @return 
+     *          element where the problem was found.
+     */
+    public XMLElement getElement() {
+        return element;
+    }
+    
+    
+    /**
+     * Returns the description of the problem.
+     * 
+     * @return 
+     *          string describing the problem.
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    
+    @Override
+    public String toString() {
+        String name = element.getClass().getSimpleName();
+        if(element instanceof NCLIdentifiableElementPrototype &&
+                ((NCLIdentifiableElementPrototype) element).getId() != null)
+            name += " '" + ((NCLIdentifiableElementPrototype) element).getId() + "'";
+        
+        return severity + " [" + check + "] " + name + ": " + message;
+    }
+}
@@ -0,0 +1,427 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLModificationBatchListener;
+import br.uff.midiacom.ana.util.modification.NCLModificationFilter;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import br.uff.midiacom.ana.util.modification.NCLNotification.NCLNotificationType;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLObjectGraph;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Class that keeps the diagnostics of a document up to date while it is
+ * modified. The document is validated once when the validator starts and,
+ * after that, the validator listens to the modifications of the document and
+ * runs again only the checks affected by each modification.
+ * 
+ * <br/>
+ * 
+ * The validator records, for each element and check, the diagnostics found and
+ * the values the result depends on: the element itself, the elements it refers
+ * to and the values declared by the check through the validation context. A
+ * check depends on the whole subtree of an element, so a modification inside
+ * the subtree also runs it again. When an element is inserted, its subtree is
+ * checked and, when it is removed, the diagnostics of its subtree are dropped.
+ * 
+ * <br/>
+ * 
+ * The modifications are delivered by the modification notifier of the
+ * document, which must be set before the validator starts. The global notifier
+ * is not used, since it delivers the modifications of every document. The
+ * diagnostics are updated in the thread of the notifier, so they reflect the
+ * document after the notifications already delivered.
+ * 
+ * <br/>
+ * 
+ * The notifier keeps a reference to the validator while it listens, so
+ * <i>stop</i> must be called once the validator is no longer used. Otherwise
+ * the validator, with the document and the diagnostics it holds, is never
+ * released and keeps being updated.
+ */
+public class NCLIncrementalValidator implements NCLModificationBatchListener {
+    
+    private NCLDoc doc;
+    private NCLValidationCheck[] checks;
+    private NCLModificationNotifier notifier;
+    private Map<XMLElement, Record[]> records;
+    private Map<Object, Set<Record>> dependents;
+    private NCLValidationContext context;
+    
+    
+    /**
+     * Incremental validator constructor. The validator uses the checks of a
+     * validator with the default checks.
+     * 
+     * @param doc
+     *          document validated.
+     */
+    public NCLIncrementalValidator(NCLDoc doc) {
+        this(doc, new NCLValidator().getChecks());
+    }
+    
+    
+    /**
+     * Incremental validator constructor.
+     * 
+     * @param doc
+     *          document validated.
+     * @param checks
+     *          checks used to validate the document.
+     */
+    public NCLIncrementalValidator(NCLDoc doc, List<NCLValidationCheck> checks) {
+        this.doc = doc;
+        this.checks = checks.toArray(new NCLValidationCheck[checks.size()]);
+        records = new LinkedHashMap<XMLElement, Record[]>();
+        dependents = new HashMap<Object, Set<Record>>();
+        context = new NCLValidationContext(doc);
+    }
+    
+    
+    /**
+     * Validates the whole document and starts listening to its modifications.
+     * The imported documents still being loaded are waited before the
+     * validation starts. The method <i>stop</i> must be called once the
+     * validator is no longer used.
+     * 
+     * @throws XMLException 
+     *          if the document does not have a modification notifier or if an
+     *          error occur while loading an imported document.
+     */
+    public void start() throws XMLException {
+        NCLModificationNotifier aux = doc.getModificationNotifier();
+        if(aux == null)
+            throw new XMLException("The document does not have a modification notifier.");
+        
+        doc.waitImports();
+        
+        synchronized(this){
+            if(notifier != null)
+                return;
+            
+            records.clear();
+            dependents.clear();
+            insert(doc);
+            
+            notifier = aux;
+            notifier.addListener(this, new NCLModificationFilter(EnumSet.of(
+                    NCLNotificationType.INSERTED_CHILD,
+                    NCLNotificationType.REMOVED_CHILD,
+                    NCLNotificationType.ALTERED_ATT), null, null, null));
+        }
+    }
+    
+    
+    /**
+     * Stops listening to the modifications of the document. The diagnostics
+     * are no longer updated. This method must be called to release a started
+     * validator, since the notifier of the document refers to it.
+     */
+    public void stop() {
+        NCLModificationNotifier aux;
+        synchronized(this){
+            aux = notifier;
+            notifier = null;
+        }
+        
+        if(aux != null)
+            aux.removeListener(this);
+    }
+    
+    
+    /**
+     * Returns the diagnostics of the document. The list is a copy, so it is
+     * not modified by the updates of the validator.
+     * 
+     * @return 
+     *          list with the problems found, empty if the document is valid.
+     */
+    public synchronized List<NCLDiagnostic> getDiagnostics() {
+        List<NCLDiagnostic> result = new ArrayList<NCLDiagnostic>();
+        for(Record[] aux : records.values()){
+            for(Record r : aux)
+                result.addAll(r.diagnostics);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Returns the document validated.
+     * 
+     * @return 
+     *          document validated.
+     */
+    public NCLDoc getDoc() {
+        return doc;
+    }
+    
+    
+    @Override
+    public void modifiedElement(NCLNotification notification) {
+        modifiedElements(Collections.singletonList(notification));
+    }
+    
+    
+    @Override
+    public synchronized void modifiedElements(List<NCLNotification> notifications) {
+        if(notifier == null)
+            return;
+        
+        Set<Record> affected = new LinkedHashSet<Record>();
+        
+        for(NCLNotification n : notifications){
+            switch(n.getType()){
+                case INSERTED_CHILD:
+                    XMLElement inserted = n.getElement();
+                    if(records.containsKey(inserted) || root(inserted) != doc)
+                        break;
+                    
+                    insert(inserted);
+                    collect(inserted, affected);
+                    collectAncestors(inserted.getParent(), affected);
+                    break;
+                    
+                case REMOVED_CHILD:
+                    XMLElement removed = n.getElement();
+                    if(!records.containsKey(removed))
+                        break;
+                    
+                    remove(removed, affected);
+                    collectAncestors(n.getSource(), affected);
+                    break;
+                    
+                case ALTERED_ATT:
+                    XMLElement source = n.getSource();
+                    if(!records.containsKey(source))
+                        break;
+                    
+                    collectAncestors(source, affected);
+                    if(n.getAttribute() == NCLElementAttributes.ID){
+                        addDependents(n.getOldValue(), affected);
+                        addDependents(n.getNewValue(), affected);
+                    }
+                    break;
+            }
+        }
+        
+        for(Record r : affected){
+            if(r.removed)
+                continue;
+            
+            if(root(r.element) != doc)
+                remove(r.element, null);
+            else
+                run(r);
+        }
+    }
+    
+    
+    /**
+     * Checks an element and its descendants for the first time.
+     */
+    private void insert(XMLElement element) {
+        Record[] aux = new Record[checks.length];
+        for(int i = 0; i < checks.length; i++){
+            aux[i] = new Record(element, checks[i]);
+            run(aux[i]);
+        }
+        records.put(element, aux);
+        
+        for(XMLElement child : NCLObjectGraph.children(element))
+            insert(child);
+    }
+    
+    
+    /**
+     * Drops the results of an element and its descendants, adding to the
+     * affected results the ones that depend on them.
+     */
+    private void remove(XMLElement element, Set<Record> affected) {
+        Record[] aux = records.remove(element);
+        if(aux == null)
+            return;
+        
+        for(Record r : aux){
+            r.removed = true;
+            unindex(r);
+        }
+        
+        if(affected != null)
+            collect(element, affected);
+        
+        for(XMLElement child : NCLObjectGraph.children(element))
+            remove(child, affected);
+    }
+    
+    
+    /**
+     * Runs a check on an element, replacing its previous result.
+     */
+    private void run(Record record) {
+        unindex(record);
+        
+        List<NCLDiagnostic> diagnostics = new ArrayList<NCLDiagnostic>();
+        List<Object> values = new ArrayList<Object>();
+        values.add(record.element);
+        for(Object ref : NCLObjectGraph.references(record.element)){
+            if(ref instanceof ExternalReferenceType){
+                values.add(((ExternalReferenceType) ref).getAlias());
+                values.add(((ExternalReferenceType) ref).getTarget());
+            }
+            else
+                values.add(ref);
+        }
+        
+        context.setCheck(record.check);
+        context.setDiagnostics(diagnostics);
+        context.setDependencies(values);
+        try{
+            record.check.check(record.element, context);
+        }catch(RuntimeException e){
+            context.addError(record.element, "Check failed: " + e);
+        }
+        
+        record.diagnostics = diagnostics;
+        record.values = values;
+        
+        for(Object v : values){
+            if(v == null)
+                continue;
+            
+            Set<Record> aux = dependents.get(v);
+            if(aux == null){
+                aux = new LinkedHashSet<Record>();
+                dependents.put(v, aux);
+            }
+            aux.add(record);
+        }
+    }
+    
+    
+    private void unindex(Record record) {
+        if(record.values == null)
+            return;
+        
+        for(Object v : record.values){
+            Set<Record> aux = v == null ? null : dependents.get(v);
+            if(aux != null){
+                aux.remove(record);
+                if(aux.isEmpty())
+                    dependents.remove(v);
+            }
+        }
+        record.values = null;
+    }
+    
+    
+    /**
+     * Adds the results that depend on an element of a subtree inserted or
+     * removed, or on the id of one of its elements.
+     */
+    private void collect(XMLElement element, Set<Record> affected) {
+        addDependents(element, affected);
+        if(element instanceof NCLIdentifiableElementPrototype)
+            addDependents(((NCLIdentifiableElementPrototype) element).getId(), affected);
+        
+        for(XMLElement child : NCLObjectGraph.children(element))
+            collect(child, affected);
+    }
+    
+    
+    /**
+     * Adds the results that depend on an element or on one of its ancestors.
+     */
+    private void collectAncestors(XMLElement element, Set<Record> affected) {
+        while(element != null){
+            addDependents(element, affected);
+            element = element.getParent();
+        }
+    }
+    
+    
+    private void addDependents(Object value, Set<Record> affected) {
+        Set<Record> aux = value == null ? null : dependents.get(value);
+        if(aux != null)
+            affected.addAll(aux);
+    }
+    
+    
+    private XMLElement root(XMLElement element) {
+        while(element.getParent() != null)
+            element = element.getParent();
+        
+        return element;
+    }
+    
+    
+    /**
+     * Result of a check on an element.
+     */
+    private static class Record {
+        
+        private XMLElement element;
+        private NCLValidationCheck check;
+        private List<NCLDiagnostic> diagnostics;
+        private List<Object> values;
+        private boolean removed;
+        
+        
+        Record(XMLElement element, NCLValidationCheck check) {
+            this.element = element;
+            this.check = check;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLObjectGraph;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+
+
+/**
+ * Check that verifies the integrity of the references among elements. An
+ * element must not refer to an element removed from its document and a
+ * reference to an element of another document must use an import of the
+ * document.
+ * 
+ * <br/>
+ * 
+ * The check also verifies the scope of the references of ports and binds. The
+ * component of a port must be a child of the composition of the port and the
+ * component of a bind must be the composition of its link or a child of it. The
+ * interface of a port or bind must be an interface of its component, unless
+ * the component reuses another node.
+ */
+public class NCLReferenceCheck implements NCLValidationCheck {
+    
+    
+    @Override
+    public String getName() {
+        return "reference";
+    }
+    
+    
+    @Override
+    public void check(XMLElement element, NCLValidationContext context) {
+        for(Object ref : NCLObjectGraph.references(element)){
+            if(ref instanceof ExternalReferenceType)
+                checkExternal(element, (ExternalReferenceType) ref, context);
+            else if(!(root((XMLElement) ref) instanceof NCLDoc))
+                context.addError(element, "Refers to " + describe((XMLElement) ref)
+                        + ", which is not part of a document.");
+        }
+        
+        if(element instanceof NCLPort)
+            checkPort((NCLPort) element, context);
+        else if(element instanceof NCLBind)
+            checkBind((NCLBind) element, context);
+    }
+    
+    
+    private void checkExternal(XMLElement element, ExternalReferenceType ref, NCLValidationContext context) {
+        XMLElement alias = (XMLElement) ref.getAlias();
+        XMLElement target = (XMLElement) ref.getTarget();
+        
+        if(alias == null || root(alias) != context.getDoc())
+            context.addError(element, "The reference " + ref + " does not use an import of the document.");
+        if(target == null || !(root(target) instanceof NCLDoc))
+            context.addError(element, "The reference " + ref + " refers to an element that is not part of a document.");
+    }
+    
+    
+    private void checkPort(NCLPort port, NCLValidationContext context) {
+        XMLElement component = (XMLElement) port.getComponent();
+        XMLElement interfac = (XMLElement) port.getInterface();
+        
+        if(component == null)
+            return;
+        
+        if(component.getParent() != port.getParent())
+            context.addError(port, "The component " + describe(component)
+                    + " is not a child of the composition of the port.");
+        else if(interfac != null && !reuses(component) && interfac.getParent() != component)
+            context.addError(port, "The interface " + describe(interfac)
+                    + " is not an interface of the component " + describe(component) + ".");
+    }
+    
+    
+    private void checkBind(NCLBind bind, NCLValidationContext context) {
+        XMLElement component = (XMLElement) bind.getComponent();
+        XMLElement interfac = (XMLElement) bind.getInterface();
+        
+        if(component == null || bind.getParent() == null)
+            return;
+        
+        XMLElement composition = bind.getParent().getParent();
+        if(component != composition && component.getParent() != composition)
+            context.addError(bind, "The component " + describe(component)
+                    + " is not the composition of the link or a child of it.");
+        else if(interfac != null && !reuses(component) && interfac.getParent() != component)
+            context.addError(bind, "The interface " + describe(interfac)
+                    + " is not an interface of the component " + describe(component) + ".");
+    }
+    
+    
+    private XMLElement root(XMLElement element) {
+        while(element.getParent() != null)
+            element = element.getParent();
+        
+        return element;
+    }
+    
+    
+    private boolean reuses(XMLElement node) {
+        if(node instanceof NCLMedia)
+            return ((NCLMedia) node).getRefer() != null;
+        if(node instanceof NCLContext)
+            return ((NCLContext) node).getRefer() != null;
+        if(node instanceof NCLSwitch)
+            return ((NCLSwitch) node).getRefer() != null;
+        
+        return false;
+    }
+    
+    
+    private String describe(XMLElement element) {
+        String id = null;
+        if(element instanceof NCLIdentifiableElementPrototype)
+            id = ((NCLIdentifiableElementPrototype) element).getId();
+        
+        return element.getClass().getSimpleName() + (id != null ? " '" + id + "'" : "");
+    }
+}
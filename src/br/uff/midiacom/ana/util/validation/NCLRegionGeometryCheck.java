@@ -0,0 +1,114 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+
+
+/**
+ * Check that verifies the position and size of the regions. A relative value
+ * must be between 0% and 100% and the size of a region must be positive. A
+ * warning is reported when the three attributes of a dimension are defined,
+ * since one of them is ignored, and when a region defined in relative values
+ * ends outside its parent.
+ */
+public class NCLRegionGeometryCheck implements NCLValidationCheck {
+    
+    
+    @Override
+    public String getName() {
+        return "region";
+    }
+    
+    
+    @Override
+    public void check(XMLElement element, NCLValidationContext context) {
+        if(!(element instanceof NCLRegion))
+            return;
+        
+        NCLRegion region = (NCLRegion) element;
+        
+        checkPosition(region, "left", region.getLeft(), context);
+        checkPosition(region, "right", region.getRight(), context);
+        checkPosition(region, "top", region.getTop(), context);
+        checkPosition(region, "bottom", region.getBottom(), context);
+        checkSize(region, "width", region.getWidth(), context);
+        checkSize(region, "height", region.getHeight(), context);
+        
+        checkDimension(region, "left", region.getLeft(), "width", region.getWidth(),
+                "right", region.getRight(), context);
+        checkDimension(region, "top", region.getTop(), "height", region.getHeight(),
+                "bottom", region.getBottom(), context);
+    }
+    
+    
+    private void checkPosition(NCLRegion region, String name, Object value, NCLValidationContext context) {
+        if(value instanceof Double){
+            double aux = (Double) value;
+            if(aux < 0 || aux > 100)
+                context.addError(region, "The " + name + " attribute must be between 0% and 100%.");
+        }
+        else if(value instanceof Integer && (Integer) value < 0)
+            context.addError(region, "The " + name + " attribute must not be negative.");
+    }
+    
+    
+    private void checkSize(NCLRegion region, String name, Object value, NCLValidationContext context) {
+        if(value instanceof Double){
+            double aux = (Double) value;
+            if(aux <= 0 || aux > 100)
+                context.addError(region, "The " + name + " attribute must be greater than 0% and at most 100%.");
+        }
+        else if(value instanceof Integer && (Integer) value <= 0)
+            context.addError(region, "The " + name + " attribute must be positive.");
+    }
+    
+    
+    private void checkDimension(NCLRegion region, String start, Object startValue,
+            String size, Object sizeValue, String end, Object endValue, NCLValidationContext context) {
+        if(startValue != null && sizeValue != null && endValue != null)
+            context.addWarning(region, "The " + end + " attribute is ignored since "
+                    + start + " and " + size + " are defined.");
+        
+        if(startValue instanceof Double && sizeValue instanceof Double &&
+                (Double) startValue + (Double) sizeValue > 100)
+            context.addWarning(region, "The region ends outside its parent, "
+                    + start + " plus " + size + " is greater than 100%.");
+    }
+}
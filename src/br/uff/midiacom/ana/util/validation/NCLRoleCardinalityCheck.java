@@ -0,0 +1,172 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.connector.NCLAssessmentStatement;
+import br.uff.midiacom.ana.connector.NCLAttributeAssessment;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLCompoundAction;
+import br.uff.midiacom.ana.connector.NCLCompoundCondition;
+import br.uff.midiacom.ana.connector.NCLCompoundStatement;
+import br.uff.midiacom.ana.connector.NCLRoleElement;
+import br.uff.midiacom.ana.connector.NCLSimpleAction;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.link.GetSetRole;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Check that verifies the binds of a link against the roles of its connector.
+ * The number of binds of each role must respect the minimum and maximum
+ * cardinality of the role, whose default values are <i>1</i>. The roles of
+ * attribute assessments must be used by at least one bind. A bind must use a
+ * role of the connector of its link.
+ */
+public class NCLRoleCardinalityCheck implements NCLValidationCheck {
+    
+    
+    @Override
+    public String getName() {
+        return "cardinality";
+    }
+    
+    
+    @Override
+    public void check(XMLElement element, NCLValidationContext context) {
+        if(!(element instanceof NCLLink))
+            return;
+        
+        NCLLink link = (NCLLink) element;
+        Object aux = link.getXconnector();
+        if(aux instanceof ExternalReferenceType)
+            aux = ((ExternalReferenceType) aux).getTarget();
+        if(!(aux instanceof NCLCausalConnector))
+            return;
+        
+        NCLCausalConnector connector = (NCLCausalConnector) aux;
+        List<NCLRoleElement> roles = new ArrayList<NCLRoleElement>();
+        addRoles(connector.getCondition(), roles);
+        addRoles(connector.getAction(), roles);
+        
+        Map<Object, Integer> count = new IdentityHashMap<Object, Integer>();
+        for(NCLRoleElement role : roles)
+            count.put(role, 0);
+        
+        for(Object o : link.getBinds()){
+            NCLBind bind = (NCLBind) o;
+            Object role = bind.getRole();
+            if(role == null || role instanceof GetSetRole)
+                continue;
+            
+            Integer c = count.get(role);
+            if(c == null)
+                context.addError(bind, "The role " + ((NCLRoleElement) role).getRole()
+                        + " is not defined by the connector of the link.");
+            else
+                count.put(role, c + 1);
+        }
+        
+        for(NCLRoleElement role : roles){
+            int c = count.get(role);
+            int min = 1;
+            int max = Integer.MAX_VALUE;
+            
+            if(role instanceof NCLSimpleCondition){
+                min = min(((NCLSimpleCondition) role).getMin());
+                max = max(((NCLSimpleCondition) role).getMax());
+            }
+            else if(role instanceof NCLSimpleAction){
+                min = min(((NCLSimpleAction) role).getMin());
+                max = max(((NCLSimpleAction) role).getMax());
+            }
+            
+            if(c < min)
+                context.addError(link, "The role " + role.getRole() + " is used by " + c
+                        + " binds, the minimum is " + min + ".");
+            else if(c > max)
+                context.addError(link, "The role " + role.getRole() + " is used by " + c
+                        + " binds, the maximum is " + max + ".");
+        }
+    }
+    
+    
+    private void addRoles(Object element, List<NCLRoleElement> roles) {
+        if(element instanceof NCLSimpleCondition || element instanceof NCLSimpleAction ||
+                element instanceof NCLAttributeAssessment)
+            roles.add((NCLRoleElement) element);
+        else if(element instanceof NCLCompoundCondition){
+            for(Object o : ((NCLCompoundCondition) element).getConditions())
+                addRoles(o, roles);
+            for(Object o : ((NCLCompoundCondition) element).getStatements())
+                addRoles(o, roles);
+        }
+        else if(element instanceof NCLCompoundAction){
+            for(Object o : ((NCLCompoundAction) element).getActions())
+                addRoles(o, roles);
+        }
+        else if(element instanceof NCLCompoundStatement){
+            for(Object o : ((NCLCompoundStatement) element).getStatements())
+                addRoles(o, roles);
+        }
+        else if(element instanceof NCLAssessmentStatement){
+            for(Object o : ((NCLAssessmentStatement) element).getAttributeAssessments())
+                addRoles(o, roles);
+        }
+    }
+    
+    
+    private int min(Integer min) {
+        return min == null ? 1 : min;
+    }
+    
+    
+    private int max(Object max) {
+        if(max instanceof Integer)
+            return (Integer) max;
+        if(max == null)
+            return 1;
+        return Integer.MAX_VALUE;
+    }
+}
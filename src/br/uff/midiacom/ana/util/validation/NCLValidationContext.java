@@ -0,0 +1,143 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.validation.NCLDiagnostic.Severity;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Class that gives the checks access to the document validated and collects
+ * the problems they find. Each task of the validation has its own context, so
+ * a context is never used by two threads at the same time.
+ */
+public class NCLValidationContext {
+    
+    private NCLDoc doc;
+    private NCLValidationCheck check;
+    private List<NCLDiagnostic> diagnostics;
+    private List<Object> dependencies;
+    
+    
+    NCLValidationContext(NCLDoc doc) {
+        this.doc = doc;
+        diagnostics = new ArrayList<NCLDiagnostic>();
+    }
+    
+    
+    /**
+     * Returns the document validated.
+     * 
+     * @return 
+     *          document validated.
+     */
+    public NCLDoc getDoc() {
+        return doc;
+    }
+    
+    
+    /**
+     * Reports an error found in an element.
+     * 
+     * @param element
+     *          element where the error was found.
+     * @param message
+     *          description of the error.
+     */
+    public void addError(XMLElement element, String message) {
+        diagnostics.add(new NCLDiagnostic(Severity.ERROR, check.getName(), element, message));
+    }
+    
+    
+    /**
+     * Reports a warning about an element.
+     * 
+     * @param element
+     *          element the warning refers to.
+     * @param message
+     *          description of the warning.
+     */
+    public void addWarning(XMLElement element, String message) {
+        diagnostics.add(new NCLDiagnostic(Severity.WARNING, check.getName(), element, message));
+    }
+    
+    
+    /**
+     * Declares that the result of the check depends on a value that is not
+     * an element referred by the element checked, like the id of an element.
+     * The element checked and the elements it refers to don't need to be
+     * declared.
+     * 
+     * <br/>
+     * 
+     * The incremental validator runs the check again when the value changes.
+     * The value may be an element, whose subtree is watched, or the id of
+     * an element, watched when an element with that id is inserted, removed
+     * or renamed.
+     * 
+     * @param value
+     *          element or string representing an id.
+     */
+    public void addDependency(Object value) {
+        if(dependencies != null && value != null)
+            dependencies.add(value);
+    }
+    
+    
+    void setCheck(NCLValidationCheck check) {
+        this.check = check;
+    }
+    
+    
+    List<NCLDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+    
+    
+    void setDiagnostics(List<NCLDiagnostic> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+    
+    
+    void setDependencies(List<Object> dependencies) {
+        this.dependencies = dependencies;
+    }
+}
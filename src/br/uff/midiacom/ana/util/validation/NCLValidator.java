@@ -0,0 +1,279 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLBase;
+import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
+import br.uff.midiacom.ana.util.ncl.NCLObjectGraph;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Class that validates a document with a set of pluggable checks and returns
+ * all the problems found in a single pass over the document.
+ * 
+ * <br/>
+ * 
+ * The document is visited through the children each element writes, in the
+ * order they are written. The compositions of the body and the bases of the
+ * head with at least <i>FORK_THRESHOLD</i> elements are validated by separate
+ * fork-join tasks, the smaller ones are validated by the task that visits
+ * their parent. The diagnostics are returned in the order the elements are
+ * visited, parents before children, so the result does not depend on the
+ * number of threads used.
+ * 
+ * <br/>
+ * 
+ * By default the validator uses the checks:
+ * <ul>
+ *  <li><i>NCLReferenceCheck</i>;</li>
+ *  <li><i>NCLRoleCardinalityCheck</i>;</li>
+ *  <li><i>NCLRegionGeometryCheck</i>;</li>
+ *  <li><i>NCLIdUniquenessCheck</i>;</li>
+ *  <li><i>NCLDescriptorCheck</i>.</li>
+ * </ul>
+ */
+public class NCLValidator {
+    
+    /**
+     * Minimum number of elements of a branch validated by a task of its own.
+     */
+    public static final int FORK_THRESHOLD = 64;
+    
+    private ForkJoinPool pool;
+    private List<NCLValidationCheck> checks;
+    
+    
+    /**
+     * Validator constructor. The validator uses the default checks and the
+     * common fork-join pool.
+     */
+    public NCLValidator() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    
+    /**
+     * Validator constructor. The validator uses the default checks.
+     * 
+     * @param pool
+     *          pool where the validation tasks are executed.
+     */
+    public NCLValidator(ForkJoinPool pool) {
+        this.pool = pool;
+        checks = new ArrayList<NCLValidationCheck>();
+        checks.add(new NCLReferenceCheck());
+        checks.add(new NCLRoleCardinalityCheck());
+        checks.add(new NCLRegionGeometryCheck());
+        checks.add(new NCLIdUniquenessCheck());
+        checks.add(new NCLDescriptorCheck());
+    }
+    
+    
+    /**
+     * Adds a check to the validator.
+     * 
+     * @param check
+     *          check to be added.
+     * @return 
+     *          true if the check was added.
+     */
+    public boolean addCheck(NCLValidationCheck check) {
+        if(check == null || checks.contains(check))
+            return false;
+        
+        return checks.add(check);
+    }
+    
+    
+    /**
+     * Removes a check from the validator.
+     * 
+     * @param check
+     *          check to be removed.
+     * @return 
+     *          true if the check was removed.
+     */
+    public boolean removeCheck(NCLValidationCheck check) {
+        return checks.remove(check);
+    }
+    
+    
+    /**
+     * Returns the checks used by the validator.
+     * 
+     * @return 
+     *          list of checks.
+     */
+    public List<NCLValidationCheck> getChecks() {
+        return Collections.unmodifiableList(checks);
+    }
+    
+    
+    /**
+     * Validates a document. The imported documents still being loaded are
+     * waited before the validation starts. The document must not be modified
+     * during the validation.
+     * 
+     * <br/>
+     * 
+     * An exception thrown by a check is reported as an error in the element
+     * being checked.
+     * 
+     * @param doc
+     *          document to be validated.
+     * @return 
+     *          list with the problems found, empty if the document is valid.
+     * @throws XMLException 
+     *          if an error occur while loading an imported document.
+     */
+    public List<NCLDiagnostic> validate(NCLDoc doc) throws XMLException {
+        doc.waitImports();
+        
+        NCLValidationCheck[] aux = checks.toArray(new NCLValidationCheck[checks.size()]);
+        return pool.invoke(new ValidationTask(doc, aux, doc));
+    }
+    
+    
+    /**
+     * Verifies if an element is validated by a task of its own. The element
+     * must be a branch with at least <i>FORK_THRESHOLD</i> elements.
+     */
+    private static boolean isBranch(XMLElement element) {
+        if(!(element instanceof NCLCompositeNodeElement ||
+                element instanceof NCLSwitch ||
+                element instanceof NCLBase ||
+                element instanceof NCLImportedDocumentBase ||
+                element instanceof NCLHead))
+            return false;
+        
+        return count(element, FORK_THRESHOLD) >= FORK_THRESHOLD;
+    }
+    
+    
+    /**
+     * Counts the elements of a subtree, stopping once the limit is reached.
+     */
+    private static int count(XMLElement element, int limit) {
+        int total = 1;
+        for(XMLElement child : NCLObjectGraph.children(element)){
+            if(total >= limit)
+                break;
+            total += count(child, limit - total);
+        }
+        
+        return total;
+    }
+    
+    
+    /**
+     * Task that validates an element and its descendants. The descendants that
+     * are large branches are validated by subtasks. The result of the task keeps the
+     * order of the elements, so the diagnostics of a subtask are placed between
+     * the ones found before and after it was forked.
+     */
+    private static class ValidationTask extends RecursiveTask<List<NCLDiagnostic>> {
+        
+        private NCLDoc doc;
+        private NCLValidationCheck[] checks;
+        private XMLElement root;
+        private NCLValidationContext context;
+        private List<Object> parts;
+        
+        
+        ValidationTask(NCLDoc doc, NCLValidationCheck[] checks, XMLElement root) {
+            this.doc = doc;
+            this.checks = checks;
+            this.root = root;
+        }
+        
+        
+        @Override
+        protected List<NCLDiagnostic> compute() {
+            context = new NCLValidationContext(doc);
+            parts = new ArrayList<Object>();
+            
+            visit(root);
+            parts.add(context.getDiagnostics());
+            
+            List<NCLDiagnostic> result = new ArrayList<NCLDiagnostic>();
+            for(Object part : parts){
+                if(part instanceof ValidationTask)
+                    result.addAll(((ValidationTask) part).join());
+                else
+                    result.addAll((List<NCLDiagnostic>) part);
+            }
+            
+            return result;
+        }
+        
+        
+        private void visit(XMLElement element) {
+            for(NCLValidationCheck check : checks){
+                context.setCheck(check);
+                try{
+                    check.check(element, context);
+                }catch(RuntimeException e){
+                    context.addError(element, "Check failed: " + e);
+                }
+            }
+            
+            for(XMLElement child : NCLObjectGraph.children(element)){
+                if(isBranch(child)){
+                    ValidationTask task = new ValidationTask(doc, checks, child);
+                    parts.add(context.getDiagnostics());
+                    parts.add(task);
+                    context = new NCLValidationContext(doc);
+                    task.fork();
+                }
+                else
+                    visit(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+
+/**
+ * Class that finds the child elements of an XML element by their tag names.
+ * Only the immediate children are considered, differently from
+ * <i>getElementsByTagName</i>, which searches the whole subtree of the element.
+ * 
+ * The children of an element are grouped by tag name the first time the
+ * element is searched and the groups are kept with the element, so the
+ * following searches in the same element do not scan its children again.
+ */
+public class XMLChildElements {
+    
+    private static final String KEY = XMLChildElements.class.getName();
+    
+    
+    /**
+     * Returns the child elements of an element with a tag name, in the order
+     * they appear in the document.
+     * 
+     * @param parent
+     *          element whose children are searched.
+     * @param tagName
+     *          tag name of the children.
+     * @return 
+     *          list with the children found. The list can not be modified.
+     */
+    public static List<Element> getChildren(Element parent, String tagName) {
+        List<Element> result = getBuckets(parent).get(tagName);
+        if(result == null)
+            return Collections.emptyList();
+        else
+            return result;
+    }
+    
+    
+    /**
+     * Returns the first child element of an element with a tag name.
+     * 
+     * @param parent
+     *          element whose children are searched.
+     * @param tagName
+     *          tag name of the child.
+     * @return 
+     *          child found or <i>null</i> if the element has no child with the
+     *          tag name.
+     */
+    public static Element getChild(Element parent, String tagName) {
+        List<Element> result = getBuckets(parent).get(tagName);
+        if(result == null)
+            return null;
+        else
+            return result.get(0);
+    }
+    
+    
+    private static Map<String, List<Element>> getBuckets(Element parent) {
+        Map<String, List<Element>> buckets = (Map<String, List<Element>>) parent.getUserData(KEY);
+        if(buckets != null)
+            return buckets;
+        
+        buckets = new HashMap<String, List<Element>>();
+        for(Node nd = parent.getFirstChild(); nd != null; nd = nd.getNextSibling()){
+            if(!(nd instanceof Element))
+                continue;
+            
+            String tag = ((Element) nd).getTagName();
+            List<Element> list = buckets.get(tag);
+            if(list == null){
+                list = new ArrayList<Element>(2);
+                buckets.put(tag, list);
+            }
+            list.add((Element) nd);
+        }
+        
+        for(Map.Entry<String, List<Element>> entry : buckets.entrySet())
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        
+        try{
+            parent.setUserData(KEY, buckets, null);
+        }catch(DOMException e){
+            // the DOM implementation does not keep user data, search again next time
+        }catch(UnsupportedOperationException e){}
+        
+        return buckets;
+    }
+}
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.xml;
 
 import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.IOException;
 import java.io.Serializable;
 import org.w3c.dom.Element;
 
@@ -93,6 +94,22 @@ public interface XMLElement<T extends XMLElement> extends Serializable {
     public String parse(int ident);
     
     
+    /**
+     * Writes the XML code that represents the XML element. The code is
+     * appended to the output as it is produced, so it can be written directly
+     * to a file or to any other destination.
+     *
+     * @param out
+     *          output where the XML code is written.
+     * @param ident
+     *          integer indicating the indentation level. The XML code will be
+     *          indented by a tab "\t".
+     * @throws IOException
+     *          if an error occur while writing to the output.
+     */
+    public void write(Appendable out, int ident) throws IOException;
+    
+    
     /**
      * Reads the XML code representing the XML element and creates the class.
      * 
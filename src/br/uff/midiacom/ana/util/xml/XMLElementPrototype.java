@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana.util.xml;
 
 import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.IOException;
 
 
 /**
@@ -54,6 +55,14 @@ public abstract class XMLElementPrototype<T extends XMLElement>
     protected T parent;
     protected T doc;
     
+    private static final String[] indentation = new String[32];
+    
+    static {
+        indentation[0] = "";
+        for(int i = 1; i < indentation.length; i++)
+            indentation[i] = indentation[i - 1] + "\t";
+    }
+    
 
     @Override
     @Deprecated
@@ -80,4 +89,38 @@ public abstract class XMLElementPrototype<T extends XMLElement>
     public T getDoc() {
         return doc;
     }
+    
+    
+    @Override
+    public String parse(int ident) {
+        StringBuilder out = new StringBuilder();
+        
+        try{
+            write(out, ident);
+        }
+        catch(IOException ex){} // a StringBuilder does not throw IOException
+        
+        return out.toString();
+    }
+    
+    
+    /**
+     * Returns the indentation string of an indentation level.
+     * 
+     * @param ident
+     *          integer indicating the indentation level.
+     * @return 
+     *          string with one tab for each level.
+     */
+    protected String indent(int ident) {
+        if(ident <= 0)
+            return "";
+        if(ident < indentation.length)
+            return indentation[ident];
+        
+        StringBuilder space = new StringBuilder(ident);
+        for(int i = 0; i < ident; i++)
+            space.append('\t');
+        return space.toString();
+    }
 }
@@ -0,0 +1,328 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.xml;
+
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+
+/**
+ * Class that reads an XML file as a stream of events. Instead of building the
+ * DOM tree of the whole file, the loader walks the element tree and only
+ * builds the DOM of the elements requested, one at a time. This way an element
+ * can be loaded and its DOM tree discarded before the next one is read.
+ * 
+ * <br/>
+ * 
+ * The loader is always positioned at the start tag of an element. The method
+ * <i>nextChild</i> moves it to the next child of that element, the method
+ * <i>readElement</i> builds the DOM tree of the current element and the
+ * method <i>skipElement</i> ignores it.
+ * 
+ * <br/>
+ * 
+ * A filter can be set to skip elements that are not needed. The elements not
+ * accepted by the filter are ignored by <i>nextChild</i> and are not included
+ * in the DOM trees built by <i>readElement</i>.
+ */
+public class XMLStreamLoader {
+
+    private static XMLInputFactory factory;
+    
+    private InputStream input;
+    private XMLStreamReader reader;
+    private Document owner;
+    private XMLElementFilter filter;
+    private ArrayList<String> path;
+
+
+    /**
+     * Stream loader constructor.
+     * 
+     * @param xmlFile
+     *          file with the XML content.
+     * @throws XMLException 
+     *          if an error occur while opening the file.
+     */
+    public XMLStreamLoader(File xmlFile) throws XMLException {
+        try{
+            input = new BufferedInputStream(new FileInputStream(xmlFile));
+            reader = getFactory().createXMLStreamReader(input);
+            owner = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            
+            // position the loader at the root element
+            while(reader.getEventType() != XMLStreamConstants.START_ELEMENT)
+                reader.next();
+            
+            path = new ArrayList<String>();
+            path.add(getTagName());
+        }catch(IOException e){
+            close();
+            throw new NCLParsingException(e.fillInStackTrace());
+        }catch(XMLStreamException e){
+            close();
+            throw new NCLParsingException(e.fillInStackTrace());
+        }catch(ParserConfigurationException e){
+            close();
+            throw new NCLParsingException(e.fillInStackTrace());
+        }
+    }
+    
+    
+    private static synchronized XMLInputFactory getFactory() {
+        if(factory == null){
+            factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        }
+        return factory;
+    }
+
+
+    /**
+     * Sets the filter that selects the elements read by the loader.
+     * 
+     * @param filter
+     *          element filter or <i>null</i> to read all elements.
+     */
+    public void setFilter(XMLElementFilter filter) {
+        this.filter = filter;
+    }
+    
+    
+    /**
+     * Returns the filter that selects the elements read by the loader or
+     * <i>null</i> if all elements are read.
+     * 
+     * @return 
+     *          element filter or <i>null</i>.
+     */
+    public XMLElementFilter getFilter() {
+        return filter;
+    }
+    
+    
+    /**
+     * Returns the tag name of the element the loader is positioned at.
+     * 
+     * @return
+     *          string representing the element tag name.
+     */
+    public String getTagName() {
+        return qualifiedName(reader.getPrefix(), reader.getLocalName());
+    }
+
+
+    /**
+     * Moves the loader to the next child of the element it is positioned at.
+     * 
+     * @return
+     *          true if the loader moved to a child element or false if the
+     *          element does not have more children.
+     * @throws XMLException 
+     *          if an error occur while reading the file.
+     */
+    public boolean nextChild() throws XMLException {
+        try{
+            // the previous child was read or skipped
+            if(reader.getEventType() == XMLStreamConstants.END_ELEMENT)
+                path.remove(path.size() - 1);
+            
+            while(reader.hasNext()){
+                switch(reader.next()){
+                    case XMLStreamConstants.START_ELEMENT:
+                        String tag = getTagName();
+                        if(filter != null && !filter.accept(path.get(path.size() - 1), tag)){
+                            skipElement();
+                            break;
+                        }
+                        path.add(tag);
+                        return true;
+                    case XMLStreamConstants.END_ELEMENT:
+                        return false;
+                }
+            }
+            return false;
+        }catch(XMLStreamException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }
+    }
+
+
+    /**
+     * Returns an element with the attributes of the element the loader is
+     * positioned at. The children of the element are not read, so they can be
+     * visited with the method <i>nextChild</i>.
+     * 
+     * @return
+     *          element with the attributes of the current element and without
+     *          children.
+     */
+    public Element readAttributes() {
+        Element element = owner.createElement(getTagName());
+        
+        for(int i = 0; i < reader.getNamespaceCount(); i++){
+            String prefix = reader.getNamespacePrefix(i);
+            if(prefix == null || prefix.isEmpty())
+                element.setAttribute("xmlns", reader.getNamespaceURI(i));
+            else
+                element.setAttribute("xmlns:" + prefix, reader.getNamespaceURI(i));
+        }
+        
+        for(int i = 0; i < reader.getAttributeCount(); i++){
+            String name = qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            element.setAttribute(name, reader.getAttributeValue(i));
+        }
+        
+        return element;
+    }
+
+
+    /**
+     * Reads the element the loader is positioned at, including all its
+     * descendants. After reading, the loader is positioned at the element end
+     * tag.
+     * 
+     * @return
+     *          element representing the current element.
+     * @throws XMLException 
+     *          if an error occur while reading the file.
+     */
+    public Element readElement() throws XMLException {
+        try{
+            Element root = readAttributes();
+            Node current = root;
+            int depth = 1;
+            
+            while(depth > 0){
+                switch(reader.next()){
+                    case XMLStreamConstants.START_ELEMENT:
+                        if(filter != null && !filter.accept(((Element) current).getTagName(), getTagName())){
+                            skipElement();
+                            break;
+                        }
+                        Element child = readAttributes();
+                        current.appendChild(child);
+                        current = child;
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        current = current.getParentNode();
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        current.appendChild(owner.createTextNode(reader.getText()));
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        current.appendChild(owner.createCDATASection(reader.getText()));
+                        break;
+                }
+            }
+            
+            return root;
+        }catch(XMLStreamException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }
+    }
+
+
+    /**
+     * Ignores the element the loader is positioned at, including all its
+     * descendants. After skipping, the loader is positioned at the element end
+     * tag.
+     * 
+     * @throws XMLException 
+     *          if an error occur while reading the file.
+     */
+    public void skipElement() throws XMLException {
+        try{
+            int depth = 1;
+            while(depth > 0){
+                switch(reader.next()){
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                        break;
+                }
+            }
+        }catch(XMLStreamException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }
+    }
+
+
+    /**
+     * Closes the file being read.
+     */
+    public void close() {
+        try{
+            if(reader != null)
+                reader.close();
+        }catch(XMLStreamException e){}
+        
+        try{
+            if(input != null)
+                input.close();
+        }catch(IOException e){}
+    }
+    
+    
+    private String qualifiedName(String prefix, String localName) {
+        if(prefix == null || prefix.isEmpty())
+            return localName;
+        else
+            return prefix + ":" + localName;
+    }
+}
@@ -0,0 +1,54 @@
+package br.uff.midiacom.ana;
+
+
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Loads documents written in the tests. The content is written to a temporary
+ * file, so the document is loaded by <i>loadXML</i> and has a location for the
+ * relative paths of its imports.
+ */
+public class NCLDocLoader {
+
+
+    public static NCLDoc load(String xml) throws XMLException, IOException {
+        NCLDoc d = new NCLDoc();
+        d.loadXML(write(xml));
+        return d;
+    }
+
+
+    public static File write(String xml) throws IOException {
+        File f = File.createTempFile("test", ".ncl");
+        f.deleteOnExit();
+        write(f, xml);
+        return f;
+    }
+
+
+    public static File write(File dir, String name, String xml) throws IOException {
+        File f = new File(dir, name);
+        f.deleteOnExit();
+        write(f, xml);
+        return f;
+    }
+
+
+    public static File createDirectory() throws IOException {
+        File dir = File.createTempFile("test", "");
+        dir.delete();
+        dir.mkdir();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+
+    private static void write(File f, String xml) throws IOException {
+        FileWriter out = new FileWriter(f);
+        out.write(xml);
+        out.close();
+    }
+}
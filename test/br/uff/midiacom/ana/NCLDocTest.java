@@ -40,8 +40,42 @@ package br.uff.midiacom.ana;
 import java.net.URI;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.descriptor.NCLLayoutDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorParam;
+import br.uff.midiacom.ana.reuse.NCLImportBase;
+import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.enums.NCLAttributes;
+import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLMapping;
+import br.uff.midiacom.ana.interfaces.NCLSwitchPort;
+import br.uff.midiacom.ana.rule.NCLBindRule;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.link.NCLParam;
 import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
 import br.uff.midiacom.ana.util.enums.NCLNamespace;
+import br.uff.midiacom.ana.util.enums.NCLInstanceType;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.ncl.NCLLoadProfile;
+import br.uff.midiacom.ana.util.exception.NCLModificationException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.net.URISyntaxException;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -89,4 +123,390 @@ public class NCLDocTest {
         assertTrue(true);
         System.out.println(instance.parse(0));
     }
+    
+    @Test
+    public void testLoadFileStream() throws XMLException, URISyntaxException {
+        URI path = getClass().getResource("../../../../doc.ncl").toURI();
+        File f = new File(path);
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        
+        NCLDoc instance = new NCLDoc();
+        instance.loadXMLStream(f);
+        
+        assertEquals(expected.parse(0), instance.parse(0));
+    }
+    
+    @Test
+    public void testWrite() throws XMLException, URISyntaxException, IOException {
+        URI path = getClass().getResource("../../../../doc.ncl").toURI();
+        File f = new File(path);
+        NCLDoc instance = new NCLDoc();
+        instance.loadXML(f);
+        
+        StringWriter out = new StringWriter();
+        instance.write(out, 0);
+        
+        assertEquals(instance.parse(0), out.toString());
+    }
+    
+    @Test
+    public void testElementById() throws XMLException {
+        NCLDoc d = new NCLDoc();
+        NCLBody b = new NCLBody();
+        NCLContext c = new NCLContext("ctx");
+        NCLMedia m = new NCLMedia("m1");
+        c.addNode(m);
+        b.addNode(c);
+        
+        assertNull(d.getElementById("m1"));
+        d.setHead(new NCLHead());
+        d.setBody(b);
+        assertSame(m, d.getElementById("m1"));
+        assertSame(m, b.findNode("m1"));
+        
+        m.setId("m2");
+        assertNull(d.getElementById("m1"));
+        assertSame(m, b.findNode("m2"));
+        
+        c.removeNode(m);
+        assertNull(d.getElementById("m2"));
+        assertNull(b.findNode("m2"));
+        assertSame(c, d.getElementById("ctx"));
+    }
+
+    @Test
+    public void testLoadProfile() throws XMLException, IOException {
+        String xml = "<ncl id='doc'><head>"+
+                "<regionBase><region id='rg'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg'/></descriptorBase>"+
+                "<connectorBase><causalConnector id='cn'/></connectorBase>"+
+                "</head><body><port id='p' component='ctx' interface='pc'/>"+
+                "<context id='ctx'><port id='pc' component='m' interface='a'/>"+
+                "<media id='m' descriptor='dp'><area id='a' begin='1s'/></media></context>"+
+                "</body></ncl>";
+        File f = NCLDocLoader.write(xml);
+        
+        NCLDoc d = new NCLDoc();
+        d.loadXML(f, NCLLoadProfile.HEAD);
+        assertSame(NCLLoadProfile.HEAD, d.getLoadProfile());
+        assertNull(d.getBody());
+        assertNotNull(d.getElementById("dp"));
+        
+        d = new NCLDoc();
+        d.loadXML(f, NCLLoadProfile.bases(NCLElementAttributes.CONNECTORBASE));
+        assertNotNull(d.getElementById("cn"));
+        assertNull(d.getElementById("rg"));
+        assertNull(d.getElementById("dp"));
+        
+        // the regions are loaded together with the descriptors
+        d = new NCLDoc();
+        d.loadXML(f, NCLLoadProfile.bases(NCLElementAttributes.DESCRIPTORBASE));
+        assertNotNull(d.getElementById("rg"));
+        assertNull(d.getElementById("cn"));
+        
+        d = new NCLDoc();
+        d.loadXML(f, NCLLoadProfile.BODY_SKELETON);
+        NCLMedia m = (NCLMedia) d.getElementById("m");
+        assertNotNull(m);
+        assertSame(d.getElementById("dp"), m.getDescriptor());
+        assertFalse(m.hasArea());
+        assertNull(d.getElementById("p"));
+        assertNull(d.getElementById("pc"));
+        
+        d = new NCLDoc();
+        d.loadXML(f, NCLLoadProfile.FULL);
+        assertNull(d.getLoadProfile());
+        assertNotNull(d.getElementById("a"));
+        assertNotNull(d.getElementById("p"));
+        
+        assertTrue(NCLLoadProfile.HEAD.covers(NCLLoadProfile.bases(NCLElementAttributes.DESCRIPTORBASE)));
+        assertFalse(NCLLoadProfile.bases(NCLElementAttributes.REGIONBASE).covers(NCLLoadProfile.HEAD));
+        assertFalse(NCLLoadProfile.BODY_SKELETON.covers(NCLLoadProfile.FULL));
+    }
+
+    @Test
+    public void testFreeze() throws Exception {
+        File f = new File(getClass().getResource("../../../../doc.ncl").toURI());
+        final NCLDoc d = new NCLDoc();
+        d.setLazyImports(true);
+        d.loadXML(f);
+        final String expected = d.parse(0);
+        
+        d.freeze();
+        assertTrue(d.isFrozen());
+        assertTrue(d.getHead().isFrozen());
+        assertTrue(d.getHead().getRegionBases().isFrozen());
+        
+        // the lazy import is loaded and frozen too
+        NCLImport imp = (NCLImport) d.getHead().getConnectorBase().getImportBases().get(0);
+        assertTrue(imp.getImportedDoc().isFrozen());
+        
+        try{
+            d.setTitle("new title");
+            fail("A frozen document was modified.");
+        }catch(NCLModificationException ex){}
+        assertNull(d.getTitle());
+        
+        try{
+            d.getBody().addNode(new NCLMedia("m"));
+            fail("A frozen body was modified.");
+        }catch(NCLModificationException ex){}
+        
+        try{
+            d.getHead().getRegionBases().clear();
+            fail("A frozen list was modified.");
+        }catch(NCLModificationException ex){}
+        
+        // several threads read the document at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for(int i = 0; i < 8; i++){
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        assertNotNull(d.getElementById("dpTV"));
+                        return d.parse(0);
+                    }
+                }));
+            }
+            for(Future<String> r : results)
+                assertEquals(expected, r.get());
+        }
+        finally{
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFrozenSetters() throws Exception {
+        File f = new File(getClass().getResource("../../../../doc.ncl").toURI());
+        NCLDoc d = new NCLDoc();
+        d.loadXML(f);
+        
+        NCLDescriptor dp = (NCLDescriptor) d.getElementById("dpTV");
+        NCLDescriptorParam param = new NCLDescriptorParam();
+        param.setName(NCLAttributes.TRANSPARENCY);
+        param.setValue("0.5");
+        dp.addDescriptorParam(param);
+        NCLVariable var = new NCLVariable(NCLSystemVariable.SYSTEM_SCREENSIZE);
+        d.addGlobalVariable(var);
+        NCLImportBase imp = (NCLImportBase) d.getHead().getConnectorBase().getImportBases().get(0);
+        
+        // the setters invalidate the cached hashes
+        int hash = dp.contentHash();
+        param.setPercentSign(true);
+        assertFalse(hash == dp.contentHash());
+        param.setPercentSign(false);
+        assertEquals(hash, dp.contentHash());
+        
+        d.freeze();
+        String expected = d.parse(0);
+        hash = d.contentHash();
+        
+        try{
+            param.setPercentSign(true);
+            fail("A frozen descriptor param was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            imp.setBaseId("other");
+            fail("A frozen import was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            imp.setImportedDoc(null);
+            fail("A frozen import was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            var.setParamenter(1);
+            fail("A frozen variable was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            d.setDocumentCache(null);
+            fail("A frozen document was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            d.setImportExecutor(null);
+            fail("A frozen document was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            d.setLazyImports(true);
+            fail("A frozen document was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            d.setPartialImports(true);
+            fail("A frozen document was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            d.setModificationNotifier(null);
+            fail("A frozen document was modified.");
+        }catch(NCLModificationException ex){}
+        
+        ElementList regions = d.getHead().getRegionBases();
+        try{
+            regions.addAll(new ElementList());
+            fail("A frozen list was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            regions.removeAll(new ArrayList());
+            fail("A frozen list was modified.");
+        }catch(NCLModificationException ex){}
+        try{
+            Iterator it = regions.iterator();
+            it.next();
+            it.remove();
+            fail("A frozen list was modified.");
+        }catch(UnsupportedOperationException ex){
+            assertTrue(ex.getCause() instanceof NCLModificationException);
+        }
+        
+        assertFalse(param.getPercentSign());
+        assertNull(imp.getBaseId());
+        assertNotNull(imp.getImportedDoc());
+        assertFalse(var.hasParameter());
+        assertFalse(d.isLazyImports());
+        assertEquals(1, regions.size());
+        assertEquals(expected, d.parse(0));
+        assertEquals(hash, d.contentHash());
+    }
+
+    @Test
+    public void testDeepCopy() throws XMLException, IOException {
+        String xml = "<ncl id='doc'><head>"+
+                "<regionBase><region id='rg'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg'/></descriptorBase>"+
+                "</head><body><port id='p' component='ctx' interface='pc'/>"+
+                "<context id='ctx'><port id='pc' component='m' interface='a'/>"+
+                "<media id='m' descriptor='dp'><area id='a' begin='1s'/></media></context>"+
+                "</body></ncl>";
+        NCLDoc d = NCLDocLoader.load(xml);
+        NCLContext ctx = (NCLContext) d.getElementById("ctx");
+        NCLMedia m = (NCLMedia) d.getElementById("m");
+        NCLLayoutDescriptor dp = (NCLLayoutDescriptor) d.getElementById("dp");
+        
+        // the copy of a context refers to its own nodes and keeps the descriptor
+        NCLContext c = ctx.deepCopy();
+        assertNull(c.getParent());
+        assertNull(c.getDoc());
+        NCLMedia mc = (NCLMedia) c.getNodes().get(0);
+        assertNotSame(m, mc);
+        assertSame(mc, ((NCLPort) c.getPorts().get(0)).getComponent());
+        assertSame(mc.getAreas().get(0), ((NCLPort) c.getPorts().get(0)).getInterface());
+        assertSame(dp, mc.getDescriptor());
+        assertTrue(dp.getReferences().contains(mc));
+        
+        c.setId("ctx2");
+        d.getBody().addNode(c);
+        assertSame(c, d.getElementById("ctx2"));
+        assertSame(ctx, d.getElementById("ctx"));
+        assertSame(ctx, ((NCLPort) d.getBody().getPorts().get(0)).getComponent());
+        d.getBody().removeNode(c);
+        
+        // the copy of a frozen document refers to its own head and is not frozen
+        String expected = d.parse(0);
+        d.freeze();
+        NCLDoc dc = d.deepCopy();
+        assertEquals(expected, dc.parse(0));
+        assertFalse(dc.isFrozen());
+        NCLMedia mdc = (NCLMedia) dc.getElementById("m");
+        assertNotSame(m, mdc);
+        assertSame(dc.getElementById("dp"), mdc.getDescriptor());
+        assertSame(dc.getElementById("rg"), ((NCLDescriptor) mdc.getDescriptor()).getRegion());
+        assertSame(dc, mdc.getDoc());
+        
+        dc.setTitle("copy");
+        assertNull(d.getTitle());
+    }
+
+    @Test
+    public void testDeepCopyContent() throws XMLException, IOException {
+        String xml = "<ncl id='doc'><head>"+
+                "<ruleBase><rule id='r1' var='system.language' comparator='eq' value='pt'/></ruleBase>"+
+                "<regionBase><region id='rg' left='10%' width='50%'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg'>"+
+                "<descriptorParam name='soundLevel' value='0.5'/></descriptor></descriptorBase>"+
+                "<connectorBase><causalConnector id='cn'><connectorParam name='d'/>"+
+                "<simpleCondition role='onBegin' delay='$d'/>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase>"+
+                "</head><body><port id='p' component='sw'/>"+
+                "<switch id='sw'><switchPort id='sp'><mapping component='m1'/><mapping component='m2'/></switchPort>"+
+                "<bindRule constituent='m1' rule='r1'/><defaultComponent component='m2'/>"+
+                "<media id='m1' src='a.png' descriptor='dp'><area id='a' begin='1s' end='3s'/></media>"+
+                "<media id='m2' src='b.png'/></switch>"+
+                "<link xconnector='cn'><linkParam name='d' value='2s'/>"+
+                "<bind role='onBegin' component='sw'/><bind role='start' component='sw'/></link>"+
+                "</body></ncl>";
+        NCLDoc d = NCLDocLoader.load(xml);
+        NCLDoc dc = d.deepCopy();
+        assertEquals(d.parse(0), dc.parse(0));
+        
+        // the mappings refer to nodes copied after them
+        NCLSwitch sw = (NCLSwitch) dc.getElementById("sw");
+        NCLSwitchPort sp = (NCLSwitchPort) sw.getPorts().get(0);
+        assertEquals(2, sp.getMappings().size());
+        assertSame(dc.getElementById("m1"), ((NCLMapping) sp.getMappings().get(0)).getComponent());
+        assertSame(dc.getElementById("m2"), ((NCLMapping) sp.getMappings().get(1)).getComponent());
+        assertSame(dc.getElementById("m2"), sw.getDefaultComponent());
+        assertSame(dc.getElementById("r1"), ((NCLBindRule) sw.getBinds().get(0)).getRule());
+        
+        // the links refer to the copied connector
+        NCLCausalConnector cn = (NCLCausalConnector) dc.getElementById("cn");
+        NCLLink link = (NCLLink) dc.getBody().getLinks().get(0);
+        assertSame(cn, link.getXconnector());
+        assertSame(cn.getConnectorParams().get(0), ((NCLParam) link.getLinkParams().get(0)).getName());
+        assertSame(cn.getCondition(), ((NCLBind) link.getBinds().get(0)).getRole());
+        
+        // the attribute values are not shared
+        NCLArea a = (NCLArea) dc.getElementById("a");
+        assertNotSame(((NCLArea) d.getElementById("a")).getBegin(), a.getBegin());
+        assertEquals(((NCLArea) d.getElementById("a")).getBegin().getTimeInSeconds(), a.getBegin().getTimeInSeconds());
+    }
+
+    @Test
+    public void testCompare() throws XMLException, IOException {
+        String xml = "<ncl id='doc'><head>"+
+                "<regionBase><region id='rg'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg'/></descriptorBase>"+
+                "<connectorBase><causalConnector id='cn'><simpleCondition role='onBegin'/>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase>"+
+                "</head><body><port id='p' component='m1'/>"+
+                "<media id='m1' src='a.png' descriptor='dp'><area id='a' begin='1s'/></media>"+
+                "<media id='m2' src='b.png'/>"+
+                "<link xconnector='cn'><bind role='onBegin' component='m1' interface='a'/>"+
+                "<bind role='start' component='m2'/></link>"+
+                "</body></ncl>";
+        File f = NCLDocLoader.write(xml);
+        
+        NCLDoc d1 = new NCLDoc();
+        d1.loadXML(f);
+        NCLDoc d2 = new NCLDoc();
+        d2.loadXML(f);
+        assertTrue(d1.compare(d2));
+        assertEquals(d1.contentHash(), d2.contentHash());
+        
+        NCLMedia m = (NCLMedia) d2.getElementById("m2");
+        int hash = d2.contentHash();
+        m.setSrc(new SrcType("c.png"));
+        assertFalse(hash == d2.contentHash());
+        assertFalse(d1.compare(d2));
+        
+        m.setSrc(new SrcType("b.png"));
+        assertEquals(hash, d2.contentHash());
+        assertTrue(d1.compare(d2));
+        
+        // the media writes the descriptor id, so its hash changes with the id
+        NCLMedia m1 = (NCLMedia) d2.getElementById("m1");
+        hash = m1.contentHash();
+        ((NCLDescriptor) d2.getElementById("dp")).setId("dp2");
+        assertFalse(hash == m1.contentHash());
+        assertFalse(d1.compare(d2));
+        
+        // compare ignores attributes not set in the compared element, even
+        // if the hashes differ
+        ((NCLDescriptor) d2.getElementById("dp2")).setId("dp");
+        m.setInstance(NCLInstanceType.NEW);
+        assertFalse(d1.contentHash() == d2.contentHash());
+        assertTrue(d1.compare(d2));
+        assertFalse(d2.compare(d1));
+    }
 }
\ No newline at end of file
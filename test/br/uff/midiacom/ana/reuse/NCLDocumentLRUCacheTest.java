@@ -0,0 +1,166 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.reuse;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLDocumentLRUCacheTest {
+
+    @Test
+    public void testSharedImport() throws XMLException, URISyntaxException {
+        URI path = getClass().getResource("../../../../../doc.ncl").toURI();
+        File f = new File(path);
+        NCLDocumentLRUCache cache = new NCLDocumentLRUCache(10);
+        
+        NCLDoc d1 = new NCLDoc();
+        d1.setDocumentCache(cache);
+        d1.loadXML(f);
+        
+        NCLDoc d2 = new NCLDoc();
+        d2.setDocumentCache(cache);
+        d2.loadXML(f);
+        
+        assertEquals(1, cache.size());
+        assertSame(importedDoc(d1), importedDoc(d2));
+    }
+
+    @Test
+    public void testEviction() throws URISyntaxException {
+        File doc = new File(getClass().getResource("../../../../../doc.ncl").toURI());
+        File base = new File(getClass().getResource("../../../../../base.ncl").toURI());
+        NCLDocumentLRUCache cache = new NCLDocumentLRUCache(1);
+        NCLDoc d1 = new NCLDoc();
+        NCLDoc d2 = new NCLDoc();
+        
+        cache.put(doc, d1, doc.lastModified());
+        assertSame(d1, cache.get(doc));
+        
+        cache.put(base, d2, base.lastModified());
+        assertEquals(1, cache.size());
+        assertNull(cache.get(doc));
+        assertSame(d2, cache.get(base));
+    }
+    
+    
+    @Test
+    public void testUnchangedImport() throws XMLException, IOException {
+        File dir = NCLDocLoader.createDirectory();
+        File lib = NCLDocLoader.write(dir, "lib.ncl", "<ncl id='lib'><head><regionBase><region id='rg' width='50%'/>"+
+                "</regionBase><ruleBase><rule id='r1' var='system.language' comparator='eq' value='pt'/>"+
+                "</ruleBase></head></ncl>");
+        File main = NCLDocLoader.write(dir, "main.ncl", "<ncl id='main'><head><regionBase>"+
+                "<importBase alias='lib' documentURI='lib.ncl'/></regionBase><ruleBase>"+
+                "<importBase alias='rules' documentURI='lib.ncl'/></ruleBase><descriptorBase>"+
+                "<descriptor id='d1' region='lib#rg'/></descriptorBase></head></ncl>");
+        NCLDocumentLRUCache cache = new NCLDocumentLRUCache(10);
+        
+        NCLDoc d1 = new NCLDoc();
+        d1.setDocumentCache(cache);
+        d1.loadXML(main);
+        NCLDoc imported = cache.get(lib);
+        NCLRegion rg = (NCLRegion) ((NCLRegionBase) imported.getHead().getRegionBases().iterator().next()).getRegions().iterator().next();
+        
+        assertTrue(imported.isFrozen());
+        assertEquals(1, imported.getGlobalVariables().size());
+        assertTrue(rg.getReferences().isEmpty());
+        
+        // the second import gets the same document, not changed by the first
+        NCLDoc d2 = new NCLDoc();
+        d2.setDocumentCache(cache);
+        d2.loadXML(main);
+        assertSame(imported, importedDoc(d2, "lib"));
+        assertEquals(1, imported.getGlobalVariables().size());
+        assertTrue(rg.getReferences().isEmpty());
+        
+        // each importer has its own variable and its own reference to the region
+        assertEquals(1, d2.getGlobalVariables().size());
+        assertNotSame(imported.getGlobalVariables().iterator().next(), d2.getGlobalVariables().iterator().next());
+        NCLDescriptor desc = (NCLDescriptor) d2.getElementById("d1");
+        assertSame(rg, ((ExternalReferenceType) desc.getRegion()).getTarget());
+        assertTrue(((ExternalReferenceType) desc.getRegion()).getAlias().getReferences().contains(desc));
+    }
+    
+    
+    @Test
+    public void testModifiedDuringLoad() throws XMLException, IOException {
+        File dir = NCLDocLoader.createDirectory();
+        File lib = NCLDocLoader.write(dir, "lib.ncl", "<ncl id='lib'><head/></ncl>");
+        long before = lib.lastModified();
+        NCLDocumentLRUCache cache = new NCLDocumentLRUCache(10);
+        
+        // the file changes after the document was read from it
+        NCLDoc d = new NCLDoc();
+        d.loadXML(lib);
+        lib.setLastModified(before + 2000);
+        cache.put(lib, d, before);
+        
+        assertNull(cache.get(lib));
+        assertEquals(0, cache.size());
+    }
+    
+    
+    private NCLDoc importedDoc(NCLDoc doc, String alias) throws XMLException {
+        NCLRegionBase base = (NCLRegionBase) doc.getHead().getRegionBases().iterator().next();
+        for(Object o : base.getImportBases()){
+            if(alias.equals(((NCLImport) o).getAlias()))
+                return ((NCLImport) o).getImportedDoc();
+        }
+        return null;
+    }
+    
+    
+    private NCLDoc importedDoc(NCLDoc doc) throws XMLException {
+        NCLConnectorBase base = (NCLConnectorBase) doc.getHead().getConnectorBase();
+        NCLImport imp = (NCLImport) base.getImportBases().iterator().next();
+        return imp.getImportedDoc();
+    }
+}
@@ -42,6 +42,13 @@ import br.uff.midiacom.ana.region.NCLRegion;
 import br.uff.midiacom.ana.XMLLoader;
 import br.uff.midiacom.ana.region.NCLRegionBase;
 import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.ncl.NCLLoadProfile;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -66,4 +73,70 @@ public class NCLImportTest {
         String result = ((NCLRegion) imp.getRegion()).getTitle();
         assertEquals(expResult, result);
     }
+
+    @Test
+    public void testParallel() throws XMLException, URISyntaxException {
+        File f = new File(getClass().getResource("../../../../../doc.ncl").toURI());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        
+        try{
+            NCLDoc expected = new NCLDoc();
+            expected.loadXML(f);
+            
+            NCLDoc instance = new NCLDoc();
+            instance.setImportExecutor(executor);
+            instance.loadXML(f);
+            
+            assertEquals(expected.parse(0), instance.parse(0));
+            
+            NCLImport imp = (NCLImport) instance.getHead().getConnectorBase().getImportBases().get(0);
+            assertNotNull(imp.getImportedDoc());
+        }
+        finally{
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLazy() throws XMLException, URISyntaxException {
+        File f = new File(getClass().getResource("../../../../../doc.ncl").toURI());
+        NCLDocumentLRUCache cache = new NCLDocumentLRUCache(4);
+        
+        NCLDoc instance = new NCLDoc();
+        instance.setDocumentCache(cache);
+        instance.setLazyImports(true);
+        instance.loadXML(f);
+        
+        // the imported document is not used by the document
+        assertEquals(0, cache.size());
+        
+        NCLConnectorBase base = (NCLConnectorBase) instance.getHead().getConnectorBase();
+        assertNotNull(base.findConnector("foo", "onBeginStart"));
+        assertEquals(1, cache.size());
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(f);
+        assertEquals(expected.parse(0), instance.parse(0));
+    }
+
+    @Test
+    public void testPartial() throws XMLException, URISyntaxException {
+        File f = new File(getClass().getResource("../../../../../doc.ncl").toURI());
+        
+        NCLDoc instance = new NCLDoc();
+        instance.setPartialImports(true);
+        instance.loadXML(f);
+        
+        // only the connector base of the imported document is loaded
+        NCLImport imp = (NCLImport) instance.getHead().getConnectorBase().getImportBases().get(0);
+        NCLDoc imported = imp.getImportedDoc();
+        NCLLoadProfile profile = imported.getLoadProfile();
+        assertNotNull(profile);
+        assertFalse(profile.loadsBody());
+        assertTrue(profile.loadsHeadElement(NCLElementAttributes.CONNECTORBASE));
+        assertFalse(profile.loadsHeadElement(NCLElementAttributes.REGIONBASE));
+        
+        NCLConnectorBase base = (NCLConnectorBase) instance.getHead().getConnectorBase();
+        assertNotNull(base.findConnector("foo", "onBeginStart"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.meta.NCLMeta;
+import br.uff.midiacom.ana.node.NCLMedia;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class ElementListTest {
+
+    @Test
+    public void testGet() throws XMLException {
+        ElementList<NCLMedia> list = new ElementList<NCLMedia>();
+        for(int i = 0; i < 100; i++)
+            list.add(new NCLMedia("m" + i));
+        
+        assertEquals(100, list.size());
+        assertEquals("m42", list.get("m42").getId());
+        assertNull(list.get("m100"));
+    }
+
+    @Test
+    public void testRepeated() throws XMLException {
+        ElementList<NCLMedia> list = new ElementList<NCLMedia>();
+        NCLMedia m1 = new NCLMedia("m1");
+        NCLMedia m2 = new NCLMedia("m1");
+        
+        list.add(m1);
+        list.add(new NCLMedia("m2"));
+        list.add(m2);
+        
+        assertEquals(2, list.size());
+        assertFalse(list.contains(m1));
+        assertTrue(list.contains(m2));
+        assertSame(m2, list.get("m1"));
+    }
+
+    @Test
+    public void testDifferentIds() throws XMLException {
+        ElementList<NCLArea> list = new ElementList<NCLArea>();
+        list.add(new NCLArea("a1"));
+        list.add(new NCLArea("a2"));
+        
+        assertEquals(2, list.size());
+    }
+
+    @Test
+    public void testChangeId() throws XMLException {
+        ElementList<NCLMedia> list = new ElementList<NCLMedia>();
+        NCLMedia m = new NCLMedia("m1");
+        list.add(m);
+        
+        m.setId("other");
+        assertNull(list.get("m1"));
+        assertSame(m, list.get("other"));
+        assertTrue(list.contains(m));
+        
+        assertTrue(list.remove("other"));
+        assertTrue(list.isEmpty());
+        assertNull(list.get("other"));
+    }
+
+    @Test
+    public void testChangeName() throws XMLException {
+        ElementList<NCLMeta> list = new ElementList<NCLMeta>();
+        NCLMeta meta = new NCLMeta();
+        list.add(meta);
+        
+        meta.setName("author");
+        assertSame(meta, list.get("author"));
+        assertTrue(list.remove(meta));
+        assertNull(list.get("author"));
+    }
+}
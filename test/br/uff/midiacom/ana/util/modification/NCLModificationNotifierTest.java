@@ -1,8 +1,14 @@
 package br.uff.midiacom.ana.util.modification;
 
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.NCLBody;
 import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.modification.NCLNotification.NCLNotificationType;
 import br.uff.midiacom.ana.util.exception.NCLModificationException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -61,6 +67,151 @@ public class NCLModificationNotifierTest {
     }
     
     
+    @Test
+    public void test3() throws XMLException, InterruptedException {
+        NCLModificationNotifier notifier = NCLModificationNotifier.getInstance();
+        Foo foo = new Foo();
+        
+        notifier.clearListeners();
+        notifier.addListener(foo);
+        
+        NCLModificationNotifier.beginBulk();
+        try{
+            assertFalse(NCLModificationNotifier.isNotifying());
+            element.setTitle("bulk");
+            element.setId("bulk");
+        }
+        finally{
+            NCLModificationNotifier.endBulk();
+        }
+        
+        assertTrue(NCLModificationNotifier.isNotifying());
+        element.setTitle("single");
+        notifier.finish();
+        
+        assertEquals(1, foo.received);
+    }
+    
+    
+    @Test
+    public void test4() throws XMLException, InterruptedException {
+        NCLModificationNotifier global = NCLModificationNotifier.getInstance();
+        NCLModificationNotifier scoped = new NCLModificationNotifier(0, NCLModificationNotifier.NCLOverflowPolicy.BLOCK);
+        Foo foo = new Foo();
+        Bar bar = new Bar();
+        
+        global.clearListeners();
+        global.addListener(foo);
+        scoped.addListener(bar);
+        
+        NCLDoc doc = new NCLDoc();
+        doc.setModificationNotifier(scoped);
+        doc.setTitle("scoped");
+        doc.setId("scoped");
+        element.setTitle("global");
+        
+        scoped.finish();
+        global.finish();
+        
+        assertEquals(1, foo.received);
+        assertEquals(2, bar.received);
+    }
+    
+    
+    @Test
+    public void test5() throws NCLModificationException, InterruptedException {
+        NCLModificationNotifier notifier = new NCLModificationNotifier(1, NCLModificationNotifier.NCLOverflowPolicy.DISCARD_NEWEST);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Foo foo = new Foo(){
+            @Override
+            public void modifiedElement(NCLNotification notification) {
+                super.modifiedElement(notification);
+                started.countDown();
+                try{
+                    release.await();
+                }catch(InterruptedException e){}
+            }
+        };
+        
+        notifier.addListener(foo);
+        notifier.addNotification(new NCLNotification(element));
+        started.await();
+        notifier.addNotification(new NCLNotification(element));
+        notifier.addNotification(new NCLNotification(element));
+        release.countDown();
+        notifier.finish();
+        
+        assertEquals(2, foo.received);
+        assertEquals(1, notifier.getDiscardedCount());
+    }
+    
+    
+    @Test
+    public void test6() throws XMLException, InterruptedException {
+        NCLModificationNotifier notifier = NCLModificationNotifier.getInstance();
+        Foo title = new Foo();
+        Foo subtree = new Foo();
+        Foo body = new Foo();
+        
+        notifier.clearListeners();
+        notifier.addListener(title, new NCLModificationFilter(null, EnumSet.of(NCLElementAttributes.TITLE), null, null));
+        notifier.addListener(subtree, new NCLModificationFilter(EnumSet.of(NCLNotificationType.ALTERED_ATT), EnumSet.of(NCLElementAttributes.ID), null, element));
+        notifier.addListener(body, new NCLModificationFilter(null, null, NCLBody.class, null));
+        
+        NCLBody inside = new NCLBody();
+        element.setBody(inside);
+        NCLBody outside = new NCLBody();
+        
+        element.setTitle("title");
+        element.setId("doc");
+        inside.setId("inside");
+        outside.setId("outside");
+        notifier.finish();
+        
+        assertEquals(1, title.received);
+        assertEquals(2, subtree.received);
+        assertTrue(body.received >= 2);
+    }
+    
+    
+    @Test
+    public void test7() throws InterruptedException {
+        NCLModificationNotifier notifier = new NCLModificationNotifier(0, null);
+        
+        // the thread is a daemon and only starts with the first listener
+        assertTrue(notifier.isDaemon());
+        assertEquals(Thread.State.NEW, notifier.getState());
+        notifier.addListener(new Foo());
+        assertTrue(notifier.isAlive());
+        
+        notifier.finish();
+        assertFalse(notifier.isAlive());
+        
+        // a notifier finished before having listeners never starts
+        NCLModificationNotifier unused = new NCLModificationNotifier(0, null);
+        unused.finish();
+        unused.addListener(new Foo());
+        assertEquals(Thread.State.NEW, unused.getState());
+    }
+    
+    
+    private class Bar implements NCLModificationBatchListener {
+        
+        public int received = 0;
+
+        @Override
+        public void modifiedElement(NCLNotification notification) {
+            fail("batch listener notified for a single notification");
+        }
+
+        @Override
+        public void modifiedElements(List<NCLNotification> notifications) {
+            received += notifications.size();
+        }
+    }
+    
+    
     private class Foo implements NCLModificationListener {
         
         public int received = 0;
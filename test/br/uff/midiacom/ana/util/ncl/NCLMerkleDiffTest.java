@@ -0,0 +1,155 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.meta.NCLMeta;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.transition.NCLTransition;
+import br.uff.midiacom.ana.transition.NCLTransitionBase;
+import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.enums.NCLTransitionType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLMerkleDiffTest {
+    
+    private NCLDoc load() throws XMLException, IOException {
+        String xml = "<ncl id='doc'><head>"+
+                "<regionBase><region id='rg'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg'/></descriptorBase>"+
+                "<connectorBase><causalConnector id='cn'><simpleCondition role='onBegin'/>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase>"+
+                "</head><body><port id='p' component='m1'/>"+
+                "<media id='m1' src='a.png' descriptor='dp'/>"+
+                "<media id='m2' src='b.png'/>"+
+                "<link xconnector='cn'><bind role='onBegin' component='m1'/>"+
+                "<bind role='start' component='m2'/></link>"+
+                "</body></ncl>";
+        return NCLDocLoader.load(xml);
+    }
+    
+    
+    @Test
+    public void test1() throws XMLException, IOException {
+        NCLDoc d1 = load();
+        NCLDoc d2 = load();
+        
+        assertTrue(Arrays.equals(d1.getMerkleHash(), d2.getMerkleHash()));
+        assertFalse(new NCLMerkleDiff(d1, d2).hasChanges());
+        
+        byte[] head = d2.getHead().getMerkleHash();
+        byte[] body = d2.getBody().getMerkleHash();
+        NCLMedia m2 = (NCLMedia) d2.getElementById("m2");
+        m2.setSrc(new SrcType("c.png"));
+        
+        assertTrue(Arrays.equals(head, d2.getHead().getMerkleHash()));
+        assertFalse(Arrays.equals(body, d2.getBody().getMerkleHash()));
+        
+        NCLMerkleDiff diff = new NCLMerkleDiff(d1, d2);
+        assertEquals(1, diff.getChanged().size());
+        assertSame(m2, diff.getChanged().get(0));
+        assertTrue(diff.getInserted().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+        
+        // the hash is updated when the modification is undone
+        m2.setSrc(new SrcType("b.png"));
+        assertTrue(Arrays.equals(body, d2.getBody().getMerkleHash()));
+    }
+    
+    
+    @Test
+    public void test2() throws XMLException, IOException {
+        NCLDoc d1 = load();
+        NCLDoc d2 = load();
+        
+        NCLMedia m3 = new NCLMedia("m3");
+        d2.getBody().addNode(m3);
+        NCLLink link = (NCLLink) d2.getBody().getLinks().get(0);
+        d2.getBody().removeLink(link);
+        
+        NCLMerkleDiff diff = new NCLMerkleDiff(d1, d2);
+        assertTrue(diff.getChanged().isEmpty());
+        assertEquals(1, diff.getInserted().size());
+        assertSame(m3, diff.getInserted().get(0));
+        assertEquals(1, diff.getRemoved().size());
+        assertSame(d1.getBody().getLinks().get(0), diff.getRemoved().get(0));
+    }
+    
+    
+    @Test
+    public void test3() throws Exception {
+        NCLDoc d = load();
+        
+        // the children are hashed in the order they are written
+        NCLBody body = d.getBody();
+        NCLMeta meta = new NCLMeta();
+        meta.setName("author");
+        meta.setContent("ana");
+        body.addMeta(meta);
+        
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(body.getClass().getName().getBytes("UTF-8"));
+        digest.update((byte) 0);
+        digest.update(body.parseLocalContent().getBytes("UTF-8"));
+        digest.update(meta.getMerkleHash());
+        digest.update(((NCLElementPrototype) body.getPorts().get(0)).getMerkleHash());
+        digest.update(((NCLElementPrototype) body.getNodes().get(0)).getMerkleHash());
+        digest.update(((NCLElementPrototype) body.getNodes().get(1)).getMerkleHash());
+        digest.update(((NCLElementPrototype) body.getLinks().get(0)).getMerkleHash());
+        assertTrue(Arrays.equals(digest.digest(), body.getMerkleHash()));
+        
+        NCLTransitionBase base = new NCLTransitionBase();
+        NCLTransition t = new NCLTransition("t1");
+        t.setType(NCLTransitionType.FADE);
+        base.addTransition(t);
+        d.getHead().setTransitionBase(base);
+        
+        byte[] hash = d.getMerkleHash();
+        t.setId("t2");
+        assertFalse(Arrays.equals(hash, d.getMerkleHash()));
+    }
+}
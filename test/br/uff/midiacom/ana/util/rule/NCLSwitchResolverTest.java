@@ -0,0 +1,155 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.rule.NCLTestRule;
+import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLSwitchResolverTest {
+    
+    private NCLDoc doc() throws XMLException, IOException {
+        return NCLDocLoader.load("<ncl id='doc'><head><ruleBase>"+
+                "<rule id='rPt' var='system.language' comparator='eq' value='pt'/>"+
+                "<compositeRule id='cr' operator='and'>"+
+                "<rule id='c1' var='system.language' comparator='eq' value='en'/>"+
+                "<rule id='c2' var='system.memory' comparator='gt' value='512'/></compositeRule>"+
+                "<compositeRule id='cr2' operator='or'>"+
+                "<rule id='c3' var='system.language' comparator='eq' value='pt'/>"+
+                "<rule id='c4' var='system.memory' comparator='lte' value='64'/></compositeRule>"+
+                "</ruleBase><descriptorBase><descriptorSwitch id='ds'>"+
+                "<descriptor id='dPt'/><descriptor id='dEn'/>"+
+                "<bindRule constituent='dPt' rule='cr2'/><defaultDescriptor descriptor='dEn'/>"+
+                "</descriptorSwitch></descriptorBase></head>"+
+                "<body><port id='p' component='s'/>"+
+                "<media id='set' type='application/x-ginga-settings'>"+
+                "<property name='system.language' value='pt'/></media>"+
+                "<switch id='s'><defaultComponent component='m3'/>"+
+                "<bindRule constituent='m1' rule='cr'/><bindRule constituent='m2' rule='rPt'/>"+
+                "<media id='m1' src='a.png'/><media id='m2' src='b.png'/><media id='m3' src='c.png'/>"+
+                "</switch></body></ncl>");
+    }
+    
+    
+    @Test
+    public void test1() throws XMLException, IOException {
+        NCLDoc d = doc();
+        NCLSwitch s = (NCLSwitch) d.getElementById("s");
+        NCLDescriptorSwitch ds = (NCLDescriptorSwitch) d.getElementById("ds");
+        NCLSwitchResolver resolver = new NCLSwitchResolver();
+        NCLRuleEnvironment env = new NCLRuleEnvironment();
+        
+        // no values, the defaults are selected
+        assertSame(d.getElementById("m3"), resolver.resolve(s, env));
+        assertEquals("dEn", resolver.resolve(ds, env).getId());
+        
+        env.setValue(NCLSystemVariable.SYSTEM_LANGUAGE, "en");
+        env.setValue(NCLSystemVariable.SYSTEM_MEMORY, 1024);
+        assertSame(d.getElementById("m1"), resolver.resolve(s, env));
+        assertEquals("dEn", resolver.resolve(ds, env).getId());
+        
+        // the numbers are compared as numbers
+        env.setValue(NCLSystemVariable.SYSTEM_MEMORY, "64");
+        assertSame(d.getElementById("m3"), resolver.resolve(s, env));
+        assertEquals("dPt", resolver.resolve(ds, env).getId());
+        
+        env.setValue(NCLSystemVariable.SYSTEM_MEMORY, null);
+        env.setValue("system.language", "pt");
+        assertSame(d.getElementById("m2"), resolver.resolve(s, env));
+        assertEquals("dPt", resolver.resolve(ds, env).getId());
+    }
+    
+    
+    @Test
+    public void test2() throws XMLException, IOException {
+        NCLDoc d = doc();
+        NCLRuleEvaluator evaluator = new NCLRuleEvaluator();
+        NCLRuleEnvironment env = new NCLRuleEnvironment();
+        env.setDefaultValues(d);
+        assertEquals("pt", env.getValue("system.language"));
+        
+        assertEquals(3, evaluator.compile(d.getHead().getRuleBase()).size());
+        NCLTestRule rPt = (NCLTestRule) d.getHead().getRuleBase().getRules().get(0);
+        assertTrue(evaluator.evaluate(rPt, env));
+        
+        // the values already set are kept
+        env.setValue("system.language", "en");
+        env.setDefaultValues(d);
+        assertEquals("en", env.getValue("system.language"));
+        assertFalse(evaluator.evaluate(rPt, env));
+    }
+    
+    
+    @Test
+    public void test3() throws XMLException, IOException {
+        File dir = NCLDocLoader.createDirectory();
+        NCLDocLoader.write(dir, "base.ncl", "<ncl id='base'><head/><body>"+
+                "<media id='set' type='application/x-ginga-settings'>"+
+                "<property name='system.language' value='xx'/></media></body></ncl>");
+        File main = NCLDocLoader.write(dir, "main.ncl", "<ncl id='main'><head>"+
+                "<importedDocumentBase><importNCL alias='base' documentURI='base.ncl'/>"+
+                "</importedDocumentBase></head><body>"+
+                "<media id='set1' type='application/x-ginga-settings'>"+
+                "<property name='system.caption' value='en'/></media>"+
+                "<context id='c'><media id='set2' type='application/x-ginga-settings'>"+
+                "<property name='system.caption' value='pt'/>"+
+                "<property name='system.screenSize' value='1280,720'/></media></context>"+
+                "</body></ncl>");
+        NCLDoc d = new NCLDoc();
+        d.loadXML(main);
+        
+        NCLRuleEnvironment env = new NCLRuleEnvironment();
+        env.setDefaultValues(d);
+        
+        // the settings of imported documents are not used
+        assertNull(env.getValue("system.language"));
+        
+        // no rule uses the variables and the first settings node wins
+        assertEquals("en", env.getValue("system.caption"));
+        assertEquals("1280,720", env.getValue("system.screenSize"));
+    }
+}
@@ -0,0 +1,207 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.snapshot;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLSnapshotTest {
+
+    @Test
+    public void test1() throws Exception {
+        File dir = copyDocuments();
+        File source = new File(dir, "doc.ncl");
+        File snapshot = new File(dir, "doc.snapshot");
+        
+        NCLDoc expected = new NCLDoc();
+        expected.loadXML(source);
+        new NCLSnapshotWriter().write(expected, snapshot);
+        
+        NCLSnapshotReader reader = new NCLSnapshotReader(snapshot);
+        assertEquals(2, reader.getSources().size());
+        assertTrue(reader.isCurrent());
+        
+        NCLDoc result = reader.read();
+        assertEquals(expected.parse(0), result.parse(0));
+        assertSame(result, result.getBody().getParent());
+        
+        // references point to the elements of the snapshot
+        NCLDescriptor descriptor = (NCLDescriptor) result.getElementById("dpTV");
+        assertSame(result.getElementById("rgTV"), descriptor.getRegion());
+        
+        NCLImport imp = (NCLImport) result.getHead().getConnectorBase().getImportBases().get(0);
+        assertNotNull(imp.getImportedDoc());
+        assertEquals(((NCLImport) expected.getHead().getConnectorBase().getImportBases().get(0)).getImportedDoc().parse(0),
+                imp.getImportedDoc().parse(0));
+    }
+
+    @Test
+    public void test2() throws Exception {
+        File dir = copyDocuments();
+        File source = new File(dir, "doc.ncl");
+        File snapshot = new File(dir, "doc.snapshot");
+        
+        NCLDoc doc = NCLSnapshotReader.load(source, snapshot);
+        assertTrue(snapshot.isFile());
+        assertTrue(new NCLSnapshotReader(snapshot).isCurrent());
+        
+        // changing an imported document invalidates the snapshot
+        FileWriter out = new FileWriter(new File(dir, "base.ncl"), true);
+        out.write("\n");
+        out.close();
+        
+        NCLSnapshotReader reader = new NCLSnapshotReader(snapshot);
+        assertFalse(reader.isCurrent());
+        try{
+            reader.read();
+            fail("An out of date snapshot was read.");
+        }catch(XMLException ex){}
+        
+        NCLDoc result = NCLSnapshotReader.load(source, snapshot);
+        assertEquals(doc.parse(0), result.parse(0));
+        assertTrue(new NCLSnapshotReader(snapshot).isCurrent());
+    }
+
+    @Test
+    public void test3() throws Exception {
+        File dir = copyDocuments();
+        NCLDoc doc = new NCLDoc();
+        doc.loadXML(new File(dir, "doc.ncl"));
+        
+        // only the classes of the API can be stored
+        NCLMedia media = new NCLMedia() {};
+        media.setId("extra");
+        doc.getBody().addNode(media);
+        try{
+            new NCLSnapshotWriter().write(doc, new File(dir, "doc.snapshot"));
+            fail("An object of an unknown class was stored.");
+        }catch(XMLException ex){}
+    }
+
+    @Test
+    public void test4() throws Exception {
+        File dir = copyDocuments();
+        File snapshot = new File(dir, "doc.snapshot");
+        NCLDoc doc = new NCLDoc();
+        doc.loadXML(new File(dir, "doc.ncl"));
+        new NCLSnapshotWriter().write(doc, snapshot);
+        
+        NCLDoc result = new NCLSnapshotReader(snapshot).read();
+        
+        // the lists and registries are built by the elements when read
+        NCLRegion region = (NCLRegion) result.getElementById("rgTV");
+        NCLDescriptor descriptor = (NCLDescriptor) result.getElementById("dpTV");
+        assertEquals(1, region.getReferences().size());
+        assertSame(descriptor, region.getReferences().get(0));
+        
+        region.setId("rgMain");
+        assertSame(region, result.getElementById("rgMain"));
+        assertNull(result.getElementById("rgTV"));
+        
+        result.getHead().getDescriptorBase().removeDescriptor(descriptor);
+        assertNull(result.getElementById("dpTV"));
+    }
+
+    @Test
+    public void test5() throws Exception {
+        File dir = copyDocuments();
+        File source = new File(dir, "doc.ncl");
+        File snapshot = new File(dir, "doc.snapshot");
+        NCLDoc doc = NCLSnapshotReader.load(source, snapshot);
+        
+        // a snapshot written with another layout of the classes is refused
+        RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+        file.seek(5);
+        int b = file.read();
+        file.seek(5);
+        file.write(b ^ 1);
+        file.close();
+        try{
+            new NCLSnapshotReader(snapshot);
+            fail("A snapshot with another layout was accepted.");
+        }catch(XMLException ex){}
+        
+        // and the document is parsed again
+        NCLDoc result = NCLSnapshotReader.load(source, snapshot);
+        assertEquals(doc.parse(0), result.parse(0));
+        assertTrue(new NCLSnapshotReader(snapshot).isCurrent());
+    }
+    
+    
+    private File copyDocuments() throws IOException, URISyntaxException {
+        File dir = NCLDocLoader.createDirectory();
+        
+        for(String name : new String[]{"doc.ncl", "base.ncl"}){
+            File target = new File(dir, name);
+            target.deleteOnExit();
+            copy(new File(getClass().getResource("../../../../../../" + name).toURI()), target);
+        }
+        new File(dir, "doc.snapshot").deleteOnExit();
+        
+        return dir;
+    }
+    
+    
+    private void copy(File from, File to) throws IOException {
+        InputStream in = new FileInputStream(from);
+        OutputStream out = new FileOutputStream(to);
+        byte[] buffer = new byte[4096];
+        int n;
+        while((n = in.read(buffer)) > 0)
+            out.write(buffer, 0, n);
+        in.close();
+        out.close();
+    }
+}
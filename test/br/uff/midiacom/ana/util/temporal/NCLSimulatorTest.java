@@ -0,0 +1,149 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.enums.NCLDefaultValueAssessment;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.enums.NCLKey;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.IOException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLSimulatorTest {
+    
+    @Test
+    public void test1() throws XMLException, IOException {
+        NCLDoc d = NCLDocLoader.load("<ncl id='doc'><head><descriptorBase>"+
+                "<descriptor id='d10' explicitDur='10s'/><descriptor id='d2' explicitDur='2s'/>"+
+                "</descriptorBase><connectorBase>"+
+                "<causalConnector id='onKeySelectionStart'><connectorParam name='k'/>"+
+                "<simpleCondition role='onSelection' key='$k'/><simpleAction role='start'/></causalConnector>"+
+                "<causalConnector id='onBeginSet'><connectorParam name='v'/>"+
+                "<simpleCondition role='onBegin'/><simpleAction role='set' value='$v'/></causalConnector>"+
+                "<causalConnector id='onEndTestStart'><compoundCondition operator='and'>"+
+                "<simpleCondition role='onEnd'/><assessmentStatement comparator='eq'>"+
+                "<attributeAssessment role='test' eventType='attribution' attributeType='nodeProperty'/>"+
+                "<valueAssessment value='1'/></assessmentStatement></compoundCondition>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase></head>"+
+                "<body id='b'><port id='p' component='m1'/>"+
+                "<media id='m1' src='a.mp4' descriptor='d10'><property name='p' value='0'/></media>"+
+                "<media id='m2' src='b.mp4' descriptor='d2'/><media id='m3' src='c.png'/>"+
+                "<link xconnector='onKeySelectionStart'><bind role='onSelection' component='m1'>"+
+                "<bindParam name='k' value='RED'/></bind><bind role='start' component='m2'/></link>"+
+                "<link xconnector='onBeginSet'><bind role='onBegin' component='m2'/>"+
+                "<bind role='set' component='m1' interface='p'><bindParam name='v' value='1'/></bind></link>"+
+                "<link xconnector='onEndTestStart'><bind role='onEnd' component='m2'/>"+
+                "<bind role='test' component='m1' interface='p'/><bind role='start' component='m3'/></link>"+
+                "</body></ncl>");
+        
+        NCLMedia m1 = (NCLMedia) d.getElementById("m1");
+        NCLMedia m2 = (NCLMedia) d.getElementById("m2");
+        NCLMedia m3 = (NCLMedia) d.getElementById("m3");
+        NCLProperty p = (NCLProperty) m1.getProperties().iterator().next();
+        NCLTemporalGraph graph = new NCLTemporalGraph(d);
+        NCLTemporalEvent e1 = graph.getEvent(m1, null, NCLEventType.PRESENTATION);
+        NCLTemporalEvent e2 = graph.getEvent(m2, null, NCLEventType.PRESENTATION);
+        NCLTemporalEvent e3 = graph.getEvent(m3, null, NCLEventType.PRESENTATION);
+        NCLTemporalEvent ep = graph.getEvent(m1, p, NCLEventType.ATTRIBUTION);
+        
+        NCLSimulator sim = new NCLSimulator(graph);
+        sim.start();
+        assertEquals(NCLDefaultValueAssessment.OCCURRING, sim.getState(e1));
+        assertEquals("0", sim.getPropertyValue(ep).toString());
+        
+        // a selection with another key does not start the media
+        sim.advance(1);
+        assertFalse(sim.select(m2, null, NCLKey.RED));
+        assertTrue(sim.select(m1, null, NCLKey.BLUE));
+        assertEquals(NCLDefaultValueAssessment.SLEEPING, sim.getState(e2));
+        
+        assertTrue(sim.select(m1, null, NCLKey.RED));
+        assertEquals(NCLDefaultValueAssessment.OCCURRING, sim.getState(e2));
+        assertEquals("1", sim.getPropertyValue(ep).toString());
+        
+        // the end of m2 starts m3, since the property was set
+        sim.advance(2);
+        assertEquals(3.0, sim.getTime(), 0);
+        assertEquals(1, sim.getOccurrences(e2));
+        assertEquals(NCLDefaultValueAssessment.OCCURRING, sim.getState(e3));
+        
+        sim.runUntil(20);
+        assertEquals(NCLDefaultValueAssessment.OCCURRING, sim.getState(e3));
+        assertEquals(NCLDefaultValueAssessment.SLEEPING, sim.getState(e1));
+    }
+    
+    
+    @Test
+    public void test2() throws XMLException, IOException {
+        NCLDoc d = NCLDocLoader.load("<ncl id='doc'><head><descriptorBase>"+
+                "<descriptor id='d2' explicitDur='2s'/></descriptorBase><connectorBase>"+
+                "<causalConnector id='onBeginStartRepeat'><simpleCondition role='onBegin'/>"+
+                "<simpleAction role='start' delay='1s' repeat='2' repeatDelay='3'/></causalConnector>"+
+                "</connectorBase></head>"+
+                "<body><port id='p' component='m1'/><media id='m1' src='a.png'/>"+
+                "<media id='m2' src='b.mp4' descriptor='d2'/>"+
+                "<link xconnector='onBeginStartRepeat'><bind role='onBegin' component='m1'/>"+
+                "<bind role='start' component='m2'/></link></body></ncl>");
+        
+        NCLTemporalGraph graph = new NCLTemporalGraph(d);
+        NCLTemporalEvent e2 = graph.getEvent(d.getElementById("m2"), null, NCLEventType.PRESENTATION);
+        NCLSimulator sim = new NCLSimulator(graph);
+        sim.start();
+        sim.runUntil(100);
+        
+        // starts at 1, 6 and 11, each presentation lasting 2 seconds
+        assertEquals(3, sim.getOccurrences(e2));
+        assertEquals(0, sim.getRepetitions(e2));
+        assertFalse(sim.hasPending());
+        String[] expected = {"1.0s presentation m2 starts", "3.0s presentation m2 stops",
+            "6.0s presentation m2 starts", "8.0s presentation m2 stops",
+            "11.0s presentation m2 starts", "13.0s presentation m2 stops"};
+        int i = 0;
+        for(NCLTimelineEntry entry : sim.getTrace()){
+            if(entry.getEvent() == e2)
+                assertEquals(expected[i++], entry.toString());
+        }
+        assertEquals(expected.length, i);
+    }
+}
@@ -0,0 +1,116 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLTimelineSchedulerTest {
+    
+    @Test
+    public void test1() throws XMLException, IOException {
+        NCLDoc d = NCLDocLoader.load("<ncl id='doc'><head><descriptorBase>"+
+                "<descriptor id='d10' explicitDur='10s'/><descriptor id='d3' explicitDur='3s'/>"+
+                "<descriptor id='d1' explicitDur='1s'/></descriptorBase><connectorBase>"+
+                "<causalConnector id='onBeginStartDelay'><connectorParam name='d'/>"+
+                "<simpleCondition role='onBegin'/><simpleAction role='start' delay='$d'/></causalConnector>"+
+                "<causalConnector id='onEndStart'><simpleCondition role='onEnd'/>"+
+                "<simpleAction role='start'/></causalConnector>"+
+                "<causalConnector id='onSelectionStart'><simpleCondition role='onSelection'/>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase></head>"+
+                "<body id='b'><port id='p' component='m1'/>"+
+                "<media id='m1' src='a.mp4' descriptor='d10'><area id='a1' begin='2s' end='4s'/></media>"+
+                "<media id='m2' src='b.mp4' descriptor='d3'/><media id='m4' src='d.png'/>"+
+                "<context id='c'><port id='pc' component='m5'/><media id='m5' src='e.mp4' descriptor='d1'/></context>"+
+                "<link xconnector='onBeginStartDelay'><linkParam name='d' value='1s'/>"+
+                "<bind role='onBegin' component='m1' interface='a1'/><bind role='start' component='m2'/></link>"+
+                "<link xconnector='onEndStart'><bind role='onEnd' component='m2'/><bind role='start' component='c'/></link>"+
+                "<link xconnector='onSelectionStart'><bind role='onSelection' component='m2'/>"+
+                "<bind role='start' component='m4'/></link></body></ncl>");
+        
+        NCLTemporalGraph graph = new NCLTemporalGraph(d);
+        NCLTimeline timeline = new NCLTimelineScheduler(graph).compute(100);
+        
+        String[] expected = {"0.0s presentation b starts", "0.0s presentation m1 starts",
+            "2.0s presentation m1#a1 starts", "3.0s presentation m2 starts",
+            "4.0s presentation m1#a1 stops", "6.0s presentation m2 stops",
+            "6.0s presentation c starts", "6.0s presentation m5 starts",
+            "7.0s presentation m5 stops", "7.0s presentation c stops",
+            "10.0s presentation m1 stops", "10.0s presentation b stops"};
+        List<NCLTimelineEntry> entries = timeline.getEntries();
+        assertEquals(expected.length, entries.size());
+        for(int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], entries.get(i).toString());
+        assertFalse(timeline.isTruncated());
+        
+        // the selection is not predictable
+        NCLTemporalEvent selection = graph.getEvent(d.getElementById("m2"), null, NCLEventType.SELECTION);
+        assertNotNull(selection);
+        assertFalse(selection.getEdges().get(0).isPredictable());
+        assertNull(timeline.getStartTime(graph.getEvent(d.getElementById("m4"), null, NCLEventType.PRESENTATION)));
+    }
+    
+    
+    @Test
+    public void test2() throws XMLException, IOException {
+        NCLDoc d = NCLDocLoader.load("<ncl id='doc'><head><descriptorBase>"+
+                "<descriptor id='d2' explicitDur='2s'/></descriptorBase><connectorBase>"+
+                "<causalConnector id='onEndStart'><simpleCondition role='onEnd'/>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase></head>"+
+                "<body><port id='p' component='m1'/><media id='m1' src='a.mp4' descriptor='d2'/>"+
+                "<link xconnector='onEndStart'><bind role='onEnd' component='m1'/>"+
+                "<bind role='start' component='m1'/></link></body></ncl>");
+        
+        NCLTemporalGraph graph = new NCLTemporalGraph(d);
+        NCLTimeline timeline = new NCLTimelineScheduler(graph).compute(9);
+        
+        assertTrue(timeline.isTruncated());
+        List<NCLTimelineEntry> entries = timeline.getEntries(graph.getEvent(d.getElementById("m1"), null, NCLEventType.PRESENTATION));
+        assertEquals(9, entries.size());
+        assertEquals(8.0, entries.get(8).getTime(), 0);
+        assertEquals(NCLEventTransition.STARTS, entries.get(8).getTransition());
+    }
+}
@@ -0,0 +1,138 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLIncrementalValidatorTest {
+    
+    private NCLDoc load() throws XMLException, IOException {
+        String xml = "<ncl id='doc'><head>"+
+                "<regionBase><region id='rg' width='50%'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg'/></descriptorBase>"+
+                "<connectorBase><causalConnector id='cn'><simpleCondition role='onBegin'/>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase>"+
+                "</head><body><port id='p' component='m1'/>"+
+                "<media id='m1' src='a.png' descriptor='dp'/>"+
+                "<media id='m2' src='b.png'/><media id='m3' src='c.png'/>"+
+                "<link xconnector='cn'><bind role='onBegin' component='m1'/>"+
+                "<bind role='start' component='m2'/></link>"+
+                "</body></ncl>";
+        return NCLDocLoader.load(xml);
+    }
+    
+    
+    private List<String> strings(List<NCLDiagnostic> diagnostics) {
+        List<String> result = new ArrayList<String>();
+        for(NCLDiagnostic d : diagnostics)
+            result.add(d.toString());
+        
+        Collections.sort(result);
+        return result;
+    }
+    
+    
+    @Test
+    public void test1() throws XMLException, IOException, InterruptedException {
+        NCLDoc d = load();
+        NCLModificationNotifier notifier = new NCLModificationNotifier(0, null);
+        d.setModificationNotifier(notifier);
+        
+        NCLIncrementalValidator validator = new NCLIncrementalValidator(d);
+        validator.start();
+        assertTrue(validator.getDiagnostics().isEmpty());
+        
+        NCLRegion rg = (NCLRegion) d.getElementById("rg");
+        rg.setWidth(120.0);
+        
+        NCLLink link = (NCLLink) d.getBody().getLinks().get(0);
+        link.removeBind((NCLBind) link.getBinds().get(1));
+        
+        NCLMedia m3 = (NCLMedia) d.getElementById("m3");
+        m3.setId("m2");
+        d.getBody().addNode(new NCLMedia("m2"));
+        d.getBody().removeNode(m3);
+        
+        notifier.finish();
+        validator.stop();
+        
+        List<String> result = strings(validator.getDiagnostics());
+        assertEquals(strings(new NCLValidator().validate(d)), result);
+        
+        // width, cardinality and two repeated ids
+        assertEquals(4, result.size());
+    }
+    
+    
+    @Test
+    public void test2() throws XMLException, IOException, InterruptedException {
+        NCLDoc d = load();
+        NCLIncrementalValidator validator = new NCLIncrementalValidator(d);
+        
+        // the global notifier is not used
+        try{
+            validator.start();
+            fail();
+        }catch(XMLException e){}
+        assertTrue(validator.getDiagnostics().isEmpty());
+        
+        NCLModificationNotifier notifier = new NCLModificationNotifier(0, null);
+        d.setModificationNotifier(notifier);
+        validator.start();
+        validator.stop();
+        
+        // a stopped validator is no longer updated
+        ((NCLRegion) d.getElementById("rg")).setWidth(120.0);
+        notifier.finish();
+        assertTrue(validator.getDiagnostics().isEmpty());
+    }
+}
@@ -0,0 +1,202 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.validation;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLDocLoader;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.validation.NCLDiagnostic.Severity;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLValidatorTest {
+    
+    private List<String> find(List<NCLDiagnostic> result, String check) {
+        List<String> found = new ArrayList<String>();
+        for(NCLDiagnostic d : result){
+            if(d.getCheck().equals(check))
+                found.add(d.toString());
+        }
+        
+        return found;
+    }
+    
+    
+    @Test
+    public void test1() throws XMLException, IOException {
+        NCLDoc d = NCLDocLoader.load("<ncl id='doc'><head>"+
+                "<regionBase><region id='rg' left='10%' width='80%'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg' focusIndex='1'/></descriptorBase>"+
+                "<connectorBase><causalConnector id='cn'><simpleCondition role='onBegin'/>"+
+                "<simpleAction role='start' max='unbounded'/></causalConnector></connectorBase>"+
+                "</head><body><port id='p' component='m1'/>"+
+                "<media id='m1' src='a.png' descriptor='dp'><area id='a1' begin='1s'/></media>"+
+                "<media id='m2' src='b.png'/><media id='m3' src='c.png'/>"+
+                "<link xconnector='cn'><bind role='onBegin' component='m1'/>"+
+                "<bind role='start' component='m2'/><bind role='start' component='m3'/></link>"+
+                "</body></ncl>");
+        
+        assertTrue(new NCLValidator().validate(d).isEmpty());
+    }
+    
+    
+    @Test
+    public void test2() throws XMLException, IOException {
+        NCLDoc d = NCLDocLoader.load("<ncl id='doc'><head>"+
+                "<regionBase><region id='rg' left='30%' width='80%' right='10%'/></regionBase>"+
+                "<descriptorBase><descriptor id='dp' region='rg' focusBorderWidth='2'/></descriptorBase>"+
+                "<transitionBase><transition id='tr' type='fade' subtype='leftToRight'/></transitionBase>"+
+                "<connectorBase><causalConnector id='cn'><simpleCondition role='onBegin'/>"+
+                "<simpleAction role='start'/></causalConnector></connectorBase>"+
+                "</head><body><port id='p' component='m1'/>"+
+                "<media id='m1' src='a.png' descriptor='dp'/>"+
+                "<media id='m2' src='b.png'><area id='a2' begin='1s'/></media>"+
+                "<context id='c'><media id='m2' src='c.png'/>"+
+                "<link xconnector='cn'><bind role='onBegin' component='m2'/></link></context>"+
+                "</body></ncl>");
+        
+        NCLPort port = (NCLPort) d.getElementById("p");
+        port.setInterface((NCLArea) d.getElementById("a2"));
+        
+        List<NCLDiagnostic> result = new NCLValidator().validate(d);
+        
+        assertEquals(2, find(result, "region").size());
+        assertEquals(2, find(result, "descriptor").size());
+        assertEquals(1, find(result, "cardinality").size());
+        assertEquals(2, find(result, "id").size());
+        assertEquals(1, find(result, "reference").size());
+        
+        for(NCLDiagnostic diag : result){
+            if(diag.getCheck().equals("region"))
+                assertEquals(Severity.WARNING, diag.getSeverity());
+        }
+        
+        // the result does not depend on the parallelism
+        List<NCLDiagnostic> again = new NCLValidator(new ForkJoinPool(1)).validate(d);
+        assertEquals(result.size(), again.size());
+        for(int i = 0; i < result.size(); i++)
+            assertEquals(result.get(i).toString(), again.get(i).toString());
+    }
+    
+    
+    @Test
+    public void test3() throws XMLException, IOException {
+        NCLDoc d = NCLDocLoader.load("<ncl id='doc'><head/><body>"+
+                "<media id='m1' src='a.png'/><media id='m2' src='b.png'/>"+
+                "</body></ncl>");
+        
+        NCLValidator validator = new NCLValidator();
+        for(NCLValidationCheck check : new ArrayList<NCLValidationCheck>(validator.getChecks()))
+            validator.removeCheck(check);
+        
+        validator.addCheck(new NCLValidationCheck() {
+            @Override
+            public String getName() {
+                return "media";
+            }
+
+            @Override
+            public void check(XMLElement element, NCLValidationContext context) {
+                if(element instanceof NCLMedia && "m2".equals(((NCLMedia) element).getId()))
+                    throw new IllegalStateException("fail");
+                if(element instanceof NCLMedia)
+                    context.addWarning(element, "media found");
+            }
+        });
+        
+        List<NCLDiagnostic> result = validator.validate(d);
+        assertEquals(2, result.size());
+        assertEquals(Severity.WARNING, result.get(0).getSeverity());
+        assertSame(d.getElementById("m1"), result.get(0).getElement());
+        assertEquals(Severity.ERROR, result.get(1).getSeverity());
+        assertSame(d.getElementById("m2"), result.get(1).getElement());
+    }
+    
+    
+    @Test
+    public void test4() throws XMLException, IOException {
+        // two contexts large enough to be forked and a small one visited inline
+        StringBuilder xml = new StringBuilder("<ncl id='doc'><head/><body>");
+        List<String> ids = new ArrayList<String>();
+        int[] sizes = {NCLValidator.FORK_THRESHOLD, 3, NCLValidator.FORK_THRESHOLD * 2};
+        for(int c = 0; c < sizes.length; c++){
+            xml.append("<context id='c" + c + "'>");
+            for(int m = 0; m < sizes[c]; m++){
+                String id = "m" + c + "_" + m;
+                xml.append("<media id='" + id + "' src='a.png'/>");
+                ids.add(id);
+            }
+            xml.append("</context>");
+        }
+        xml.append("</body></ncl>");
+        NCLDoc d = NCLDocLoader.load(xml.toString());
+        
+        NCLValidationCheck media = new NCLValidationCheck() {
+            @Override
+            public String getName() {
+                return "media";
+            }
+
+            @Override
+            public void check(XMLElement element, NCLValidationContext context) {
+                if(element instanceof NCLMedia)
+                    context.addWarning(element, "media found");
+            }
+        };
+        
+        NCLValidator validator = new NCLValidator();
+        validator.addCheck(media);
+        NCLValidator single = new NCLValidator(new ForkJoinPool(1));
+        single.addCheck(media);
+        
+        List<String> found = find(validator.validate(d), "media");
+        assertEquals(ids.size(), found.size());
+        for(int i = 0; i < ids.size(); i++)
+            assertTrue(found.get(i).contains("'" + ids.get(i) + "'"));
+        assertEquals(found, find(single.validate(d), "media"));
+    }
+}
@@ -0,0 +1,67 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.xml;
+
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.List;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import static org.junit.Assert.*;
+
+
+public class XMLChildElementsTest {
+
+    @Test
+    public void testChildren() throws XMLException {
+        String xml = "<regionBase><region id='r1'><region id='r2'/></region><importBase alias='a'/><region id='r3'/></regionBase>";
+        Element element = new XMLLoader(xml).getElement();
+        
+        List<Element> regions = XMLChildElements.getChildren(element, "region");
+        assertEquals(2, regions.size());
+        assertEquals("r1", regions.get(0).getAttribute("id"));
+        assertEquals("r3", regions.get(1).getAttribute("id"));
+        assertSame(regions, XMLChildElements.getChildren(element, "region"));
+        
+        assertEquals("a", XMLChildElements.getChild(element, "importBase").getAttribute("alias"));
+        assertNull(XMLChildElements.getChild(element, "descriptor"));
+        assertTrue(XMLChildElements.getChildren(element, "descriptor").isEmpty());
+        
+        assertEquals("r2", XMLChildElements.getChild(regions.get(0), "region").getAttribute("id"));
+    }
+}